@@ -1,20 +1,43 @@
 package com.casestudy.cryptoexchangeapi.common.audit;
 
 import com.casestudy.cryptoexchangeapi.common.model.entity.BaseEntity;
+import com.casestudy.cryptoexchangeapi.common.model.entity.IdentifiedEntity;
+import com.casestudy.cryptoexchangeapi.common.utils.TimeOrderedIds;
 import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
 import org.springframework.data.mongodb.core.mapping.event.BeforeConvertEvent;
 import org.springframework.stereotype.Component;
 
-import java.lang.reflect.Field;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.time.LocalDateTime;
-import java.util.UUID;
+import java.util.Optional;
 
 /**
  * Listener for MongoDB lifecycle events to manage auditing fields in {@link BaseEntity}.
+ * <p>
+ * Runs on every save, so it does no reflective lookups: entities implementing {@link IdentifiedEntity} get their id
+ * through their accessors, and any other entity through a {@link VarHandle} on its {@code String id} field that is
+ * looked up once per class.
  */
 @Component
 public class BaseEntityListener extends AbstractMongoEventListener<BaseEntity> {
 
+    /**
+     * The {@code id} field of each entity class without {@link IdentifiedEntity}, empty when it has none.
+     */
+    private static final ClassValue<Optional<VarHandle>> ID_FIELDS = new ClassValue<>() {
+        @Override
+        protected Optional<VarHandle> computeValue(Class<?> type) {
+            try {
+                return Optional.of(MethodHandles.privateLookupIn(type, MethodHandles.lookup())
+                        .findVarHandle(type, "id", String.class));
+            } catch (NoSuchFieldException | IllegalAccessException e) {
+                // No 'id' field, or it can't be accessed: the entity is left as is
+                return Optional.empty();
+            }
+        }
+    };
+
     /**
      * Sets auditing fields before converting the entity to a MongoDB document.
      *
@@ -34,24 +57,30 @@ public class BaseEntityListener extends AbstractMongoEventListener<BaseEntity> {
     }
 
     /**
-     * Checks if the entity has an 'id' field and sets it to a new UUID if it is null or empty.
+     * Sets the entity's id to a new time-ordered UUID if it has one that is null or empty, so inserts append to the
+     * {@code _id} index instead of landing on random pages of it.
      *
      * @param entity the entity to check and modify
      */
     private void setEntityIdIfNeeded(BaseEntity entity) {
-        try {
-            // Use reflection to check if the entity has an 'id' field
-            Field idField = entity.getClass().getDeclaredField("id");
-            idField.setAccessible(true);  // Make the field accessible
-
-            // If the field is null or empty, set it to a new UUID
-            Object idValue = idField.get(entity);
-            if (idValue == null || idValue.toString().isEmpty()) {
-                idField.set(entity, UUID.randomUUID().toString());
+
+        if (entity instanceof IdentifiedEntity identified) {
+            if (isEmpty(identified.getId())) {
+                identified.setId(TimeOrderedIds.next());
             }
-        } catch (NoSuchFieldException | IllegalAccessException e) {
-            // If no 'id' field is found, or it can't be accessed, ignore (entity may not have an 'id' field)
+            return;
         }
+
+        ID_FIELDS.get(entity.getClass()).ifPresent(idField -> {
+            if (isEmpty((String) idField.get(entity))) {
+                idField.set(entity, TimeOrderedIds.next());
+            }
+        });
+
+    }
+
+    private static boolean isEmpty(String id) {
+        return id == null || id.isEmpty();
     }
 
 }
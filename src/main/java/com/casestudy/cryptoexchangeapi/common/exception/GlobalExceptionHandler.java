@@ -112,6 +112,25 @@ public class GlobalExceptionHandler {
 
     }
 
+    /**
+     * Handles every {@link ApiException}, answering with the status and header the exception declares.
+     *
+     * @param ex The ApiException that is thrown.
+     * @return ResponseEntity containing the custom error message.
+     */
+    @ExceptionHandler(ApiException.class)
+    protected ResponseEntity<Object> handleApiException(final ApiException ex) {
+
+        CustomError customError = CustomError.builder()
+                .httpStatus(ex.getStatus())
+                .header(ex.getHeader().getName())
+                .message(ex.getMessage())
+                .build();
+
+        return new ResponseEntity<>(customError, ex.getStatus());
+
+    }
+
     @ExceptionHandler(ConversionFailedException.class)
     protected ResponseEntity<Object> handleConversionFailed(final ConversionFailedException ex) {
 
@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
 
@@ -29,6 +30,8 @@ public class CustomPage<T> {
 
     private Integer totalPageCount;
 
+    private String nextCursor;
+
     /**
      * Converts a Spring {@link Page} into a {@link CustomPage}, preserving pagination metadata.
      *
@@ -48,4 +51,33 @@ public class CustomPage<T> {
                 .build();
     }
 
+    /**
+     * Converts a Spring {@link Slice} into a {@link CustomPage} with the token of the next page. A {@link Page}
+     * keeps its pagination metadata; a keyset slice has no page number or totals, since it is read without counting.
+     *
+     * @param domainModels the content to be returned
+     * @param slice the source Spring slice object
+     * @param nextCursor token continuing after this slice, or {@code null}
+     * @param <C> the type of the response content
+     * @param <X> the type of the original slice content
+     * @return a {@link CustomPage} instance
+     */
+    public static <C, X> CustomPage<C> of(final List<C> domainModels, final Slice<X> slice, final String nextCursor) {
+        if (slice instanceof Page<X> page) {
+            return CustomPage.<C>builder()
+                    .content(domainModels)
+                    .pageNumber(page.getNumber() + 1)
+                    .pageSize(page.getSize())
+                    .totalPageCount(page.getTotalPages())
+                    .totalElementCount(page.getTotalElements())
+                    .nextCursor(nextCursor)
+                    .build();
+        }
+        return CustomPage.<C>builder()
+                .content(domainModels)
+                .pageSize(slice.getSize())
+                .nextCursor(nextCursor)
+                .build();
+    }
+
 }
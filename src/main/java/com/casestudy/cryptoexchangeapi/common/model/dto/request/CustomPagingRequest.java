@@ -28,6 +28,8 @@ public class CustomPagingRequest {
 
     private CustomSorting sorting; // Optional
 
+    private String cursor; // Optional: nextCursor of the previous page, continues after it instead of paging by number
+
     /**
      * Converts the request into a Spring Data {@link Pageable} object
      * with optional sorting.
@@ -25,6 +25,8 @@ public class CustomPagingResponse<T> {
 
     private Integer totalPageCount;
 
+    private String nextCursor;
+
     /**
      * Builder class for {@link CustomPagingResponse}.
      *
@@ -44,7 +46,8 @@ public class CustomPagingResponse<T> {
                     .pageNumber(customPage.getPageNumber())
                     .pageSize(customPage.getPageSize())
                     .totalElementCount(customPage.getTotalElementCount())
-                    .totalPageCount(customPage.getTotalPageCount());
+                    .totalPageCount(customPage.getTotalPageCount())
+                    .nextCursor(customPage.getNextCursor());
         }
 
     }
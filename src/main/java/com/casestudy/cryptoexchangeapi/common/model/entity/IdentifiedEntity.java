@@ -0,0 +1,14 @@
+package com.casestudy.cryptoexchangeapi.common.model.entity;
+
+/**
+ * An entity with a {@code String} id that {@link com.casestudy.cryptoexchangeapi.common.audit.BaseEntityListener}
+ * assigns before the first save when it is missing. Implementing it lets the listener set the id through plain
+ * accessor calls instead of looking the field up.
+ */
+public interface IdentifiedEntity {
+
+    String getId();
+
+    void setId(String id);
+
+}
@@ -0,0 +1,110 @@
+package com.casestudy.cryptoexchangeapi.common.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free Bloom filter over string keys.
+ * <p>
+ * {@link #mightContain(String)} never answers {@code false} for a key that was {@link #put(String)}; for a key
+ * that was not, it answers {@code true} with about the configured false positive probability as long as no more
+ * than the expected number of keys were put. Keys cannot be removed.
+ */
+public class BloomFilter {
+
+    private static final double LN2 = Math.log(2);
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+
+    /**
+     * @param expectedInsertions number of keys the filter is sized for
+     * @param falsePositiveRate  false positive probability at {@code expectedInsertions} keys, in {@code (0, 1)}
+     */
+    public BloomFilter(int expectedInsertions, double falsePositiveRate) {
+
+        if (expectedInsertions < 1) {
+            throw new IllegalArgumentException("expectedInsertions must be positive");
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1");
+        }
+
+        long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (LN2 * LN2));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (optimalBits + 63) >>> 6));
+
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = (long) wordCount << 6;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * LN2));
+
+    }
+
+    public void put(String key) {
+
+        long hash = hash64(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = index(h1 + i * h2);
+            long mask = 1L << bit;
+            int word = (int) (bit >>> 6);
+            long current = words.get(word);
+            while ((current & mask) == 0 && !words.weakCompareAndSetVolatile(word, current, current | mask)) {
+                current = words.get(word);
+            }
+        }
+
+    }
+
+    public boolean mightContain(String key) {
+
+        long hash = hash64(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = index(h1 + i * h2);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+
+        return true;
+
+    }
+
+    /**
+     * @return number of hash functions applied per key
+     */
+    public int hashCount() {
+        return hashCount;
+    }
+
+    private long index(int combinedHash) {
+        return (combinedHash & 0x7fffffffL) % bitCount;
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes, finished with the MurmurHash3 mixer so both halves are well spread.
+     */
+    private static long hash64(String key) {
+
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+
+        return hash;
+
+    }
+
+}
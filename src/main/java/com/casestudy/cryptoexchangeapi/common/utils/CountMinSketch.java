@@ -0,0 +1,111 @@
+package com.casestudy.cryptoexchangeapi.common.utils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Lock-free count-min sketch estimating how often keys were seen, in memory independent of the number of keys.
+ * <p>
+ * {@link #estimate(Object)} never answers less than the number of times a key was {@link #increment(Object)
+ * incremented} since the last aging, and answers more only when keys collide. After ten increments per counter in a
+ * row all counters are halved, so the sketch follows recent rather than all-time popularity.
+ */
+public class CountMinSketch {
+
+    private static final int DEPTH = 4;
+    private static final int[] SEEDS = {0x97cb3127, 0xb4b82e93, 0x8f6f1b3d, 0xc2b2ae35};
+
+    private final AtomicIntegerArray counters;
+    private final int width;
+    private final int sampleSize;
+    private final AtomicInteger additions = new AtomicInteger();
+    private final AtomicInteger agings = new AtomicInteger();
+
+    /**
+     * @param expectedKeys number of distinct keys expected between two agings
+     */
+    public CountMinSketch(int expectedKeys) {
+
+        if (expectedKeys < 1) {
+            throw new IllegalArgumentException("expectedKeys must be positive");
+        }
+
+        this.width = Integer.highestOneBit(Math.min(1 << 24, Math.max(16, expectedKeys) * 2 - 1));
+        this.counters = new AtomicIntegerArray(DEPTH * width);
+        this.sampleSize = 10 * width;
+
+    }
+
+    /**
+     * Counts one occurrence of {@code key}.
+     *
+     * @return the estimated frequency of {@code key}, this occurrence included
+     */
+    public int increment(Object key) {
+
+        int hash = spread(key.hashCode());
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            int index = index(hash, row);
+            int current = counters.get(index);
+            while (current < Integer.MAX_VALUE && !counters.weakCompareAndSetVolatile(index, current, current + 1)) {
+                current = counters.get(index);
+            }
+            estimate = Math.min(estimate, current == Integer.MAX_VALUE ? current : current + 1);
+        }
+
+        if (additions.incrementAndGet() >= sampleSize) {
+            age();
+        }
+
+        return estimate;
+
+    }
+
+    /**
+     * @return the estimated frequency of {@code key}
+     */
+    public int estimate(Object key) {
+
+        int hash = spread(key.hashCode());
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters.get(index(hash, row)));
+        }
+        return estimate;
+
+    }
+
+    /**
+     * @return how often the counters were halved so far
+     */
+    public int agings() {
+        return agings.get();
+    }
+
+    private synchronized void age() {
+
+        if (additions.get() < sampleSize) {
+            return;
+        }
+
+        for (int i = 0; i < counters.length(); i++) {
+            counters.getAndUpdate(i, count -> count >>> 1);
+        }
+        additions.set(0);
+        agings.incrementAndGet();
+
+    }
+
+    private int index(int hash, int row) {
+        int h = hash * SEEDS[row];
+        h ^= h >>> 16;
+        return row * width + (h & (width - 1));
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x9e3779b9;
+        return h ^ (h >>> 15);
+    }
+
+}
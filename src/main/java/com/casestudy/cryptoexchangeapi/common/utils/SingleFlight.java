@@ -0,0 +1,140 @@
+package com.casestudy.cryptoexchangeapi.common.utils;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent calls for the same key into a single execution.
+ * The first caller (the leader) runs the loader; callers arriving while it is in flight
+ * (followers) wait for and share its outcome, whether that is a value or an exception.
+ * <p>
+ * Exposes {@code <name>.calls} (tagged by key and role), {@code <name>.waiters} per key
+ * and {@code <name>.coalescing.ratio} (share of calls served by another caller's execution).
+ *
+ * @param <K> key type
+ * @param <V> result type
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, AtomicInteger> waiters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Counter> leaderCalls = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Counter> followerCalls = new ConcurrentHashMap<>();
+
+    private final LongAdder totalCalls = new LongAdder();
+    private final LongAdder coalescedCalls = new LongAdder();
+
+    private final String name;
+    private final MeterRegistry meterRegistry;
+    private final Function<K, String> keyTag;
+
+    public SingleFlight(String name, MeterRegistry meterRegistry, Function<K, String> keyTag) {
+        this.name = name;
+        this.meterRegistry = meterRegistry;
+        this.keyTag = keyTag;
+        Gauge.builder(name + ".coalescing.ratio", this, SingleFlight::coalescingRatio)
+                .description("Share of calls that joined an execution already in flight")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs {@code loader} for {@code key} unless an execution for the same key is already in flight,
+     * in which case waits for that execution and returns its result.
+     *
+     * @param key    identity of the call
+     * @param loader work to execute when this caller becomes the leader
+     * @return the value produced by the leader
+     */
+    public V execute(K key, Supplier<V> loader) {
+
+        totalCalls.increment();
+        String tag = keyTag.apply(key);
+
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, mine);
+
+        if (existing != null) {
+            coalescedCalls.increment();
+            counter(followerCalls, tag, "follower").increment();
+            AtomicInteger waiting = waitersOf(tag);
+            waiting.incrementAndGet();
+            try {
+                return existing.join();
+            } catch (CompletionException ex) {
+                throw unwrap(ex);
+            } finally {
+                waiting.decrementAndGet();
+            }
+        }
+
+        counter(leaderCalls, tag, "leader").increment();
+        try {
+            V value = loader.get();
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error ex) {
+            mine.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+
+    }
+
+    /**
+     * @return the number of keys currently being loaded
+     */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * @return share of all calls so far that were served by another caller's execution
+     */
+    public double coalescingRatio() {
+        long total = totalCalls.sum();
+        return total == 0 ? 0.0 : (double) coalescedCalls.sum() / total;
+    }
+
+    private AtomicInteger waitersOf(String tag) {
+        return waiters.computeIfAbsent(tag, t -> {
+            AtomicInteger gauge = new AtomicInteger();
+            Gauge.builder(name + ".waiters", gauge, AtomicInteger::get)
+                    .description("Callers currently waiting on an in-flight execution")
+                    .tag("key", t)
+                    .register(meterRegistry);
+            return gauge;
+        });
+    }
+
+    private Counter counter(ConcurrentMap<String, Counter> counters, String tag, String role) {
+        return counters.computeIfAbsent(tag, t -> Counter.builder(name + ".calls")
+                .description("Calls by key and whether they executed (leader) or joined (follower)")
+                .tag("key", t)
+                .tag("role", role)
+                .register(meterRegistry));
+    }
+
+    private static RuntimeException unwrap(CompletionException ex) {
+        Throwable cause = ex.getCause();
+        if (cause instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return ex;
+    }
+
+}
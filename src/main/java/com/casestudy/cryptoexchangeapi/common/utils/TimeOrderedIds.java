@@ -0,0 +1,71 @@
+package com.casestudy.cryptoexchangeapi.common.utils;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generates time-ordered identifiers in the UUID version 7 layout (RFC 9562): 48 bits of Unix epoch milliseconds,
+ * 12 bits of sub-millisecond clock precision, then 62 random bits.
+ * <p>
+ * Identifiers created later sort after earlier ones, both as {@link UUID} and as their lower-case string form, so
+ * inserts keyed by them append to the right-most pages of a B-tree index instead of scattering across it. No state
+ * is shared between threads: the clock is read per call and the random bits come from {@link ThreadLocalRandom}.
+ * Two identifiers drawn in the same clock tick are ordered by their random bits only.
+ */
+public final class TimeOrderedIds {
+
+    private static final long VERSION = 0x7000L;
+    private static final long VARIANT = 0x8000000000000000L;
+    private static final long RANDOM_MASK = 0x3FFFFFFFFFFFFFFFL;
+
+    private TimeOrderedIds() {
+    }
+
+    /**
+     * @return a new identifier for the current instant in its string form
+     */
+    public static String next() {
+        return nextUuid().toString();
+    }
+
+    public static UUID nextUuid() {
+        Instant now = Instant.now();
+        return of(now, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * @return the smallest identifier that can be created at {@code instant}
+     */
+    public static String lowerBound(Instant instant) {
+        return of(instant, 0L).toString();
+    }
+
+    /**
+     * @return the instant {@code id} was created at, truncated to milliseconds, or {@code null} when {@code id}
+     * is not a version 7 identifier
+     */
+    public static Instant timestampOf(String id) {
+
+        if (id == null || id.length() != 36 || id.charAt(14) != '7') {
+            return null;
+        }
+
+        try {
+            UUID uuid = UUID.fromString(id);
+            return uuid.version() == 7 ? Instant.ofEpochMilli(uuid.getMostSignificantBits() >>> 16) : null;
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+
+    }
+
+    private static UUID of(Instant instant, long random) {
+        long millis = instant.toEpochMilli();
+        long subMillis = (instant.getNano() % 1_000_000) * 4096L / 1_000_000;
+        long mostSignificant = (millis << 16) | VERSION | subMillis;
+        long leastSignificant = VARIANT | (random & RANDOM_MASK);
+        return new UUID(mostSignificant, leastSignificant);
+    }
+
+}
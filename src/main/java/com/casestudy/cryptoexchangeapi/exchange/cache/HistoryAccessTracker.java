@@ -0,0 +1,106 @@
+package com.casestudy.cryptoexchangeapi.exchange.cache;
+
+import com.casestudy.cryptoexchangeapi.common.utils.CountMinSketch;
+import com.casestudy.cryptoexchangeapi.exchange.config.HistoryCacheProperties;
+import com.casestudy.cryptoexchangeapi.exchange.model.HistoryQuery;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks how often each {@link HistoryQuery} is looked up and keeps the {@code history-cache.refresh-ahead.tracked-keys}
+ * hottest ones.
+ * <p>
+ * Frequencies come from a {@link CountMinSketch} that ages over time, so the tracked set follows current traffic.
+ * A query enters the set once it reached {@code min-frequency} recent lookups and, when the set is full, is looked up
+ * more often than its coldest member, which it replaces.
+ */
+@Component
+public class HistoryAccessTracker {
+
+    private final CountMinSketch sketch;
+    private final int trackedKeys;
+    private final int minFrequency;
+
+    private final Set<HistoryQuery> hot = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Lowest frequency a query must exceed to enter the full set; reset whenever the sketch ages.
+     */
+    private volatile int admissionThreshold;
+    private volatile int seenAgings;
+
+    public HistoryAccessTracker(HistoryCacheProperties historyCacheProperties) {
+        HistoryCacheProperties.RefreshAhead properties = historyCacheProperties.getRefreshAhead();
+        this.sketch = new CountMinSketch(Math.max(1, properties.getSampleKeys()));
+        this.trackedKeys = Math.max(0, properties.getTrackedKeys());
+        this.minFrequency = properties.getMinFrequency();
+    }
+
+    public void record(Object key) {
+
+        if (!(key instanceof HistoryQuery query) || trackedKeys == 0) {
+            return;
+        }
+
+        int frequency = sketch.increment(query);
+        if (frequency < minFrequency || hot.contains(query)) {
+            return;
+        }
+
+        if (sketch.agings() != seenAgings) {
+            seenAgings = sketch.agings();
+            admissionThreshold = 0;
+        }
+
+        if (hot.size() < trackedKeys || frequency > admissionThreshold) {
+            admit(query, frequency);
+        }
+
+    }
+
+    public boolean isHot(Object key) {
+        return key instanceof HistoryQuery query && hot.contains(query);
+    }
+
+    /**
+     * @return the tracked queries, hottest first
+     */
+    public List<HistoryQuery> hottest() {
+        return hot.stream()
+                .sorted(Comparator.comparingInt(sketch::estimate).reversed())
+                .toList();
+    }
+
+    private synchronized void admit(HistoryQuery query, int frequency) {
+
+        if (hot.contains(query)) {
+            return;
+        }
+
+        if (hot.size() >= trackedKeys) {
+            Map.Entry<HistoryQuery, Integer> coldest = coldest();
+            if (coldest.getValue() >= frequency) {
+                admissionThreshold = coldest.getValue();
+                return;
+            }
+            hot.remove(coldest.getKey());
+        }
+
+        hot.add(query);
+        admissionThreshold = hot.size() < trackedKeys ? 0 : coldest().getValue();
+
+    }
+
+    private Map.Entry<HistoryQuery, Integer> coldest() {
+        return hot.stream()
+                .map(query -> Map.entry(query, sketch.estimate(query)))
+                .min(Map.Entry.comparingByValue())
+                .orElseThrow();
+    }
+
+}
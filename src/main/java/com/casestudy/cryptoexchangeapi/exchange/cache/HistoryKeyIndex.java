@@ -0,0 +1,108 @@
+package com.casestudy.cryptoexchangeapi.exchange.cache;
+
+import com.casestudy.cryptoexchangeapi.exchange.model.HistoryQuery;
+import com.casestudy.cryptoexchangeapi.exchange.model.entity.CryptoConvertEntity;
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCryptoCurrency;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Keys of the {@code exchange} history cache grouped by the currency pair of their filter, so invalidating a batch
+ * of conversions only visits the pages one of them can change instead of every cached page.
+ * <p>
+ * A key is indexed under its {@code (from, to)}, either of which may be unset; keys that are not a
+ * {@link HistoryQuery} count as unfiltered. A conversion from {@code A} to {@code B} can only change pages indexed
+ * under {@code (A, B)}, {@code (A, -)}, {@code (-, B)} and {@code (-, -)}.
+ * <p>
+ * The index may still hold keys that are no longer cached, which only costs a lookup, but never misses a cached
+ * key: a key is indexed before it is cached and unindexed only while it is not cached, both under the lock of its
+ * pair.
+ */
+@Component
+public class HistoryKeyIndex {
+
+    private static final Pair UNFILTERED = new Pair(null, null);
+
+    private final Map<Pair, Set<Object>> keys = new ConcurrentHashMap<>();
+
+    private volatile Map<Object, Object> cached = Map.of();
+
+    /**
+     * Binds the index to the entries of the cache it indexes.
+     */
+    public void bind(Map<Object, Object> cached) {
+        this.cached = cached;
+    }
+
+    /**
+     * @return whether {@code entries} are the entries of the cache this index is bound to
+     */
+    public boolean indexes(Map<?, ?> entries) {
+        return cached == entries;
+    }
+
+    /**
+     * Indexes {@code key}, then caches its page with {@code insert}.
+     */
+    public <T> T put(Object key, Supplier<T> insert) {
+        Set<Object> indexed = keys.computeIfAbsent(pair(key), pair -> ConcurrentHashMap.newKeySet());
+        synchronized (indexed) {
+            indexed.add(key);
+            return insert.get();
+        }
+    }
+
+    /**
+     * Unindexes a key removed from the cache, unless it was cached again meanwhile.
+     */
+    public void removed(Object key) {
+        Set<Object> indexed = keys.get(pair(key));
+        if (indexed == null) {
+            return;
+        }
+        synchronized (indexed) {
+            if (!cached.containsKey(key)) {
+                indexed.remove(key);
+            }
+        }
+    }
+
+    /**
+     * @return the indexed keys whose pages {@code conversions} may change, to be checked with
+     * {@link HistoryQuery#matches}
+     */
+    public Set<Object> candidates(Collection<CryptoConvertEntity> conversions) {
+
+        Set<Pair> pairs = new HashSet<>();
+        pairs.add(UNFILTERED);
+        for (CryptoConvertEntity conversion : conversions) {
+            pairs.add(new Pair(conversion.getFromCurrency(), conversion.getToCurrency()));
+            pairs.add(new Pair(conversion.getFromCurrency(), null));
+            pairs.add(new Pair(null, conversion.getToCurrency()));
+        }
+
+        Set<Object> candidates = new HashSet<>();
+        for (Pair pair : pairs) {
+            Set<Object> indexed = keys.get(pair);
+            if (indexed != null) {
+                candidates.addAll(indexed);
+            }
+        }
+        return candidates;
+
+    }
+
+    private static Pair pair(Object key) {
+        return key instanceof HistoryQuery query ? new Pair(query.from(), query.to()) : UNFILTERED;
+    }
+
+    private record Pair(EnumCryptoCurrency from, EnumCryptoCurrency to) {
+    }
+
+}
@@ -0,0 +1,108 @@
+package com.casestudy.cryptoexchangeapi.exchange.cache;
+
+import com.casestudy.cryptoexchangeapi.common.model.CustomPage;
+import com.casestudy.cryptoexchangeapi.exchange.config.HistoryCacheProperties;
+import com.casestudy.cryptoexchangeapi.exchange.model.HistoryQuery;
+import com.casestudy.cryptoexchangeapi.exchange.model.entity.CryptoConvertEntity;
+import com.casestudy.cryptoexchangeapi.exchange.model.event.HistoryInvalidatedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * {@link SharedHistoryTier} kept in the memory of this process, standing in for an out-of-process tier when the
+ * application runs alone or in tests. Several {@link com.casestudy.cryptoexchangeapi.exchange.config.TwoTierHistoryCache
+ * near caches} sharing one instance behave like separate instances sharing a real tier; broadcasts are delivered
+ * synchronously to every subscriber.
+ * <p>
+ * Like the Mongo tier, every page expires after its cache's ttl, and at the latest after {@code max-ttl}. Each cache
+ * also holds at most its {@code max-weight} rows, least recently used pages evicted first.
+ */
+@Service
+@ConditionalOnExpression("'${history-cache.shared.type:none}' == 'in-memory'")
+public class InMemorySharedHistoryTier implements SharedHistoryTier {
+
+    private final HistoryCacheProperties properties;
+
+    private final Map<String, Cache<Object, Entry>> caches = new ConcurrentHashMap<>();
+
+    private final List<Consumer<HistoryInvalidatedEvent>> subscribers = new CopyOnWriteArrayList<>();
+
+    public InMemorySharedHistoryTier(HistoryCacheProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public Object get(String cache, Object key) {
+        Entry entry = entries(cache).getIfPresent(key);
+        return entry == null ? null : entry.value();
+    }
+
+    @Override
+    public void put(String cache, Object key, Object value, Duration ttl) {
+        Duration maxTtl = Duration.ofMillis(properties.getShared().getMaxTtl());
+        entries(cache).put(key, new Entry(value, ttl.isZero() || ttl.compareTo(maxTtl) > 0 ? maxTtl : ttl));
+    }
+
+    @Override
+    public void evict(String cache, Object key) {
+        entries(cache).invalidate(key);
+    }
+
+    @Override
+    public void clear(String cache) {
+        entries(cache).invalidateAll();
+    }
+
+    @Override
+    public int evictMatching(String cache, Collection<CryptoConvertEntity> conversions) {
+
+        int evicted = 0;
+        Iterator<Object> keys = entries(cache).asMap().keySet().iterator();
+        while (keys.hasNext()) {
+            Object key = keys.next();
+            if (!(key instanceof HistoryQuery query) || conversions.stream().anyMatch(query::matches)) {
+                keys.remove();
+                evicted++;
+            }
+        }
+        return evicted;
+
+    }
+
+    @Override
+    public void publish(HistoryInvalidatedEvent event) {
+        subscribers.forEach(subscriber -> subscriber.accept(event));
+    }
+
+    @Override
+    public void subscribe(Consumer<HistoryInvalidatedEvent> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    private Cache<Object, Entry> entries(String cache) {
+        return caches.computeIfAbsent(cache, name -> Caffeine.newBuilder()
+                .maximumWeight(properties.spec(name).getMaxWeight())
+                .weigher((Object key, Entry entry) ->
+                        entry.value() instanceof CustomPage<?> page && page.getContent() != null
+                                ? Math.max(1, page.getContent().size())
+                                : 1)
+                .expireAfter(Expiry.creating((Object key, Entry entry) -> entry.ttl()))
+                .build());
+    }
+
+    private record Entry(Object value, Duration ttl) {
+    }
+
+}
@@ -0,0 +1,325 @@
+package com.casestudy.cryptoexchangeapi.exchange.cache;
+
+import com.casestudy.cryptoexchangeapi.exchange.config.HistoryCacheProperties;
+import com.casestudy.cryptoexchangeapi.exchange.model.HistoryQuery;
+import com.casestudy.cryptoexchangeapi.exchange.model.entity.CryptoConvertEntity;
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCryptoCurrency;
+import com.casestudy.cryptoexchangeapi.exchange.model.event.HistoryInvalidatedEvent;
+import com.mongodb.CursorType;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * {@link SharedHistoryTier} stored in the MongoDB every instance already uses.
+ * <p>
+ * Pages are documents of {@code history-cache.shared.collection}, keyed by cache name and key, holding the
+ * {@link HistoryQuery} so writes can evict exactly the pages they change. The query's currencies and
+ * {@code createdAtTo} are stored alongside and indexed, so a write only loads the pages it can match at all.
+ * Every page expires after its cache's ttl, and at the latest after {@code max-ttl}, so pages of caches without a
+ * ttl do not pile up; a TTL index removes expired pages and reads skip them until it does. Invalidations are appended to the capped collection
+ * {@code history-cache.shared.invalidation-collection}, which every instance tails from the time it started.
+ */
+@Slf4j
+@Service
+@ConditionalOnExpression("'${history-cache.shared.type:none}' == 'mongo'")
+public class MongoSharedHistoryTier implements SharedHistoryTier, ApplicationRunner {
+
+    private static final String CACHE = "cache";
+    private static final String QUERY = "query";
+    private static final String FROM = "from";
+    private static final String TO = "to";
+    private static final String UNTIL = "until";
+    private static final String EXPIRES_AT = "expiresAt";
+    private static final String ORIGIN = "origin";
+    private static final String CONVERSIONS = "conversions";
+
+    private final MongoTemplate mongoTemplate;
+    private final HistoryCacheProperties.Shared properties;
+    private final List<Consumer<HistoryInvalidatedEvent>> subscribers = new CopyOnWriteArrayList<>();
+
+    private volatile boolean running = true;
+    private volatile Thread tailer;
+
+    public MongoSharedHistoryTier(MongoTemplate mongoTemplate, HistoryCacheProperties historyCacheProperties) {
+        this.mongoTemplate = mongoTemplate;
+        this.properties = historyCacheProperties.getShared();
+    }
+
+    @Override
+    public Object get(String cache, Object key) {
+
+        try {
+            Entry entry = mongoTemplate.findById(id(cache, key), Entry.class, properties.getCollection());
+            if (entry == null || (entry.expiresAt() != null && entry.expiresAt().isBefore(Instant.now()))) {
+                return null;
+            }
+            return entry.value();
+        } catch (RuntimeException ex) {
+            log.warn("Shared history cache lookup failed: {}", ex.getMessage());
+            return null;
+        }
+
+    }
+
+    @Override
+    public void put(String cache, Object key, Object value, Duration ttl) {
+
+        Duration maxTtl = Duration.ofMillis(properties.getMaxTtl());
+        Instant expiresAt = Instant.now().plus(ttl.isZero() || ttl.compareTo(maxTtl) > 0 ? maxTtl : ttl);
+        HistoryQuery query = key instanceof HistoryQuery historyQuery ? historyQuery : null;
+        Entry entry = query == null
+                ? new Entry(id(cache, key), cache, null, null, null, null, value, expiresAt)
+                : new Entry(id(cache, key), cache, query, query.from(), query.to(),
+                        query.createdAtTo() == null ? null : query.createdAtTo().toInstant(ZoneOffset.UTC),
+                        value, expiresAt);
+
+        try {
+            mongoTemplate.save(entry, properties.getCollection());
+        } catch (RuntimeException ex) {
+            log.warn("Shared history cache write failed: {}", ex.getMessage());
+        }
+
+    }
+
+    @Override
+    public void evict(String cache, Object key) {
+        remove(Query.query(Criteria.where("_id").is(id(cache, key))));
+    }
+
+    @Override
+    public void clear(String cache) {
+        remove(Query.query(Criteria.where(CACHE).is(cache)));
+    }
+
+    @Override
+    public int evictMatching(String cache, Collection<CryptoConvertEntity> conversions) {
+
+        try {
+            Query pages = Query.query(candidates(cache, conversions));
+            pages.fields().include(CACHE, QUERY);
+
+            List<String> ids = mongoTemplate.find(pages, Entry.class, properties.getCollection()).stream()
+                    .filter(entry -> entry.query() == null || conversions.stream().anyMatch(entry.query()::matches))
+                    .map(Entry::id)
+                    .toList();
+
+            if (!ids.isEmpty()) {
+                mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids)), properties.getCollection());
+            }
+            return ids.size();
+        } catch (RuntimeException ex) {
+            // pages the shared tier keeps serving expire after their ttl, at the latest after max-ttl
+            log.warn("Shared history cache invalidation failed: {}", ex.getMessage());
+            return 0;
+        }
+
+    }
+
+    @Override
+    public void publish(HistoryInvalidatedEvent event) {
+
+        Document message = new Document(ORIGIN, event.origin())
+                .append(CONVERSIONS, event.conversions().stream().map(this::write).toList())
+                .append("at", new Date());
+
+        try {
+            mongoTemplate.getCollection(properties.getInvalidationCollection()).insertOne(message);
+        } catch (RuntimeException ex) {
+            log.warn("History cache invalidation could not be broadcast: {}", ex.getMessage());
+        }
+
+    }
+
+    @Override
+    public void subscribe(Consumer<HistoryInvalidatedEvent> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        ensureCollections();
+        tailer = Thread.ofVirtual().name("history-cache-invalidations").start(this::tail);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        Thread thread = tailer;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    void ensureCollections() {
+
+        try {
+            mongoTemplate.indexOps(properties.getCollection()).createIndex(new Index()
+                    .on(EXPIRES_AT, Sort.Direction.ASC)
+                    .expire(Duration.ZERO));
+        } catch (RuntimeException ex) {
+            log.warn("Shared history cache TTL index could not be ensured: {}", ex.getMessage());
+        }
+
+        try {
+            mongoTemplate.indexOps(properties.getCollection()).createIndex(new Index()
+                    .on(CACHE, Sort.Direction.ASC)
+                    .on(FROM, Sort.Direction.ASC)
+                    .on(TO, Sort.Direction.ASC)
+                    .on(UNTIL, Sort.Direction.ASC)
+                    .named("history-cache-candidates"));
+        } catch (RuntimeException ex) {
+            log.warn("Shared history cache candidate index could not be ensured: {}", ex.getMessage());
+        }
+
+        try {
+            if (!mongoTemplate.collectionExists(properties.getInvalidationCollection())) {
+                mongoTemplate.createCollection(properties.getInvalidationCollection(),
+                        CollectionOptions.empty().capped().size(properties.getInvalidationCollectionSize()));
+            }
+        } catch (RuntimeException ex) {
+            // another instance created it first
+            log.debug("Invalidation collection not created: {}", ex.getMessage());
+        }
+
+    }
+
+    private void tail() {
+
+        Object last = new ObjectId();
+        while (running) {
+
+            try (MongoCursor<Document> cursor = mongoTemplate.getCollection(properties.getInvalidationCollection())
+                    .find(Filters.gt("_id", last))
+                    .cursorType(CursorType.TailableAwait)
+                    .iterator()) {
+                while (running && cursor.hasNext()) {
+                    Document message = cursor.next();
+                    last = message.get("_id");
+                    deliver(message);
+                }
+            } catch (RuntimeException ex) {
+                if (running) {
+                    log.warn("Tailing history cache invalidations failed: {}", ex.getMessage());
+                }
+            }
+
+            // a tailable cursor also ends while the capped collection is still empty
+            try {
+                Thread.sleep(properties.getInvalidationRetry());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+        }
+
+    }
+
+    private void deliver(Document message) {
+
+        List<CryptoConvertEntity> conversions = message.getList(CONVERSIONS, Document.class, List.of()).stream()
+                .map(document -> mongoTemplate.getConverter().read(CryptoConvertEntity.class, document))
+                .toList();
+        HistoryInvalidatedEvent event = new HistoryInvalidatedEvent(message.getString(ORIGIN), conversions);
+
+        for (Consumer<HistoryInvalidatedEvent> subscriber : subscribers) {
+            try {
+                subscriber.accept(event);
+            } catch (RuntimeException ex) {
+                log.warn("History cache invalidation subscriber failed: {}", ex.getMessage());
+            }
+        }
+
+    }
+
+    private Document write(CryptoConvertEntity conversion) {
+        Document document = new Document();
+        mongoTemplate.getConverter().write(conversion, document);
+        return document;
+    }
+
+    private void remove(Query query) {
+        try {
+            mongoTemplate.remove(query, properties.getCollection());
+        } catch (RuntimeException ex) {
+            log.warn("Shared history cache eviction failed: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Pages of {@code cache} some of {@code conversions} might match: without a currency, or with the currency of
+     * one of them, and with an open window or one ending at or after the earliest of them. Pages whose key is not
+     * a {@link HistoryQuery} have none of these fields and always qualify.
+     */
+    static Criteria candidates(String cache, Collection<CryptoConvertEntity> conversions) {
+
+        // null matches pages without the field: unfiltered currencies and open windows
+        Set<String> froms = new HashSet<>();
+        Set<String> tos = new HashSet<>();
+        froms.add(null);
+        tos.add(null);
+        Instant earliest = Instant.now();
+        for (CryptoConvertEntity conversion : conversions) {
+            froms.add(name(conversion.getFromCurrency()));
+            tos.add(name(conversion.getToCurrency()));
+            // stamped in the JVM zone; conversions not stamped yet are created now
+            if (conversion.getCreatedAt() != null) {
+                Instant createdAt = conversion.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant();
+                earliest = createdAt.isBefore(earliest) ? createdAt : earliest;
+            }
+        }
+
+        return new Criteria().andOperator(
+                Criteria.where(CACHE).is(cache),
+                Criteria.where(FROM).in(froms),
+                Criteria.where(TO).in(tos),
+                new Criteria().orOperator(
+                        Criteria.where(UNTIL).is(null),
+                        Criteria.where(UNTIL).gte(Date.from(earliest))));
+
+    }
+
+    private static String name(EnumCryptoCurrency currency) {
+        return currency == null ? null : currency.name();
+    }
+
+    private static String id(String cache, Object key) {
+        return cache + "::" + key;
+    }
+
+    /**
+     * One cached page; {@code query} and the fields indexed from it ({@code from}, {@code to} and {@code until},
+     * its {@code createdAtTo}) are {@code null} for keys that are not a {@link HistoryQuery}.
+     */
+    record Entry(@Id String id, String cache, HistoryQuery query, EnumCryptoCurrency from, EnumCryptoCurrency to,
+                 Instant until, Object value, Instant expiresAt) {
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.casestudy.cryptoexchangeapi.exchange.cache;
+
+import com.casestudy.cryptoexchangeapi.exchange.model.HistoryQuery;
+import com.casestudy.cryptoexchangeapi.exchange.model.entity.CryptoConvertEntity;
+import com.casestudy.cryptoexchangeapi.exchange.model.event.HistoryInvalidatedEvent;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * History cache tier shared by all instances, behind the per-instance near cache of a
+ * {@link com.casestudy.cryptoexchangeapi.exchange.config.TwoTierHistoryCache}, together with the channel
+ * invalidations are broadcast on.
+ * <p>
+ * At most one implementation is active, selected with {@code history-cache.shared.type}:
+ * <ul>
+ *     <li>{@code none} (default): no shared tier, every instance only has its own caches</li>
+ *     <li>{@code in-memory}: in-process stand-in for local runs and tests, see {@link InMemorySharedHistoryTier}</li>
+ *     <li>{@code mongo}: pages and broadcasts stored in MongoDB, see {@link MongoSharedHistoryTier}</li>
+ * </ul>
+ * Failures of the shared tier must not fail a request: lookups then miss and writes are dropped.
+ */
+public interface SharedHistoryTier {
+
+    /**
+     * @return the page cached under {@code key} in cache {@code cache}, or {@code null}
+     */
+    Object get(String cache, Object key);
+
+    /**
+     * @param ttl how long the page may be served, {@link Duration#ZERO} for no expiry
+     */
+    void put(String cache, Object key, Object value, Duration ttl);
+
+    void evict(String cache, Object key);
+
+    void clear(String cache);
+
+    /**
+     * Evicts the pages of cache {@code cache} whose {@link HistoryQuery} matches any of the conversions, and every
+     * page whose key is not a {@link HistoryQuery}.
+     *
+     * @return number of evicted pages
+     */
+    int evictMatching(String cache, Collection<CryptoConvertEntity> conversions);
+
+    /**
+     * Sends {@code event} to the subscribers of every instance, this one included.
+     */
+    void publish(HistoryInvalidatedEvent event);
+
+    void subscribe(Consumer<HistoryInvalidatedEvent> subscriber);
+
+}
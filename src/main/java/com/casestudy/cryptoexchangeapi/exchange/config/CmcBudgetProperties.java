@@ -0,0 +1,39 @@
+package com.casestudy.cryptoexchangeapi.exchange.config;
+
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCmcCallPriority;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings of the scheduler that shares the CoinMarketCap call budget between priority classes.
+ */
+@Component
+@ConfigurationProperties(prefix = "cmc.budget")
+@Getter
+@Setter
+public class CmcBudgetProperties {
+
+    private String rateLimiter = "cmc";      // Resilience4j limiter holding the paid-for quota
+
+    private int maxQueueSize = 100;          // calls waiting for a permit; further calls are rejected
+
+    private long conversionDeadline = 2000;  // ms a user conversion may wait for a permit
+
+    private long refreshDeadline = 15000;    // ms a background quote refresh may wait for a permit
+
+    private long directoryDeadline = 5000;   // ms a directory listing may wait for a permit
+
+    private int reservedPermits = 1;         // permits of a period tryAcquire never hands out
+
+    public long deadline(EnumCmcCallPriority priority) {
+        return switch (priority) {
+            case CONVERSION -> conversionDeadline;
+            case REFRESH -> refreshDeadline;
+            case DIRECTORY -> directoryDeadline;
+            case HEDGE -> 0;
+        };
+    }
+
+}
@@ -12,4 +12,6 @@ import org.springframework.stereotype.Component;
 public class CmcProperties {
     private String baseUrl;
     private String apiKey;
+    private long cacheTtl = 10000;      // ms a cached unit price is served without refreshing (soft TTL)
+    private long cacheHardTtl = 60000;  // ms after which a cached unit price is no longer served at all
 }
@@ -0,0 +1,21 @@
+package com.casestudy.cryptoexchangeapi.exchange.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Limits of the batch conversion endpoint.
+ */
+@Component
+@ConfigurationProperties(prefix = "conversion.batch")
+@Getter
+@Setter
+public class ConversionBatchProperties {
+
+    private int maxItems = 10000;   // conversions per batch; larger batches are rejected with 400
+
+    private int chunkSize = 1000;   // conversions per bulk insert; results are streamed after each chunk
+
+}
@@ -0,0 +1,32 @@
+package com.casestudy.cryptoexchangeapi.exchange.config;
+
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumConversionWriteAck;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings of the write-behind queue that batches conversion inserts.
+ */
+@Component
+@ConfigurationProperties(prefix = "conversion.write-behind")
+@Getter
+@Setter
+public class ConversionWriteProperties {
+
+    private boolean enabled = false;    // false: every conversion is saved on its own
+
+    private EnumConversionWriteAck ack = EnumConversionWriteAck.DURABLE;    // when the caller gets its response
+
+    private int queueCapacity = 10000;  // queued conversions; further ones are rejected with 503
+
+    private int batchSize = 500;        // documents per bulk insert
+
+    private long flushInterval = 50;    // ms the oldest queued conversion may wait for its flush
+
+    private long ackTimeout = 5000;     // ms a DURABLE caller waits for its flush
+
+    private long drainTimeout = 10000;  // ms granted on shutdown to flush the queue
+
+}
@@ -0,0 +1,25 @@
+package com.casestudy.cryptoexchangeapi.exchange.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings of the local copy of the CoinMarketCap cryptocurrency map served by {@code /api/convert/map}.
+ */
+@Component
+@ConfigurationProperties(prefix = "cmc.directory")
+@Getter
+@Setter
+public class CryptoDirectoryProperties {
+
+    private boolean enabled = true;
+
+    private long refreshInterval = 3600000; // ms between background refreshes of the whole map
+
+    private int pageLimit = 5000;           // listings fetched per upstream /map call (CMC maximum)
+
+    private boolean persistSnapshot = true; // store the map on each change and reload it on startup
+
+}
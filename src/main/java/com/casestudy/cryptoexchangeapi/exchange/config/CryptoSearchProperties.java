@@ -0,0 +1,21 @@
+package com.casestudy.cryptoexchangeapi.exchange.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings of the in-memory symbol and name search behind {@code /api/convert/search}.
+ */
+@Component
+@ConfigurationProperties(prefix = "crypto-search")
+@Getter
+@Setter
+public class CryptoSearchProperties {
+
+    private boolean fuzzy = true;    // fall back to typo-tolerant matching when prefixes find too few assets
+
+    private int maxEditDistance = 2; // edits tolerated by the fuzzy fallback (1 for queries up to 4 characters)
+
+}
@@ -0,0 +1,109 @@
+package com.casestudy.cryptoexchangeapi.exchange.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Settings of the caches behind {@code POST /api/convert/history}.
+ */
+@Component
+@ConfigurationProperties(prefix = "history-cache")
+@Getter
+@Setter
+public class HistoryCacheProperties {
+
+    private long closedWindowSafetyLag = 60000;  // ms createdAtTo must lie in the past before a window counts as closed
+
+    private Map<String, Spec> caches = new HashMap<>(); // per cache name, see Spec
+
+    private Shared shared = new Shared();
+
+    private ChangeStream changeStream = new ChangeStream();
+
+    private RefreshAhead refreshAhead = new RefreshAhead();
+
+    /**
+     * @return the settings of cache {@code name}, defaults when it is not configured
+     */
+    public Spec spec(String name) {
+        return caches.getOrDefault(name, new Spec());
+    }
+
+    @Getter
+    @Setter
+    public static class Spec {
+
+        private long maxWeight = 100000;        // rows across all cached pages; least recently used pages evicted
+
+        private long ttl;                       // ms a page lives after it was cached, 0 = no expiry
+
+        private long refreshAfterWrite;         // ms after which a read reloads the page in the background, 0 = never
+
+    }
+
+    @Getter
+    @Setter
+    public static class Shared {
+
+        private String type = "none";                       // none | in-memory | mongo
+
+        private long nearTtl = 5000;                        // ms a pod serves a page from its near cache, bounds staleness
+
+        private long nearMaxWeight = 10000;                 // rows kept in the near cache of each pod
+
+        private String collection = "history-cache";        // mongo: documents of the shared tier
+
+        private long maxTtl = 86400000;                     // ms a shared page lives at most, also without a ttl
+
+        private String invalidationCollection = "history-cache-invalidations"; // mongo: capped collection of broadcasts
+
+        private long invalidationCollectionSize = 16777216; // bytes of the capped invalidation collection
+
+        private long invalidationRetry = 1000;              // ms to wait before tailing the invalidations again
+
+    }
+
+    @Getter
+    @Setter
+    public static class ChangeStream {
+
+        private boolean enabled = true;
+
+        private String consumerId = "default";                          // names the resume token of this instance
+
+        private String tokenCollection = "history-cache-resume-tokens"; // resume token per consumer id
+
+        private long tokenTtl = 604800000;                              // ms an untouched resume token is kept
+
+        private long checkpointInterval = 10000;                        // ms between resume token writes while idle
+
+        private int batchSize = 100;                                    // inserts invalidated together
+
+        private long maxAwait = 1000;                                   // ms to wait for further inserts of a batch
+
+        private long retry = 1000;                                      // ms before reopening a failed change stream
+
+    }
+
+    @Getter
+    @Setter
+    public static class RefreshAhead {
+
+        private boolean enabled = true;
+
+        private int trackedKeys = 64;       // hottest history queries reloaded as soon as they are evicted
+
+        private int sampleKeys = 4096;      // distinct queries counted before access frequencies age
+
+        private int minFrequency = 3;       // recent lookups before a query can count as hot
+
+        private int concurrency = 2;        // history pages reloaded at the same time
+
+    }
+
+}
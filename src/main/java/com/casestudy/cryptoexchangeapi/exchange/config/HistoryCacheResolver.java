@@ -0,0 +1,71 @@
+package com.casestudy.cryptoexchangeapi.exchange.config;
+
+import com.casestudy.cryptoexchangeapi.common.utils.TimeOrderedIds;
+import com.casestudy.cryptoexchangeapi.exchange.model.dto.request.ListCryptoConvertRequest;
+import com.casestudy.cryptoexchangeapi.exchange.utils.Constants;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.CacheOperationInvocationContext;
+import org.springframework.cache.interceptor.CacheResolver;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Sends history queries to the cache matching their {@code createdAt} window.
+ * <p>
+ * Conversions are only ever inserted and get their {@code createdAt} and time-ordered id when they are written, so
+ * a query whose {@code createdAtTo}, or the timestamp of whose {@code transactionIdBefore}, lies more than
+ * {@code history-cache.closed-window-safety-lag} in the past can never change. {@code createdAtTo} is UTC, as the
+ * repository applies it, so it is compared with the UTC clock whatever the JVM zone.
+ * Such closed-window pages go to {@link Constants#EXCHANGE_CLOSED}, which is size-bounded but neither invalidated
+ * by writes nor cleared on schedule. Every other query uses {@link Constants#EXCHANGE}.
+ */
+@Component("historyCacheResolver")
+@RequiredArgsConstructor
+public class HistoryCacheResolver implements CacheResolver {
+
+    private final CacheManager cacheManager;
+    private final HistoryCacheProperties properties;
+
+    @Override
+    public Collection<? extends Cache> resolveCaches(CacheOperationInvocationContext<?> context) {
+
+        Object[] args = context.getArgs();
+        ListCryptoConvertRequest.Filter filter = args.length > 0 && args[0] instanceof ListCryptoConvertRequest request
+                ? request.getFilter()
+                : null;
+
+        String name = isClosed(filter) ? Constants.EXCHANGE_CLOSED : Constants.EXCHANGE;
+        return List.of(cacheManager.getCache(name));
+
+    }
+
+    /**
+     * @return whether no conversion written from now on can match {@code filter}
+     */
+    public boolean isClosed(ListCryptoConvertRequest.Filter filter) {
+
+        if (filter == null) {
+            return false;
+        }
+
+        Duration safetyLag = Duration.ofMillis(properties.getClosedWindowSafetyLag());
+        LocalDateTime cutoff = LocalDateTime.now(ZoneOffset.UTC).minus(safetyLag);
+        if (filter.getCreatedAtTo() != null && filter.getCreatedAtTo().isBefore(cutoff)) {
+            return true;
+        }
+
+        // New conversions get ids from the current clock, so they sort after a time-ordered bound from the past
+        Instant before = TimeOrderedIds.timestampOf(filter.getTransactionIdBefore());
+        return before != null && before.isBefore(Instant.now().minus(safetyLag));
+
+    }
+
+}
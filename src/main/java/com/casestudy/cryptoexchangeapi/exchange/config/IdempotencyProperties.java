@@ -0,0 +1,29 @@
+package com.casestudy.cryptoexchangeapi.exchange.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings of {@code Idempotency-Key} handling for {@code POST /api/convert}.
+ */
+@Component
+@ConfigurationProperties(prefix = "idempotency")
+@Getter
+@Setter
+public class IdempotencyProperties {
+
+    private boolean enabled = true;
+
+    private long ttl = 86400000;                // ms a key is remembered in MongoDB (TTL index)
+
+    private long pendingTimeout = 30000;        // ms a claimed key may stay unconverted before a repeat takes it over
+
+    private int recentKeys = 10000;             // completed keys kept in memory, least recently used evicted
+
+    private int expectedKeys = 1000000;         // keys per bloom filter generation
+
+    private double falsePositiveRate = 0.01;    // bloom filter false positives, i.e. needless MongoDB lookups
+
+}
@@ -0,0 +1,106 @@
+package com.casestudy.cryptoexchangeapi.exchange.config;
+
+import com.casestudy.cryptoexchangeapi.exchange.cache.HistoryAccessTracker;
+import com.casestudy.cryptoexchangeapi.exchange.model.HistoryQuery;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Decorates a history cache to count lookups by {@link HistoryQuery#shape() filter shape}, exported as
+ * {@code history.cache.requests} with tags {@code cache}, {@code shape} and {@code result} ({@code hit} or
+ * {@code miss}).
+ * Keys that are not a {@link HistoryQuery} are tagged with shape {@code other}.
+ * Every lookup is also reported to the {@link HistoryAccessTracker}.
+ */
+public class MeteredHistoryCache implements Cache {
+
+    private final Cache delegate;
+    private final MeterRegistry meterRegistry;
+    private final HistoryAccessTracker historyAccessTracker;
+
+    public MeteredHistoryCache(Cache delegate, MeterRegistry meterRegistry, HistoryAccessTracker historyAccessTracker) {
+        this.delegate = delegate;
+        this.meterRegistry = meterRegistry;
+        this.historyAccessTracker = historyAccessTracker;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper value = delegate.get(key);
+        record(key, value != null);
+        return value;
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        T value = delegate.get(key, type);
+        record(key, value != null);
+        return value;
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        boolean[] loaded = new boolean[1];
+        T value = delegate.get(key, () -> {
+            loaded[0] = true;
+            return valueLoader.call();
+        });
+        record(key, !loaded[0]);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        return delegate.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        return delegate.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        return delegate.invalidate();
+    }
+
+    private void record(Object key, boolean hit) {
+        historyAccessTracker.record(key);
+        Counter.builder("history.cache.requests")
+                .description("History cache lookups by filter shape and result")
+                .tag("cache", delegate.getName())
+                .tag("shape", key instanceof HistoryQuery query ? query.shape() : "other")
+                .tag("result", hit ? "hit" : "miss")
+                .register(meterRegistry)
+                .increment();
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.casestudy.cryptoexchangeapi.exchange.config;
+
+import com.casestudy.cryptoexchangeapi.common.utils.SingleFlight;
+import com.casestudy.cryptoexchangeapi.exchange.model.CryptoPair;
+import com.casestudy.cryptoexchangeapi.exchange.provider.HedgingQuoteProvider;
+import com.casestudy.cryptoexchangeapi.exchange.provider.QuoteProvider;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.util.StringUtils;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+/**
+ * Wiring for upstream price lookups.
+ */
+@Configuration
+public class PriceLookupConfig {
+
+    private static final String LIVE_PROVIDER = "cmc";
+
+    /**
+     * Coalesces identical in-flight CMC price lookups so a burst on one pair costs a single upstream call.
+     */
+    @Bean
+    public SingleFlight<CryptoPair, BigDecimal> priceLookupFlights(MeterRegistry meterRegistry) {
+        return new SingleFlight<>("cmc.price.lookup", meterRegistry, CryptoPair::toString);
+    }
+
+    /**
+     * The {@link QuoteProvider} every price lookup goes through: the provider selected by {@code quote-provider.type},
+     * hedged against {@code quote-provider.hedge.backup} when hedging is enabled.
+     * <p>
+     * {@code cmc} is the only live price source, so it can only be hedged against itself; its hedged lookups only
+     * spend spare call budget. Any other provider hedged against itself would just double its load.
+     *
+     * @throws IllegalStateException when the backup would price live conversions from recorded or random prices,
+     *                               or hedges a provider other than {@code cmc} against itself
+     */
+    @Bean
+    @Primary
+    public QuoteProvider quoteProvider(Map<String, QuoteProvider> providers,
+                                       QuoteProviderProperties properties,
+                                       MeterRegistry meterRegistry,
+                                       CircuitBreakerRegistry circuitBreakerRegistry) {
+
+        QuoteProvider primary = provider(providers, properties.getType());
+
+        QuoteProviderProperties.Hedge hedge = properties.getHedge();
+        if (!hedge.isEnabled()) {
+            return primary;
+        }
+
+        if (LIVE_PROVIDER.equals(properties.getType()) && !LIVE_PROVIDER.equals(hedge.getBackup())) {
+            throw new IllegalStateException("quote-provider.hedge.backup must be " + LIVE_PROVIDER
+                    + " while quote-provider.type is " + LIVE_PROVIDER + ": " + hedge.getBackup());
+        }
+        if (hedge.getBackup().equals(properties.getType()) && !LIVE_PROVIDER.equals(hedge.getBackup())) {
+            throw new IllegalStateException("quote-provider.hedge.backup must differ from quote-provider.type: "
+                    + hedge.getBackup());
+        }
+
+        return new HedgingQuoteProvider(
+                properties.getType(), primary,
+                hedge.getBackup(), provider(providers, hedge.getBackup()),
+                hedge,
+                meterRegistry,
+                StringUtils.hasText(hedge.getCircuitBreaker()) ? circuitBreakerRegistry.circuitBreaker(hedge.getCircuitBreaker()) : null,
+                Executors.newVirtualThreadPerTaskExecutor());
+
+    }
+
+    private static QuoteProvider provider(Map<String, QuoteProvider> providers, String type) {
+
+        QuoteProvider provider = providers.get(type + "QuoteProvider");
+        if (provider == null) {
+            throw new IllegalStateException("Unknown quote provider type: " + type);
+        }
+
+        return provider;
+
+    }
+
+}
@@ -0,0 +1,25 @@
+package com.casestudy.cryptoexchangeapi.exchange.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Limits of the server-sent price stream.
+ */
+@Component
+@ConfigurationProperties(prefix = "price-stream")
+@Getter
+@Setter
+public class PriceStreamProperties {
+
+    private int maxSubscribers = 10000;     // concurrent streams per instance; further subscriptions get 503
+
+    private int maxPairs = 50;              // pairs a single stream may subscribe to
+
+    private long timeout = 1800000;         // ms after which a stream is completed and the client reconnects
+
+    private long heartbeatInterval = 15000; // ms between keep-alive comments on idle streams
+
+}
@@ -0,0 +1,25 @@
+package com.casestudy.cryptoexchangeapi.exchange.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings of the in-memory USD quote book used to price conversions locally.
+ */
+@Component
+@ConfigurationProperties(prefix = "cmc.quote-book")
+@Getter
+@Setter
+public class QuoteBookProperties {
+
+    private boolean enabled = true;
+
+    private long refreshInterval = 30000; // ms between background refreshes
+
+    private long maxAge = 60000;          // ms after which a quote is too old to price with
+
+    private boolean persistSnapshot = true; // store the quote set on each refresh and reload it on startup
+
+}
@@ -0,0 +1,75 @@
+package com.casestudy.cryptoexchangeapi.exchange.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Selects and tunes the {@link com.casestudy.cryptoexchangeapi.exchange.provider.QuoteProvider} in use.
+ */
+@Component
+@ConfigurationProperties(prefix = "quote-provider")
+@Getter
+@Setter
+public class QuoteProviderProperties {
+
+    private String type = "cmc"; // cmc | replay | synthetic
+
+    private Replay replay = new Replay();
+
+    private Synthetic synthetic = new Synthetic();
+
+    private Hedge hedge = new Hedge();
+
+    @Getter
+    @Setter
+    public static class Replay {
+
+        private String file;        // Spring resource location of an NDJSON file, one recorded CMC latest-quotes body per line
+
+        private boolean loop = true; // start over after the last recording instead of repeating it
+
+    }
+
+    @Getter
+    @Setter
+    public static class Synthetic {
+
+        private long seed = 42;             // seeds the starting prices so runs are reproducible
+
+        private double volatility = 0.001;  // standard deviation of the relative price step per call
+
+        private long latencyMin = 0;        // ms of simulated upstream latency, lower bound
+
+        private long latencyMax = 0;        // ms of simulated upstream latency, upper bound
+
+        private double errorRate = 0;       // share of calls failing as an unavailable upstream, 0..1
+
+    }
+
+    @Getter
+    @Setter
+    public static class Hedge {
+
+        private boolean enabled = false;
+
+        private String backup = "cmc";          // provider type receiving hedged lookups; only cmc may hedge itself
+
+        private double percentile = 0.95;       // primary latency percentile after which a hedge is sent
+
+        private long initialDelay = 300;        // ms hedge delay until min-samples lookups were observed
+
+        private long minDelay = 50;             // ms lower bound of the hedge delay
+
+        private long maxDelay = 1000;           // ms upper bound of the hedge delay
+
+        private long minSamples = 20;           // primary lookups to observe before trusting the percentile
+
+        private long window = 120000;           // ms of latency history the percentile is computed over
+
+        private String circuitBreaker = "cmc";  // Resilience4j circuit breaker that must be closed to hedge; blank for none
+
+    }
+
+}
@@ -1,19 +1,195 @@
 package com.casestudy.cryptoexchangeapi.exchange.config;
 
+import com.casestudy.cryptoexchangeapi.common.model.CustomPage;
+import com.casestudy.cryptoexchangeapi.exchange.cache.HistoryAccessTracker;
+import com.casestudy.cryptoexchangeapi.exchange.cache.HistoryKeyIndex;
+import com.casestudy.cryptoexchangeapi.exchange.cache.SharedHistoryTier;
 import com.casestudy.cryptoexchangeapi.exchange.utils.Constants;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+
+/**
+ * Caffeine caches for history pages, each configured under {@code history-cache.caches.<name>}:
+ * <ul>
+ *     <li>bounded by weight, one unit per row of the cached {@link CustomPage}</li>
+ *     <li>optionally expiring {@code ttl} after a page was cached</li>
+ *     <li>optionally refreshed in the background by the {@code HistoryPageLoader} once a page is older than
+ *     {@code refresh-after-write}, while readers keep getting the current page</li>
+ * </ul>
+ * Statistics (gets by result, evictions, load durations) are exported through {@link CaffeineCacheMetrics} with tag
+ * {@code cache}; lookups by filter shape through {@link MeteredHistoryCache}.
+ * <p>
+ * With a {@link SharedHistoryTier} configured these Caffeine caches become the near tier of a
+ * {@link TwoTierHistoryCache}: bounded by {@code history-cache.shared.near-max-weight} rows and expiring after
+ * {@code history-cache.shared.near-ttl}, while the shared tier keeps pages for the cache's own {@code ttl}.
+ * <p>
+ * Keys of the {@code exchange} cache are tracked by the {@link HistoryKeyIndex}, so writes only visit the pages
+ * they can change.
+ */
 @Configuration
 @EnableCaching
 public class SpringCachingConfig {
 
     @Bean
-    public CacheManager cacheManager() {
-        return new ConcurrentMapCacheManager(Constants.EXCHANGE);
+    public CacheManager cacheManager(MeterRegistry meterRegistry,
+                                     HistoryCacheProperties historyCacheProperties,
+                                     CacheLoader<Object, Object> historyPageLoader,
+                                     Optional<SharedHistoryTier> sharedHistoryTier,
+                                     HistoryAccessTracker historyAccessTracker,
+                                     HistoryKeyIndex historyKeyIndex) {
+
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                Cache near = new HistoryCaffeineCache(name, cache,
+                        Constants.EXCHANGE.equals(name) ? historyKeyIndex : null);
+                return new MeteredHistoryCache(sharedHistoryTier
+                        .<Cache>map(shared -> new TwoTierHistoryCache(near, shared,
+                                Duration.ofMillis(historyCacheProperties.spec(name).getTtl()), meterRegistry))
+                        .orElse(near), meterRegistry, historyAccessTracker);
+            }
+        };
+        cacheManager.setAllowNullValues(false);
+        cacheManager.setCacheNames(List.of());
+
+        for (String name : List.of(Constants.EXCHANGE, Constants.EXCHANGE_CLOSED)) {
+            HistoryCacheProperties.Spec spec = historyCacheProperties.spec(name);
+            HistoryKeyIndex keyIndex = Constants.EXCHANGE.equals(name) ? historyKeyIndex : null;
+            com.github.benmanes.caffeine.cache.Cache<Object, Object> cache = sharedHistoryTier.isPresent()
+                    ? build(near(spec, historyCacheProperties.getShared()), historyPageLoader, keyIndex)
+                    : build(spec, historyPageLoader, keyIndex);
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+            cacheManager.registerCustomCache(name, cache);
+        }
+
+        return cacheManager;
+
+    }
+
+    private static HistoryCacheProperties.Spec near(HistoryCacheProperties.Spec spec, HistoryCacheProperties.Shared shared) {
+
+        HistoryCacheProperties.Spec near = new HistoryCacheProperties.Spec();
+        near.setMaxWeight(Math.min(spec.getMaxWeight(), shared.getNearMaxWeight()));
+        near.setTtl(spec.getTtl() > 0 ? Math.min(spec.getTtl(), shared.getNearTtl()) : shared.getNearTtl());
+        near.setRefreshAfterWrite(spec.getRefreshAfterWrite());
+        return near;
+
+    }
+
+    private static com.github.benmanes.caffeine.cache.Cache<Object, Object> build(HistoryCacheProperties.Spec spec,
+                                                                                CacheLoader<Object, Object> loader,
+                                                                                HistoryKeyIndex keyIndex) {
+
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumWeight(spec.getMaxWeight())
+                .weigher((Object key, Object value) ->
+                        value instanceof CustomPage<?> page && page.getContent() != null
+                                ? Math.max(1, page.getContent().size())
+                                : 1)
+                .recordStats();
+
+        if (spec.getTtl() > 0) {
+            builder.expireAfterWrite(Duration.ofMillis(spec.getTtl()));
+        }
+
+        if (keyIndex != null) {
+            // notified asynchronously, so no lock of the index is held while another one is taken
+            builder.removalListener((Object key, Object value, RemovalCause cause) -> keyIndex.removed(key));
+        }
+
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> cache = spec.getRefreshAfterWrite() > 0
+                ? builder.refreshAfterWrite(Duration.ofMillis(spec.getRefreshAfterWrite())).build(loader)
+                : builder.build();
+
+        if (keyIndex != null) {
+            keyIndex.bind(cache.asMap());
+        }
+
+        return cache;
+
+    }
+
+    /**
+     * Looks pages up without loading them, so a miss still runs the cached method; a loading cache only uses its
+     * loader to refresh pages that are already cached. With a {@link HistoryKeyIndex} every key is indexed as it is
+     * cached.
+     */
+    private static final class HistoryCaffeineCache extends CaffeineCache {
+
+        private final HistoryKeyIndex keyIndex;
+
+        private HistoryCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache,
+                                     HistoryKeyIndex keyIndex) {
+            super(name, cache, false);
+            this.keyIndex = keyIndex;
+        }
+
+        @Override
+        protected Object lookup(Object key) {
+            return getNativeCache().getIfPresent(key);
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            if (keyIndex == null) {
+                super.put(key, value);
+                return;
+            }
+            keyIndex.put(key, () -> {
+                super.put(key, value);
+                return null;
+            });
+        }
+
+        @Override
+        public ValueWrapper putIfAbsent(Object key, Object value) {
+            return keyIndex == null
+                    ? super.putIfAbsent(key, value)
+                    : keyIndex.put(key, () -> super.putIfAbsent(key, value));
+        }
+
+        /**
+         * Loads outside the lock of the index, then caches the page through {@link #put}.
+         */
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T get(Object key, Callable<T> valueLoader) {
+
+            if (keyIndex == null) {
+                return super.get(key, valueLoader);
+            }
+
+            ValueWrapper cached = get(key);
+            if (cached != null) {
+                return (T) cached.get();
+            }
+
+            T value;
+            try {
+                value = valueLoader.call();
+            } catch (Exception ex) {
+                throw new ValueRetrievalException(key, valueLoader, ex);
+            }
+            put(key, value);
+            return value;
+
+        }
+
     }
 
 }
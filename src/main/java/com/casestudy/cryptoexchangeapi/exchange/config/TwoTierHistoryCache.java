@@ -0,0 +1,181 @@
+package com.casestudy.cryptoexchangeapi.exchange.config;
+
+import com.casestudy.cryptoexchangeapi.exchange.cache.SharedHistoryTier;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+/**
+ * History cache of one instance in front of the {@link SharedHistoryTier} all instances use.
+ * <p>
+ * Lookups try the near cache first and fall back to the shared tier, copying shared hits into the near cache;
+ * writes and evictions go to both. The near cache expires pages after {@code history-cache.shared.near-ttl}, which
+ * bounds how long an instance can serve a page another instance invalidated and whose broadcast it missed.
+ * <p>
+ * Exported meters, tagged with {@code cache} and {@code tier} ({@code near}, {@code shared}):
+ * {@code history.cache.tier.requests} per {@code result} ({@code hit}, {@code miss}) and
+ * {@code history.cache.tier.hit.ratio}.
+ */
+public class TwoTierHistoryCache implements Cache {
+
+    private final Cache near;
+    private final SharedHistoryTier shared;
+    private final Duration sharedTtl;
+
+    private final Counter nearHits;
+    private final Counter nearMisses;
+    private final Counter sharedHits;
+    private final Counter sharedMisses;
+
+    /**
+     * @param sharedTtl how long the shared tier keeps a page, {@link Duration#ZERO} for no expiry
+     */
+    public TwoTierHistoryCache(Cache near, SharedHistoryTier shared, Duration sharedTtl, MeterRegistry meterRegistry) {
+        this.near = near;
+        this.shared = shared;
+        this.sharedTtl = sharedTtl;
+        this.nearHits = requests(meterRegistry, "near", "hit");
+        this.nearMisses = requests(meterRegistry, "near", "miss");
+        this.sharedHits = requests(meterRegistry, "shared", "hit");
+        this.sharedMisses = requests(meterRegistry, "shared", "miss");
+        hitRatio(meterRegistry, "near", nearHits, nearMisses);
+        hitRatio(meterRegistry, "shared", sharedHits, sharedMisses);
+    }
+
+    @Override
+    public String getName() {
+        return near.getName();
+    }
+
+    /**
+     * @return the native cache of the near tier
+     */
+    @Override
+    public Object getNativeCache() {
+        return near.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+
+        ValueWrapper value = near.get(key);
+        if (value != null) {
+            nearHits.increment();
+            return value;
+        }
+        nearMisses.increment();
+
+        Object sharedValue = shared.get(getName(), key);
+        if (sharedValue == null) {
+            sharedMisses.increment();
+            return null;
+        }
+        sharedHits.increment();
+
+        near.put(key, sharedValue);
+        return new SimpleValueWrapper(sharedValue);
+
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+
+        ValueWrapper wrapper = get(key);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception ex) {
+            throw new ValueRetrievalException(key, valueLoader, ex);
+        }
+        put(key, value);
+        return value;
+
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        near.put(key, value);
+        if (value != null) {
+            shared.put(getName(), key, value, sharedTtl);
+        }
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = get(key);
+        if (existing == null) {
+            put(key, value);
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        near.evict(key);
+        shared.evict(getName(), key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean present = near.evictIfPresent(key);
+        shared.evict(getName(), key);
+        return present;
+    }
+
+    @Override
+    public void clear() {
+        near.clear();
+        shared.clear(getName());
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean present = near.invalidate();
+        shared.clear(getName());
+        return present;
+    }
+
+    private Counter requests(MeterRegistry meterRegistry, String tier, String result) {
+        return Counter.builder("history.cache.tier.requests")
+                .description("History cache lookups per tier and result")
+                .tag("cache", near.getName())
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private void hitRatio(MeterRegistry meterRegistry, String tier, Counter hits, Counter misses) {
+        Gauge.builder("history.cache.tier.hit.ratio", () -> {
+                    double total = hits.count() + misses.count();
+                    return total == 0 ? Double.NaN : hits.count() / total;
+                })
+                .description("Share of history cache lookups a tier answered")
+                .tag("cache", near.getName())
+                .tag("tier", tier)
+                .register(meterRegistry);
+    }
+
+}
@@ -6,39 +6,55 @@ import com.casestudy.cryptoexchangeapi.common.model.dto.request.CustomPagingRequ
 import com.casestudy.cryptoexchangeapi.common.model.dto.response.CustomPagingResponse;
 import com.casestudy.cryptoexchangeapi.common.model.dto.response.CustomResponse;
 import com.casestudy.cryptoexchangeapi.exchange.model.CryptoConvert;
+import com.casestudy.cryptoexchangeapi.exchange.model.CryptoPair;
 import com.casestudy.cryptoexchangeapi.exchange.model.dto.request.ConvertRequest;
 import com.casestudy.cryptoexchangeapi.exchange.model.dto.request.FilterServicePagingRequest;
+import com.casestudy.cryptoexchangeapi.exchange.model.dto.response.BatchConvertItemResponse;
 import com.casestudy.cryptoexchangeapi.exchange.model.dto.response.CryptoConvertResponse;
 import com.casestudy.cryptoexchangeapi.exchange.model.dto.response.CryptoNameSymbol;
 import com.casestudy.cryptoexchangeapi.exchange.model.dto.response.CryptoNameSymbolResponse;
 import com.casestudy.cryptoexchangeapi.exchange.model.mapper.CryptoNameSymbolToCryptoNameSymbolResponseMapper;
 import com.casestudy.cryptoexchangeapi.exchange.model.mapper.CustomPageCryptoConvertToCustomPagingCryptoConvertResponseMapper;
+import com.casestudy.cryptoexchangeapi.exchange.service.CryptoBatchConvertService;
 import com.casestudy.cryptoexchangeapi.exchange.service.CryptoConvertService;
+import com.casestudy.cryptoexchangeapi.exchange.service.CryptoSearchService;
+import com.casestudy.cryptoexchangeapi.exchange.service.PriceStreamService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.enums.ParameterIn;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.ExampleObject;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.http.HttpStatus;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.server.ServletServerHttpRequest;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/convert")
 @RequiredArgsConstructor
-@Slf4j
 @Tag(
         name = "01 - Crypto Convert API",
         description = "Convert between cryptocurrencies and query persisted conversion history. "
@@ -50,12 +66,27 @@ public class CryptoConvertController {
 
     private final CryptoConvertService service;
 
+    private final CryptoBatchConvertService cryptoBatchConvertService;
+
+    private final ObjectMapper objectMapper;
+
+    private final PriceStreamService priceStreamService;
+
+    private final CryptoSearchService cryptoSearchService;
+
     private static final CustomPageCryptoConvertToCustomPagingCryptoConvertResponseMapper PAGE_MAPPER =
             CustomPageCryptoConvertToCustomPagingCryptoConvertResponseMapper.initialize();
 
     @Operation(
             operationId = "convert",
             summary = "Convert an amount from one crypto to another and persist the result",
+            parameters = @Parameter(
+                    name = "Idempotency-Key",
+                    description = "Client chosen key; repeating a request with the same key returns the "
+                            + "conversion of the first one instead of converting again",
+                    in = ParameterIn.HEADER,
+                    schema = @Schema(type = "string", maxLength = 255)
+            ),
             requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
                     required = true,
                     description = "Conversion request",
@@ -106,6 +137,11 @@ public class CryptoConvertController {
                                     mediaType = "application/json"
                             )
                     ),
+                    @ApiResponse(
+                            responseCode = "422",
+                            description = "Idempotency-Key already used for a different conversion request",
+                            content = @Content(mediaType = "application/json")
+                    ),
                     @ApiResponse(
                             responseCode = "502",
                             description = "Upstream conversion unavailable (CMC error)",
@@ -115,16 +151,92 @@ public class CryptoConvertController {
     )
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
-    public CustomResponse<CryptoConvert> convert(@Valid @RequestBody ConvertRequest req) {
+    public CustomResponse<CryptoConvert> convert(@Valid @RequestBody ConvertRequest req,
+                                                 @RequestHeader(name = "Idempotency-Key", required = false)
+                                                 @Size(min = 1, max = 255) String idempotencyKey) {
 
-        CryptoConvert savedCryptoConvert = service.convertAndPersist(req);
+        CryptoConvert savedCryptoConvert = service.convertAndPersist(req, idempotencyKey);
         return CustomResponse.createdOf(savedCryptoConvert);
 
     }
 
+    @Operation(
+            operationId = "convertBatch",
+            summary = "Convert a batch of amounts and persist them with one bulk write per chunk",
+            description = "Every distinct pair is priced once against one snapshot of the quote book. Results are "
+                    + "streamed back as NDJSON, one line per request in request order; an invalid or failed item "
+                    + "only fails its own line.",
+            requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    required = true,
+                    description = "Conversion requests",
+                    content = @Content(
+                            array = @ArraySchema(schema = @Schema(implementation = ConvertRequest.class)),
+                            examples = @ExampleObject(
+                                    name = "Two conversions",
+                                    value = """
+                        [
+                          { "from": "BTC", "to": "ARB", "amount": 100 },
+                          { "from": "ETH", "to": "ETH", "amount": 1 }
+                        ]
+                        """
+                            )
+                    )
+            ),
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "One result per line",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                                    schema = @Schema(implementation = BatchConvertItemResponse.class),
+                                    examples = @ExampleObject(
+                                            name = "Results",
+                                            value = """
+                            {"index":0,"httpStatus":"CREATED","isSuccess":true,"response":{"transactionId":"6c7de41f-71e5-4d63-984d-8dcb60ba6265","amount":100,"from":"BTC","to":"ARB","convertedAmount":2711598539.488985400}}
+                            {"index":1,"httpStatus":"BAD_REQUEST","isSuccess":false,"message":"'from' and 'to' must be different"}
+                            """
+                                    )
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Not a JSON array, empty batch or more conversions than allowed",
+                            content = @Content(mediaType = "application/json")
+                    )
+            }
+    )
+    @PostMapping(
+            value = "/batch",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE
+    )
+    public ResponseEntity<StreamingResponseBody> convertBatch(HttpServletRequest request) throws IOException {
+
+        List<JsonNode> requests;
+        try {
+            requests = cryptoBatchConvertService.readBatch(request.getInputStream());
+        } catch (JsonProcessingException ex) {
+            throw new HttpMessageNotReadableException(ex.getOriginalMessage(), ex, new ServletServerHttpRequest(request));
+        }
+
+        StreamingResponseBody body = outputStream -> {
+            cryptoBatchConvertService.convertAll(requests, item -> writeLine(outputStream, item));
+            outputStream.flush();
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+
+    }
+
     @Operation(
             operationId = "getHistory",
             summary = "Search conversion history with filters, pagination and sorting",
+            description = "Pages by pageNumber, or, when pagingRequest.cursor holds the nextCursor of an earlier "
+                    + "page, continues right after it with a keyset seek whose cost does not grow with depth. "
+                    + "Cursor pages carry no page number or totals. nextCursor is returned while more pages follow "
+                    + "and the sort is on a single property.",
             requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
                     required = true,
                     description = "Filter, pagination and sorting",
@@ -183,7 +295,8 @@ public class CryptoConvertController {
                                 "pageNumber": 1,
                                 "pageSize": 20,
                                 "totalElementCount": 1,
-                                "totalPageCount": 1
+                                "totalPageCount": 1,
+                                "nextCursor": null
                               }
                             }
                             """
@@ -214,7 +327,8 @@ public class CryptoConvertController {
     @Operation(
             operationId = "cryptoMap",
             summary = "List cryptocurrencies (name + symbol) with pagination",
-            description = "Returns a paged slice of cryptocurrencies from CoinMarketCap’s /v1/cryptocurrency/map.",
+            description = "Returns a paged slice of cryptocurrencies from a local copy of CoinMarketCap’s "
+                    + "/v1/cryptocurrency/map, refreshed in the background.",
             parameters = {
                     @Parameter(
                             name = "page",
@@ -295,11 +409,127 @@ public class CryptoConvertController {
 
     }
 
-    @CacheEvict(allEntries = true, cacheNames = {"exchanges"})
-    @PostConstruct
-    @Scheduled(fixedRateString = "${cmc.cache-ttl}")
-    public void clearCache() {
-        log.info("Caches are cleared");
+    @Operation(
+            operationId = "searchCryptos",
+            summary = "Find cryptocurrencies by symbol or name prefix",
+            description = "Type-ahead lookup served from an in-memory index of the local CoinMarketCap map and the "
+                    + "supported currencies. Exact symbols come first, then symbol, name and word prefixes by rank; "
+                    + "when too few assets match, typos within a small edit distance are tolerated.",
+            parameters = {
+                    @Parameter(
+                            name = "q",
+                            description = "Symbol or name prefix, case insensitive",
+                            in = ParameterIn.QUERY,
+                            required = true,
+                            example = "bit"
+                    ),
+                    @Parameter(
+                            name = "limit",
+                            description = "maximum number of results",
+                            in = ParameterIn.QUERY,
+                            schema = @Schema(type = "integer", defaultValue = "10", minimum = "1", maximum = "100")
+                    )
+            },
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Matching (name, symbol), best first",
+                            content = @Content(
+                                    schema = @Schema(implementation = CustomResponse.class),
+                                    examples = @ExampleObject(
+                                            name = "OK",
+                                            value = """
+                                        {
+                                          "time": "2025-10-01T19:27:24.2492919",
+                                          "httpStatus": "OK",
+                                          "isSuccess": true,
+                                          "response": [
+                                            { "name": "Bitcoin", "symbol": "BTC" },
+                                            { "name": "Bitcoin Cash", "symbol": "BCH" },
+                                            { "name": "BitTorrent", "symbol": "BTT" }
+                                          ]
+                                        }
+                                        """
+                                    )
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Validation error",
+                            content = @Content(mediaType = "application/json")
+                    )
+            }
+    )
+    @GetMapping("/search")
+    public CustomResponse<List<CryptoNameSymbolResponse>> searchCryptos(
+            @RequestParam @NotBlank @Size(max = 64) String q,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(100) int limit) {
+
+        List<CryptoNameSymbolResponse> rows = cryptoSearchService.search(q, limit).stream()
+                .map(CryptoNameSymbolToCryptoNameSymbolResponseMapper.initialize()::map)
+                .toList();
+
+        return CustomResponse.successOf(rows);
+
+    }
+
+    @Operation(
+            operationId = "streamRates",
+            summary = "Stream rate updates for the given pairs as server-sent events",
+            description = "Sends the current rate of every pair, then a `rate` event whenever the quote book changes it. "
+                    + "Slow consumers receive only the newest rate per pair; comments are sent as heartbeats.",
+            parameters = @Parameter(
+                    name = "pairs",
+                    description = "Comma separated FROM-TO pairs",
+                    in = ParameterIn.QUERY,
+                    required = true,
+                    example = "BTC-ETH,ETH-USDT"
+            ),
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Event stream",
+                            content = @Content(
+                                    mediaType = MediaType.TEXT_EVENT_STREAM_VALUE,
+                                    examples = @ExampleObject(
+                                            name = "Rate event",
+                                            value = """
+                                        event:rate
+                                        data:{"from":"BTC","to":"ETH","rate":25.04,"quotedAt":"2025-10-01T18:04:33.282Z"}
+                                        """
+                                    )
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Unknown pair or too many pairs",
+                            content = @Content(mediaType = "application/json")
+                    ),
+                    @ApiResponse(
+                            responseCode = "503",
+                            description = "Too many open streams on this instance",
+                            content = @Content(mediaType = "application/json")
+                    )
+            }
+    )
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamRates(@RequestParam List<String> pairs) {
+
+        List<CryptoPair> cryptoPairs = pairs.stream()
+                .map(CryptoPair::parse)
+                .toList();
+
+        return priceStreamService.subscribe(cryptoPairs);
+
+    }
+
+    private void writeLine(OutputStream outputStream, BatchConvertItemResponse item) {
+        try {
+            outputStream.write(objectMapper.writeValueAsBytes(item));
+            outputStream.write('\n');
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
     }
 
 }
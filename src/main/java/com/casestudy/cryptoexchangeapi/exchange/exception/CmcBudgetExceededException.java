@@ -0,0 +1,27 @@
+package com.casestudy.cryptoexchangeapi.exchange.exception;
+
+import com.casestudy.cryptoexchangeapi.common.exception.ApiException;
+import com.casestudy.cryptoexchangeapi.common.model.CustomError;
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCmcCallPriority;
+import org.springframework.http.HttpStatus;
+
+public class CmcBudgetExceededException extends ApiException {
+
+    public static final HttpStatus STATUS = HttpStatus.SERVICE_UNAVAILABLE;
+    public static final CustomError.Header HEADER = CustomError.Header.PROCESS_ERROR;
+
+    public CmcBudgetExceededException(EnumCmcCallPriority priority, String reason) {
+        super("CoinMarketCap call budget exceeded for " + priority + " call: " + reason);
+    }
+
+    @Override
+    public HttpStatus getStatus() {
+        return STATUS;
+    }
+
+    @Override
+    public CustomError.Header getHeader() {
+        return HEADER;
+    }
+
+}
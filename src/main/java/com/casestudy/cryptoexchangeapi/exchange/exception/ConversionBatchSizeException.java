@@ -0,0 +1,30 @@
+package com.casestudy.cryptoexchangeapi.exchange.exception;
+
+import com.casestudy.cryptoexchangeapi.common.exception.ApiException;
+import com.casestudy.cryptoexchangeapi.common.model.CustomError;
+import org.springframework.http.HttpStatus;
+
+public class ConversionBatchSizeException extends ApiException {
+
+    public static final HttpStatus STATUS = HttpStatus.BAD_REQUEST;
+    public static final CustomError.Header HEADER = CustomError.Header.VALIDATION_ERROR;
+
+    public ConversionBatchSizeException(int size, int maxItems) {
+        super("Batch must hold between 1 and " + maxItems + " conversions, got " + size);
+    }
+
+    public ConversionBatchSizeException(int maxItems) {
+        super("Batch must hold between 1 and " + maxItems + " conversions, got more");
+    }
+
+    @Override
+    public HttpStatus getStatus() {
+        return STATUS;
+    }
+
+    @Override
+    public CustomError.Header getHeader() {
+        return HEADER;
+    }
+
+}
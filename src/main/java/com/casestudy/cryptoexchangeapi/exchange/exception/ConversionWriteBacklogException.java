@@ -0,0 +1,26 @@
+package com.casestudy.cryptoexchangeapi.exchange.exception;
+
+import com.casestudy.cryptoexchangeapi.common.exception.ApiException;
+import com.casestudy.cryptoexchangeapi.common.model.CustomError;
+import org.springframework.http.HttpStatus;
+
+public class ConversionWriteBacklogException extends ApiException {
+
+    public static final HttpStatus STATUS = HttpStatus.SERVICE_UNAVAILABLE;
+    public static final CustomError.Header HEADER = CustomError.Header.PROCESS_ERROR;
+
+    public ConversionWriteBacklogException(String reason) {
+        super("Conversion could not be persisted: " + reason);
+    }
+
+    @Override
+    public HttpStatus getStatus() {
+        return STATUS;
+    }
+
+    @Override
+    public CustomError.Header getHeader() {
+        return HEADER;
+    }
+
+}
@@ -0,0 +1,26 @@
+package com.casestudy.cryptoexchangeapi.exchange.exception;
+
+import com.casestudy.cryptoexchangeapi.common.exception.ApiException;
+import com.casestudy.cryptoexchangeapi.common.model.CustomError;
+import org.springframework.http.HttpStatus;
+
+public class IdempotencyKeyInProgressException extends ApiException {
+
+    public static final HttpStatus STATUS = HttpStatus.CONFLICT;
+    public static final CustomError.Header HEADER = CustomError.Header.PROCESS_ERROR;
+
+    public IdempotencyKeyInProgressException(String key) {
+        super("Conversion request with Idempotency-Key " + key + " is still in progress");
+    }
+
+    @Override
+    public HttpStatus getStatus() {
+        return STATUS;
+    }
+
+    @Override
+    public CustomError.Header getHeader() {
+        return HEADER;
+    }
+
+}
@@ -0,0 +1,26 @@
+package com.casestudy.cryptoexchangeapi.exchange.exception;
+
+import com.casestudy.cryptoexchangeapi.common.exception.ApiException;
+import com.casestudy.cryptoexchangeapi.common.model.CustomError;
+import org.springframework.http.HttpStatus;
+
+public class IdempotencyKeyReuseException extends ApiException {
+
+    public static final HttpStatus STATUS = HttpStatus.UNPROCESSABLE_ENTITY;
+    public static final CustomError.Header HEADER = CustomError.Header.VALIDATION_ERROR;
+
+    public IdempotencyKeyReuseException(String key) {
+        super("Idempotency-Key " + key + " was already used for a different conversion request");
+    }
+
+    @Override
+    public HttpStatus getStatus() {
+        return STATUS;
+    }
+
+    @Override
+    public CustomError.Header getHeader() {
+        return HEADER;
+    }
+
+}
@@ -0,0 +1,26 @@
+package com.casestudy.cryptoexchangeapi.exchange.exception;
+
+import com.casestudy.cryptoexchangeapi.common.exception.ApiException;
+import com.casestudy.cryptoexchangeapi.common.model.CustomError;
+import org.springframework.http.HttpStatus;
+
+public class InvalidCryptoPairException extends ApiException {
+
+    public static final HttpStatus STATUS = HttpStatus.BAD_REQUEST;
+    public static final CustomError.Header HEADER = CustomError.Header.VALIDATION_ERROR;
+
+    public InvalidCryptoPairException(String reason) {
+        super("Invalid crypto pair: " + reason);
+    }
+
+    @Override
+    public HttpStatus getStatus() {
+        return STATUS;
+    }
+
+    @Override
+    public CustomError.Header getHeader() {
+        return HEADER;
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.casestudy.cryptoexchangeapi.exchange.exception;
+
+import com.casestudy.cryptoexchangeapi.common.exception.ApiException;
+import com.casestudy.cryptoexchangeapi.common.model.CustomError;
+import org.springframework.http.HttpStatus;
+
+import java.util.Collection;
+
+public class InvalidHistorySortException extends ApiException {
+
+    public static final HttpStatus STATUS = HttpStatus.BAD_REQUEST;
+    public static final CustomError.Header HEADER = CustomError.Header.VALIDATION_ERROR;
+
+    public InvalidHistorySortException(String property, Collection<String> sortable) {
+        super("History cannot be sorted by '" + property + "', sort by one of " + sortable);
+    }
+
+    @Override
+    public HttpStatus getStatus() {
+        return STATUS;
+    }
+
+    @Override
+    public CustomError.Header getHeader() {
+        return HEADER;
+    }
+
+}
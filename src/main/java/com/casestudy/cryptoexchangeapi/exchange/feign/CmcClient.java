@@ -2,6 +2,7 @@ package com.casestudy.cryptoexchangeapi.exchange.feign;
 
 import com.casestudy.cryptoexchangeapi.exchange.config.CmcFeignConfig;
 import com.casestudy.cryptoexchangeapi.exchange.model.dto.response.CryptoMapResponse;
+import com.casestudy.cryptoexchangeapi.exchange.model.dto.response.LatestQuotesResponse;
 import com.casestudy.cryptoexchangeapi.exchange.model.dto.response.PriceConversionResponse;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -29,4 +30,11 @@ public interface CmcClient {
             @RequestParam(value = "sort", required = false, defaultValue = "cmc_rank") String sort
     );
 
+    @GetMapping("/v1/cryptocurrency/quotes/latest")
+    LatestQuotesResponse latestQuotes(
+            @RequestParam("symbol") String symbols,
+            @RequestParam("convert") String convert,
+            @RequestParam(value = "skip_invalid", required = false) Boolean skipInvalid
+    );
+
 }
@@ -4,6 +4,7 @@ import com.casestudy.cryptoexchangeapi.common.model.BaseDomainModel;
 import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCryptoCurrency;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.experimental.SuperBuilder;
 
@@ -12,6 +13,7 @@ import java.math.BigDecimal;
 @Getter
 @Setter
 @SuperBuilder
+@NoArgsConstructor
 @EqualsAndHashCode(callSuper = true)
 public class CryptoConvert extends BaseDomainModel {
 
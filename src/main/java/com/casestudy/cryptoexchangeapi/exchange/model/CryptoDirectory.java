@@ -0,0 +1,127 @@
+package com.casestudy.cryptoexchangeapi.exchange.model;
+
+import com.casestudy.cryptoexchangeapi.exchange.model.dto.response.CryptoNameSymbol;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable snapshot of the CoinMarketCap cryptocurrency map in {@code cmc_rank} order.
+ * <p>
+ * Listings are held in parallel arrays (id, name, symbol) instead of one object per listing, so the roughly ten
+ * thousand active listings cost three arrays plus their strings, and any page is a plain array slice.
+ */
+public final class CryptoDirectory {
+
+    private static final CryptoDirectory EMPTY =
+            new CryptoDirectory(new long[0], new String[0], new String[0], Instant.EPOCH);
+
+    private final long[] ids;
+    private final String[] names;
+    private final String[] symbols;
+    private final Instant refreshedAt;
+
+    private CryptoDirectory(long[] ids, String[] names, String[] symbols, Instant refreshedAt) {
+        this.ids = ids;
+        this.names = names;
+        this.symbols = symbols;
+        this.refreshedAt = refreshedAt;
+    }
+
+    /**
+     * @return a directory without listings
+     */
+    public static CryptoDirectory empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @param listings    listings in rank order; listings without a symbol are skipped
+     * @param refreshedAt when the listings were fetched
+     */
+    public static CryptoDirectory of(List<CryptoListing> listings, Instant refreshedAt) {
+
+        long[] ids = new long[listings.size()];
+        String[] names = new String[listings.size()];
+        String[] symbols = new String[listings.size()];
+
+        int size = 0;
+        for (CryptoListing listing : listings) {
+            if (listing.getSymbol() == null) {
+                continue;
+            }
+            ids[size] = listing.getId() == null ? 0 : listing.getId();
+            names[size] = listing.getName() == null ? listing.getSymbol() : listing.getName();
+            symbols[size] = listing.getSymbol();
+            size++;
+        }
+
+        return new CryptoDirectory(
+                Arrays.copyOf(ids, size), Arrays.copyOf(names, size), Arrays.copyOf(symbols, size), refreshedAt);
+
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public boolean isEmpty() {
+        return ids.length == 0;
+    }
+
+    public long id(int index) {
+        return ids[index];
+    }
+
+    public String name(int index) {
+        return names[index];
+    }
+
+    public String symbol(int index) {
+        return symbols[index];
+    }
+
+    public Instant refreshedAt() {
+        return refreshedAt;
+    }
+
+    /**
+     * @return name and symbol of the listings in {@code [from, to)}
+     */
+    public List<CryptoNameSymbol> slice(int from, int to) {
+
+        List<CryptoNameSymbol> slice = new ArrayList<>(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
+            slice.add(new CryptoNameSymbol(names[i], symbols[i]));
+        }
+
+        return slice;
+
+    }
+
+    /**
+     * @return every listing, e.g. to persist the directory
+     */
+    public List<CryptoListing> listings() {
+
+        List<CryptoListing> listings = new ArrayList<>(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            listings.add(new CryptoListing(ids[i], names[i], symbols[i]));
+        }
+
+        return listings;
+
+    }
+
+    /**
+     * @return whether {@code other} holds the same listings in the same order, regardless of refresh time
+     */
+    public boolean sameListings(CryptoDirectory other) {
+        return Arrays.equals(ids, other.ids)
+                && Arrays.equals(symbols, other.symbols)
+                && Arrays.equals(names, other.names);
+    }
+
+}
@@ -0,0 +1,19 @@
+package com.casestudy.cryptoexchangeapi.exchange.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * One cryptocurrency of the CoinMarketCap map: its CMC id, name and symbol.
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+public class CryptoListing {
+
+    private Long id;
+    private String name;
+    private String symbol;
+
+}
@@ -0,0 +1,45 @@
+package com.casestudy.cryptoexchangeapi.exchange.model;
+
+import com.casestudy.cryptoexchangeapi.exchange.exception.InvalidCryptoPairException;
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCryptoCurrency;
+
+import java.util.Locale;
+
+/**
+ * An ordered (from, to) currency pair.
+ *
+ * @param from source currency
+ * @param to   target currency
+ */
+public record CryptoPair(EnumCryptoCurrency from, EnumCryptoCurrency to) {
+
+    public static CryptoPair of(EnumCryptoCurrency from, EnumCryptoCurrency to) {
+        return new CryptoPair(from, to);
+    }
+
+    /**
+     * Parses the {@code FROM-TO} form produced by {@link #toString()}, e.g. {@code BTC-ETH}.
+     *
+     * @throws InvalidCryptoPairException when the text is not two supported symbols joined by {@code -}
+     */
+    public static CryptoPair parse(String text) {
+
+        String[] symbols = text == null ? new String[0] : text.trim().toUpperCase(Locale.ROOT).split("-");
+        if (symbols.length != 2) {
+            throw new InvalidCryptoPairException("'" + text + "' is not in FROM-TO form");
+        }
+
+        try {
+            return new CryptoPair(EnumCryptoCurrency.valueOf(symbols[0]), EnumCryptoCurrency.valueOf(symbols[1]));
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidCryptoPairException("'" + text + "' contains an unsupported symbol");
+        }
+
+    }
+
+    @Override
+    public String toString() {
+        return from + "-" + to;
+    }
+
+}
@@ -0,0 +1,23 @@
+package com.casestudy.cryptoexchangeapi.exchange.model;
+
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCryptoCurrency;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Latest known USD price of a single cryptocurrency and the moment it was quoted.
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+public class CryptoQuote {
+
+    private EnumCryptoCurrency symbol;
+    private BigDecimal usdPrice;
+    private Instant quotedAt;
+
+}
@@ -0,0 +1,259 @@
+package com.casestudy.cryptoexchangeapi.exchange.model;
+
+import com.casestudy.cryptoexchangeapi.exchange.model.dto.response.CryptoNameSymbol;
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCryptoCurrency;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable type-ahead index over the symbols and names of the {@link CryptoDirectory} and of every
+ * {@link EnumCryptoCurrency}.
+ * <p>
+ * Every asset contributes its symbol, its full name and each further word of its name as keys, case folded and
+ * stripped of diacritics. The keys live in one sorted array, so a prefix lookup is a binary search followed by a
+ * scan of the matching run. Matches rank exact symbols first, then symbol prefixes, name prefixes and word
+ * prefixes, each by CoinMarketCap rank.
+ * <p>
+ * When prefixes find fewer assets than requested, an optional fuzzy pass compares the query with the same-length
+ * prefix of every key using a bounded edit distance, so {@code "etherum"} still finds Ethereum.
+ */
+public final class CryptoSearchIndex {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern WORD_SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final byte EXACT_SYMBOL = 0;
+    private static final byte SYMBOL = 1;
+    private static final byte NAME = 2;
+    private static final byte WORD = 3;
+    private static final byte FUZZY = 4;
+
+    private final String[] names;
+    private final String[] symbols;
+
+    private final String[] keys;
+    private final int[] keyAssets;
+    private final byte[] keyKinds;
+
+    private CryptoSearchIndex(String[] names, String[] symbols, String[] keys, int[] keyAssets, byte[] keyKinds) {
+        this.names = names;
+        this.symbols = symbols;
+        this.keys = keys;
+        this.keyAssets = keyAssets;
+        this.keyKinds = keyKinds;
+    }
+
+    /**
+     * Builds the index from the directory listings in rank order, followed by the supported currencies the
+     * directory does not list (e.g. before the first directory refresh).
+     */
+    public static CryptoSearchIndex of(CryptoDirectory directory) {
+
+        List<String> names = new ArrayList<>();
+        List<String> symbols = new ArrayList<>();
+        Set<String> listedSymbols = new HashSet<>();
+
+        for (int i = 0; i < directory.size(); i++) {
+            names.add(directory.name(i));
+            symbols.add(directory.symbol(i));
+            listedSymbols.add(directory.symbol(i));
+        }
+        for (EnumCryptoCurrency currency : EnumCryptoCurrency.values()) {
+            if (listedSymbols.add(currency.name())) {
+                names.add(currency.getDisplayName());
+                symbols.add(currency.name());
+            }
+        }
+
+        List<String> keys = new ArrayList<>();
+        List<Integer> keyAssets = new ArrayList<>();
+        List<Byte> keyKinds = new ArrayList<>();
+
+        for (int asset = 0; asset < names.size(); asset++) {
+            addKey(keys, keyAssets, keyKinds, fold(symbols.get(asset)), asset, SYMBOL);
+            String name = fold(names.get(asset));
+            addKey(keys, keyAssets, keyKinds, name, asset, NAME);
+            String[] words = WORD_SEPARATORS.split(name);
+            for (int w = 1; w < words.length; w++) {
+                addKey(keys, keyAssets, keyKinds, words[w], asset, WORD);
+            }
+        }
+
+        Integer[] order = IntStream.range(0, keys.size()).boxed().toArray(Integer[]::new);
+        Arrays.sort(order, Comparator.comparing(keys::get));
+
+        String[] sortedKeys = new String[order.length];
+        int[] sortedAssets = new int[order.length];
+        byte[] sortedKinds = new byte[order.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedKeys[i] = keys.get(order[i]);
+            sortedAssets[i] = keyAssets.get(order[i]);
+            sortedKinds[i] = keyKinds.get(order[i]);
+        }
+
+        return new CryptoSearchIndex(names.toArray(String[]::new), symbols.toArray(String[]::new),
+                sortedKeys, sortedAssets, sortedKinds);
+
+    }
+
+    /**
+     * @param query           typed text; case and diacritics are ignored
+     * @param limit           maximum number of assets returned
+     * @param maxEditDistance edits tolerated by the fuzzy fallback; {@code 0} disables it
+     * @return the best matching assets, best first
+     */
+    public List<CryptoNameSymbol> search(String query, int limit, int maxEditDistance) {
+
+        String folded = query == null ? "" : fold(query.trim());
+        if (folded.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        // score = match class in the high bits, asset index (i.e. rank) in the low bits: sorting ranks the matches
+        long[] scores = new long[16];
+        int count = 0;
+
+        for (int i = lowerBound(folded); i < keys.length && keys[i].startsWith(folded); i++) {
+            byte kind = keyKinds[i] == SYMBOL && keys[i].length() == folded.length() ? EXACT_SYMBOL : keyKinds[i];
+            scores = grow(scores, count);
+            scores[count++] = score(kind, keyAssets[i]);
+        }
+
+        if (distinctAssets(scores, count) < limit && maxEditDistance > 0 && folded.length() >= 3) {
+            int maxDistance = folded.length() <= 4 ? 1 : maxEditDistance;
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i].length() + maxDistance < folded.length()) {
+                    continue;
+                }
+                int distance = prefixDistance(folded, keys[i], maxDistance);
+                if (distance > 0 && distance <= maxDistance) {
+                    scores = grow(scores, count);
+                    scores[count++] = score((byte) (FUZZY + distance), keyAssets[i]);
+                }
+            }
+        }
+
+        Arrays.sort(scores, 0, count);
+
+        List<CryptoNameSymbol> results = new ArrayList<>(Math.min(limit, count));
+        Set<Integer> seen = new HashSet<>();
+        for (int i = 0; i < count && results.size() < limit; i++) {
+            int asset = (int) scores[i];
+            if (seen.add(asset)) {
+                results.add(new CryptoNameSymbol(names[asset], symbols[asset]));
+            }
+        }
+
+        return results;
+
+    }
+
+    /**
+     * @return number of indexed assets
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Case folds {@code text} the way keys are folded: Unicode compatibility decomposition, diacritics removed,
+     * lower case.
+     */
+    static String fold(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFKD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    private static void addKey(List<String> keys, List<Integer> keyAssets, List<Byte> keyKinds,
+                               String key, int asset, byte kind) {
+        if (!key.isEmpty()) {
+            keys.add(key);
+            keyAssets.add(asset);
+            keyKinds.add(kind);
+        }
+    }
+
+    private int lowerBound(String prefix) {
+
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return low;
+
+    }
+
+    private static long score(byte kind, int asset) {
+        return ((long) kind << 32) | asset;
+    }
+
+    private static long[] grow(long[] scores, int count) {
+        return count < scores.length ? scores : Arrays.copyOf(scores, scores.length * 2);
+    }
+
+    private static int distinctAssets(long[] scores, int count) {
+        Set<Integer> assets = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            assets.add((int) scores[i]);
+        }
+        return assets.size();
+    }
+
+    /**
+     * Levenshtein distance between {@code query} and the prefix of {@code key} it can best be aligned with,
+     * giving up as soon as it exceeds {@code maxDistance}.
+     *
+     * @return the distance, or {@code maxDistance + 1} when it is larger
+     */
+    private static int prefixDistance(String query, String key, int maxDistance) {
+
+        int keyLength = Math.min(key.length(), query.length() + maxDistance);
+        int[] previous = new int[keyLength + 1];
+        int[] current = new int[keyLength + 1];
+        for (int j = 0; j <= keyLength; j++) {
+            previous[j] = j;
+        }
+
+        for (int i = 1; i <= query.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= keyLength; j++) {
+                int substitution = previous[j - 1] + (query.charAt(i - 1) == key.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > maxDistance) {
+                return maxDistance + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+
+        // the key may continue after the aligned prefix: take the best column
+        int best = maxDistance + 1;
+        for (int j = 0; j <= keyLength; j++) {
+            best = Math.min(best, previous[j]);
+        }
+
+        return best;
+
+    }
+
+}
@@ -0,0 +1,111 @@
+package com.casestudy.cryptoexchangeapi.exchange.model;
+
+import com.casestudy.cryptoexchangeapi.exchange.exception.InvalidHistoryCursorException;
+import com.casestudy.cryptoexchangeapi.exchange.model.entity.CryptoConvertEntity;
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCryptoCurrency;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Continuation point of a keyset-paginated history: the sort key and {@code _id} of the last conversion a page
+ * returned. The next page holds the conversions that sort after it by that key, ties broken by {@code _id} in the
+ * same direction, so it is read with an index range seek instead of skipping every earlier conversion.
+ * <p>
+ * Clients only see it {@link #encode() encoded} as an opaque token. Cursors exist for sorts on a single
+ * {@link HistoryQuery#sort() canonical} property; {@code value} is {@code null} when that property is {@code id}.
+ * A {@code createdAt} value is UTC wall-clock time, like the {@code createdAt} bounds of a filter.
+ */
+public record HistoryCursor(String property, Sort.Direction direction, Object value, String id) {
+
+    private static final char SEPARATOR = '\n';
+
+    /**
+     * @return the cursor continuing after {@code last} under {@code sort}, or {@code null} when {@code sort} does
+     * not order by exactly one property or {@code last} has no value for it
+     */
+    public static HistoryCursor after(String sort, CryptoConvertEntity last) {
+
+        int colon = sort.indexOf(':');
+        if (colon < 0 || sort.indexOf(',') != sort.length() - 1 || last.getId() == null) {
+            return null;
+        }
+
+        String property = sort.substring(0, colon);
+        Sort.Direction direction = Sort.Direction.valueOf(sort.substring(colon + 1, sort.length() - 1));
+        Object value = switch (property) {
+            case "createdAt" -> HistoryQuery.toUtc(last.getCreatedAt());
+            case "amount" -> last.getAmount();
+            case "convertedAmount" -> last.getConvertedAmount();
+            case "fromCurrency" -> last.getFromCurrency();
+            case "toCurrency" -> last.getToCurrency();
+            case "transactionId" -> last.getTransactionId();
+            default -> null;
+        };
+
+        if (value == null && !"id".equals(property)) {
+            return null;
+        }
+
+        return new HistoryCursor(property, direction, value, last.getId());
+
+    }
+
+    /**
+     * @throws InvalidHistoryCursorException when {@code token} was not produced by {@link #encode()}
+     */
+    public static HistoryCursor decode(String token) {
+
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8)
+                    .split(String.valueOf(SEPARATOR), -1);
+            if (parts.length != 4 || parts[3].isEmpty()) {
+                throw new InvalidHistoryCursorException("malformed token");
+            }
+
+            String property = parts[0];
+            Sort.Direction direction = Sort.Direction.valueOf(parts[1]);
+            Object value = switch (property) {
+                case "createdAt" -> LocalDateTime.parse(parts[2]);
+                case "amount", "convertedAmount" -> new BigDecimal(parts[2]);
+                case "fromCurrency", "toCurrency" -> EnumCryptoCurrency.valueOf(parts[2]);
+                case "transactionId" -> parts[2];
+                case "id" -> null;
+                default -> throw new InvalidHistoryCursorException("unknown sort property");
+            };
+
+            return new HistoryCursor(property, direction, value, parts[3]);
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            throw new InvalidHistoryCursorException("malformed token");
+        }
+
+    }
+
+    public String encode() {
+
+        String text = property + SEPARATOR + direction + SEPARATOR + format(value) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+
+    }
+
+    /**
+     * @return the canonical sort this cursor continues, in {@link HistoryQuery#sort()} form
+     */
+    public String sort() {
+        return property + ":" + direction + ",";
+    }
+
+    private static String format(Object value) {
+        return switch (value) {
+            case null -> "";
+            case BigDecimal decimal -> decimal.toPlainString();
+            case Enum<?> constant -> constant.name();
+            default -> value.toString();
+        };
+    }
+
+}
@@ -0,0 +1,484 @@
+package com.casestudy.cryptoexchangeapi.exchange.model;
+
+import com.casestudy.cryptoexchangeapi.common.model.dto.request.CustomPagingRequest;
+import com.casestudy.cryptoexchangeapi.exchange.exception.InvalidHistoryCursorException;
+import com.casestudy.cryptoexchangeapi.exchange.exception.InvalidHistorySortException;
+import com.casestudy.cryptoexchangeapi.exchange.model.dto.request.ListCryptoConvertRequest;
+import com.casestudy.cryptoexchangeapi.exchange.model.entity.CryptoConvertEntity;
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCryptoCurrency;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeSet;
+
+/**
+ * Canonical form of one history page request: the filter of a {@link ListCryptoConvertRequest} plus paging and
+ * sorting. It is both the history cache key and the input of
+ * {@link com.casestudy.cryptoexchangeapi.exchange.repository.CryptoConvertRepositoryCustom#searchWithCriteria(HistoryQuery)}.
+ * <p>
+ * Requests that select the same page build equal queries: amounts lose their trailing zeros, the transaction id
+ * parts are trimmed and lower-cased (ids are generated in lower case and {@code transactionIdContains} ignores
+ * case), blank criteria are dropped, a filter without criteria counts as no filter, and sort properties are mapped
+ * onto the whitelisted entity properties with repeated properties removed. {@link #fingerprint()} is computed once
+ * from those fields and serves as the hash code; equality still compares every field.
+ * <p>
+ * A query with a {@link #cursor()} is a keyset page: it continues after the {@link HistoryCursor} the token
+ * encodes, always with page {@code 0}, and is read without skipping or counting.
+ * <p>
+ * {@code transactionIdAfter} / {@code transactionIdBefore} seek on the time-ordered {@code _id} every conversion
+ * shares with its {@code transactionId}; conversions written before ids were time-ordered have random ids and are
+ * not ordered by time.
+ * <p>
+ * Unlike a flat string key it can tell whether a newly written conversion {@link #matches could appear} in its
+ * result, so a write only invalidates the pages it can change. {@link #shape()} names the filter criteria that
+ * are set, which is how history cache statistics are tagged.
+ */
+public record HistoryQuery(EnumCryptoCurrency from,
+                           EnumCryptoCurrency to,
+                           BigDecimal minAmount,
+                           BigDecimal maxAmount,
+                           BigDecimal minConvertedAmount,
+                           BigDecimal maxConvertedAmount,
+                           LocalDateTime createdAtFrom,
+                           LocalDateTime createdAtTo,
+                           String transactionIdContains,
+                           String transactionIdAfter,
+                           String transactionIdBefore,
+                           boolean filtered,
+                           int page,
+                           int size,
+                           String sort,
+                           String cursor,
+                           long fingerprint) {
+
+    /**
+     * Page served when a request carries no paging.
+     */
+    public static final Pageable DEFAULT_PAGEABLE = PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "createdAt"));
+
+    /**
+     * Entity properties history can be sorted by, keyed by every accepted spelling in lower case: the property
+     * itself, its MongoDB field name and, for the currencies, the request field name. {@code id} orders by the
+     * time-ordered {@code _id}.
+     */
+    private static final Map<String, String> SORTABLE = Map.ofEntries(
+            Map.entry("createdat", "createdAt"),
+            Map.entry("amount", "amount"),
+            Map.entry("convertedamount", "convertedAmount"),
+            Map.entry("converted_amount", "convertedAmount"),
+            Map.entry("fromcurrency", "fromCurrency"),
+            Map.entry("from_currency", "fromCurrency"),
+            Map.entry("from", "fromCurrency"),
+            Map.entry("tocurrency", "toCurrency"),
+            Map.entry("to_currency", "toCurrency"),
+            Map.entry("to", "toCurrency"),
+            Map.entry("transactionid", "transactionId"),
+            Map.entry("transaction_id", "transactionId"),
+            Map.entry("id", "id"),
+            Map.entry("_id", "id")
+    );
+
+    /**
+     * Normalizes every component, so queries read back from a shared cache tier are canonical as well. The
+     * {@code fingerprint} argument is ignored and recomputed.
+     */
+    public HistoryQuery {
+
+        minAmount = canonical(minAmount);
+        maxAmount = canonical(maxAmount);
+        minConvertedAmount = canonical(minConvertedAmount);
+        maxConvertedAmount = canonical(maxConvertedAmount);
+        transactionIdContains = canonical(transactionIdContains);
+        transactionIdAfter = canonical(transactionIdAfter);
+        transactionIdBefore = canonical(transactionIdBefore);
+        sort = Objects.requireNonNullElse(sort, "");
+        cursor = cursor == null || cursor.isBlank() ? null : cursor.trim();
+        if (cursor != null) {
+            page = 0;
+        }
+
+        filtered = filtered && (from != null || to != null
+                || minAmount != null || maxAmount != null
+                || minConvertedAmount != null || maxConvertedAmount != null
+                || createdAtFrom != null || createdAtTo != null
+                || transactionIdContains != null
+                || transactionIdAfter != null || transactionIdBefore != null);
+
+        fingerprint = fingerprint(from, to, minAmount, maxAmount, minConvertedAmount, maxConvertedAmount,
+                createdAtFrom, createdAtTo, transactionIdContains, transactionIdAfter, transactionIdBefore,
+                filtered, page, size, sort, cursor);
+
+    }
+
+    /**
+     * Builds the query of a {@code getHistory} call, falling back to {@link #DEFAULT_PAGEABLE} without paging.
+     *
+     * @throws InvalidHistorySortException when sorting by a property that is not whitelisted
+     */
+    public static HistoryQuery of(ListCryptoConvertRequest request, CustomPagingRequest pagingRequest) {
+
+        ListCryptoConvertRequest.Filter filter = request == null ? null : request.getFilter();
+        if (pagingRequest == null) {
+            return of(filter, DEFAULT_PAGEABLE);
+        }
+        if (pagingRequest.getCursor() == null || pagingRequest.getCursor().isBlank()) {
+            return of(filter, pagingRequest.toPageable());
+        }
+
+        // Seeking: only the page size and sort of the paging apply, the position comes from the cursor
+        Integer pageSize = pagingRequest.getPagination() == null ? null : pagingRequest.getPagination().getPageSize();
+        Sort sort = pagingRequest.getSorting() == null ? Sort.unsorted() : pagingRequest.getSorting().toSort();
+        return of(filter, PageRequest.of(0, pageSize == null ? DEFAULT_PAGEABLE.getPageSize() : pageSize, sort),
+                pagingRequest.getCursor());
+
+    }
+
+    /**
+     * @throws InvalidHistorySortException when sorting by a property that is not whitelisted
+     */
+    public static HistoryQuery of(ListCryptoConvertRequest.Filter filter, Pageable pageable) {
+        return of(filter, pageable, null);
+    }
+
+    /**
+     * Builds a query continuing after {@code cursor}, a token returned as {@code nextCursor} of an earlier page, or
+     * a page-number query when it is {@code null}. A seek without sort takes the sort of its cursor.
+     *
+     * @throws InvalidHistorySortException   when sorting by a property that is not whitelisted
+     * @throws InvalidHistoryCursorException when the cursor is malformed or was issued for another sort
+     */
+    public static HistoryQuery of(ListCryptoConvertRequest.Filter filter, Pageable pageable, String cursor) {
+
+        String sort = canonical(pageable.getSort());
+
+        if (cursor != null && !cursor.isBlank()) {
+            HistoryCursor after = HistoryCursor.decode(cursor.trim());
+            if (sort.isEmpty()) {
+                sort = after.sort();
+            } else if (!sort.equals(after.sort())) {
+                throw new InvalidHistoryCursorException("it continues sort " + after.sort() + " not " + sort);
+            }
+        }
+
+        if (filter == null) {
+            return new HistoryQuery(null, null, null, null, null, null, null, null, null, null, null, false,
+                    pageable.getPageNumber(), pageable.getPageSize(), sort, cursor, 0L);
+        }
+
+        return new HistoryQuery(
+                filter.getFrom(),
+                filter.getTo(),
+                filter.getMinAmount(),
+                filter.getMaxAmount(),
+                filter.getMinConvertedAmount(),
+                filter.getMaxConvertedAmount(),
+                filter.getCreatedAtFrom(),
+                filter.getCreatedAtTo(),
+                filter.getTransactionIdContains(),
+                filter.getTransactionIdAfter(),
+                filter.getTransactionIdBefore(),
+                true,
+                pageable.getPageNumber(),
+                pageable.getPageSize(),
+                sort,
+                cursor,
+                0L);
+
+    }
+
+    /**
+     * @return the filter this query was built from, or {@code null} when it had none
+     */
+    public ListCryptoConvertRequest.Filter toFilter() {
+
+        if (!filtered) {
+            return null;
+        }
+
+        ListCryptoConvertRequest.Filter filter = new ListCryptoConvertRequest.Filter();
+        filter.setFrom(from);
+        filter.setTo(to);
+        filter.setMinAmount(minAmount);
+        filter.setMaxAmount(maxAmount);
+        filter.setMinConvertedAmount(minConvertedAmount);
+        filter.setMaxConvertedAmount(maxConvertedAmount);
+        filter.setCreatedAtFrom(createdAtFrom);
+        filter.setCreatedAtTo(createdAtTo);
+        filter.setTransactionIdContains(transactionIdContains);
+        filter.setTransactionIdAfter(transactionIdAfter);
+        filter.setTransactionIdBefore(transactionIdBefore);
+        return filter;
+
+    }
+
+    /**
+     * @return the paging and sorting this query was built from
+     */
+    public Pageable toPageable() {
+
+        List<Sort.Order> orders = new ArrayList<>();
+        for (String order : sort.split(",")) {
+            int colon = order.lastIndexOf(':');
+            if (colon > 0) {
+                orders.add(new Sort.Order(Sort.Direction.valueOf(order.substring(colon + 1)), order.substring(0, colon)));
+            }
+        }
+
+        return PageRequest.of(page, size, Sort.by(orders));
+
+    }
+
+    /**
+     * @return the position this query seeks after, or {@code null} for a page-number query
+     */
+    public HistoryCursor seekAfter() {
+        return cursor == null ? null : HistoryCursor.decode(cursor);
+    }
+
+    /**
+     * @return the token continuing after the last conversion of {@code slice}, or {@code null} when it is the last
+     * page or the sort is not on exactly one property
+     */
+    public String nextCursor(Slice<CryptoConvertEntity> slice) {
+
+        if (!slice.hasNext() || !slice.hasContent()) {
+            return null;
+        }
+
+        HistoryCursor next = HistoryCursor.after(sort, slice.getContent().getLast());
+        return next == null ? null : next.encode();
+
+    }
+
+    /**
+     * Whether {@code conversion} satisfies this filter, i.e. whether writing it can change any page of this query.
+     * A conversion without {@code createdAt} is treated as created now. The {@code createdAt} bounds are UTC, as
+     * the repository applies them.
+     */
+    public boolean matches(CryptoConvertEntity conversion) {
+
+        if (from != null && from != conversion.getFromCurrency()) {
+            return false;
+        }
+        if (to != null && to != conversion.getToCurrency()) {
+            return false;
+        }
+        if (!within(conversion.getAmount(), minAmount, maxAmount)) {
+            return false;
+        }
+        if (!within(conversion.getConvertedAmount(), minConvertedAmount, maxConvertedAmount)) {
+            return false;
+        }
+
+        LocalDateTime createdAt = conversion.getCreatedAt() == null
+                ? LocalDateTime.now(ZoneOffset.UTC)
+                : toUtc(conversion.getCreatedAt());
+        if (createdAtFrom != null && createdAt.isBefore(createdAtFrom)) {
+            return false;
+        }
+        if (createdAtTo != null && createdAt.isAfter(createdAtTo)) {
+            return false;
+        }
+
+        // Ids are assigned when the conversion is written, so one without an id yet sorts after every existing one
+        String id = conversion.getId();
+        if (transactionIdAfter != null && id != null && id.compareTo(transactionIdAfter) <= 0) {
+            return false;
+        }
+        if (transactionIdBefore != null && (id == null || id.compareTo(transactionIdBefore) >= 0)) {
+            return false;
+        }
+
+        if (transactionIdContains != null) {
+            String transactionId = conversion.getTransactionId();
+            return transactionId != null && transactionId.toLowerCase(Locale.ROOT).contains(transactionIdContains);
+        }
+
+        return true;
+
+    }
+
+    /**
+     * @return {@code createdAt} of a conversion, stamped in the JVM zone, as UTC wall-clock time
+     */
+    static LocalDateTime toUtc(LocalDateTime createdAt) {
+        return createdAt.atZone(ZoneId.systemDefault()).withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime();
+    }
+
+    /**
+     * @return the filter criteria that are set, e.g. {@code from+to+createdAt}, or {@code none}
+     */
+    public String shape() {
+
+        StringJoiner shape = new StringJoiner("+");
+        if (from != null) {
+            shape.add("from");
+        }
+        if (to != null) {
+            shape.add("to");
+        }
+        if (minAmount != null || maxAmount != null) {
+            shape.add("amount");
+        }
+        if (minConvertedAmount != null || maxConvertedAmount != null) {
+            shape.add("convertedAmount");
+        }
+        if (createdAtFrom != null || createdAtTo != null) {
+            shape.add("createdAt");
+        }
+        if (transactionIdContains != null) {
+            shape.add("transactionId");
+        }
+        if (transactionIdAfter != null || transactionIdBefore != null) {
+            shape.add("idRange");
+        }
+
+        return shape.length() == 0 ? "none" : shape.toString();
+
+    }
+
+    @Override
+    public String toString() {
+
+        StringBuilder sb = new StringBuilder("history::");
+        if (filtered) {
+            sb.append("from=").append(Objects.toString(from, ""))
+                    .append("|to=").append(Objects.toString(to, ""))
+                    .append("|minAmt=").append(Objects.toString(minAmount, ""))
+                    .append("|maxAmt=").append(Objects.toString(maxAmount, ""))
+                    .append("|minConv=").append(Objects.toString(minConvertedAmount, ""))
+                    .append("|maxConv=").append(Objects.toString(maxConvertedAmount, ""))
+                    .append("|fromDate=").append(Objects.toString(createdAtFrom, ""))
+                    .append("|toDate=").append(Objects.toString(createdAtTo, ""))
+                    .append("|txPart=").append(Objects.toString(transactionIdContains, ""))
+                    .append("|after=").append(Objects.toString(transactionIdAfter, ""))
+                    .append("|before=").append(Objects.toString(transactionIdBefore, ""));
+        } else {
+            sb.append("nofilter");
+        }
+
+        sb.append("|page=").append(page)
+                .append("|size=").append(size)
+                .append("|sort=").append(sort);
+        if (cursor != null) {
+            sb.append("|cursor=").append(cursor);
+        }
+
+        return sb.toString();
+
+    }
+
+    @Override
+    public boolean equals(Object o) {
+
+        if (this == o) {
+            return true;
+        }
+
+        return o instanceof HistoryQuery other
+                && fingerprint == other.fingerprint
+                && filtered == other.filtered
+                && page == other.page
+                && size == other.size
+                && from == other.from
+                && to == other.to
+                && Objects.equals(minAmount, other.minAmount)
+                && Objects.equals(maxAmount, other.maxAmount)
+                && Objects.equals(minConvertedAmount, other.minConvertedAmount)
+                && Objects.equals(maxConvertedAmount, other.maxConvertedAmount)
+                && Objects.equals(createdAtFrom, other.createdAtFrom)
+                && Objects.equals(createdAtTo, other.createdAtTo)
+                && Objects.equals(transactionIdContains, other.transactionIdContains)
+                && Objects.equals(transactionIdAfter, other.transactionIdAfter)
+                && Objects.equals(transactionIdBefore, other.transactionIdBefore)
+                && sort.equals(other.sort)
+                && Objects.equals(cursor, other.cursor);
+
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(fingerprint);
+    }
+
+    /**
+     * @return {@code value} without trailing zeros and never in exponent notation, so equal amounts are equal
+     */
+    private static BigDecimal canonical(BigDecimal value) {
+        if (value == null) {
+            return null;
+        }
+        BigDecimal stripped = value.stripTrailingZeros();
+        return stripped.scale() < 0 ? stripped.setScale(0) : stripped;
+    }
+
+    private static String canonical(String transactionIdPart) {
+        if (transactionIdPart == null || transactionIdPart.isBlank()) {
+            return null;
+        }
+        return transactionIdPart.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @return the orders as {@code property:DIRECTION,} with whitelisted property names, each property once
+     */
+    private static String canonical(Sort sort) {
+
+        StringBuilder canonical = new StringBuilder();
+        Set<String> seen = new HashSet<>();
+        for (Sort.Order order : sort) {
+            String property = SORTABLE.get(order.getProperty().trim().toLowerCase(Locale.ROOT));
+            if (property == null) {
+                throw new InvalidHistorySortException(order.getProperty(), new TreeSet<>(SORTABLE.values()));
+            }
+            if (seen.add(property)) {
+                canonical.append(property).append(":").append(order.getDirection()).append(",");
+            }
+        }
+
+        return canonical.toString();
+
+    }
+
+    /**
+     * 64-bit FNV-1a over the hash codes of {@code parts}, finished with the MurmurHash3 mixer so that every input
+     * bit reaches every output bit.
+     */
+    private static long fingerprint(Object... parts) {
+
+        long hash = 0xcbf29ce484222325L;
+        for (Object part : parts) {
+            int partHash = part instanceof Enum<?> e ? e.name().hashCode() : Objects.hashCode(part);
+            hash = (hash ^ partHash) * 0x100000001b3L;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+
+    }
+
+    private static boolean within(BigDecimal value, BigDecimal min, BigDecimal max) {
+        if (value == null) {
+            return min == null && max == null;
+        }
+        return (min == null || value.compareTo(min) >= 0) && (max == null || value.compareTo(max) <= 0);
+    }
+
+}
@@ -0,0 +1,218 @@
+package com.casestudy.cryptoexchangeapi.exchange.model;
+
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCryptoCurrency;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of every cross rate between the {@link EnumCryptoCurrency} symbols.
+ * <p>
+ * Rates are stored as fixed-point decimals in flat primitive arrays indexed by
+ * {@code from.ordinal() * N + to.ordinal()}: an unscaled {@code long} with a per-pair {@code int} scale,
+ * rounded to 16 significant digits, plus a parallel {@code long[]} holding the epoch-milli timestamp of the
+ * older of the two USD quotes behind each rate. A per-pair scale is needed because rates span roughly twenty
+ * orders of magnitude (e.g. BTC/PEPE vs PEPE/BTC), which no single fixed scale can hold.
+ * <p>
+ * Lookups are plain array reads: no hashing and no locking. Turning a rate into a {@link BigDecimal} is a single
+ * {@link BigDecimal#valueOf(long, int)}, avoiding the {@code double} to decimal conversion that would otherwise
+ * dominate the convert path.
+ */
+public final class RateMatrix {
+
+    private static final EnumCryptoCurrency[] SYMBOLS = EnumCryptoCurrency.values();
+
+    public static final int SIZE = SYMBOLS.length;
+
+    /**
+     * 16 significant digits keep every unscaled value below {@code 10^16}, well inside a {@code long}.
+     */
+    private static final MathContext PRECISION = MathContext.DECIMAL64;
+
+    private static final RateMatrix EMPTY = new RateMatrix(new long[SIZE], new int[SIZE], new long[SIZE]);
+
+    private final long[] usdUnscaled;
+    private final int[] usdScales;
+    private final long[] usdQuotedAt;
+    private final long[] unscaledRates;
+    private final int[] rateScales;
+    private final long[] quotedAt;
+
+    private RateMatrix(long[] usdUnscaled, int[] usdScales, long[] usdQuotedAt) {
+
+        this.usdUnscaled = usdUnscaled;
+        this.usdScales = usdScales;
+        this.usdQuotedAt = usdQuotedAt;
+        this.unscaledRates = new long[SIZE * SIZE];
+        this.rateScales = new int[SIZE * SIZE];
+        this.quotedAt = new long[SIZE * SIZE];
+
+        for (int from = 0; from < SIZE; from++) {
+            if (usdUnscaled[from] == 0) {
+                continue;
+            }
+            BigDecimal fromPrice = BigDecimal.valueOf(usdUnscaled[from], usdScales[from]);
+            for (int to = 0; to < SIZE; to++) {
+                if (usdUnscaled[to] == 0) {
+                    continue;
+                }
+                BigDecimal rate = from == to
+                        ? BigDecimal.ONE
+                        : fromPrice.divide(BigDecimal.valueOf(usdUnscaled[to], usdScales[to]), PRECISION)
+                        .stripTrailingZeros();
+                int index = from * SIZE + to;
+                unscaledRates[index] = rate.unscaledValue().longValueExact();
+                rateScales[index] = rate.scale();
+                quotedAt[index] = Math.min(usdQuotedAt[from], usdQuotedAt[to]);
+            }
+        }
+
+    }
+
+    /**
+     * @return a matrix without any quotes; every lookup reports no rate
+     */
+    public static RateMatrix empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Builds a new snapshot from this one with the given USD prices applied on top.
+     *
+     * @param prices    USD price per symbol; non-positive prices are ignored
+     * @param quotedAt  epoch millis the prices were quoted at
+     * @return a new matrix; this instance is left untouched
+     */
+    public RateMatrix withUsdPrices(Map<EnumCryptoCurrency, BigDecimal> prices, long quotedAt) {
+
+        long[] nextUnscaled = Arrays.copyOf(usdUnscaled, SIZE);
+        int[] nextScales = Arrays.copyOf(usdScales, SIZE);
+        long[] nextQuotedAt = Arrays.copyOf(usdQuotedAt, SIZE);
+
+        prices.forEach((symbol, price) -> {
+            if (price != null && price.signum() > 0) {
+                setUsdPrice(nextUnscaled, nextScales, nextQuotedAt, symbol.ordinal(), price, quotedAt);
+            }
+        });
+
+        return new RateMatrix(nextUnscaled, nextScales, nextQuotedAt);
+
+    }
+
+    /**
+     * Builds a new snapshot from this one with the given quotes applied on top, each keeping its own timestamp.
+     * A quote only replaces the current price of its symbol when it is newer, so older quotes (e.g. restored
+     * from a persisted snapshot) never overwrite fresher ones.
+     *
+     * @param quotes quotes to apply; non-positive prices and quotes without a timestamp are ignored
+     * @return a new matrix; this instance is left untouched
+     */
+    public RateMatrix withQuotes(Collection<CryptoQuote> quotes) {
+
+        long[] nextUnscaled = Arrays.copyOf(usdUnscaled, SIZE);
+        int[] nextScales = Arrays.copyOf(usdScales, SIZE);
+        long[] nextQuotedAt = Arrays.copyOf(usdQuotedAt, SIZE);
+
+        for (CryptoQuote quote : quotes) {
+            if (quote.getSymbol() == null || quote.getUsdPrice() == null || quote.getUsdPrice().signum() <= 0
+                    || quote.getQuotedAt() == null) {
+                continue;
+            }
+            int ordinal = quote.getSymbol().ordinal();
+            long quotedAt = quote.getQuotedAt().toEpochMilli();
+            if (quotedAt > nextQuotedAt[ordinal]) {
+                setUsdPrice(nextUnscaled, nextScales, nextQuotedAt, ordinal, quote.getUsdPrice(), quotedAt);
+            }
+        }
+
+        return new RateMatrix(nextUnscaled, nextScales, nextQuotedAt);
+
+    }
+
+    /**
+     * @return the USD quote of every symbol that has one, with its original timestamp
+     */
+    public List<CryptoQuote> quotes() {
+
+        List<CryptoQuote> quotes = new ArrayList<>();
+        for (EnumCryptoCurrency symbol : SYMBOLS) {
+            BigDecimal price = usdPrice(symbol);
+            if (price != null) {
+                quotes.add(new CryptoQuote(symbol, price, Instant.ofEpochMilli(usdQuotedAt(symbol))));
+            }
+        }
+
+        return quotes;
+
+    }
+
+    private static void setUsdPrice(long[] unscaled, int[] scales, long[] quotedAts,
+                                    int ordinal, BigDecimal price, long quotedAt) {
+        BigDecimal rounded = price.round(PRECISION).stripTrailingZeros();
+        unscaled[ordinal] = rounded.unscaledValue().longValueExact();
+        scales[ordinal] = rounded.scale();
+        quotedAts[ordinal] = quotedAt;
+    }
+
+    /**
+     * @return unscaled value of the rate from {@code from} to {@code to}, or {@code 0} when either side has no quote
+     */
+    public long unscaledRate(int fromOrdinal, int toOrdinal) {
+        return unscaledRates[fromOrdinal * SIZE + toOrdinal];
+    }
+
+    /**
+     * @return scale of the rate from {@code from} to {@code to}; meaningless when there is no rate
+     */
+    public int rateScale(int fromOrdinal, int toOrdinal) {
+        return rateScales[fromOrdinal * SIZE + toOrdinal];
+    }
+
+    /**
+     * @return price of one {@code from} unit in {@code to}, or {@code null} when either side has no quote
+     */
+    public BigDecimal rate(int fromOrdinal, int toOrdinal) {
+        int index = fromOrdinal * SIZE + toOrdinal;
+        long unscaled = unscaledRates[index];
+        return unscaled == 0 ? null : BigDecimal.valueOf(unscaled, rateScales[index]);
+    }
+
+    /**
+     * @return epoch millis of the older quote behind the rate, or {@code 0} when there is no rate
+     */
+    public long quotedAt(int fromOrdinal, int toOrdinal) {
+        return quotedAt[fromOrdinal * SIZE + toOrdinal];
+    }
+
+    /**
+     * @return whether {@code other} holds the same rate and quote time for the pair as this matrix
+     */
+    public boolean sameRate(RateMatrix other, int fromOrdinal, int toOrdinal) {
+        int index = fromOrdinal * SIZE + toOrdinal;
+        return unscaledRates[index] == other.unscaledRates[index]
+                && rateScales[index] == other.rateScales[index]
+                && quotedAt[index] == other.quotedAt[index];
+    }
+
+    /**
+     * @return the USD price of {@code symbol}, or {@code null} when it has never been quoted
+     */
+    public BigDecimal usdPrice(EnumCryptoCurrency symbol) {
+        long unscaled = usdUnscaled[symbol.ordinal()];
+        return unscaled == 0 ? null : BigDecimal.valueOf(unscaled, usdScales[symbol.ordinal()]);
+    }
+
+    /**
+     * @return epoch millis the USD price of {@code symbol} was quoted at, or {@code 0} when never quoted
+     */
+    public long usdQuotedAt(EnumCryptoCurrency symbol) {
+        return usdQuotedAt[symbol.ordinal()];
+    }
+
+}
@@ -31,6 +31,9 @@ public class ListCryptoConvertRequest {
         private LocalDateTime createdAtTo;            // createdAt <= to
 
         private String transactionIdContains;         // case-insensitive contains
+
+        private String transactionIdAfter;            // seek: time-ordered id > after (exclusive)
+        private String transactionIdBefore;           // seek: time-ordered id < before (exclusive)
     }
 
 }
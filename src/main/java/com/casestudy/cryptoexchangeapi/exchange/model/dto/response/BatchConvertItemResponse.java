@@ -0,0 +1,26 @@
+package com.casestudy.cryptoexchangeapi.exchange.model.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Outcome of one conversion of a batch, streamed as one line of {@code application/x-ndjson}.
+ */
+@Getter
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchConvertItemResponse {
+
+    private int index;
+
+    private HttpStatus httpStatus;
+
+    private Boolean isSuccess;
+
+    private CryptoConvertResponse response;
+
+    private String message;
+
+}
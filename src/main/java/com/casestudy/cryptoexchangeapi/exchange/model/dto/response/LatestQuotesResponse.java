@@ -0,0 +1,25 @@
+package com.casestudy.cryptoexchangeapi.exchange.model.dto.response;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Map;
+
+@Getter
+@Setter
+public class LatestQuotesResponse {
+
+    private PriceConversionResponse.Status status;
+    private Map<String, Item> data;
+
+    @Getter
+    @Setter
+    public static class Item {
+        private Long id;
+        private String name;
+        private String symbol;
+        private String last_updated;
+        private Map<String, PriceConversionResponse.Quote> quote;
+    }
+
+}
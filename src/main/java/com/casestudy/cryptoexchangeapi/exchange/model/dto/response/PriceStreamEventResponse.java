@@ -0,0 +1,19 @@
+package com.casestudy.cryptoexchangeapi.exchange.model.dto.response;
+
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCryptoCurrency;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceStreamEventResponse {
+    private EnumCryptoCurrency from;
+    private EnumCryptoCurrency to;
+    private BigDecimal rate;
+    private Instant quotedAt;
+}
@@ -1,6 +1,7 @@
 package com.casestudy.cryptoexchangeapi.exchange.model.entity;
 
 import com.casestudy.cryptoexchangeapi.common.model.entity.BaseEntity;
+import com.casestudy.cryptoexchangeapi.common.model.entity.IdentifiedEntity;
 import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCryptoCurrency;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
@@ -19,7 +20,7 @@ import java.math.BigDecimal;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "crypto-convert-collection")
-public class CryptoConvertEntity extends BaseEntity {
+public class CryptoConvertEntity extends BaseEntity implements IdentifiedEntity {
 
     @Id
     @Indexed(unique = true)
@@ -0,0 +1,52 @@
+package com.casestudy.cryptoexchangeapi.exchange.model.entity;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Last fetched CoinMarketCap cryptocurrency map, kept as a single document so a restarting pod can serve
+ * {@code /api/convert/map} without fetching the whole map first.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "crypto-directory-collection")
+public class CryptoDirectorySnapshotEntity {
+
+    public static final String LATEST_ID = "latest";
+
+    @Id
+    private String id;
+
+    @Field("REFRESHED_AT")
+    private Instant refreshedAt;
+
+    @Field("LISTINGS")
+    private List<Listing> listings;
+
+    @Getter
+    @Setter
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Listing {
+
+        @Field("CMC_ID")
+        private Long id;
+
+        @Field("NAME")
+        private String name;
+
+        @Field("SYMBOL")
+        private String symbol;
+
+    }
+
+}
@@ -0,0 +1,69 @@
+package com.casestudy.cryptoexchangeapi.exchange.model.entity;
+
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCryptoCurrency;
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+/**
+ * Conversion remembered for an {@code Idempotency-Key}. The key is the document id, so the unique {@code _id}
+ * index lets exactly one request claim it; a TTL index on {@link #CREATED_AT} expires the record. The
+ * {@link #CONVERSION} is missing while the request that claimed the key is still converting.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "idempotency-key-collection")
+public class IdempotencyRecordEntity {
+
+    public static final String CREATED_AT = "CREATED_AT";
+    public static final String CONVERSION = "CONVERSION";
+
+    @Id
+    private String key;
+
+    @Field("REQUEST_FINGERPRINT")
+    private String requestFingerprint;
+
+    @Field(CREATED_AT)
+    private Instant createdAt;
+
+    @Field(CONVERSION)
+    private Conversion conversion;
+
+    @Getter
+    @Setter
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Conversion {
+
+        @Field("TRANSACTION_ID")
+        private String transactionId;
+
+        @Field(name = "AMOUNT", targetType = FieldType.DECIMAL128)
+        private BigDecimal amount;
+
+        @Field(name = "FROM_CURRENCY", targetType = FieldType.STRING)
+        private EnumCryptoCurrency from;
+
+        @Field(name = "TO_CURRENCY", targetType = FieldType.STRING)
+        private EnumCryptoCurrency to;
+
+        @Field(name = "CONVERTED_AMOUNT", targetType = FieldType.DECIMAL128)
+        private BigDecimal convertedAmount;
+
+        @Field("CONVERTED_AT")
+        private LocalDateTime createdAt;
+
+    }
+
+}
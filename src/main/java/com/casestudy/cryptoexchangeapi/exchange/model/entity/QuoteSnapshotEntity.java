@@ -0,0 +1,52 @@
+package com.casestudy.cryptoexchangeapi.exchange.model.entity;
+
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCryptoCurrency;
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Last known USD quote set of the quote book, kept as a single document so every refresh costs one write
+ * and a restarting pod can warm up with one read.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "quote-snapshot-collection")
+public class QuoteSnapshotEntity {
+
+    public static final String LATEST_ID = "latest";
+
+    @Id
+    private String id;
+
+    @Field("QUOTES")
+    private List<Quote> quotes;
+
+    @Getter
+    @Setter
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Quote {
+
+        @Field(name = "SYMBOL", targetType = FieldType.STRING)
+        private EnumCryptoCurrency symbol;
+
+        @Field(name = "USD_PRICE", targetType = FieldType.DECIMAL128)
+        private BigDecimal usdPrice;
+
+        @Field("QUOTED_AT")
+        private Instant quotedAt;
+
+    }
+
+}
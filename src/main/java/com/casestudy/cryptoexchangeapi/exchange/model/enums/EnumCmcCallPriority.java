@@ -0,0 +1,14 @@
+package com.casestudy.cryptoexchangeapi.exchange.model.enums;
+
+/**
+ * Priority classes of CoinMarketCap calls, highest first. When the call budget is exhausted, queued calls are
+ * granted permits in this order. {@link #HEDGE} calls are never queued, see {@code CmcBudgetScheduler#tryAcquire}.
+ */
+public enum EnumCmcCallPriority {
+
+    CONVERSION,
+    REFRESH,
+    DIRECTORY,
+    HEDGE
+
+}
@@ -0,0 +1,18 @@
+package com.casestudy.cryptoexchangeapi.exchange.model.enums;
+
+/**
+ * When a conversion is acknowledged to the caller while conversions are written behind.
+ */
+public enum EnumConversionWriteAck {
+
+    /**
+     * After the batch holding the conversion has been inserted into MongoDB.
+     */
+    DURABLE,
+
+    /**
+     * As soon as the conversion is queued; a crash before the next flush loses it.
+     */
+    ENQUEUED
+
+}
@@ -62,6 +62,10 @@ public enum EnumCryptoCurrency {
     EnumCryptoCurrency(String displayName) {
         this.displayName = displayName;
     }
+
+    public String getDisplayName() {
+        return displayName;
+    }
 }
 
 
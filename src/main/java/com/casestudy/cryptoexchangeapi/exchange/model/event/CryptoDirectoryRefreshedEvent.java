@@ -0,0 +1,12 @@
+package com.casestudy.cryptoexchangeapi.exchange.model.event;
+
+import com.casestudy.cryptoexchangeapi.exchange.model.CryptoDirectory;
+
+/**
+ * Published after a new {@link CryptoDirectory} was swapped in, either fetched from CoinMarketCap or restored
+ * from the persisted snapshot.
+ *
+ * @param directory the directory now published
+ */
+public record CryptoDirectoryRefreshedEvent(CryptoDirectory directory) {
+}
@@ -0,0 +1,15 @@
+package com.casestudy.cryptoexchangeapi.exchange.model.event;
+
+import com.casestudy.cryptoexchangeapi.exchange.model.entity.CryptoConvertEntity;
+
+import java.util.List;
+
+/**
+ * Broadcast to every instance after conversions were written, so each one evicts the history pages of its near
+ * cache the conversions can change.
+ *
+ * @param origin      id of the instance that wrote the conversions and already evicted its own pages
+ * @param conversions the written conversions
+ */
+public record HistoryInvalidatedEvent(String origin, List<CryptoConvertEntity> conversions) {
+}
@@ -0,0 +1,12 @@
+package com.casestudy.cryptoexchangeapi.exchange.model.event;
+
+import java.util.List;
+
+/**
+ * Published after history pages were evicted from this instance's cache because conversions were written.
+ *
+ * @param cache name of the cache the pages were evicted from
+ * @param keys  keys of the evicted pages
+ */
+public record HistoryPagesEvictedEvent(String cache, List<Object> keys) {
+}
@@ -0,0 +1,12 @@
+package com.casestudy.cryptoexchangeapi.exchange.model.event;
+
+import com.casestudy.cryptoexchangeapi.exchange.model.RateMatrix;
+
+/**
+ * Published after the quote book swapped in a new {@link RateMatrix}.
+ *
+ * @param previous the snapshot that was replaced
+ * @param current  the snapshot now published
+ */
+public record QuoteBookUpdatedEvent(RateMatrix previous, RateMatrix current) {
+}
@@ -0,0 +1,19 @@
+package com.casestudy.cryptoexchangeapi.exchange.model.mapper;
+
+import com.casestudy.cryptoexchangeapi.common.model.mapper.BaseMapper;
+import com.casestudy.cryptoexchangeapi.exchange.model.CryptoConvert;
+import com.casestudy.cryptoexchangeapi.exchange.model.entity.IdempotencyRecordEntity;
+import org.mapstruct.Mapper;
+import org.mapstruct.factory.Mappers;
+
+@Mapper
+public interface CryptoConvertToIdempotencyRecordConversionMapper
+        extends BaseMapper<CryptoConvert, IdempotencyRecordEntity.Conversion> {
+
+    IdempotencyRecordEntity.Conversion map(CryptoConvert source);
+
+    static CryptoConvertToIdempotencyRecordConversionMapper initialize() {
+        return Mappers.getMapper(CryptoConvertToIdempotencyRecordConversionMapper.class);
+    }
+
+}
@@ -0,0 +1,19 @@
+package com.casestudy.cryptoexchangeapi.exchange.model.mapper;
+
+import com.casestudy.cryptoexchangeapi.common.model.mapper.BaseMapper;
+import com.casestudy.cryptoexchangeapi.exchange.model.CryptoListing;
+import com.casestudy.cryptoexchangeapi.exchange.model.entity.CryptoDirectorySnapshotEntity;
+import org.mapstruct.Mapper;
+import org.mapstruct.factory.Mappers;
+
+@Mapper
+public interface CryptoDirectorySnapshotListingToCryptoListingMapper
+        extends BaseMapper<CryptoDirectorySnapshotEntity.Listing, CryptoListing> {
+
+    CryptoListing map(CryptoDirectorySnapshotEntity.Listing source);
+
+    static CryptoDirectorySnapshotListingToCryptoListingMapper initialize() {
+        return Mappers.getMapper(CryptoDirectorySnapshotListingToCryptoListingMapper.class);
+    }
+
+}
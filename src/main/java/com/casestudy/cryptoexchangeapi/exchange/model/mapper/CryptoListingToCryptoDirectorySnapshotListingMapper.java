@@ -0,0 +1,19 @@
+package com.casestudy.cryptoexchangeapi.exchange.model.mapper;
+
+import com.casestudy.cryptoexchangeapi.common.model.mapper.BaseMapper;
+import com.casestudy.cryptoexchangeapi.exchange.model.CryptoListing;
+import com.casestudy.cryptoexchangeapi.exchange.model.entity.CryptoDirectorySnapshotEntity;
+import org.mapstruct.Mapper;
+import org.mapstruct.factory.Mappers;
+
+@Mapper
+public interface CryptoListingToCryptoDirectorySnapshotListingMapper
+        extends BaseMapper<CryptoListing, CryptoDirectorySnapshotEntity.Listing> {
+
+    CryptoDirectorySnapshotEntity.Listing map(CryptoListing source);
+
+    static CryptoListingToCryptoDirectorySnapshotListingMapper initialize() {
+        return Mappers.getMapper(CryptoListingToCryptoDirectorySnapshotListingMapper.class);
+    }
+
+}
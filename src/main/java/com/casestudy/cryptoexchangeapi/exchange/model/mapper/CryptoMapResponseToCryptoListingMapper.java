@@ -0,0 +1,18 @@
+package com.casestudy.cryptoexchangeapi.exchange.model.mapper;
+
+import com.casestudy.cryptoexchangeapi.common.model.mapper.BaseMapper;
+import com.casestudy.cryptoexchangeapi.exchange.model.CryptoListing;
+import com.casestudy.cryptoexchangeapi.exchange.model.dto.response.CryptoMapResponse;
+import org.mapstruct.Mapper;
+import org.mapstruct.factory.Mappers;
+
+@Mapper
+public interface CryptoMapResponseToCryptoListingMapper extends BaseMapper<CryptoMapResponse.Item, CryptoListing> {
+
+    CryptoListing map(CryptoMapResponse.Item source);
+
+    static CryptoMapResponseToCryptoListingMapper initialize() {
+        return Mappers.getMapper(CryptoMapResponseToCryptoListingMapper.class);
+    }
+
+}
@@ -0,0 +1,18 @@
+package com.casestudy.cryptoexchangeapi.exchange.model.mapper;
+
+import com.casestudy.cryptoexchangeapi.common.model.mapper.BaseMapper;
+import com.casestudy.cryptoexchangeapi.exchange.model.CryptoQuote;
+import com.casestudy.cryptoexchangeapi.exchange.model.entity.QuoteSnapshotEntity;
+import org.mapstruct.Mapper;
+import org.mapstruct.factory.Mappers;
+
+@Mapper
+public interface CryptoQuoteToQuoteSnapshotQuoteMapper extends BaseMapper<CryptoQuote, QuoteSnapshotEntity.Quote> {
+
+    QuoteSnapshotEntity.Quote map(CryptoQuote source);
+
+    static CryptoQuoteToQuoteSnapshotQuoteMapper initialize() {
+        return Mappers.getMapper(CryptoQuoteToQuoteSnapshotQuoteMapper.class);
+    }
+
+}
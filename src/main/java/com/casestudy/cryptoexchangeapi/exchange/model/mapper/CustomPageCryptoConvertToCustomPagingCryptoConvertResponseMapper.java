@@ -23,6 +23,7 @@ public interface CustomPageCryptoConvertToCustomPagingCryptoConvertResponseMappe
                 .totalPageCount(page.getTotalPageCount())
                 .pageNumber(page.getPageNumber())
                 .pageSize(page.getPageSize())
+                .nextCursor(page.getNextCursor())
                 .build();
     }
 
@@ -0,0 +1,19 @@
+package com.casestudy.cryptoexchangeapi.exchange.model.mapper;
+
+import com.casestudy.cryptoexchangeapi.common.model.mapper.BaseMapper;
+import com.casestudy.cryptoexchangeapi.exchange.model.CryptoConvert;
+import com.casestudy.cryptoexchangeapi.exchange.model.entity.IdempotencyRecordEntity;
+import org.mapstruct.Mapper;
+import org.mapstruct.factory.Mappers;
+
+@Mapper
+public interface IdempotencyRecordConversionToCryptoConvertMapper
+        extends BaseMapper<IdempotencyRecordEntity.Conversion, CryptoConvert> {
+
+    CryptoConvert map(IdempotencyRecordEntity.Conversion source);
+
+    static IdempotencyRecordConversionToCryptoConvertMapper initialize() {
+        return Mappers.getMapper(IdempotencyRecordConversionToCryptoConvertMapper.class);
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.casestudy.cryptoexchangeapi.exchange.model.mapper;
+
+import com.casestudy.cryptoexchangeapi.exchange.model.CryptoQuote;
+import com.casestudy.cryptoexchangeapi.exchange.model.dto.response.LatestQuotesResponse;
+import com.casestudy.cryptoexchangeapi.exchange.model.dto.response.PriceConversionResponse;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.Named;
+import org.mapstruct.factory.Mappers;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
+
+@Mapper
+public interface LatestQuotesResponseToCryptoQuoteMapper {
+
+    String USD = "USD";
+
+    @Mapping(target = "symbol",   source = "symbol")
+    @Mapping(target = "usdPrice", source = "quote", qualifiedByName = "usdPrice")
+    @Mapping(target = "quotedAt", source = "quote", qualifiedByName = "usdQuotedAt")
+    CryptoQuote map(LatestQuotesResponse.Item source);
+
+    @Named("usdPrice")
+    default BigDecimal usdPrice(Map<String, PriceConversionResponse.Quote> quote) {
+        PriceConversionResponse.Quote usd = quote == null ? null : quote.get(USD);
+        return usd == null ? null : usd.getPrice();
+    }
+
+    @Named("usdQuotedAt")
+    default Instant usdQuotedAt(Map<String, PriceConversionResponse.Quote> quote) {
+        PriceConversionResponse.Quote usd = quote == null ? null : quote.get(USD);
+        return usd == null || usd.getLast_updated() == null ? null : Instant.parse(usd.getLast_updated());
+    }
+
+    static LatestQuotesResponseToCryptoQuoteMapper initialize() {
+        return Mappers.getMapper(LatestQuotesResponseToCryptoQuoteMapper.class);
+    }
+
+}
@@ -0,0 +1,190 @@
+package com.casestudy.cryptoexchangeapi.exchange.provider;
+
+import com.casestudy.cryptoexchangeapi.exchange.exception.CmcBudgetExceededException;
+import com.casestudy.cryptoexchangeapi.exchange.exception.ConversionFailedException;
+import com.casestudy.cryptoexchangeapi.exchange.feign.CmcClient;
+import com.casestudy.cryptoexchangeapi.exchange.model.CryptoQuote;
+import com.casestudy.cryptoexchangeapi.exchange.model.dto.response.LatestQuotesResponse;
+import com.casestudy.cryptoexchangeapi.exchange.model.dto.response.PriceConversionResponse;
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCmcCallPriority;
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCryptoCurrency;
+import com.casestudy.cryptoexchangeapi.exchange.model.mapper.LatestQuotesResponseToCryptoQuoteMapper;
+import com.casestudy.cryptoexchangeapi.exchange.service.CmcBudgetScheduler;
+import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import io.github.resilience4j.retry.annotation.Retry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * {@link QuoteProvider} backed by CoinMarketCap: a rate-limited gateway to the live price lookups.
+ * Every method here spends upstream quota, so callers should prefer locally held prices.
+ * <p>
+ * Permits come from the {@link CmcBudgetScheduler}: unit price lookups serve user conversions and get the
+ * highest priority, bulk USD price refreshes run in the background. Hedged unit price lookups only take a spare
+ * permit and fail fast without one.
+ */
+@Service
+@ConditionalOnExpression("'${quote-provider.type:cmc}' == 'cmc' "
+        + "or (${quote-provider.hedge.enabled:false} and '${quote-provider.hedge.backup:cmc}' == 'cmc')")
+@RequiredArgsConstructor
+public class CmcQuoteProvider implements QuoteProvider {
+
+    private static final String USD = "USD";
+
+    private final CmcClient cmcClient;
+    private final CmcBudgetScheduler cmcBudgetScheduler;
+
+    private final LatestQuotesResponseToCryptoQuoteMapper latestQuotesResponseToCryptoQuoteMapper =
+            LatestQuotesResponseToCryptoQuoteMapper.initialize();
+
+    /**
+     * Asks CMC for the price of one {@code from} unit expressed in {@code to}.
+     * The amount is always 1, so the answer can be reused for any requested amount.
+     *
+     * @param from source currency
+     * @param to   target currency
+     * @return the quoted price of one {@code from} unit in {@code to}
+     */
+    @Override
+    @Retry(name = "cmc")
+    @CircuitBreaker(name = "cmc", fallbackMethod = "fallbackUnitPrice")
+    public BigDecimal unitPrice(EnumCryptoCurrency from, EnumCryptoCurrency to) {
+
+        cmcBudgetScheduler.acquire(EnumCmcCallPriority.CONVERSION);
+        return priceConversion(from, to);
+
+    }
+
+    /**
+     * Same lookup as {@link #unitPrice}, but only with a spare permit of the call budget.
+     *
+     * @throws CmcBudgetExceededException straight away when no permit is spare
+     */
+    @Override
+    @Retry(name = "cmc")
+    @CircuitBreaker(name = "cmc", fallbackMethod = "fallbackUnitPrice")
+    public BigDecimal hedgedUnitPrice(EnumCryptoCurrency from, EnumCryptoCurrency to) {
+
+        if (!cmcBudgetScheduler.tryAcquire(EnumCmcCallPriority.HEDGE)) {
+            throw new CmcBudgetExceededException(EnumCmcCallPriority.HEDGE, "no spare permit");
+        }
+
+        return priceConversion(from, to);
+
+    }
+
+    private BigDecimal priceConversion(EnumCryptoCurrency from, EnumCryptoCurrency to) {
+
+        PriceConversionResponse response = cmcClient.priceConversion("1", from.name(), null, to.name(), null);
+
+        PriceConversionResponse.Quote quote = requireQuotes(response).get(to.name());
+        if (quote == null) {
+            throw new ConversionFailedException("No quote for " + to.name() + " in CMC response");
+        }
+
+        BigDecimal unitPrice = quote.getPrice();
+        if (unitPrice == null) {
+            throw new ConversionFailedException("CMC quote has null price for " + to.name());
+        }
+
+        return unitPrice;
+
+    }
+
+    /**
+     * Fetches the USD price of every given symbol with a single upstream call to the latest quotes endpoint.
+     *
+     * @param symbols currencies to price
+     * @return USD price per symbol; symbols missing from the CMC answer or quoted at a non-positive price are left out
+     */
+    @Override
+    @Retry(name = "cmc")
+    @CircuitBreaker(name = "cmc", fallbackMethod = "fallbackUsdPrices")
+    public Map<EnumCryptoCurrency, BigDecimal> usdPrices(Collection<EnumCryptoCurrency> symbols) {
+
+        cmcBudgetScheduler.acquire(EnumCmcCallPriority.REFRESH);
+
+        String symbolList = symbols.stream()
+                .map(EnumCryptoCurrency::name)
+                .collect(Collectors.joining(","));
+
+        LatestQuotesResponse response = cmcClient.latestQuotes(symbolList, USD, true);
+        Map<String, LatestQuotesResponse.Item> items = requireItems(response);
+
+        Map<EnumCryptoCurrency, BigDecimal> prices = new EnumMap<>(EnumCryptoCurrency.class);
+        for (EnumCryptoCurrency symbol : symbols) {
+            LatestQuotesResponse.Item item = items.get(symbol.name());
+            if (item == null) {
+                continue;
+            }
+            CryptoQuote quote = latestQuotesResponseToCryptoQuoteMapper.map(item);
+            if (quote.getUsdPrice() != null && quote.getUsdPrice().signum() > 0) {
+                prices.put(symbol, quote.getUsdPrice());
+            }
+        }
+
+        return prices;
+
+    }
+
+    public BigDecimal fallbackUnitPrice(EnumCryptoCurrency from, EnumCryptoCurrency to, Throwable cause) {
+        if (cause instanceof CmcBudgetExceededException budgetExceeded) {
+            throw budgetExceeded;
+        }
+        throw new ConversionFailedException("Upstream conversion unavailable", cause);
+    }
+
+    public Map<EnumCryptoCurrency, BigDecimal> fallbackUsdPrices(Collection<EnumCryptoCurrency> symbols,
+                                                                 Throwable cause) {
+        if (cause instanceof CmcBudgetExceededException budgetExceeded) {
+            throw budgetExceeded;
+        }
+        throw new ConversionFailedException("Upstream quotes unavailable", cause);
+    }
+
+    private Map<String, PriceConversionResponse.Quote> requireQuotes(PriceConversionResponse response) {
+
+        requireSuccess(response == null ? null : response.getStatus());
+
+        if (response.getData() == null) {
+            throw new ConversionFailedException("CMC response has no data");
+        }
+
+        Map<String, PriceConversionResponse.Quote> quoteMap = response.getData().getQuote();
+        return quoteMap == null ? Map.of() : quoteMap;
+
+    }
+
+    private Map<String, LatestQuotesResponse.Item> requireItems(LatestQuotesResponse response) {
+
+        requireSuccess(response == null ? null : response.getStatus());
+
+        if (response.getData() == null) {
+            throw new ConversionFailedException("CMC response has no data");
+        }
+
+        return response.getData();
+
+    }
+
+    private void requireSuccess(PriceConversionResponse.Status status) {
+
+        if (status == null) {
+            throw new ConversionFailedException("Null response or missing status from CMC");
+        }
+
+        if (status.getError_code() != 0) {
+            String msg = status.getError_message();
+            throw new ConversionFailedException("CMC error: " + (msg == null ? "unknown" : msg));
+        }
+
+    }
+
+}
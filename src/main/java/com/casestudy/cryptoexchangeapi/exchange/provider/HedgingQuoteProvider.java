@@ -0,0 +1,241 @@
+package com.casestudy.cryptoexchangeapi.exchange.provider;
+
+import com.casestudy.cryptoexchangeapi.exchange.config.QuoteProviderProperties;
+import com.casestudy.cryptoexchangeapi.exchange.exception.CmcBudgetExceededException;
+import com.casestudy.cryptoexchangeapi.exchange.exception.ConversionFailedException;
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCryptoCurrency;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * {@link QuoteProvider} that hedges unit price lookups: when the primary has not answered within the hedge delay,
+ * the same lookup is sent to a backup provider and whichever succeeds first wins. A primary that fails before the
+ * delay fails over to the backup straight away.
+ * <p>
+ * The hedge delay follows the primary's own latency: it is the configured percentile of a per-provider latency
+ * {@link Timer} ({@code quote.provider.latency}), clamped to {@code [min-delay, max-delay]}. Until enough calls
+ * were observed {@code initial-delay} is used.
+ * <p>
+ * A hedge is only sent while the guarding circuit breaker is closed. It goes through
+ * {@link QuoteProvider#hedgedUnitPrice}, so a rate-limited backup only spends spare quota and declines straight
+ * away when there is none; the primary's answer is then awaited. That also lets CMC hedge itself: a second call to
+ * the same upstream, made only with budget the primary does not need. Bulk USD price refreshes are not hedged.
+ */
+public class HedgingQuoteProvider implements QuoteProvider {
+
+    private final QuoteProvider primary;
+    private final QuoteProvider backup;
+    private final QuoteProviderProperties.Hedge properties;
+    private final CircuitBreaker circuitBreaker;
+    private final ExecutorService executor;
+
+    private final Timer primaryLatency;
+    private final Timer backupLatency;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * @param circuitBreaker breaker that must be closed for hedges to be sent, or {@code null} to not check any
+     */
+    public HedgingQuoteProvider(String primaryName,
+                                QuoteProvider primary,
+                                String backupName,
+                                QuoteProvider backup,
+                                QuoteProviderProperties.Hedge properties,
+                                MeterRegistry meterRegistry,
+                                CircuitBreaker circuitBreaker,
+                                ExecutorService executor) {
+
+        this.primary = primary;
+        this.backup = backup;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.circuitBreaker = circuitBreaker;
+        this.executor = executor;
+
+        this.primaryLatency = latencyTimer(meterRegistry, primaryName, "primary");
+        this.backupLatency = latencyTimer(meterRegistry, backupName, "backup");
+
+    }
+
+    @Override
+    public BigDecimal unitPrice(EnumCryptoCurrency from, EnumCryptoCurrency to) {
+
+        CompletableFuture<BigDecimal> primaryCall = submit(primaryLatency, () -> primary.unitPrice(from, to));
+
+        long delay = hedgeDelayMillis();
+        try {
+            BigDecimal price = primaryCall.get(delay, TimeUnit.MILLISECONDS);
+            outcome("primary");
+            return price;
+        } catch (TimeoutException ex) {
+            // primary is slower than usual: hedge below
+        } catch (ExecutionException ex) {
+            RuntimeException primaryFailure = unwrap(ex.getCause());
+            if (!hedgeAllowed()) {
+                outcome("failed");
+                throw primaryFailure;
+            }
+            outcome("failover");
+            try {
+                return join(submit(backupLatency, () -> backup.hedgedUnitPrice(from, to)));
+            } catch (RuntimeException backupFailure) {
+                primaryFailure.addSuppressed(backupFailure);
+                throw primaryFailure;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ConversionFailedException("Interrupted while waiting for quote", ex);
+        }
+
+        if (!hedgeAllowed()) {
+            outcome("suppressed");
+            return join(primaryCall);
+        }
+
+        CompletableFuture<BigDecimal> backupCall = submit(backupLatency, () -> backup.hedgedUnitPrice(from, to));
+        try {
+            Answer answer = firstSuccessful(primaryCall, backupCall).join();
+            outcome(answer.fromBackup() ? "hedged_backup" : declined(backupCall) ? "suppressed" : "hedged_primary");
+            return answer.price();
+        } catch (CompletionException ex) {
+            outcome("failed");
+            throw unwrap(ex.getCause());
+        }
+
+    }
+
+    @Override
+    public Map<EnumCryptoCurrency, BigDecimal> usdPrices(Collection<EnumCryptoCurrency> symbols) {
+        return primary.usdPrices(symbols);
+    }
+
+    /**
+     * Stops the lookup executor; in-flight lookups are interrupted.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @return how long the primary gets before a hedge is sent, in milliseconds
+     */
+    long hedgeDelayMillis() {
+
+        if (primaryLatency.count() < properties.getMinSamples()) {
+            return properties.getInitialDelay();
+        }
+
+        for (ValueAtPercentile percentile : primaryLatency.takeSnapshot().percentileValues()) {
+            if (percentile.percentile() == properties.getPercentile()) {
+                long observed = (long) Math.ceil(percentile.value(TimeUnit.MILLISECONDS));
+                return Math.clamp(observed, properties.getMinDelay(), properties.getMaxDelay());
+            }
+        }
+
+        return properties.getInitialDelay();
+
+    }
+
+    private boolean hedgeAllowed() {
+        return circuitBreaker == null || circuitBreaker.getState() == CircuitBreaker.State.CLOSED;
+    }
+
+    /**
+     * @return whether the backup turned the hedge down for lack of spare call budget
+     */
+    private static boolean declined(CompletableFuture<BigDecimal> backupCall) {
+        return backupCall.state() == Future.State.FAILED
+                && unwrap(backupCall.exceptionNow()) instanceof CmcBudgetExceededException;
+    }
+
+    private CompletableFuture<BigDecimal> submit(Timer latency, Supplier<BigDecimal> call) {
+        return CompletableFuture.supplyAsync(() -> latency.record(call), executor);
+    }
+
+    private static CompletableFuture<Answer> firstSuccessful(CompletableFuture<BigDecimal> primaryCall,
+                                                            CompletableFuture<BigDecimal> backupCall) {
+
+        CompletableFuture<Answer> first = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+
+        primaryCall.whenComplete((price, failure) -> {
+            if (failure == null) {
+                first.complete(new Answer(price, false));
+            } else if (failures.incrementAndGet() == 2) {
+                first.completeExceptionally(failure);
+            }
+        });
+
+        backupCall.whenComplete((price, failure) -> {
+            if (failure == null) {
+                first.complete(new Answer(price, true));
+            } else if (failures.incrementAndGet() == 2) {
+                // both failed: report the primary's failure, it is the one callers expect
+                primaryCall.whenComplete((ignored, primaryFailure) -> first.completeExceptionally(primaryFailure));
+            }
+        });
+
+        return first;
+
+    }
+
+    private static BigDecimal join(CompletableFuture<BigDecimal> call) {
+        try {
+            return call.join();
+        } catch (CompletionException ex) {
+            throw unwrap(ex.getCause());
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable failure) {
+
+        Throwable cause = failure;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+
+        return cause instanceof RuntimeException runtime
+                ? runtime
+                : new ConversionFailedException("Quote lookup failed", cause);
+
+    }
+
+    private void outcome(String outcome) {
+        Counter.builder("quote.provider.hedge")
+                .description("Unit price lookups by hedging outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private Timer latencyTimer(MeterRegistry registry, String provider, String role) {
+        return Timer.builder("quote.provider.latency")
+                .description("Unit price lookup latency per quote provider")
+                .tag("provider", provider)
+                .tag("role", role)
+                .publishPercentiles(properties.getPercentile())
+                .distributionStatisticExpiry(Duration.ofMillis(properties.getWindow()))
+                .register(registry);
+    }
+
+    private record Answer(BigDecimal price, boolean fromBackup) {
+    }
+
+}
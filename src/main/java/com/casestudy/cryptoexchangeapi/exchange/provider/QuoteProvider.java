@@ -0,0 +1,45 @@
+package com.casestudy.cryptoexchangeapi.exchange.provider;
+
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCryptoCurrency;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Source of the prices used to convert between cryptocurrencies.
+ * <p>
+ * Exactly one implementation is active, selected with {@code quote-provider.type}:
+ * <ul>
+ *     <li>{@code cmc} (default): live CoinMarketCap quotes, see {@link CmcQuoteProvider}</li>
+ *     <li>{@code replay}: recorded CMC responses served from a file, see {@link ReplayQuoteProvider}</li>
+ *     <li>{@code synthetic}: random-walk prices with injected latency and errors, see {@link SyntheticQuoteProvider}</li>
+ * </ul>
+ * With {@code quote-provider.hedge.enabled} the selected provider is wrapped in a {@link HedgingQuoteProvider}
+ * that sends slow lookups to {@code quote-provider.hedge.backup} as well.
+ * Failures are reported as {@link com.casestudy.cryptoexchangeapi.exchange.exception.ConversionFailedException}.
+ */
+public interface QuoteProvider {
+
+    /**
+     * @param from source currency
+     * @param to   target currency
+     * @return the price of one {@code from} unit in {@code to}
+     */
+    BigDecimal unitPrice(EnumCryptoCurrency from, EnumCryptoCurrency to);
+
+    /**
+     * Unit price lookup sent as a hedge or failover by {@link HedgingQuoteProvider}. Providers with a shared call
+     * budget only spend spare quota on it and fail fast otherwise; the default is a plain {@link #unitPrice}.
+     */
+    default BigDecimal hedgedUnitPrice(EnumCryptoCurrency from, EnumCryptoCurrency to) {
+        return unitPrice(from, to);
+    }
+
+    /**
+     * @param symbols currencies to price
+     * @return USD price per symbol; symbols the provider has no positive price for are left out
+     */
+    Map<EnumCryptoCurrency, BigDecimal> usdPrices(Collection<EnumCryptoCurrency> symbols);
+
+}
@@ -0,0 +1,156 @@
+package com.casestudy.cryptoexchangeapi.exchange.provider;
+
+import com.casestudy.cryptoexchangeapi.exchange.config.QuoteProviderProperties;
+import com.casestudy.cryptoexchangeapi.exchange.exception.ConversionFailedException;
+import com.casestudy.cryptoexchangeapi.exchange.model.dto.response.LatestQuotesResponse;
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCryptoCurrency;
+import com.casestudy.cryptoexchangeapi.exchange.model.mapper.LatestQuotesResponseToCryptoQuoteMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * {@link QuoteProvider} that replays recorded CoinMarketCap responses instead of calling the network.
+ * <p>
+ * {@code quote-provider.replay.file} points at an NDJSON file holding one
+ * {@code /v1/cryptocurrency/quotes/latest} response body (with {@code convert=USD}) per line. Every call serves
+ * the next recording; after the last one the replay starts over, or keeps serving the last one when
+ * {@code quote-provider.replay.loop} is {@code false}. Cross rates are derived from the USD prices of the
+ * recording being served.
+ */
+@Slf4j
+@Service
+@ConditionalOnExpression("'${quote-provider.type:cmc}' == 'replay' "
+        + "or (${quote-provider.hedge.enabled:false} and '${quote-provider.hedge.backup:cmc}' == 'replay')")
+@RequiredArgsConstructor
+public class ReplayQuoteProvider implements QuoteProvider {
+
+    private static final Set<String> SUPPORTED_SYMBOLS = Arrays.stream(EnumCryptoCurrency.values())
+            .map(EnumCryptoCurrency::name)
+            .collect(Collectors.toUnmodifiableSet());
+
+    private final QuoteProviderProperties properties;
+    private final ResourceLoader resourceLoader;
+    private final ObjectMapper objectMapper;
+
+    private final LatestQuotesResponseToCryptoQuoteMapper latestQuotesResponseToCryptoQuoteMapper =
+            LatestQuotesResponseToCryptoQuoteMapper.initialize();
+
+    private final AtomicLong served = new AtomicLong();
+
+    private List<Map<EnumCryptoCurrency, BigDecimal>> recordings;
+
+    @PostConstruct
+    void load() {
+
+        String location = properties.getReplay().getFile();
+        if (location == null || location.isBlank()) {
+            throw new IllegalStateException("quote-provider.replay.file must be set for the replay quote provider");
+        }
+
+        Resource resource = resourceLoader.getResource(location);
+        List<Map<EnumCryptoCurrency, BigDecimal>> loaded = new ArrayList<>();
+
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    loaded.add(toUsdPrices(objectMapper.readValue(line, LatestQuotesResponse.class)));
+                }
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("Could not read quote replay file " + location, ex);
+        }
+
+        if (loaded.isEmpty()) {
+            throw new IllegalStateException("Quote replay file " + location + " holds no recordings");
+        }
+
+        recordings = List.copyOf(loaded);
+        log.info("Replaying {} recorded quote responses from {}", recordings.size(), location);
+
+    }
+
+    @Override
+    public BigDecimal unitPrice(EnumCryptoCurrency from, EnumCryptoCurrency to) {
+
+        Map<EnumCryptoCurrency, BigDecimal> recording = next();
+
+        BigDecimal fromUsd = recording.get(from);
+        BigDecimal toUsd = recording.get(to);
+        if (fromUsd == null || toUsd == null) {
+            throw new ConversionFailedException("No quote for " + (fromUsd == null ? from : to) + " in replayed response");
+        }
+
+        return fromUsd.divide(toUsd, MathContext.DECIMAL64);
+
+    }
+
+    @Override
+    public Map<EnumCryptoCurrency, BigDecimal> usdPrices(Collection<EnumCryptoCurrency> symbols) {
+
+        Map<EnumCryptoCurrency, BigDecimal> recording = next();
+
+        Map<EnumCryptoCurrency, BigDecimal> prices = new EnumMap<>(EnumCryptoCurrency.class);
+        for (EnumCryptoCurrency symbol : symbols) {
+            BigDecimal price = recording.get(symbol);
+            if (price != null) {
+                prices.put(symbol, price);
+            }
+        }
+
+        return prices;
+
+    }
+
+    private Map<EnumCryptoCurrency, BigDecimal> next() {
+
+        long index = served.getAndIncrement();
+        int size = recordings.size();
+
+        return recordings.get(properties.getReplay().isLoop()
+                ? (int) (index % size)
+                : (int) Math.min(index, size - 1));
+
+    }
+
+    private Map<EnumCryptoCurrency, BigDecimal> toUsdPrices(LatestQuotesResponse response) {
+
+        Map<EnumCryptoCurrency, BigDecimal> prices = new EnumMap<>(EnumCryptoCurrency.class);
+        if (response.getData() == null) {
+            return prices;
+        }
+
+        response.getData().values().stream()
+                .filter(item -> SUPPORTED_SYMBOLS.contains(item.getSymbol()))
+                .map(latestQuotesResponseToCryptoQuoteMapper::map)
+                .filter(quote -> quote.getUsdPrice() != null && quote.getUsdPrice().signum() > 0)
+                .forEach(quote -> prices.put(quote.getSymbol(), quote.getUsdPrice()));
+
+        return prices;
+
+    }
+
+}
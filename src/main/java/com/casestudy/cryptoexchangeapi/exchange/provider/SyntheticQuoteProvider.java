@@ -0,0 +1,121 @@
+package com.casestudy.cryptoexchangeapi.exchange.provider;
+
+import com.casestudy.cryptoexchangeapi.exchange.config.QuoteProviderProperties;
+import com.casestudy.cryptoexchangeapi.exchange.exception.ConversionFailedException;
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCryptoCurrency;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * {@link QuoteProvider} producing random-walk prices without any network, meant for load and soak tests of the
+ * conversion pipeline at rates CoinMarketCap would never allow.
+ * <p>
+ * Every symbol starts at a seeded price between {@code 0.0001} and {@code 100000} USD. Each time a price is read
+ * it takes a lognormal step with the configured volatility. Calls can be slowed down by a uniform latency
+ * between {@code latency-min} and {@code latency-max} and fail with the configured error rate, the way an
+ * unavailable upstream would.
+ */
+@Slf4j
+@Service
+@ConditionalOnExpression("'${quote-provider.type:cmc}' == 'synthetic' "
+        + "or (${quote-provider.hedge.enabled:false} and '${quote-provider.hedge.backup:cmc}' == 'synthetic')")
+public class SyntheticQuoteProvider implements QuoteProvider {
+
+    private static final EnumCryptoCurrency[] SYMBOLS = EnumCryptoCurrency.values();
+
+    private final QuoteProviderProperties.Synthetic properties;
+
+    /**
+     * Current USD price per symbol ordinal, as {@link Double#doubleToRawLongBits(double)}.
+     */
+    private final AtomicLongArray usdPrices = new AtomicLongArray(SYMBOLS.length);
+
+    public SyntheticQuoteProvider(QuoteProviderProperties quoteProviderProperties) {
+
+        this.properties = quoteProviderProperties.getSynthetic();
+
+        SplittableRandom random = new SplittableRandom(properties.getSeed());
+        for (int i = 0; i < SYMBOLS.length; i++) {
+            usdPrices.set(i, Double.doubleToRawLongBits(Math.pow(10, random.nextDouble(-4, 5))));
+        }
+
+        log.info("Synthetic quote provider active: volatility={}, latency={}..{} ms, error rate={}",
+                properties.getVolatility(), properties.getLatencyMin(), properties.getLatencyMax(),
+                properties.getErrorRate());
+
+    }
+
+    @Override
+    public BigDecimal unitPrice(EnumCryptoCurrency from, EnumCryptoCurrency to) {
+
+        simulateUpstream();
+
+        if (from == to) {
+            return BigDecimal.ONE;
+        }
+
+        return BigDecimal.valueOf(step(from) / step(to)).round(MathContext.DECIMAL64);
+
+    }
+
+    @Override
+    public Map<EnumCryptoCurrency, BigDecimal> usdPrices(Collection<EnumCryptoCurrency> symbols) {
+
+        simulateUpstream();
+
+        Map<EnumCryptoCurrency, BigDecimal> prices = new EnumMap<>(EnumCryptoCurrency.class);
+        for (EnumCryptoCurrency symbol : symbols) {
+            prices.put(symbol, BigDecimal.valueOf(step(symbol)).round(MathContext.DECIMAL64));
+        }
+
+        return prices;
+
+    }
+
+    private double step(EnumCryptoCurrency symbol) {
+
+        double factor = Math.exp(properties.getVolatility() * ThreadLocalRandom.current().nextGaussian());
+        int ordinal = symbol.ordinal();
+
+        while (true) {
+            long current = usdPrices.get(ordinal);
+            double next = Double.longBitsToDouble(current) * factor;
+            if (usdPrices.compareAndSet(ordinal, current, Double.doubleToRawLongBits(next))) {
+                return next;
+            }
+        }
+
+    }
+
+    private void simulateUpstream() {
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        long latencyMin = properties.getLatencyMin();
+        long latencyMax = Math.max(latencyMin, properties.getLatencyMax());
+        if (latencyMax > 0) {
+            try {
+                Thread.sleep(latencyMin == latencyMax ? latencyMin : random.nextLong(latencyMin, latencyMax + 1));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new ConversionFailedException("Synthetic upstream call interrupted", ex);
+            }
+        }
+
+        if (properties.getErrorRate() > 0 && random.nextDouble() < properties.getErrorRate()) {
+            throw new ConversionFailedException("Synthetic upstream failure");
+        }
+
+    }
+
+}
@@ -1,93 +1,233 @@
 package com.casestudy.cryptoexchangeapi.exchange.repository;
 
+import com.casestudy.cryptoexchangeapi.exchange.model.HistoryCursor;
+import com.casestudy.cryptoexchangeapi.exchange.model.HistoryQuery;
 import com.casestudy.cryptoexchangeapi.exchange.model.dto.request.ListCryptoConvertRequest;
 import com.casestudy.cryptoexchangeapi.exchange.model.entity.CryptoConvertEntity;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.bson.types.Decimal128;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Component;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
-public class CryptoConvertRepositoryCustomImpl implements CryptoConvertRepositoryCustom {
+public class CryptoConvertRepositoryCustomImpl implements CryptoConvertRepositoryCustom, ApplicationRunner {
+
+    /**
+     * Serves the default {@code createdAt} sort, and keyset seeks on it, in both directions.
+     */
+    static final String SEEK_INDEX = "history-seek";
+
+    /**
+     * MongoDB field of each sort property a cursor can continue; {@code id} is {@code _id}.
+     */
+    private static final Map<String, String> SEEK_FIELDS = Map.of(
+            "createdAt", "createdAt",
+            "amount", "AMOUNT",
+            "convertedAmount", "CONVERTED_AMOUNT",
+            "fromCurrency", "FROM_CURRENCY",
+            "toCurrency", "TO_CURRENCY",
+            "transactionId", "TRANSACTION_ID"
+    );
 
     private final MongoTemplate mongoTemplate;
 
     @Override
     public Page<CryptoConvertEntity> searchWithCriteria(ListCryptoConvertRequest.Filter filter, Pageable pageable) {
+        return page(HistoryQuery.of(filter, pageable));
+    }
+
+    /**
+     * Reads one history page. A page-number query runs a count and a skip/limit find; a query with a cursor runs
+     * a keyset seek instead: one find for the rows after the cursor, with constant cost at any depth. The query is
+     * already canonical, so criteria are added in a fixed order from trimmed values and equal requests send MongoDB
+     * the same query shape.
+     *
+     * @return a {@link Page} for page-number queries, a {@link Slice} without totals for keyset queries
+     */
+    @Override
+    public Slice<CryptoConvertEntity> searchWithCriteria(HistoryQuery historyQuery) {
+        return historyQuery.cursor() == null ? page(historyQuery) : seek(historyQuery, historyQuery.seekAfter());
+    }
+
+    private Page<CryptoConvertEntity> page(HistoryQuery historyQuery) {
+        Query query = query(historyQuery, null);
+
+        // apply paging + sorting
+        Pageable pageable = historyQuery.toPageable();
+        query.with(PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), withTieBreak(pageable.getSort())));
+
+
+        long total = mongoTemplate.count(query, CryptoConvertEntity.class);
+        List<CryptoConvertEntity> entities = mongoTemplate.find(query, CryptoConvertEntity.class);
+
+        return new PageImpl<>(entities, pageable, total);
+    }
+
+    private Slice<CryptoConvertEntity> seek(HistoryQuery historyQuery, HistoryCursor after) {
+        Query query = query(historyQuery, after);
+
+        // no skip and no count: one extra row tells whether another page follows
+        Pageable pageable = historyQuery.toPageable();
+        query.with(withTieBreak(pageable.getSort())).limit(pageable.getPageSize() + 1);
+
+        List<CryptoConvertEntity> entities = mongoTemplate.find(query, CryptoConvertEntity.class);
+        boolean hasNext = entities.size() > pageable.getPageSize();
+
+        return new SliceImpl<>(hasNext ? entities.subList(0, pageable.getPageSize()) : entities, pageable, hasNext);
+    }
+
+    private static Query query(HistoryQuery historyQuery, HistoryCursor after) {
         Query query = new Query();
 
         // Build AND criteria in a list (easier to reason about & log)
         List<Criteria> ands = new ArrayList<>();
 
-        if (filter != null) {
+
+        if (historyQuery.filtered()) {
             // 1) Enums are stored as STRINGs in Mongo → compare by name()
-            if (filter.getFrom() != null) {
-                ands.add(Criteria.where("FROM_CURRENCY").is(filter.getFrom().name()));
+            if (historyQuery.from() != null) {
+                ands.add(Criteria.where("FROM_CURRENCY").is(historyQuery.from().name()));
             }
-            if (filter.getTo() != null) {
-                ands.add(Criteria.where("TO_CURRENCY").is(filter.getTo().name()));
+            if (historyQuery.to() != null) {
+                ands.add(Criteria.where("TO_CURRENCY").is(historyQuery.to().name()));
             }
 
             // AMOUNT range (Decimal128)
-            if (filter.getMinAmount() != null) {
-                ands.add(Criteria.where("AMOUNT").gte(new Decimal128(filter.getMinAmount())));
+            if (historyQuery.minAmount() != null) {
+                ands.add(Criteria.where("AMOUNT").gte(new Decimal128(historyQuery.minAmount())));
             }
-            if (filter.getMaxAmount() != null) {
-                ands.add(Criteria.where("AMOUNT").lte(new Decimal128(filter.getMaxAmount())));
+            if (historyQuery.maxAmount() != null) {
+                ands.add(Criteria.where("AMOUNT").lte(new Decimal128(historyQuery.maxAmount())));
             }
 
             // CONVERTED_AMOUNT range (Decimal128)
-            if (filter.getMinConvertedAmount() != null) {
-                ands.add(Criteria.where("CONVERTED_AMOUNT").gte(new Decimal128(filter.getMinConvertedAmount())));
+            if (historyQuery.minConvertedAmount() != null) {
+                ands.add(Criteria.where("CONVERTED_AMOUNT").gte(new Decimal128(historyQuery.minConvertedAmount())));
             }
-            if (filter.getMaxConvertedAmount() != null) {
-                ands.add(Criteria.where("CONVERTED_AMOUNT").lte(new Decimal128(filter.getMaxConvertedAmount())));
+            if (historyQuery.maxConvertedAmount() != null) {
+                ands.add(Criteria.where("CONVERTED_AMOUNT").lte(new Decimal128(historyQuery.maxConvertedAmount())));
             }
 
             // 4) createdAt range — convert LocalDateTime -> Date in UTC to avoid tz drift
-            if (filter.getCreatedAtFrom() != null) {
-                Date fromUtc = Date.from(filter.getCreatedAtFrom().atZone(ZoneOffset.UTC).toInstant());
-                ands.add(Criteria.where("createdAt").gte(fromUtc));
+            if (historyQuery.createdAtFrom() != null) {
+                ands.add(Criteria.where("createdAt").gte(utc(historyQuery.createdAtFrom())));
             }
-            if (filter.getCreatedAtTo() != null) {
-                Date toUtc = Date.from(filter.getCreatedAtTo().atZone(ZoneOffset.UTC).toInstant());
-                ands.add(Criteria.where("createdAt").lte(toUtc));
+            if (historyQuery.createdAtTo() != null) {
+                ands.add(Criteria.where("createdAt").lte(utc(historyQuery.createdAtTo())));
             }
 
-            // 5) TRANSACTION_ID contains (case-insensitive), safely quoted
-            if (filter.getTransactionIdContains() != null && !filter.getTransactionIdContains().trim().isEmpty()) {
-                String token = filter.getTransactionIdContains().trim();
-                String regex = ".*" + java.util.regex.Pattern.quote(token) + ".*";
+            // 5) TRANSACTION_ID contains (case-insensitive), safely quoted; already trimmed, null when blank
+            if (historyQuery.transactionIdContains() != null) {
+                String regex = ".*" + java.util.regex.Pattern.quote(historyQuery.transactionIdContains()) + ".*";
                 ands.add(Criteria.where("TRANSACTION_ID").regex(regex, "i"));
             }
+
+            // 6) id range — a seek on the _id index, whose time-ordered ids equal TRANSACTION_ID
+            if (historyQuery.transactionIdAfter() != null) {
+                ands.add(Criteria.where("_id").gt(historyQuery.transactionIdAfter()));
+            }
+            if (historyQuery.transactionIdBefore() != null) {
+                ands.add(Criteria.where("_id").lt(historyQuery.transactionIdBefore()));
+            }
         }
 
+        // 7) keyset position — inside the AND, a query takes only one key-less $and/$or criteria
+        if (after != null) {
+            ands.add(after(after));
+        }
 
         if (!ands.isEmpty()) {
             query.addCriteria(new Criteria().andOperator(ands.toArray(new Criteria[0])));
         }
 
-        // apply paging + sorting
-        query.with(pageable);
+        return query;
+    }
 
+    /**
+     * @return the rows sorting after {@code cursor}: beyond its sort value, or on it with an {@code _id} beyond its id
+     */
+    private static Criteria after(HistoryCursor cursor) {
+        boolean ascending = cursor.direction().isAscending();
+        Criteria idBeyond = ascending ? Criteria.where("_id").gt(cursor.id()) : Criteria.where("_id").lt(cursor.id());
+        if (cursor.value() == null) {
+            return idBeyond;
+        }
 
-        long total = mongoTemplate.count(query, CryptoConvertEntity.class);
-        List<CryptoConvertEntity> entities = mongoTemplate.find(query, CryptoConvertEntity.class);
+        String field = SEEK_FIELDS.get(cursor.property());
+        Object value = toMongo(cursor.value());
+        Criteria beyond = ascending ? Criteria.where(field).gt(value) : Criteria.where(field).lt(value);
+        Criteria tie = ascending
+                ? Criteria.where(field).is(value).and("_id").gt(cursor.id())
+                : Criteria.where(field).is(value).and("_id").lt(cursor.id());
+        return new Criteria().orOperator(beyond, tie);
+    }
 
-        return new PageImpl<>(entities, pageable, total);
+    /**
+     * Orders rows with equal values of a single sort property by {@code _id}, so a page ends at a well-defined row a
+     * cursor can continue from.
+     */
+    private static Sort withTieBreak(Sort sort) {
+        List<Sort.Order> orders = sort.toList();
+        if (orders.size() != 1 || "id".equals(orders.getFirst().getProperty())) {
+            return sort;
+        }
+        return sort.and(Sort.by(orders.getFirst().getDirection(), "id"));
+    }
+
+    private static Object toMongo(Object value) {
+        return switch (value) {
+            case LocalDateTime dateTime -> utc(dateTime);
+            case BigDecimal decimal -> new Decimal128(decimal);
+            case Enum<?> constant -> constant.name();
+            default -> value;
+        };
+    }
+
+    /**
+     * @return {@code dateTime}, a UTC wall-clock time like the filter bounds and cursor values, as a Mongo date
+     */
+    private static Date utc(LocalDateTime dateTime) {
+        return Date.from(dateTime.atZone(ZoneOffset.UTC).toInstant());
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        // off the startup path: queries work without the index, seeks on createdAt only stay constant-cost with it
+        Thread.ofVirtual().name("history-seek-index").start(this::ensureIndexes);
+    }
+
+    void ensureIndexes() {
+        try {
+            mongoTemplate.indexOps(CryptoConvertEntity.class).createIndex(new Index()
+                    .on("createdAt", Sort.Direction.DESC)
+                    .on("_id", Sort.Direction.DESC)
+                    .named(SEEK_INDEX));
+        } catch (RuntimeException ex) {
+            log.warn("History seek index could not be ensured: {}", ex.getMessage());
+        }
     }
 
 }
@@ -0,0 +1,7 @@
+package com.casestudy.cryptoexchangeapi.exchange.repository;
+
+import com.casestudy.cryptoexchangeapi.exchange.model.entity.QuoteSnapshotEntity;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface QuoteSnapshotRepository extends MongoRepository<QuoteSnapshotEntity, String> {
+}
@@ -0,0 +1,351 @@
+package com.casestudy.cryptoexchangeapi.exchange.service;
+
+import com.casestudy.cryptoexchangeapi.exchange.config.CmcBudgetProperties;
+import com.casestudy.cryptoexchangeapi.exchange.exception.CmcBudgetExceededException;
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCmcCallPriority;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import io.github.resilience4j.ratelimiter.internal.AtomicRateLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Owns the CoinMarketCap call budget, i.e. the permits of the {@code cmc} rate limiter, and hands them out by
+ * priority instead of first come, first served.
+ * <p>
+ * A caller asks for a permit with its {@link EnumCmcCallPriority} and a deadline. While permits are left and
+ * nobody is waiting the permit is granted straight away. Otherwise the call is queued; whenever the limiter
+ * refreshes, queued calls are granted highest priority first, earliest deadline first within a priority.
+ * <p>
+ * Calls are rejected early instead of waiting in vain: when the queue is full, or when the permits still to come
+ * before the call's turn cannot arrive before its deadline. A higher-priority arrival can push queued calls past
+ * their deadline; those are rejected at that moment.
+ * <p>
+ * Calls that may just as well be skipped, such as hedged price lookups, use {@link #tryAcquire} instead: they only
+ * get a permit that is spare right now and never wait for one.
+ * <p>
+ * Exported meters: {@code cmc.budget.utilization} (share of the current period's permits spent),
+ * {@code cmc.budget.queue.depth} per {@code priority} and {@code cmc.budget.calls} per {@code priority} and
+ * {@code outcome} ({@code immediate}, {@code queued}, {@code rejected}, {@code expired}).
+ */
+@Slf4j
+@Service
+public class CmcBudgetScheduler {
+
+    private static final EnumCmcCallPriority[] PRIORITIES = EnumCmcCallPriority.values();
+
+    private static final long MIN_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final RateLimiter rateLimiter;
+    private final CmcBudgetProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final PriorityQueue<Ticket> queue = new PriorityQueue<>();
+    private final AtomicIntegerArray queueDepth = new AtomicIntegerArray(PRIORITIES.length);
+    private final Thread dispatcher;
+
+    private long sequence;
+    private volatile boolean running = true;
+
+    @Autowired
+    public CmcBudgetScheduler(RateLimiterRegistry rateLimiterRegistry,
+                              CmcBudgetProperties properties,
+                              MeterRegistry meterRegistry) {
+        this(rateLimiterRegistry.rateLimiter(properties.getRateLimiter()), properties, meterRegistry);
+    }
+
+    CmcBudgetScheduler(RateLimiter rateLimiter, CmcBudgetProperties properties, MeterRegistry meterRegistry) {
+
+        this.rateLimiter = rateLimiter;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("cmc.budget.utilization", this, CmcBudgetScheduler::utilization)
+                .description("Share of the current period's CoinMarketCap permits already spent")
+                .register(meterRegistry);
+        for (EnumCmcCallPriority priority : PRIORITIES) {
+            Gauge.builder("cmc.budget.queue.depth", queueDepth, depth -> depth.get(priority.ordinal()))
+                    .description("CoinMarketCap calls waiting for a permit")
+                    .tag("priority", priority.name())
+                    .register(meterRegistry);
+        }
+
+        this.dispatcher = Thread.ofPlatform()
+                .name("cmc-budget-dispatcher")
+                .daemon()
+                .start(this::dispatch);
+
+    }
+
+    /**
+     * Blocks until a permit for one CoinMarketCap call is granted, waiting at most the deadline configured for
+     * the priority class.
+     *
+     * @throws CmcBudgetExceededException when no permit can be granted in time
+     */
+    public void acquire(EnumCmcCallPriority priority) {
+        acquire(priority, Duration.ofMillis(properties.deadline(priority)));
+    }
+
+    /**
+     * Blocks until a permit for one CoinMarketCap call is granted, waiting at most {@code maxWait}.
+     *
+     * @throws CmcBudgetExceededException when no permit can be granted in time
+     */
+    public void acquire(EnumCmcCallPriority priority, Duration maxWait) {
+
+        long now = System.nanoTime();
+        Ticket ticket;
+
+        lock.lock();
+        try {
+            if (queue.isEmpty() && rateLimiter.acquirePermission()) {
+                outcome(priority, "immediate");
+                return;
+            }
+
+            if (queue.size() >= properties.getMaxQueueSize()) {
+                outcome(priority, "rejected");
+                throw new CmcBudgetExceededException(priority, "queue is full");
+            }
+
+            ticket = new Ticket(priority, now + maxWait.toNanos(), sequence++);
+            enqueue(ticket);
+            shedUnreachable(now);
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        awaitGrant(ticket);
+
+    }
+
+    /**
+     * Grants a permit for one CoinMarketCap call only if it is spare right now: nobody is queued and more than
+     * {@code reserved-permits} permits of the current period are left. Never waits.
+     *
+     * @return whether the permit was granted
+     */
+    public boolean tryAcquire(EnumCmcCallPriority priority) {
+
+        lock.lock();
+        try {
+            boolean granted = queue.isEmpty()
+                    && rateLimiter.getMetrics().getAvailablePermissions() > properties.getReservedPermits()
+                    && rateLimiter.acquirePermission();
+            outcome(priority, granted ? "immediate" : "rejected");
+            return granted;
+        } finally {
+            lock.unlock();
+        }
+
+    }
+
+    /**
+     * @return share of the permits of the current limiter period that are spent, between {@code 0} and {@code 1}
+     */
+    public double utilization() {
+        int limit = rateLimiter.getRateLimiterConfig().getLimitForPeriod();
+        int available = Math.max(0, rateLimiter.getMetrics().getAvailablePermissions());
+        return limit == 0 ? 1 : (double) (limit - available) / limit;
+    }
+
+    /**
+     * @return number of calls waiting for a permit
+     */
+    public int queueDepth() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops granting permits; queued calls are rejected.
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        dispatcher.interrupt();
+    }
+
+    private void awaitGrant(Ticket ticket) {
+
+        try {
+            ticket.grant.get(Math.max(0, ticket.deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            outcome(ticket.priority, "queued");
+        } catch (ExecutionException ex) {
+            throw (CmcBudgetExceededException) ex.getCause();
+        } catch (TimeoutException ex) {
+            if (withdraw(ticket)) {
+                outcome(ticket.priority, "expired");
+                throw new CmcBudgetExceededException(ticket.priority, "no permit within the deadline");
+            }
+            // granted or shed while timing out
+            awaitGrant(ticket);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            withdraw(ticket);
+            throw new CmcBudgetExceededException(ticket.priority, "interrupted while waiting for a permit");
+        }
+
+    }
+
+    private void dispatch() {
+
+        lock.lock();
+        try {
+            while (running) {
+                Ticket head = queue.peek();
+                if (head == null) {
+                    changed.await();
+                } else if (rateLimiter.acquirePermission()) {
+                    dequeue(head);
+                    head.grant.complete(null);
+                } else {
+                    shedUnreachable(System.nanoTime());
+                    changed.awaitNanos(Math.max(MIN_POLL_NANOS, nanosToNextPermit()));
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            for (Ticket ticket : new ArrayList<>(queue)) {
+                dequeue(ticket);
+                ticket.grant.completeExceptionally(new CmcBudgetExceededException(ticket.priority, "scheduler stopped"));
+            }
+            lock.unlock();
+        }
+
+    }
+
+    /**
+     * Rejects every queued call whose turn cannot come before its deadline, given the permits of the current
+     * period and the limit per period. Must hold the lock.
+     */
+    private void shedUnreachable(long now) {
+
+        List<Ticket> ordered = new ArrayList<>(queue);
+        ordered.sort(null);
+
+        int limit = Math.max(1, rateLimiter.getRateLimiterConfig().getLimitForPeriod());
+        long periodNanos = rateLimiter.getRateLimiterConfig().getLimitRefreshPeriod().toNanos();
+        int availableNow = Math.max(0, rateLimiter.getMetrics().getAvailablePermissions());
+        long nanosToNextPermit = nanosToNextPermit();
+
+        int position = 0;
+        for (Ticket ticket : ordered) {
+            long earliestGrant = position < availableNow
+                    ? now
+                    : now + nanosToNextPermit + (long) ((position - availableNow) / limit) * periodNanos;
+            if (earliestGrant > ticket.deadline) {
+                dequeue(ticket);
+                outcome(ticket.priority, "rejected");
+                ticket.grant.completeExceptionally(new CmcBudgetExceededException(ticket.priority,
+                        "no permit expected within the deadline"));
+            } else {
+                position++;
+            }
+        }
+
+    }
+
+    private long nanosToNextPermit() {
+
+        if (rateLimiter.getMetrics() instanceof AtomicRateLimiter.AtomicRateLimiterMetrics metrics) {
+            return metrics.getNanosToWait();
+        }
+
+        return rateLimiter.getMetrics().getAvailablePermissions() > 0
+                ? 0
+                : rateLimiter.getRateLimiterConfig().getLimitRefreshPeriod().toNanos();
+
+    }
+
+    private boolean withdraw(Ticket ticket) {
+
+        lock.lock();
+        try {
+            return dequeue(ticket);
+        } finally {
+            lock.unlock();
+        }
+
+    }
+
+    private void enqueue(Ticket ticket) {
+        queue.add(ticket);
+        queueDepth.incrementAndGet(ticket.priority.ordinal());
+    }
+
+    private boolean dequeue(Ticket ticket) {
+
+        if (!queue.remove(ticket)) {
+            return false;
+        }
+
+        queueDepth.decrementAndGet(ticket.priority.ordinal());
+        return true;
+
+    }
+
+    private void outcome(EnumCmcCallPriority priority, String outcome) {
+        Counter.builder("cmc.budget.calls")
+                .description("CoinMarketCap permit requests by priority and outcome")
+                .tag("priority", priority.name())
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private static final class Ticket implements Comparable<Ticket> {
+
+        private final EnumCmcCallPriority priority;
+        private final long deadline;
+        private final long sequence;
+        private final CompletableFuture<Void> grant = new CompletableFuture<>();
+
+        private Ticket(EnumCmcCallPriority priority, long deadline, long sequence) {
+            this.priority = priority;
+            this.deadline = deadline;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Ticket other) {
+
+            int byPriority = priority.compareTo(other.priority);
+            if (byPriority != 0) {
+                return byPriority;
+            }
+
+            int byDeadline = Long.compare(deadline - other.deadline, 0);
+            return byDeadline != 0 ? byDeadline : Long.compare(sequence, other.sequence);
+
+        }
+
+    }
+
+}
@@ -0,0 +1,279 @@
+package com.casestudy.cryptoexchangeapi.exchange.service;
+
+import com.casestudy.cryptoexchangeapi.common.exception.ApiException;
+import com.casestudy.cryptoexchangeapi.common.utils.TimeOrderedIds;
+import com.casestudy.cryptoexchangeapi.exchange.config.ConversionBatchProperties;
+import com.casestudy.cryptoexchangeapi.exchange.exception.ConversionBatchSizeException;
+import com.casestudy.cryptoexchangeapi.exchange.exception.ConversionWriteBacklogException;
+import com.casestudy.cryptoexchangeapi.exchange.model.CryptoPair;
+import com.casestudy.cryptoexchangeapi.exchange.model.RateMatrix;
+import com.casestudy.cryptoexchangeapi.exchange.model.dto.request.ConvertRequest;
+import com.casestudy.cryptoexchangeapi.exchange.model.dto.response.BatchConvertItemResponse;
+import com.casestudy.cryptoexchangeapi.exchange.model.entity.CryptoConvertEntity;
+import com.casestudy.cryptoexchangeapi.exchange.model.mapper.CryptoConvertEntityToCryptoConvertMapper;
+import com.casestudy.cryptoexchangeapi.exchange.model.mapper.CryptoConvertToCryptoConvertResponseMapper;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Converts a whole batch of conversion requests in three passes:
+ * <ol>
+ *     <li>every item is bound and validated; an invalid item only fails itself</li>
+ *     <li>every distinct pair is priced once, against one snapshot of the quote book taken for the whole batch,
+ *     falling back to the unit price cache for pairs the book cannot price</li>
+ *     <li>the priced conversions are inserted chunk by chunk, one unordered bulk insert per chunk, and each chunk's
+ *     results are handed to the caller as soon as it is written</li>
+ * </ol>
+ * Results are emitted in request order, one {@link BatchConvertItemResponse} per item.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CryptoBatchConvertService {
+
+    private final QuoteBookService quoteBookService;
+    private final UnitPriceCache unitPriceCache;
+    private final CryptoConvertWriter cryptoConvertWriter;
+    private final ConversionBatchProperties properties;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+
+    private final CryptoConvertEntityToCryptoConvertMapper cryptoConvertEntityToCryptoConvertMapper =
+            CryptoConvertEntityToCryptoConvertMapper.initialize();
+
+    private final CryptoConvertToCryptoConvertResponseMapper cryptoConvertToCryptoConvertResponseMapper =
+            CryptoConvertToCryptoConvertResponseMapper.initialize();
+
+    /**
+     * Reads the JSON array of a batch item by item, rejecting empty batches and batches larger than
+     * {@code conversion.batch.max-items} as soon as the item past the limit starts, without reading the rest.
+     *
+     * @throws IOException if the body is not a JSON array or cannot be read
+     */
+    public List<JsonNode> readBatch(InputStream body) throws IOException {
+
+        int maxItems = properties.getMaxItems();
+        List<JsonNode> items = new ArrayList<>();
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "Batch must be a JSON array of conversion requests");
+            }
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (items.size() == maxItems) {
+                    throw new ConversionBatchSizeException(maxItems);
+                }
+                items.add(objectMapper.readTree(parser));
+            }
+        }
+
+        if (items.isEmpty()) {
+            throw new ConversionBatchSizeException(0, maxItems);
+        }
+        return items;
+
+    }
+
+    /**
+     * @param items raw {@code ConvertRequest} items, bound one by one so that an unreadable item only fails itself
+     * @param sink  receives one result per item, in request order
+     */
+    public void convertAll(List<JsonNode> items, Consumer<BatchConvertItemResponse> sink) {
+
+        int size = items.size();
+        ConvertRequest[] requests = new ConvertRequest[size];
+        BatchConvertItemResponse[] failures = new BatchConvertItemResponse[size];
+
+        for (int i = 0; i < size; i++) {
+            try {
+                requests[i] = bind(items.get(i));
+            } catch (ItemException ex) {
+                failures[i] = failure(i, ex.status, ex.getMessage());
+            }
+        }
+
+        Map<CryptoPair, BigDecimal> rates = new HashMap<>();
+        Map<CryptoPair, RuntimeException> pricingErrors = new HashMap<>();
+        price(requests, rates, pricingErrors);
+
+        int chunkSize = Math.max(1, properties.getChunkSize());
+        for (int start = 0; start < size; start += chunkSize) {
+            convertChunk(requests, failures, start, Math.min(start + chunkSize, size), rates, pricingErrors, sink);
+        }
+
+    }
+
+    private ConvertRequest bind(JsonNode item) {
+
+        ConvertRequest request;
+        try {
+            request = objectMapper.treeToValue(item, ConvertRequest.class);
+        } catch (JsonMappingException ex) {
+            throw new ItemException(HttpStatus.BAD_REQUEST, ex.getPath().isEmpty()
+                    ? "Unreadable conversion request"
+                    : "Invalid value for '" + ex.getPath().getFirst().getFieldName() + "'");
+        } catch (JsonProcessingException | IllegalArgumentException ex) {
+            throw new ItemException(HttpStatus.BAD_REQUEST, "Unreadable conversion request");
+        }
+
+        if (request == null) {
+            throw new ItemException(HttpStatus.BAD_REQUEST, "Conversion request is null");
+        }
+
+        Set<ConstraintViolation<ConvertRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            throw new ItemException(HttpStatus.BAD_REQUEST, violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+        }
+
+        return request;
+
+    }
+
+    private void price(ConvertRequest[] requests,
+                       Map<CryptoPair, BigDecimal> rates,
+                       Map<CryptoPair, RuntimeException> pricingErrors) {
+
+        RateMatrix book = quoteBookService.snapshot();
+
+        for (ConvertRequest request : requests) {
+            if (request == null) {
+                continue;
+            }
+
+            CryptoPair pair = CryptoPair.of(request.getFrom(), request.getTo());
+            if (rates.containsKey(pair) || pricingErrors.containsKey(pair)) {
+                continue;
+            }
+
+            try {
+                BigDecimal bookRate = quoteBookService.rate(book, pair.from(), pair.to());
+                rates.put(pair, bookRate != null ? bookRate : unitPriceCache.get(pair));
+            } catch (RuntimeException ex) {
+                log.warn("Batch conversion could not price {}: {}", pair, ex.getMessage());
+                pricingErrors.put(pair, ex);
+            }
+        }
+
+    }
+
+    private void convertChunk(ConvertRequest[] requests,
+                              BatchConvertItemResponse[] failures,
+                              int from,
+                              int to,
+                              Map<CryptoPair, BigDecimal> rates,
+                              Map<CryptoPair, RuntimeException> pricingErrors,
+                              Consumer<BatchConvertItemResponse> sink) {
+
+        List<Integer> indexes = new ArrayList<>();
+        List<CryptoConvertEntity> entities = new ArrayList<>();
+
+        for (int i = from; i < to; i++) {
+            if (failures[i] != null) {
+                continue;
+            }
+
+            ConvertRequest request = requests[i];
+            CryptoPair pair = CryptoPair.of(request.getFrom(), request.getTo());
+            RuntimeException pricingError = pricingErrors.get(pair);
+            if (pricingError != null) {
+                failures[i] = failure(i, status(pricingError), pricingError.getMessage());
+                continue;
+            }
+
+            indexes.add(i);
+            String transactionId = TimeOrderedIds.next();
+            entities.add(CryptoConvertEntity.builder()
+                    .id(transactionId)
+                    .transactionId(transactionId)
+                    .amount(request.getAmount())
+                    .fromCurrency(request.getFrom())
+                    .toCurrency(request.getTo())
+                    .convertedAmount(rates.get(pair).multiply(request.getAmount()))
+                    .build());
+        }
+
+        Map<Integer, String> rejected;
+        try {
+            rejected = cryptoConvertWriter.writeAll(entities);
+        } catch (RuntimeException ex) {
+            log.warn("Batch conversion chunk [{}, {}) could not be persisted: {}", from, to, ex.getMessage());
+            rejected = new HashMap<>();
+            for (int k = 0; k < entities.size(); k++) {
+                rejected.put(k, ex.getMessage());
+            }
+        }
+
+        BatchConvertItemResponse[] results = new BatchConvertItemResponse[to - from];
+        for (int k = 0; k < entities.size(); k++) {
+            int index = indexes.get(k);
+            String error = rejected.get(k);
+            results[index - from] = error != null
+                    ? failure(index, ConversionWriteBacklogException.STATUS, error)
+                    : success(index, entities.get(k));
+        }
+
+        for (int i = from; i < to; i++) {
+            sink.accept(failures[i] != null ? failures[i] : results[i - from]);
+        }
+
+    }
+
+    private BatchConvertItemResponse success(int index, CryptoConvertEntity entity) {
+        return BatchConvertItemResponse.builder()
+                .index(index)
+                .httpStatus(HttpStatus.CREATED)
+                .isSuccess(true)
+                .response(cryptoConvertToCryptoConvertResponseMapper.map(cryptoConvertEntityToCryptoConvertMapper.map(entity)))
+                .build();
+    }
+
+    private static BatchConvertItemResponse failure(int index, HttpStatus status, String message) {
+        return BatchConvertItemResponse.builder()
+                .index(index)
+                .httpStatus(status)
+                .isSuccess(false)
+                .message(message)
+                .build();
+    }
+
+    private static HttpStatus status(RuntimeException ex) {
+        return ex instanceof ApiException apiException ? apiException.getStatus() : HttpStatus.BAD_GATEWAY;
+    }
+
+    private static final class ItemException extends RuntimeException {
+
+        private final HttpStatus status;
+
+        private ItemException(HttpStatus status, String message) {
+            super(message);
+            this.status = status;
+        }
+
+    }
+
+}
@@ -2,38 +2,34 @@ package com.casestudy.cryptoexchangeapi.exchange.service;
 
 import com.casestudy.cryptoexchangeapi.common.model.CustomPage;
 import com.casestudy.cryptoexchangeapi.common.model.dto.request.CustomPagingRequest;
-import com.casestudy.cryptoexchangeapi.exchange.exception.ConversionFailedException;
+import com.casestudy.cryptoexchangeapi.common.utils.TimeOrderedIds;
 import com.casestudy.cryptoexchangeapi.exchange.feign.CmcClient;
 import com.casestudy.cryptoexchangeapi.exchange.model.CryptoConvert;
+import com.casestudy.cryptoexchangeapi.exchange.model.CryptoPair;
+import com.casestudy.cryptoexchangeapi.exchange.model.HistoryQuery;
 import com.casestudy.cryptoexchangeapi.exchange.model.dto.request.ConvertRequest;
 import com.casestudy.cryptoexchangeapi.exchange.model.dto.request.ListCryptoConvertRequest;
 import com.casestudy.cryptoexchangeapi.exchange.model.dto.response.CryptoMapResponse;
 import com.casestudy.cryptoexchangeapi.exchange.model.dto.response.CryptoNameSymbol;
-import com.casestudy.cryptoexchangeapi.exchange.model.dto.response.PriceConversionResponse;
 import com.casestudy.cryptoexchangeapi.exchange.model.entity.CryptoConvertEntity;
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCmcCallPriority;
 import com.casestudy.cryptoexchangeapi.exchange.model.mapper.CryptoConvertEntityToCryptoConvertMapper;
 import com.casestudy.cryptoexchangeapi.exchange.model.mapper.CryptoMapResponseToCryptoNameSymbolMapper;
 import com.casestudy.cryptoexchangeapi.exchange.repository.CryptoConvertRepository;
 import com.casestudy.cryptoexchangeapi.exchange.utils.Constants;
-import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
-import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
-import io.github.resilience4j.retry.annotation.Retry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.cache.annotation.CacheConfig;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
@@ -41,7 +37,13 @@ import java.util.UUID;
 public class CryptoConvertService {
 
     private final CmcClient cmcClient;
+    private final CmcBudgetScheduler cmcBudgetScheduler;
+    private final CryptoDirectoryService cryptoDirectoryService;
+    private final QuoteBookService quoteBookService;
+    private final UnitPriceCache unitPriceCache;
     private final CryptoConvertRepository cryptoConvertRepository;
+    private final CryptoConvertWriter cryptoConvertWriter;
+    private final IdempotencyService idempotencyService;
 
     private final CryptoConvertEntityToCryptoConvertMapper cryptoConvertEntityToCryptoConvertMapper =
             CryptoConvertEntityToCryptoConvertMapper.initialize();
@@ -49,84 +51,111 @@ public class CryptoConvertService {
     private final CryptoMapResponseToCryptoNameSymbolMapper cryptoMapResponseToCryptoNameSymbolMapper =
             CryptoMapResponseToCryptoNameSymbolMapper.initialize();
 
-    @RateLimiter(name = "cmc")
-    @Retry(name = "cmc")
-    @CircuitBreaker(name = "cmc", fallbackMethod = "fallbackConvertAndPersist")
+    /**
+     * Prices and persists one conversion; the cached history pages it can change are evicted once it is written,
+     * see {@link CryptoConvertWriter}.
+     */
     @Transactional
-    @CacheEvict(allEntries = true)
     public CryptoConvert convertAndPersist(ConvertRequest request) {
+        return convert(request, null);
+    }
 
-        PriceConversionResponse response = cmcClient.priceConversion(
-                request.getAmount().stripTrailingZeros().toPlainString(),
-                request.getFrom().name(), null,
-                request.getTo().name(), null
-        );
+    /**
+     * Same as {@link #convertAndPersist(ConvertRequest)}, but a repeated {@code idempotencyKey} returns the
+     * conversion of the first request carrying it instead of converting again.
+     */
+    @Transactional
+    public CryptoConvert convertAndPersist(ConvertRequest request, String idempotencyKey) {
 
-        if (response == null || response.getStatus() == null) {
-            throw new ConversionFailedException("Null response or missing status from CMC");
+        if (idempotencyKey == null) {
+            return convert(request, null);
         }
 
-        if (response.getStatus().getError_code() != 0) {
-            String msg = response.getStatus().getError_message();
-            throw new ConversionFailedException("CMC error: " + (msg == null ? "unknown" : msg));
+        return idempotencyService.execute(idempotencyKey, request, () -> convert(request, idempotencyKey));
+
+    }
+
+    private CryptoConvert convert(ConvertRequest request, String idempotencyKey) {
+
+        if (idempotencyKey == null) {
+            // Saved on its own or batched with concurrent conversions, see conversion.write-behind
+            return cryptoConvertEntityToCryptoConvertMapper.map(cryptoConvertWriter.write(price(request)));
         }
 
-        if (response.getData() == null) {
-            throw new ConversionFailedException("CMC response has no data");
+        // Claim the key before pricing, so a concurrent duplicate on another instance neither prices (possibly
+        // spending a CMC call) nor persists the conversion again
+        Optional<CryptoConvert> claimedBefore = idempotencyService.claim(idempotencyKey, request);
+        if (claimedBefore.isPresent()) {
+            return claimedBefore.get();
         }
 
-        Map<String, PriceConversionResponse.Quote> quoteMap = response.getData().getQuote();
-        if (quoteMap == null || !quoteMap.containsKey(request.getTo().name())) {
-            throw new ConversionFailedException("No quote for " + request.getTo().name() + " in CMC response");
+        CryptoConvertEntity entity;
+        try {
+            entity = price(request);
+        } catch (RuntimeException ex) {
+            idempotencyService.release(idempotencyKey);
+            throw ex;
         }
 
-        PriceConversionResponse.Quote quote = quoteMap.get(request.getTo().name());
-        BigDecimal unitPrice = quote.getPrice();
-        if (unitPrice == null) {
-            throw new ConversionFailedException("CMC quote has null price for " + request.getTo().name());
+        // stamped now so that every repeat returns exactly what the first request did
+        entity.setCreatedAt(LocalDateTime.now());
+        CryptoConvert conversion = cryptoConvertEntityToCryptoConvertMapper.map(entity);
+
+        // Completed only once the conversion is stored and released only once it certainly is not, so a repeat
+        // never returns a conversion that is not stored, nor stores a second one
+        cryptoConvertWriter.write(entity, failure -> settle(idempotencyKey, request, conversion, failure));
+        return conversion;
+
+    }
+
+    private void settle(String idempotencyKey, ConvertRequest request, CryptoConvert conversion, Throwable failure) {
+        if (failure == null) {
+            idempotencyService.complete(idempotencyKey, request, conversion);
+        } else {
+            idempotencyService.release(idempotencyKey);
         }
+    }
+
+    private CryptoConvertEntity price(ConvertRequest request) {
+
+        // Price locally from the quote book, then from the cached unit price; only go upstream when neither has it
+        BigDecimal bookRate = quoteBookService.rate(request.getFrom(), request.getTo());
+        BigDecimal unitPrice = bookRate != null
+                ? bookRate
+                : unitPriceCache.get(CryptoPair.of(request.getFrom(), request.getTo()));
 
         BigDecimal convertedAmount = unitPrice.multiply(request.getAmount());
 
-        CryptoConvertEntity entity = CryptoConvertEntity.builder()
-                .transactionId(UUID.randomUUID().toString())
+        // One time-ordered id is both _id and transactionId, so inserts append to the _id index and history can
+        // seek on it
+        String transactionId = TimeOrderedIds.next();
+        return CryptoConvertEntity.builder()
+                .id(transactionId)
+                .transactionId(transactionId)
                 .amount(request.getAmount())
                 .fromCurrency(request.getFrom())
                 .toCurrency(request.getTo())
                 .convertedAmount(convertedAmount)
                 .build();
 
-        CryptoConvertEntity saved = cryptoConvertRepository.save(entity);
-
-        return cryptoConvertEntityToCryptoConvertMapper.map(saved);
-
     }
 
-    @RateLimiter(name = "cmc")
     @Transactional(readOnly = true)
-    @Cacheable(keyGenerator = "historyKeyGenerator")
+    @Cacheable(keyGenerator = "historyKeyGenerator", cacheResolver = "historyCacheResolver")
     public CustomPage<CryptoConvert> getHistory(ListCryptoConvertRequest request,
                                                 CustomPagingRequest pagingRequest) {
 
-        Pageable pageable = Optional.ofNullable(pagingRequest)
-                .map(CustomPagingRequest::toPageable)
-                .orElse(PageRequest.of(1, 20, Sort.by(Sort.Direction.DESC, "createdAt")));
-
-        ListCryptoConvertRequest.Filter filter = Optional.ofNullable(request)
-                .map(ListCryptoConvertRequest::getFilter)
-                .orElse(null);
-
-        Page<CryptoConvertEntity> page = cryptoConvertRepository.searchWithCriteria(filter, pageable);
+        HistoryQuery query = HistoryQuery.of(request, pagingRequest);
+        Slice<CryptoConvertEntity> page = cryptoConvertRepository.searchWithCriteria(query);
 
         List<CryptoConvert> items = page.getContent().stream()
                 .map(cryptoConvertEntityToCryptoConvertMapper::map)
                 .toList();
 
-        return CustomPage.of(items, page);
+        return CustomPage.of(items, page, query.nextCursor(page));
 
     }
 
-    @RateLimiter(name = "cmc")
     @Transactional(readOnly = true)
     public CustomPage<CryptoNameSymbol> listCryptoNamesSymbols(CustomPagingRequest pagingRequest) {
 
@@ -134,12 +163,20 @@ public class CryptoConvertService {
                 .map(CustomPagingRequest::toPageable)
                 .orElse(PageRequest.of(0, 20));
 
+        // Served from the local copy of the map; CMC is only asked while that copy has not been loaded yet
+        Optional<CustomPage<CryptoNameSymbol>> localPage = cryptoDirectoryService.page(pageable);
+        if (localPage.isPresent()) {
+            return localPage.get();
+        }
+
         final int page = pageable.getPageNumber(); // zero-based
         final int size = pageable.getPageSize();
 
         final int start = page * size + 1;
         final String sort = "cmc_rank";
 
+        // Directory listings only get the CMC permits conversions and refreshes leave over
+        cmcBudgetScheduler.acquire(EnumCmcCallPriority.DIRECTORY);
         final CryptoMapResponse response = cmcClient.cryptoMap(start, size, sort);
 
         List<CryptoNameSymbol> content = (response != null && response.getData() != null)
@@ -160,8 +197,4 @@ public class CryptoConvertService {
 
     }
 
-    public CryptoConvert fallbackConvertAndPersist(ConvertRequest request, Throwable cause) {
-        throw new ConversionFailedException("Upstream conversion unavailable", cause);
-    }
-
 }
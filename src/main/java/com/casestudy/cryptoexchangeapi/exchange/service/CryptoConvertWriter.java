@@ -0,0 +1,408 @@
+package com.casestudy.cryptoexchangeapi.exchange.service;
+
+import com.casestudy.cryptoexchangeapi.exchange.config.ConversionWriteProperties;
+import com.casestudy.cryptoexchangeapi.exchange.exception.ConversionWriteBacklogException;
+import com.casestudy.cryptoexchangeapi.exchange.model.entity.CryptoConvertEntity;
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumConversionWriteAck;
+import com.casestudy.cryptoexchangeapi.exchange.repository.CryptoConvertRepository;
+import com.mongodb.bulk.BulkWriteError;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Persists conversions into {@code crypto-convert-collection}, either one save per conversion or written behind.
+ * <p>
+ * Written behind, conversions go into a bounded in-memory queue. A single flusher thread takes them out and
+ * inserts them with one unordered bulk insert as soon as {@code batch-size} documents are queued or the oldest
+ * has waited {@code flush-interval}, so concurrent conversions share a round trip. With
+ * {@link EnumConversionWriteAck#DURABLE} the caller waits for its batch to be inserted; with
+ * {@link EnumConversionWriteAck#ENQUEUED} it returns once queued, and a failed insert is only logged and counted.
+ * A full queue rejects further conversions with {@code 503}. On shutdown the queue is drained before the
+ * application context closes.
+ * <p>
+ * Batches of conversions can also be inserted directly with {@link #writeAll(List)}.
+ * <p>
+ * Conversions are stamped with their {@code createdAt} here, and once written only the cached history pages they
+ * can change are evicted, see {@link HistoryCacheInvalidator}.
+ * <p>
+ * Exported meters: {@code conversion.write.flush.size}, {@code conversion.write.flush.latency},
+ * {@code conversion.write.queue.depth} and {@code conversion.write.documents} per {@code outcome}
+ * ({@code written}, {@code failed}, {@code rejected}).
+ */
+@Slf4j
+@Service
+public class CryptoConvertWriter {
+
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final CryptoConvertRepository cryptoConvertRepository;
+    private final MongoTemplate mongoTemplate;
+    private final ConversionWriteProperties properties;
+    private final HistoryCacheInvalidator historyCacheInvalidator;
+    private final MeterRegistry meterRegistry;
+
+    private final BlockingQueue<PendingWrite> queue;
+    private final DistributionSummary flushSize;
+    private final Timer flushLatency;
+    private final Counter writtenDocuments;
+    private final Counter failedDocuments;
+    private final Counter rejectedDocuments;
+    private final Thread flusher;
+
+    private volatile boolean running = true;
+
+    public CryptoConvertWriter(CryptoConvertRepository cryptoConvertRepository,
+                               MongoTemplate mongoTemplate,
+                               ConversionWriteProperties properties,
+                               HistoryCacheInvalidator historyCacheInvalidator,
+                               MeterRegistry meterRegistry) {
+
+        this.cryptoConvertRepository = cryptoConvertRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.properties = properties;
+        this.historyCacheInvalidator = historyCacheInvalidator;
+        this.meterRegistry = meterRegistry;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity()));
+
+        this.flushSize = DistributionSummary.builder("conversion.write.flush.size")
+                .description("Conversions inserted per bulk insert")
+                .register(meterRegistry);
+        this.flushLatency = Timer.builder("conversion.write.flush.latency")
+                .description("Duration of one bulk insert of conversions")
+                .register(meterRegistry);
+        // registered up front: callers woken by a completed write may read them before the flusher returns
+        this.writtenDocuments = documents("written");
+        this.failedDocuments = documents("failed");
+        this.rejectedDocuments = documents("rejected");
+        Gauge.builder("conversion.write.queue.depth", queue, BlockingQueue::size)
+                .description("Conversions waiting to be inserted")
+                .register(meterRegistry);
+
+        this.flusher = properties.isEnabled()
+                ? Thread.ofPlatform().name("conversion-write-flusher").daemon().start(this::flushLoop)
+                : null;
+
+    }
+
+    /**
+     * Persists one conversion, honouring the configured write mode and acknowledgement.
+     *
+     * @return the entity as it is (or will be) stored
+     * @throws ConversionWriteBacklogException when the queue is full, or a durable write does not complete in time
+     */
+    public CryptoConvertEntity write(CryptoConvertEntity entity) {
+        return write(entity, failure -> { });
+    }
+
+    /**
+     * Same as {@link #write(CryptoConvertEntity)}, and calls {@code settled} exactly once when it is known whether
+     * the conversion is stored: with {@code null} once it is, with the failure once it will not be.
+     * <p>
+     * That is before this method returns or throws, except with {@link EnumConversionWriteAck#ENQUEUED} and for a
+     * durable write that is already being inserted when {@code ack-timeout} elapses: those settle once their flush
+     * ends. A durable write still queued at the timeout is withdrawn from the queue, so it is certainly not stored.
+     */
+    public CryptoConvertEntity write(CryptoConvertEntity entity, Consumer<Throwable> settled) {
+
+        stamp(entity);
+
+        if (flusher == null) {
+            CryptoConvertEntity saved;
+            try {
+                saved = cryptoConvertRepository.save(entity);
+            } catch (RuntimeException ex) {
+                settled.accept(ex);
+                throw ex;
+            }
+            settled.accept(null);
+            historyCacheInvalidator.evict(List.of(saved));
+            return saved;
+        }
+
+        PendingWrite pending;
+        try {
+            pending = enqueue(entity);
+        } catch (ConversionWriteBacklogException ex) {
+            settled.accept(ex);
+            throw ex;
+        }
+
+        if (properties.getAck() == EnumConversionWriteAck.ENQUEUED) {
+            settleOnFlush(pending, settled);
+            return entity;
+        }
+
+        try {
+            pending.written.get(properties.getAckTimeout(), TimeUnit.MILLISECONDS);
+            settled.accept(null);
+            return entity;
+        } catch (ExecutionException ex) {
+            settled.accept(ex.getCause());
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new ConversionWriteBacklogException(ex.getCause().getMessage());
+        } catch (TimeoutException ex) {
+            throw abandon(pending, settled, "not flushed within " + properties.getAckTimeout() + " ms");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw abandon(pending, settled, "interrupted while waiting for the flush");
+        }
+
+    }
+
+    /**
+     * Inserts a whole batch of conversions with one unordered bulk insert, bypassing the queue.
+     *
+     * @return error message per index of the entities MongoDB rejected; every other entity is stored
+     */
+    public Map<Integer, String> writeAll(List<CryptoConvertEntity> entities) {
+
+        if (entities.isEmpty()) {
+            return Map.of();
+        }
+
+        entities.forEach(CryptoConvertWriter::stamp);
+        Map<Integer, String> rejected;
+        try {
+            rejected = insert(entities);
+        } finally {
+            historyCacheInvalidator.evict(entities);
+        }
+        writtenDocuments.increment(entities.size() - rejected.size());
+        failedDocuments.increment(rejected.size());
+        return rejected;
+
+    }
+
+    /**
+     * @return number of conversions waiting to be inserted
+     */
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Stops accepting conversions and waits up to {@code drain-timeout} for the queued ones to be inserted; those
+     * still queued afterwards are failed.
+     */
+    @PreDestroy
+    public void shutdown() {
+
+        running = false;
+        if (flusher == null) {
+            return;
+        }
+
+        try {
+            flusher.join(properties.getDrainTimeout());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<PendingWrite> stranded = new ArrayList<>();
+        queue.drainTo(stranded);
+        if (!stranded.isEmpty()) {
+            log.warn("{} queued conversions were not persisted before shutdown", stranded.size());
+            fail(stranded, new ConversionWriteBacklogException("writer stopped"));
+        }
+
+    }
+
+    private PendingWrite enqueue(CryptoConvertEntity entity) {
+
+        PendingWrite pending = new PendingWrite(entity, System.nanoTime());
+        if (!running || !queue.offer(pending)) {
+            rejectedDocuments.increment();
+            throw new ConversionWriteBacklogException(running ? "write queue is full" : "writer stopped");
+        }
+
+        return pending;
+
+    }
+
+    /**
+     * Gives up waiting for a durable write: withdraws it while it is still queued, otherwise leaves it to settle
+     * once the flush inserting it ends.
+     *
+     * @return the exception to throw to the caller
+     */
+    private ConversionWriteBacklogException abandon(PendingWrite pending, Consumer<Throwable> settled, String reason) {
+
+        ConversionWriteBacklogException failure = new ConversionWriteBacklogException(reason);
+        if (queue.remove(pending)) {
+            fail(List.of(pending), failure);
+            settled.accept(failure);
+        } else {
+            settleOnFlush(pending, settled);
+        }
+        return failure;
+
+    }
+
+    /**
+     * Off the flusher thread, so whatever {@code settled} does never delays the next batch.
+     */
+    private static void settleOnFlush(PendingWrite pending, Consumer<Throwable> settled) {
+        pending.written.whenCompleteAsync((ignored, failure) -> settled.accept(failure), Thread::startVirtualThread);
+    }
+
+    private void flushLoop() {
+
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(properties.getFlushInterval());
+        int batchSize = Math.max(1, properties.getBatchSize());
+
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingWrite first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                List<PendingWrite> batch = new ArrayList<>(batchSize);
+                batch.add(first);
+                long flushAt = first.enqueuedAt + flushIntervalNanos;
+
+                // collect until the batch is full or its oldest conversion is due; on shutdown flush what is there
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long waitNanos = flushAt - System.nanoTime();
+                    if (batch.size() >= batchSize || waitNanos <= 0 || !running) {
+                        break;
+                    }
+                    // bounded so a shutdown is noticed without waiting out the flush interval
+                    PendingWrite next = queue.poll(Math.min(waitNanos, TimeUnit.MILLISECONDS.toNanos(IDLE_POLL_MILLIS)),
+                            TimeUnit.NANOSECONDS);
+                    if (next != null) {
+                        batch.add(next);
+                    }
+                }
+
+                flush(batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException ex) {
+                log.error("Conversion flusher failed: {}", ex.getMessage(), ex);
+            }
+        }
+
+    }
+
+    private void flush(List<PendingWrite> batch) {
+
+        List<CryptoConvertEntity> entities = batch.stream().map(PendingWrite::entity).toList();
+        try {
+            Map<Integer, String> rejected = insert(entities);
+            List<PendingWrite> written = new ArrayList<>();
+            for (int i = 0; i < batch.size(); i++) {
+                String error = rejected.get(i);
+                if (error == null) {
+                    written.add(batch.get(i));
+                } else {
+                    fail(List.of(batch.get(i)), new ConversionWriteBacklogException(error));
+                }
+            }
+            complete(written);
+        } catch (RuntimeException ex) {
+            fail(batch, ex);
+        } finally {
+            // History pages cached between enqueue and flush would miss the new conversions. Evicted once the
+            // callers are released, so their latency leaves out the cache bookkeeping; a read racing the response
+            // may still get the old page for that long. Evicted here even when the change stream evicts them
+            // again, see HistoryChangeStreamListener
+            historyCacheInvalidator.evict(entities);
+        }
+
+    }
+
+    /**
+     * One unordered bulk insert; an unordered insert writes every document but the ones it reports.
+     *
+     * @return error message per index of the rejected entities
+     */
+    private Map<Integer, String> insert(List<CryptoConvertEntity> entities) {
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CryptoConvertEntity.class)
+                    .insert(entities)
+                    .execute();
+            return Map.of();
+        } catch (BulkOperationException ex) {
+            Map<Integer, String> rejected = new HashMap<>();
+            for (BulkWriteError error : ex.getErrors()) {
+                rejected.put(error.getIndex(), error.getMessage());
+            }
+            return rejected;
+        } finally {
+            sample.stop(flushLatency);
+            flushSize.record(entities.size());
+        }
+
+    }
+
+    private void complete(List<PendingWrite> writes) {
+        writtenDocuments.increment(writes.size());
+        writes.forEach(write -> write.written.complete(null));
+    }
+
+    private void fail(List<PendingWrite> writes, RuntimeException cause) {
+
+        if (writes.isEmpty()) {
+            return;
+        }
+
+        if (properties.getAck() == EnumConversionWriteAck.ENQUEUED) {
+            log.error("{} acknowledged conversions could not be persisted: {}", writes.size(), cause.getMessage());
+        }
+        failedDocuments.increment(writes.size());
+        writes.forEach(write -> write.written.completeExceptionally(cause));
+
+    }
+
+    private static void stamp(CryptoConvertEntity entity) {
+        if (entity.getCreatedAt() == null) {
+            entity.setCreatedAt(LocalDateTime.now());
+        }
+    }
+
+    private Counter documents(String outcome) {
+        return Counter.builder("conversion.write.documents")
+                .description("Conversions persisted by the writer by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private record PendingWrite(CryptoConvertEntity entity, long enqueuedAt, CompletableFuture<Void> written) {
+
+        private PendingWrite(CryptoConvertEntity entity, long enqueuedAt) {
+            this(entity, enqueuedAt, new CompletableFuture<>());
+        }
+
+    }
+
+}
@@ -0,0 +1,230 @@
+package com.casestudy.cryptoexchangeapi.exchange.service;
+
+import com.casestudy.cryptoexchangeapi.common.model.CustomPage;
+import com.casestudy.cryptoexchangeapi.exchange.config.CryptoDirectoryProperties;
+import com.casestudy.cryptoexchangeapi.exchange.exception.ConversionFailedException;
+import com.casestudy.cryptoexchangeapi.exchange.feign.CmcClient;
+import com.casestudy.cryptoexchangeapi.exchange.model.CryptoDirectory;
+import com.casestudy.cryptoexchangeapi.exchange.model.CryptoListing;
+import com.casestudy.cryptoexchangeapi.exchange.model.dto.response.CryptoMapResponse;
+import com.casestudy.cryptoexchangeapi.exchange.model.dto.response.CryptoNameSymbol;
+import com.casestudy.cryptoexchangeapi.exchange.model.entity.CryptoDirectorySnapshotEntity;
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCmcCallPriority;
+import com.casestudy.cryptoexchangeapi.exchange.model.event.CryptoDirectoryRefreshedEvent;
+import com.casestudy.cryptoexchangeapi.exchange.model.mapper.CryptoDirectorySnapshotListingToCryptoListingMapper;
+import com.casestudy.cryptoexchangeapi.exchange.model.mapper.CryptoListingToCryptoDirectorySnapshotListingMapper;
+import com.casestudy.cryptoexchangeapi.exchange.model.mapper.CryptoMapResponseToCryptoListingMapper;
+import com.casestudy.cryptoexchangeapi.exchange.repository.CryptoDirectorySnapshotRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Keeps the whole CoinMarketCap cryptocurrency map in memory as a {@link CryptoDirectory} and serves
+ * {@code /api/convert/map} pages from it, with exact totals and without spending upstream quota per request.
+ * <p>
+ * The map is fetched in the background with as few {@code /v1/cryptocurrency/map} calls as the page limit
+ * allows, each taking a {@link EnumCmcCallPriority#DIRECTORY} permit. A fetch that returns the listings already
+ * held is dropped; a changed map is swapped in through a single volatile reference and persisted, so a
+ * restarting pod serves the last known map before its first fetch completes.
+ * <p>
+ * Every published directory is announced as a {@link CryptoDirectoryRefreshedEvent}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CryptoDirectoryService implements ApplicationRunner {
+
+    private static final String SORT = "cmc_rank";
+
+    private final CmcClient cmcClient;
+    private final CmcBudgetScheduler cmcBudgetScheduler;
+    private final CryptoDirectoryProperties properties;
+    private final CryptoDirectorySnapshotRepository cryptoDirectorySnapshotRepository;
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    private final CryptoMapResponseToCryptoListingMapper cryptoMapResponseToCryptoListingMapper =
+            CryptoMapResponseToCryptoListingMapper.initialize();
+
+    private final CryptoListingToCryptoDirectorySnapshotListingMapper cryptoListingToCryptoDirectorySnapshotListingMapper =
+            CryptoListingToCryptoDirectorySnapshotListingMapper.initialize();
+
+    private final CryptoDirectorySnapshotListingToCryptoListingMapper cryptoDirectorySnapshotListingToCryptoListingMapper =
+            CryptoDirectorySnapshotListingToCryptoListingMapper.initialize();
+
+    private volatile CryptoDirectory directory = CryptoDirectory.empty();
+
+    /**
+     * Fetches the whole map. A failed or empty fetch keeps the current directory.
+     */
+    @Scheduled(fixedRateString = "${cmc.directory.refresh-interval:3600000}")
+    public void refresh() {
+
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        try {
+            CryptoDirectory fetched = fetch();
+            if (fetched.isEmpty()) {
+                log.warn("Crypto directory refresh returned no listings, keeping {} listings", directory.size());
+                return;
+            }
+
+            if (!publishIfChanged(fetched)) {
+                log.debug("Crypto directory unchanged ({} listings)", fetched.size());
+                return;
+            }
+
+            persistSnapshot(fetched);
+        } catch (RuntimeException ex) {
+            log.warn("Crypto directory refresh failed: {}", ex.getMessage());
+        }
+
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        restoreSnapshot();
+    }
+
+    /**
+     * Loads the last persisted map, unless a refresh already published a directory.
+     */
+    public void restoreSnapshot() {
+
+        if (!properties.isEnabled() || !properties.isPersistSnapshot()) {
+            return;
+        }
+
+        try {
+            cryptoDirectorySnapshotRepository.findById(CryptoDirectorySnapshotEntity.LATEST_ID).ifPresent(snapshot -> {
+                List<CryptoListing> listings = cryptoDirectorySnapshotListingToCryptoListingMapper.map(snapshot.getListings());
+                if (publishIfEmpty(CryptoDirectory.of(listings, snapshot.getRefreshedAt()))) {
+                    log.info("Crypto directory restored {} listings from snapshot", listings.size());
+                }
+            });
+        } catch (RuntimeException ex) {
+            log.warn("Crypto directory snapshot could not be restored: {}", ex.getMessage());
+        }
+
+    }
+
+    /**
+     * Serves one page of the map from memory.
+     *
+     * @param pageable zero-based page and page size
+     * @return the page with exact totals, or empty while no directory has been loaded yet
+     */
+    public Optional<CustomPage<CryptoNameSymbol>> page(Pageable pageable) {
+
+        CryptoDirectory snapshot = directory;
+        if (snapshot.isEmpty()) {
+            return Optional.empty();
+        }
+
+        int size = pageable.getPageSize();
+        int total = snapshot.size();
+        int from = (int) Math.min((long) pageable.getPageNumber() * size, total);
+        int to = Math.min(from + size, total);
+
+        return Optional.of(CustomPage.<CryptoNameSymbol>builder()
+                .content(snapshot.slice(from, to))
+                .pageNumber(pageable.getPageNumber() + 1)
+                .pageSize(size)
+                .totalElementCount((long) total)
+                .totalPageCount((total + size - 1) / size)
+                .build());
+
+    }
+
+    /**
+     * @return the directory currently published
+     */
+    public CryptoDirectory snapshot() {
+        return directory;
+    }
+
+    private CryptoDirectory fetch() {
+
+        int limit = properties.getPageLimit();
+        List<CryptoListing> listings = new ArrayList<>();
+
+        for (int start = 1; ; start += limit) {
+            cmcBudgetScheduler.acquire(EnumCmcCallPriority.DIRECTORY);
+            CryptoMapResponse response = cmcClient.cryptoMap(start, limit, SORT);
+
+            if (response != null && response.getStatus() != null && response.getStatus().getError_code() != 0) {
+                String msg = response.getStatus().getError_message();
+                throw new ConversionFailedException("CMC error: " + (msg == null ? "unknown" : msg));
+            }
+
+            List<CryptoMapResponse.Item> items = response == null || response.getData() == null
+                    ? List.of()
+                    : response.getData();
+            listings.addAll(cryptoMapResponseToCryptoListingMapper.map(items));
+
+            if (items.size() < limit) {
+                break;
+            }
+        }
+
+        return CryptoDirectory.of(listings, Instant.now());
+
+    }
+
+    private synchronized boolean publishIfChanged(CryptoDirectory fetched) {
+
+        CryptoDirectory current = directory;
+        if (fetched.sameListings(current)) {
+            return false;
+        }
+
+        directory = fetched;
+        log.info("Crypto directory changed: {} -> {} listings", current.size(), fetched.size());
+        applicationEventPublisher.publishEvent(new CryptoDirectoryRefreshedEvent(fetched));
+        return true;
+
+    }
+
+    private synchronized boolean publishIfEmpty(CryptoDirectory restored) {
+
+        if (!directory.isEmpty() || restored.isEmpty()) {
+            return false;
+        }
+
+        directory = restored;
+        applicationEventPublisher.publishEvent(new CryptoDirectoryRefreshedEvent(restored));
+        return true;
+
+    }
+
+    private void persistSnapshot(CryptoDirectory published) {
+
+        if (!properties.isPersistSnapshot()) {
+            return;
+        }
+
+        try {
+            cryptoDirectorySnapshotRepository.save(CryptoDirectorySnapshotEntity.builder()
+                    .id(CryptoDirectorySnapshotEntity.LATEST_ID)
+                    .refreshedAt(published.refreshedAt())
+                    .listings(cryptoListingToCryptoDirectorySnapshotListingMapper.map(published.listings()))
+                    .build());
+        } catch (RuntimeException ex) {
+            log.warn("Crypto directory snapshot could not be persisted: {}", ex.getMessage());
+        }
+
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.casestudy.cryptoexchangeapi.exchange.service;
+
+import com.casestudy.cryptoexchangeapi.exchange.config.CryptoSearchProperties;
+import com.casestudy.cryptoexchangeapi.exchange.model.CryptoDirectory;
+import com.casestudy.cryptoexchangeapi.exchange.model.CryptoSearchIndex;
+import com.casestudy.cryptoexchangeapi.exchange.model.dto.response.CryptoNameSymbol;
+import com.casestudy.cryptoexchangeapi.exchange.model.event.CryptoDirectoryRefreshedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Answers type-ahead lookups by symbol or name (e.g. {@code "bit"} → Bitcoin, Bitcoin Cash, BitTorrent) from a
+ * {@link CryptoSearchIndex} held in memory, without any CoinMarketCap or MongoDB call.
+ * <p>
+ * Until the first directory is published the index only holds the supported {@code EnumCryptoCurrency} values.
+ * Every {@link CryptoDirectoryRefreshedEvent} rebuilds the index on a background thread and swaps it in through a
+ * single volatile reference; refreshes arriving while a rebuild runs are coalesced into one rebuild of the
+ * latest directory.
+ */
+@Slf4j
+@Service
+public class CryptoSearchService {
+
+    private final CryptoSearchProperties properties;
+    private final Executor executor;
+
+    private final AtomicReference<CryptoDirectory> pending = new AtomicReference<>();
+
+    private volatile CryptoSearchIndex index = CryptoSearchIndex.of(CryptoDirectory.empty());
+
+    @Autowired
+    public CryptoSearchService(CryptoSearchProperties properties) {
+        this(properties, Executors.newSingleThreadExecutor(Thread.ofVirtual().name("crypto-search-index").factory()));
+    }
+
+    CryptoSearchService(CryptoSearchProperties properties, Executor executor) {
+        this.properties = properties;
+        this.executor = executor;
+    }
+
+    /**
+     * @param query symbol or name prefix; case and diacritics are ignored
+     * @param limit maximum number of assets returned
+     * @return matching assets, exact symbols first, then by CoinMarketCap rank
+     */
+    public List<CryptoNameSymbol> search(String query, int limit) {
+        int maxEditDistance = properties.isFuzzy() ? properties.getMaxEditDistance() : 0;
+        return index.search(query, limit, maxEditDistance);
+    }
+
+    /**
+     * @return the index currently published
+     */
+    public CryptoSearchIndex snapshot() {
+        return index;
+    }
+
+    @EventListener
+    public void onDirectoryRefreshed(CryptoDirectoryRefreshedEvent event) {
+        if (pending.getAndSet(event.directory()) == null) {
+            executor.execute(this::rebuild);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    private void rebuild() {
+
+        CryptoDirectory directory = pending.getAndSet(null);
+        if (directory == null) {
+            return;
+        }
+
+        try {
+            CryptoSearchIndex rebuilt = CryptoSearchIndex.of(directory);
+            index = rebuilt;
+            log.debug("Crypto search index rebuilt with {} assets", rebuilt.size());
+        } catch (RuntimeException ex) {
+            log.warn("Crypto search index rebuild failed: {}", ex.getMessage());
+        }
+
+    }
+
+}
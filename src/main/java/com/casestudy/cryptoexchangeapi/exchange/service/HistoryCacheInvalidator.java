@@ -0,0 +1,165 @@
+package com.casestudy.cryptoexchangeapi.exchange.service;
+
+import com.casestudy.cryptoexchangeapi.exchange.cache.HistoryKeyIndex;
+import com.casestudy.cryptoexchangeapi.exchange.cache.SharedHistoryTier;
+import com.casestudy.cryptoexchangeapi.exchange.model.HistoryQuery;
+import com.casestudy.cryptoexchangeapi.exchange.model.entity.CryptoConvertEntity;
+import com.casestudy.cryptoexchangeapi.exchange.model.event.HistoryInvalidatedEvent;
+import com.casestudy.cryptoexchangeapi.exchange.model.event.HistoryPagesEvictedEvent;
+import com.casestudy.cryptoexchangeapi.exchange.utils.Constants;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Evicts the cached history pages a batch of newly written conversions can change and keeps every other page.
+ * <p>
+ * A page is evicted when its {@link HistoryQuery} {@link HistoryQuery#matches matches} any of the conversions:
+ * same currencies, amounts within its ranges, and a {@code createdAt} window that is still open at the time of
+ * the write. Only the pages the {@link HistoryKeyIndex} lists for the conversions' currency pairs are checked.
+ * Caches whose entries cannot be enumerated are cleared as a whole.
+ * <p>
+ * With a {@link SharedHistoryTier} the matching pages are evicted from the shared tier as well and the conversions
+ * are broadcast, so every other instance evicts the same pages from its near cache.
+ * <p>
+ * Evicted pages are announced as a {@link HistoryPagesEvictedEvent}, so hot pages can be reloaded right away.
+ * <p>
+ * Exported meters: {@code history.cache.invalidations} per {@code outcome} ({@code evicted}, {@code retained}).
+ */
+@Slf4j
+@Service
+public class HistoryCacheInvalidator {
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private final CacheManager cacheManager;
+    private final Optional<SharedHistoryTier> sharedHistoryTier;
+    private final HistoryKeyIndex historyKeyIndex;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final Counter evicted;
+    private final Counter retained;
+
+    public HistoryCacheInvalidator(CacheManager cacheManager,
+                                   MeterRegistry meterRegistry,
+                                   Optional<SharedHistoryTier> sharedHistoryTier,
+                                   HistoryKeyIndex historyKeyIndex,
+                                   ApplicationEventPublisher applicationEventPublisher) {
+        this.cacheManager = cacheManager;
+        this.sharedHistoryTier = sharedHistoryTier;
+        this.historyKeyIndex = historyKeyIndex;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.evicted = invalidations(meterRegistry, "evicted");
+        this.retained = invalidations(meterRegistry, "retained");
+        sharedHistoryTier.ifPresent(shared -> shared.subscribe(this::onInvalidated));
+    }
+
+    /**
+     * @return number of pages evicted from this instance
+     */
+    public int evict(Collection<CryptoConvertEntity> conversions) {
+
+        if (conversions.isEmpty()) {
+            return 0;
+        }
+
+        int removed = evictLocal(conversions);
+
+        sharedHistoryTier.ifPresent(shared -> {
+            shared.evictMatching(Constants.EXCHANGE, conversions);
+            shared.publish(new HistoryInvalidatedEvent(instanceId, List.copyOf(conversions)));
+        });
+
+        return removed;
+
+    }
+
+    void onInvalidated(HistoryInvalidatedEvent event) {
+        if (!instanceId.equals(event.origin())) {
+            evictLocal(event.conversions());
+        }
+    }
+
+    /**
+     * Evicts the pages of this instance's cache only, for conversions another component learned about.
+     *
+     * @return number of evicted pages
+     */
+    public int evictLocal(Collection<CryptoConvertEntity> conversions) {
+
+        Cache cache = cacheManager.getCache(Constants.EXCHANGE);
+        if (cache == null) {
+            return 0;
+        }
+
+        Map<?, ?> entries = switch (cache.getNativeCache()) {
+            case com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine -> caffeine.asMap();
+            case Map<?, ?> map -> map;
+            default -> null;
+        };
+        if (entries == null) {
+            cache.clear();
+            return 0;
+        }
+
+        // a cache the index does not track, e.g. one of a test, is checked page by page
+        Collection<?> candidates = historyKeyIndex.indexes(entries)
+                ? historyKeyIndex.candidates(conversions)
+                : List.copyOf(entries.keySet());
+
+        List<Object> removed = new ArrayList<>();
+        for (Object key : candidates) {
+            boolean changed = !(key instanceof HistoryQuery query) || conversions.stream().anyMatch(query::matches);
+            if (changed && entries.remove(key) != null) {
+                removed.add(key);
+            }
+        }
+        int kept = entries.size();
+
+        evicted.increment(removed.size());
+        retained.increment(kept);
+        log.debug("History cache: {} pages evicted, {} kept after {} conversions", removed.size(), kept, conversions.size());
+        if (!removed.isEmpty()) {
+            applicationEventPublisher.publishEvent(new HistoryPagesEvictedEvent(cache.getName(), removed));
+        }
+        return removed.size();
+
+    }
+
+    /**
+     * Drops every page of this instance's cache, for when conversions may have been written unnoticed.
+     */
+    public void clearLocal() {
+
+        Cache cache = cacheManager.getCache(Constants.EXCHANGE);
+        if (cache == null) {
+            return;
+        }
+
+        if (cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine) {
+            List<Object> removed = List.copyOf(caffeine.asMap().keySet());
+            caffeine.invalidateAll();
+            applicationEventPublisher.publishEvent(new HistoryPagesEvictedEvent(cache.getName(), removed));
+        } else {
+            cache.clear();
+        }
+
+    }
+
+    private static Counter invalidations(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("history.cache.invalidations")
+                .description("History pages evicted or kept when conversions are written")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+}
@@ -0,0 +1,266 @@
+package com.casestudy.cryptoexchangeapi.exchange.service;
+
+import com.casestudy.cryptoexchangeapi.exchange.config.HistoryCacheProperties;
+import com.casestudy.cryptoexchangeapi.exchange.model.entity.CryptoConvertEntity;
+import com.mongodb.MongoException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Invalidates this instance's history cache from a MongoDB change stream on the conversions collection, so
+ * conversions written by any instance evict the pages they change everywhere.
+ * <p>
+ * Inserts are read in batches of up to {@code history-cache.change-stream.batch-size} and applied through
+ * {@link HistoryCacheInvalidator#evictLocal}. The resume token is stored per {@code consumer-id} after every batch
+ * and at least every {@code checkpoint-interval} while idle, and the stream resumes from it after errors and
+ * restarts. When the oplog no longer reaches back to the token the whole cache is dropped, since conversions were
+ * missed. Change streams need a replica set or sharded cluster: on a standalone server the listener logs that once
+ * at startup and stops, leaving invalidation to the writing instance and the per-cache ttl.
+ * <p>
+ * The instance that wrote a conversion has already evicted its pages in {@link CryptoConvertWriter} and evicts
+ * them again when the insert arrives here. That is intentional: the writer's eviction gives read-your-writes on
+ * that instance before the stream catches up, and inserts carry nothing telling which instance wrote them. The
+ * cost is at most one extra miss per matching page.
+ * <p>
+ * Exported meters: {@code history.cache.change.events} per {@code outcome} ({@code applied}, {@code restarted}).
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "history-cache.change-stream", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class HistoryChangeStreamListener implements ApplicationRunner {
+
+    /**
+     * ChangeStreamHistoryLost, ChangeStreamFatalError, CappedPositionLost: the token can no longer be resumed from.
+     */
+    private static final Set<Integer> LOST_HISTORY = Set.of(286, 280, 136);
+
+    private static final String TOKEN = "token";
+    private static final String UPDATED_AT = "updatedAt";
+
+    private final MongoTemplate mongoTemplate;
+    private final HistoryCacheInvalidator historyCacheInvalidator;
+    private final HistoryCacheProperties.ChangeStream properties;
+    private final Counter applied;
+    private final Counter restarted;
+
+    private volatile boolean running = true;
+    private volatile Thread listener;
+
+    public HistoryChangeStreamListener(MongoTemplate mongoTemplate,
+                                       HistoryCacheInvalidator historyCacheInvalidator,
+                                       HistoryCacheProperties historyCacheProperties,
+                                       MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.historyCacheInvalidator = historyCacheInvalidator;
+        this.properties = historyCacheProperties.getChangeStream();
+        this.applied = events(meterRegistry, "applied");
+        this.restarted = events(meterRegistry, "restarted");
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        listener = Thread.ofVirtual().name("history-change-stream").start(this::listen);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        Thread thread = listener;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void listen() {
+
+        ensureTokenIndex();
+
+        if (!changeStreamsSupported()) {
+            log.warn("MongoDB is a standalone server without change streams; history cache change stream disabled");
+            return;
+        }
+
+        while (running) {
+
+            try {
+                consume(loadToken());
+            } catch (MongoException ex) {
+                if (!running) {
+                    return;
+                }
+                if (LOST_HISTORY.contains(ex.getCode())) {
+                    log.warn("History change stream cannot resume ({}), dropping cached history pages", ex.getMessage());
+                    deleteToken();
+                    historyCacheInvalidator.clearLocal();
+                    restarted.increment();
+                } else {
+                    log.warn("History change stream failed: {}", ex.getMessage());
+                }
+            } catch (RuntimeException ex) {
+                log.warn("History change stream failed: {}", ex.getMessage());
+            }
+
+            try {
+                TimeUnit.MILLISECONDS.sleep(properties.getRetry());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+        }
+
+    }
+
+    private void consume(BsonDocument resumeToken) {
+
+        String conversions = mongoTemplate.getCollectionName(CryptoConvertEntity.class);
+        ChangeStreamIterable<Document> stream = mongoTemplate.getCollection(conversions)
+                .watch(List.of(Aggregates.match(Filters.eq("operationType", "insert"))))
+                .batchSize(properties.getBatchSize())
+                .maxAwaitTime(properties.getMaxAwait(), TimeUnit.MILLISECONDS);
+        if (resumeToken != null) {
+            stream = stream.resumeAfter(resumeToken);
+        }
+
+        List<Document> inserted = new ArrayList<>();
+        long batchStarted = 0;
+        long lastCheckpoint = System.nanoTime();
+
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = stream.cursor()) {
+            while (running) {
+
+                ChangeStreamDocument<Document> event = cursor.tryNext();
+                long now = System.nanoTime();
+                if (event != null && event.getFullDocument() != null) {
+                    if (inserted.isEmpty()) {
+                        batchStarted = now;
+                    }
+                    inserted.add(event.getFullDocument());
+                }
+
+                boolean batchDue = !inserted.isEmpty() && (event == null
+                        || inserted.size() >= properties.getBatchSize()
+                        || now - batchStarted >= TimeUnit.MILLISECONDS.toNanos(properties.getMaxAwait()));
+                boolean checkpointDue = now - lastCheckpoint >= TimeUnit.MILLISECONDS.toNanos(properties.getCheckpointInterval());
+
+                // the token is only stored once every insert before it was applied
+                if (batchDue || (inserted.isEmpty() && checkpointDue)) {
+                    apply(inserted);
+                    inserted.clear();
+                    saveToken(cursor.getResumeToken());
+                    lastCheckpoint = now;
+                }
+
+            }
+        }
+
+    }
+
+    /**
+     * Evicts the cached pages the inserted conversion documents can change.
+     */
+    void apply(List<Document> inserted) {
+
+        if (inserted.isEmpty()) {
+            return;
+        }
+
+        List<CryptoConvertEntity> conversions = inserted.stream()
+                .map(document -> mongoTemplate.getConverter().read(CryptoConvertEntity.class, document))
+                .toList();
+        historyCacheInvalidator.evictLocal(conversions);
+        applied.increment(conversions.size());
+
+    }
+
+    /**
+     * @return whether the server is a replica set member or a mongos; assumed when it cannot be asked
+     */
+    boolean changeStreamsSupported() {
+        try {
+            Document hello = mongoTemplate.executeCommand(new Document("hello", 1));
+            return hello.containsKey("setName") || "isdbgrid".equals(hello.getString("msg"));
+        } catch (RuntimeException ex) {
+            log.debug("MongoDB topology could not be determined: {}", ex.getMessage());
+            return true;
+        }
+    }
+
+    private BsonDocument loadToken() {
+        Document stored = mongoTemplate.getCollection(properties.getTokenCollection())
+                .find(Filters.eq("_id", properties.getConsumerId()))
+                .first();
+        return stored != null && stored.getString(TOKEN) != null ? BsonDocument.parse(stored.getString(TOKEN)) : null;
+    }
+
+    private void saveToken(BsonDocument resumeToken) {
+
+        if (resumeToken == null) {
+            return;
+        }
+
+        try {
+            mongoTemplate.getCollection(properties.getTokenCollection()).replaceOne(
+                    Filters.eq("_id", properties.getConsumerId()),
+                    new Document("_id", properties.getConsumerId())
+                            .append(TOKEN, resumeToken.toJson())
+                            .append(UPDATED_AT, new Date()),
+                    new ReplaceOptions().upsert(true));
+        } catch (RuntimeException ex) {
+            // the next checkpoint stores a newer token; resuming from an older one only repeats evictions
+            log.warn("History change stream resume token could not be stored: {}", ex.getMessage());
+        }
+
+    }
+
+    private void deleteToken() {
+        try {
+            mongoTemplate.getCollection(properties.getTokenCollection())
+                    .deleteOne(Filters.eq("_id", properties.getConsumerId()));
+        } catch (RuntimeException ex) {
+            log.warn("History change stream resume token could not be deleted: {}", ex.getMessage());
+        }
+    }
+
+    private void ensureTokenIndex() {
+        try {
+            mongoTemplate.indexOps(properties.getTokenCollection()).createIndex(new Index()
+                    .on(UPDATED_AT, Sort.Direction.ASC)
+                    .expire(Duration.ofMillis(properties.getTokenTtl())));
+        } catch (RuntimeException ex) {
+            log.warn("History change stream token TTL index could not be ensured: {}", ex.getMessage());
+        }
+    }
+
+    private static Counter events(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("history.cache.change.events")
+                .description("Conversion inserts applied to the history cache, and change streams restarted without resume")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+}
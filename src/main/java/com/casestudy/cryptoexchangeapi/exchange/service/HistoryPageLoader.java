@@ -0,0 +1,47 @@
+package com.casestudy.cryptoexchangeapi.exchange.service;
+
+import com.casestudy.cryptoexchangeapi.common.model.CustomPage;
+import com.casestudy.cryptoexchangeapi.exchange.model.CryptoConvert;
+import com.casestudy.cryptoexchangeapi.exchange.model.HistoryQuery;
+import com.casestudy.cryptoexchangeapi.exchange.model.entity.CryptoConvertEntity;
+import com.casestudy.cryptoexchangeapi.exchange.model.mapper.CryptoConvertEntityToCryptoConvertMapper;
+import com.casestudy.cryptoexchangeapi.exchange.repository.CryptoConvertRepository;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Reloads a cached history page from its {@link HistoryQuery} key when the page is due for refresh-after-write.
+ * First loads go through {@code CryptoConvertService#getHistory}; keys that are not a {@link HistoryQuery} are
+ * dropped instead of refreshed.
+ */
+@Component
+@RequiredArgsConstructor
+public class HistoryPageLoader implements CacheLoader<Object, Object> {
+
+    private final CryptoConvertRepository cryptoConvertRepository;
+
+    private final CryptoConvertEntityToCryptoConvertMapper cryptoConvertEntityToCryptoConvertMapper =
+            CryptoConvertEntityToCryptoConvertMapper.initialize();
+
+    @Override
+    public Object load(Object key) {
+
+        if (!(key instanceof HistoryQuery query)) {
+            return null;
+        }
+
+        Slice<CryptoConvertEntity> page = cryptoConvertRepository.searchWithCriteria(query);
+
+        List<CryptoConvert> items = page.getContent().stream()
+                .map(cryptoConvertEntityToCryptoConvertMapper::map)
+                .toList();
+
+        return CustomPage.of(items, page, query.nextCursor(page));
+
+    }
+
+}
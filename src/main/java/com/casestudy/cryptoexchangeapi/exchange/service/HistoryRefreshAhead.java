@@ -0,0 +1,129 @@
+package com.casestudy.cryptoexchangeapi.exchange.service;
+
+import com.casestudy.cryptoexchangeapi.exchange.cache.HistoryAccessTracker;
+import com.casestudy.cryptoexchangeapi.exchange.config.HistoryCacheProperties;
+import com.casestudy.cryptoexchangeapi.exchange.model.event.HistoryPagesEvictedEvent;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Reloads the hottest history pages in the background as soon as a write evicted them, so the next lookup finds a
+ * warm page instead of paying for the count and find in MongoDB.
+ * <p>
+ * Which pages are hot is decided by the {@link HistoryAccessTracker}; at most
+ * {@code history-cache.refresh-ahead.concurrency} pages are reloaded at the same time. A page evicted again while
+ * it is being reloaded is reloaded once more afterwards, so a reload that read the collection before the later
+ * write never stays cached.
+ * <p>
+ * Exported meters: {@code history.cache.refresh.ahead} per {@code outcome} ({@code refreshed}, {@code failed}).
+ */
+@Slf4j
+@Service
+public class HistoryRefreshAhead {
+
+    private final CacheManager cacheManager;
+    private final HistoryAccessTracker historyAccessTracker;
+    private final CacheLoader<Object, Object> historyPageLoader;
+    private final boolean enabled;
+    private final ExecutorService executor;
+    private final Counter refreshed;
+    private final Counter failed;
+
+    /**
+     * Keys queued or being reloaded; {@code true} while a reload is still owed for the latest eviction.
+     */
+    private final Map<Object, Boolean> pending = new ConcurrentHashMap<>();
+
+    public HistoryRefreshAhead(CacheManager cacheManager,
+                               HistoryAccessTracker historyAccessTracker,
+                               CacheLoader<Object, Object> historyPageLoader,
+                               HistoryCacheProperties historyCacheProperties,
+                               MeterRegistry meterRegistry) {
+        HistoryCacheProperties.RefreshAhead properties = historyCacheProperties.getRefreshAhead();
+        this.cacheManager = cacheManager;
+        this.historyAccessTracker = historyAccessTracker;
+        this.historyPageLoader = historyPageLoader;
+        this.enabled = properties.isEnabled();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, properties.getConcurrency()),
+                Thread.ofVirtual().name("history-refresh-ahead-", 0).factory());
+        this.refreshed = refreshes(meterRegistry, "refreshed");
+        this.failed = refreshes(meterRegistry, "failed");
+    }
+
+    @EventListener
+    public void onPagesEvicted(HistoryPagesEvictedEvent event) {
+
+        if (!enabled) {
+            return;
+        }
+
+        Cache cache = cacheManager.getCache(event.cache());
+        if (cache == null) {
+            return;
+        }
+
+        event.keys().stream()
+                .filter(historyAccessTracker::isHot)
+                .forEach(key -> schedule(cache, key));
+
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void schedule(Cache cache, Object key) {
+
+        if (pending.put(key, Boolean.TRUE) != null) {
+            return;
+        }
+
+        try {
+            executor.execute(() -> refresh(cache, key));
+        } catch (RejectedExecutionException ex) {
+            pending.remove(key);
+        }
+
+    }
+
+    private void refresh(Cache cache, Object key) {
+
+        try {
+            do {
+                pending.put(key, Boolean.FALSE);
+                Object page = historyPageLoader.load(key);
+                if (page != null) {
+                    cache.put(key, page);
+                    refreshed.increment();
+                }
+            } while (!pending.remove(key, Boolean.FALSE));
+        } catch (Exception ex) {
+            pending.remove(key);
+            failed.increment();
+            log.warn("History page {} could not be refreshed ahead: {}", key, ex.getMessage());
+        }
+
+    }
+
+    private static Counter refreshes(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("history.cache.refresh.ahead")
+                .description("Hot history pages reloaded after they were evicted")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+}
@@ -0,0 +1,371 @@
+package com.casestudy.cryptoexchangeapi.exchange.service;
+
+import com.casestudy.cryptoexchangeapi.common.utils.BloomFilter;
+import com.casestudy.cryptoexchangeapi.exchange.config.IdempotencyProperties;
+import com.casestudy.cryptoexchangeapi.exchange.exception.IdempotencyKeyInProgressException;
+import com.casestudy.cryptoexchangeapi.exchange.exception.IdempotencyKeyReuseException;
+import com.casestudy.cryptoexchangeapi.exchange.model.CryptoConvert;
+import com.casestudy.cryptoexchangeapi.exchange.model.dto.request.ConvertRequest;
+import com.casestudy.cryptoexchangeapi.exchange.model.entity.IdempotencyRecordEntity;
+import com.casestudy.cryptoexchangeapi.exchange.model.mapper.CryptoConvertToIdempotencyRecordConversionMapper;
+import com.casestudy.cryptoexchangeapi.exchange.model.mapper.IdempotencyRecordConversionToCryptoConvertMapper;
+import com.casestudy.cryptoexchangeapi.exchange.repository.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the {@link CryptoConvert} produced for an {@code Idempotency-Key} and returns it for repeated requests,
+ * so a client retrying after a timeout neither prices nor persists the conversion twice.
+ * <p>
+ * A key is looked up in, cheapest first:
+ * <ol>
+ *     <li>the conversions still in flight on this instance; a repeat joins the original</li>
+ *     <li>a bounded LRU of recently completed keys</li>
+ *     <li>a Bloom filter of the keys this instance has seen; a key it has never seen is new without any
+ *     MongoDB read, which is the common case</li>
+ *     <li>{@code idempotency-key-collection}, for keys the filter may have seen</li>
+ * </ol>
+ * The Bloom filter is only a shortcut: a new conversion {@link #claim claims} its key by inserting a pending record
+ * before it is priced, and the unique {@code _id} index lets exactly one claim win across instances. The winner
+ * {@link #complete completes} the record with its conversion once it is persisted; losers return that conversion,
+ * or are told to retry while the winner is still converting. A claim left pending for {@code pending-timeout},
+ * e.g. by a crashed instance, is taken over by the next repeat. Records expire through a TTL index after
+ * {@code idempotency.ttl}. The filter is replaced by a fresh generation once it holds {@code expected-keys} keys,
+ * the previous generation being kept for lookups.
+ * <p>
+ * Exported meters: {@code idempotency.requests} per {@code outcome} ({@code hit}, {@code miss}, {@code join}).
+ */
+@Slf4j
+@Service
+public class IdempotencyService implements ApplicationRunner {
+
+    private static final String TTL_INDEX = "idempotency_ttl";
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final MongoTemplate mongoTemplate;
+    private final IdempotencyProperties properties;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter joins;
+
+    private final CryptoConvertToIdempotencyRecordConversionMapper cryptoConvertToIdempotencyRecordConversionMapper =
+            CryptoConvertToIdempotencyRecordConversionMapper.initialize();
+
+    private final IdempotencyRecordConversionToCryptoConvertMapper idempotencyRecordConversionToCryptoConvertMapper =
+            IdempotencyRecordConversionToCryptoConvertMapper.initialize();
+
+    private final ConcurrentMap<String, CompletableFuture<Remembered>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Remembered> recent;
+    private final AtomicInteger generationSize = new AtomicInteger();
+
+    private volatile BloomFilter currentKeys;
+    private volatile BloomFilter previousKeys;
+
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository,
+                              MongoTemplate mongoTemplate,
+                              IdempotencyProperties properties,
+                              MeterRegistry meterRegistry) {
+
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.properties = properties;
+
+        this.hits = requests(meterRegistry, "hit");
+        this.misses = requests(meterRegistry, "miss");
+        this.joins = requests(meterRegistry, "join");
+
+        int recentKeys = Math.max(1, properties.getRecentKeys());
+        this.recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Remembered> eldest) {
+                return size() > recentKeys;
+            }
+        };
+        this.currentKeys = newGeneration();
+
+    }
+
+    /**
+     * Returns the conversion remembered for {@code key}, or runs {@code conversion} when the key is new.
+     * {@code conversion} must {@link #claim} the key before pricing anything.
+     *
+     * @throws IdempotencyKeyReuseException when the key was used for a different request
+     */
+    public CryptoConvert execute(String key, ConvertRequest request, Supplier<CryptoConvert> conversion) {
+
+        if (!properties.isEnabled()) {
+            return conversion.get();
+        }
+
+        String fingerprint = fingerprint(request);
+
+        CompletableFuture<Remembered> mine = new CompletableFuture<>();
+        CompletableFuture<Remembered> original = inFlight.putIfAbsent(key, mine);
+        if (original != null) {
+            joins.increment();
+            return matching(key, fingerprint, join(original));
+        }
+
+        try {
+            Remembered remembered = recall(key);
+            if (remembered != null) {
+                hits.increment();
+            } else {
+                misses.increment();
+                remembered = new Remembered(fingerprint, conversion.get());
+            }
+            remember(key, remembered);
+            mine.complete(remembered);
+            return matching(key, fingerprint, remembered);
+        } catch (RuntimeException | Error ex) {
+            mine.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+
+    }
+
+    /**
+     * Claims {@code key} for {@code request} by inserting a pending record, before the conversion is priced.
+     *
+     * @return empty when the claim succeeded and the conversion may be priced and persisted, otherwise the
+     * conversion of the request that claimed the key first
+     * @throws IdempotencyKeyReuseException      when the key was claimed for a different request
+     * @throws IdempotencyKeyInProgressException when the request that claimed the key first is still converting
+     */
+    public Optional<CryptoConvert> claim(String key, ConvertRequest request) {
+
+        if (!properties.isEnabled()) {
+            return Optional.empty();
+        }
+
+        String fingerprint = fingerprint(request);
+        try {
+            idempotencyRecordRepository.insert(record(key, fingerprint, null));
+            return Optional.empty();
+        } catch (DuplicateKeyException ex) {
+            IdempotencyRecordEntity winner = idempotencyRecordRepository.findById(key).orElseThrow(() -> ex);
+            if (!fingerprint.equals(winner.getRequestFingerprint())) {
+                throw new IdempotencyKeyReuseException(key);
+            }
+            if (winner.getConversion() == null) {
+                if (takeOver(winner)) {
+                    log.warn("Idempotency-Key {} was left pending and is taken over", key);
+                    return Optional.empty();
+                }
+                throw new IdempotencyKeyInProgressException(key);
+            }
+            log.debug("Idempotency-Key {} was claimed by a concurrent request", key);
+            return Optional.of(remembered(winner).conversion());
+        }
+
+    }
+
+    /**
+     * Stores the conversion of a {@link #claim claimed} key once it is persisted, so repeats return it.
+     */
+    public void complete(String key, ConvertRequest request, CryptoConvert conversion) {
+
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        // the conversion is already persisted, so a failure here must not fail the request; the claim stays pending
+        try {
+            idempotencyRecordRepository.save(record(key, fingerprint(request),
+                    cryptoConvertToIdempotencyRecordConversionMapper.map(conversion)));
+        } catch (RuntimeException ex) {
+            log.warn("Idempotency-Key {} could not be completed: {}", key, ex.getMessage());
+        }
+
+    }
+
+    /**
+     * Forgets a claimed key whose conversion could not be persisted, so the client can retry it.
+     */
+    public void release(String key) {
+
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        synchronized (recent) {
+            recent.remove(key);
+        }
+
+        try {
+            idempotencyRecordRepository.deleteById(key);
+        } catch (RuntimeException ex) {
+            log.warn("Idempotency-Key {} could not be released: {}", key, ex.getMessage());
+        }
+
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        // off the startup path: the _id index already guarantees uniqueness, the TTL index only expires records
+        Thread.ofVirtual().name("idempotency-indexes").start(this::ensureIndexes);
+    }
+
+    void ensureIndexes() {
+
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        try {
+            mongoTemplate.indexOps(IdempotencyRecordEntity.class).createIndex(new Index()
+                    .on(IdempotencyRecordEntity.CREATED_AT, Sort.Direction.ASC)
+                    .expire(Duration.ofMillis(properties.getTtl()))
+                    .named(TTL_INDEX));
+        } catch (RuntimeException ex) {
+            log.warn("Idempotency TTL index could not be ensured: {}", ex.getMessage());
+        }
+
+    }
+
+    private Remembered recall(String key) {
+
+        synchronized (recent) {
+            Remembered remembered = recent.get(key);
+            if (remembered != null) {
+                return remembered;
+            }
+        }
+
+        if (!mightHaveSeen(key)) {
+            return null;
+        }
+
+        return idempotencyRecordRepository.findById(key)
+                .filter(record -> record.getConversion() != null)
+                .filter(record -> record.getCreatedAt() == null
+                        || record.getCreatedAt().plusMillis(properties.getTtl()).isAfter(Instant.now()))
+                .map(this::remembered)
+                .orElse(null);
+
+    }
+
+    private void remember(String key, Remembered remembered) {
+
+        synchronized (recent) {
+            recent.put(key, remembered);
+        }
+
+        BloomFilter keys = currentKeys;
+        keys.put(key);
+        if (generationSize.incrementAndGet() >= properties.getExpectedKeys()) {
+            rotate(keys);
+        }
+
+    }
+
+    /**
+     * Takes over a pending claim older than {@code pending-timeout}. The update only matches while the record is
+     * still the pending claim that was read, so of several repeats exactly one takes it over.
+     */
+    private boolean takeOver(IdempotencyRecordEntity pending) {
+
+        Instant createdAt = pending.getCreatedAt();
+        if (createdAt == null || createdAt.plusMillis(properties.getPendingTimeout()).isAfter(Instant.now())) {
+            return false;
+        }
+
+        Query stillPending = Query.query(Criteria.where("_id").is(pending.getKey())
+                .and(IdempotencyRecordEntity.CONVERSION).is(null)
+                .and(IdempotencyRecordEntity.CREATED_AT).is(createdAt));
+        return mongoTemplate.updateFirst(stillPending, Update.update(IdempotencyRecordEntity.CREATED_AT, Instant.now()),
+                IdempotencyRecordEntity.class).getModifiedCount() == 1;
+
+    }
+
+    private IdempotencyRecordEntity record(String key, String fingerprint,
+                                           IdempotencyRecordEntity.Conversion conversion) {
+        return IdempotencyRecordEntity.builder()
+                .key(key)
+                .requestFingerprint(fingerprint)
+                .createdAt(Instant.now())
+                .conversion(conversion)
+                .build();
+    }
+
+    private boolean mightHaveSeen(String key) {
+        BloomFilter previous = previousKeys;
+        return currentKeys.mightContain(key) || (previous != null && previous.mightContain(key));
+    }
+
+    private synchronized void rotate(BloomFilter full) {
+        if (currentKeys == full) {
+            previousKeys = full;
+            currentKeys = newGeneration();
+            generationSize.set(0);
+        }
+    }
+
+    private BloomFilter newGeneration() {
+        return new BloomFilter(Math.max(1, properties.getExpectedKeys()), properties.getFalsePositiveRate());
+    }
+
+    private Remembered remembered(IdempotencyRecordEntity record) {
+        return new Remembered(record.getRequestFingerprint(),
+                idempotencyRecordConversionToCryptoConvertMapper.map(record.getConversion()));
+    }
+
+    private static CryptoConvert matching(String key, String fingerprint, Remembered remembered) {
+        if (!fingerprint.equals(remembered.fingerprint())) {
+            throw new IdempotencyKeyReuseException(key);
+        }
+        return remembered.conversion();
+    }
+
+    private static Remembered join(CompletableFuture<Remembered> original) {
+        try {
+            return original.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private static String fingerprint(ConvertRequest request) {
+        return request.getFrom() + ">" + request.getTo() + ":" + request.getAmount().stripTrailingZeros().toPlainString();
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("idempotency.requests")
+                .description("Conversion requests carrying an Idempotency-Key by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private record Remembered(String fingerprint, CryptoConvert conversion) {
+    }
+
+}
@@ -0,0 +1,346 @@
+package com.casestudy.cryptoexchangeapi.exchange.service;
+
+import com.casestudy.cryptoexchangeapi.exchange.config.PriceStreamProperties;
+import com.casestudy.cryptoexchangeapi.exchange.exception.InvalidCryptoPairException;
+import com.casestudy.cryptoexchangeapi.exchange.exception.PriceStreamCapacityException;
+import com.casestudy.cryptoexchangeapi.exchange.model.CryptoPair;
+import com.casestudy.cryptoexchangeapi.exchange.model.RateMatrix;
+import com.casestudy.cryptoexchangeapi.exchange.model.dto.response.PriceStreamEventResponse;
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCryptoCurrency;
+import com.casestudy.cryptoexchangeapi.exchange.model.event.QuoteBookUpdatedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongFunction;
+
+/**
+ * Pushes quote book rates to server-sent event subscribers.
+ * <p>
+ * Each subscriber owns one pending slot per subscribed pair. A quote book update overwrites the slot of every
+ * pair whose rate changed, so a consumer that falls behind only ever receives the newest rate per pair and the
+ * memory held per subscriber is bounded by its pair count. Overwritten rates are counted as conflated drops.
+ * <p>
+ * At most one drain task per subscriber runs at a time, on a virtual thread: a slow client blocks its own drain
+ * only, while the quote book listener never waits on any socket.
+ * <p>
+ * Exported meters: {@code price.stream.subscribers} (gauge), {@code price.stream.sent} and
+ * {@code price.stream.dropped} tagged with {@code reason} {@code conflated} or {@code disconnected}.
+ */
+@Slf4j
+@Service
+public class PriceStreamService {
+
+    static final String EVENT_NAME = "rate";
+
+    private final QuoteBookService quoteBookService;
+    private final PriceStreamProperties properties;
+    private final Executor executor;
+    private final LongFunction<SseEmitter> emitterFactory;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    private final Counter sent;
+    private final Counter conflated;
+    private final Counter disconnected;
+
+    @Autowired
+    public PriceStreamService(QuoteBookService quoteBookService,
+                              PriceStreamProperties properties,
+                              MeterRegistry meterRegistry) {
+        this(quoteBookService, properties, meterRegistry, Executors.newVirtualThreadPerTaskExecutor(), SseEmitter::new);
+    }
+
+    PriceStreamService(QuoteBookService quoteBookService,
+                       PriceStreamProperties properties,
+                       MeterRegistry meterRegistry,
+                       Executor executor,
+                       LongFunction<SseEmitter> emitterFactory) {
+
+        this.quoteBookService = quoteBookService;
+        this.properties = properties;
+        this.executor = executor;
+        this.emitterFactory = emitterFactory;
+
+        Gauge.builder("price.stream.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Connected price stream subscribers")
+                .register(meterRegistry);
+        this.sent = Counter.builder("price.stream.sent")
+                .description("Rate updates written to price stream subscribers")
+                .register(meterRegistry);
+        this.conflated = dropCounter(meterRegistry, "conflated");
+        this.disconnected = dropCounter(meterRegistry, "disconnected");
+
+    }
+
+    /**
+     * Opens a stream for the given pairs. The current rate of every pair is sent right away, later updates
+     * as the quote book changes.
+     *
+     * @throws InvalidCryptoPairException   when no pair or more than {@code price-stream.max-pairs} pairs are given
+     * @throws PriceStreamCapacityException when {@code price-stream.max-subscribers} streams are already open
+     */
+    public SseEmitter subscribe(Collection<CryptoPair> pairs) {
+
+        List<CryptoPair> distinctPairs = List.copyOf(new LinkedHashSet<>(pairs));
+        if (distinctPairs.isEmpty() || distinctPairs.size() > properties.getMaxPairs()) {
+            throw new InvalidCryptoPairException("between 1 and " + properties.getMaxPairs()
+                    + " pairs can be streamed, got " + distinctPairs.size());
+        }
+
+        if (subscriberCount.incrementAndGet() > properties.getMaxSubscribers()) {
+            subscriberCount.decrementAndGet();
+            throw new PriceStreamCapacityException(properties.getMaxSubscribers());
+        }
+
+        SseEmitter emitter = emitterFactory.apply(properties.getTimeout());
+        Subscriber subscriber = new Subscriber(emitter, distinctPairs);
+        subscribers.add(subscriber);
+
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(ex -> remove(subscriber));
+
+        RateMatrix snapshot = quoteBookService.snapshot();
+        for (int slot = 0; slot < subscriber.size(); slot++) {
+            PriceStreamEventResponse tick = tick(snapshot, subscriber.fromOrdinals[slot], subscriber.toOrdinals[slot]);
+            if (tick != null) {
+                subscriber.offer(slot, tick);
+            }
+        }
+        schedule(subscriber);
+
+        return emitter;
+
+    }
+
+    /**
+     * Offers the rates that changed to every subscriber of the affected pairs. Runs on the publishing thread
+     * and never blocks: writing to the subscribers happens in their drain tasks.
+     */
+    @EventListener
+    public void onQuoteBookUpdated(QuoteBookUpdatedEvent event) {
+
+        if (subscribers.isEmpty()) {
+            return;
+        }
+
+        RateMatrix previous = event.previous();
+        RateMatrix current = event.current();
+
+        // one immutable tick per changed pair, shared by all of its subscribers
+        PriceStreamEventResponse[] ticks = new PriceStreamEventResponse[RateMatrix.SIZE * RateMatrix.SIZE];
+
+        for (Subscriber subscriber : subscribers) {
+            boolean offered = false;
+            for (int slot = 0; slot < subscriber.size(); slot++) {
+                int from = subscriber.fromOrdinals[slot];
+                int to = subscriber.toOrdinals[slot];
+                if (current.sameRate(previous, from, to)) {
+                    continue;
+                }
+                int index = from * RateMatrix.SIZE + to;
+                PriceStreamEventResponse tick = ticks[index];
+                if (tick == null) {
+                    tick = ticks[index] = tick(current, from, to);
+                }
+                if (tick != null) {
+                    subscriber.offer(slot, tick);
+                    offered = true;
+                }
+            }
+            if (offered) {
+                schedule(subscriber);
+            }
+        }
+
+    }
+
+    /**
+     * Sends a comment to every subscriber so proxies keep idle streams open and dead clients are noticed.
+     */
+    @Scheduled(fixedRateString = "${price-stream.heartbeat-interval:15000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.heartbeatDue = true;
+            schedule(subscriber);
+        }
+    }
+
+    /**
+     * @return number of open streams
+     */
+    public int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    /**
+     * Completes every open stream and stops the drain executor.
+     */
+    @PreDestroy
+    public void shutdown() {
+
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+            remove(subscriber);
+        }
+
+        if (executor instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+
+    }
+
+    private void schedule(Subscriber subscriber) {
+
+        if (subscriber.closed.get() || !subscriber.draining.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            executor.execute(() -> drain(subscriber));
+        } catch (RejectedExecutionException ex) {
+            subscriber.draining.set(false);
+        }
+
+    }
+
+    private void drain(Subscriber subscriber) {
+
+        try {
+            do {
+                for (int slot = 0; slot < subscriber.size(); slot++) {
+                    PriceStreamEventResponse tick = subscriber.pending.getAndSet(slot, null);
+                    if (tick != null) {
+                        subscriber.emitter.send(SseEmitter.event()
+                                .name(EVENT_NAME)
+                                .data(tick, MediaType.APPLICATION_JSON));
+                        sent.increment();
+                    }
+                }
+                if (subscriber.heartbeatDue) {
+                    subscriber.heartbeatDue = false;
+                    subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+                }
+                subscriber.draining.set(false);
+                // an update offered after the last slot was read must not wait for the next update
+            } while (subscriber.hasWork() && subscriber.draining.compareAndSet(false, true));
+        } catch (IOException | IllegalStateException ex) {
+            log.debug("Price stream subscriber dropped: {}", ex.getMessage());
+            remove(subscriber);
+        }
+
+    }
+
+    private void remove(Subscriber subscriber) {
+
+        if (!subscriber.closed.compareAndSet(false, true)) {
+            return;
+        }
+
+        subscribers.remove(subscriber);
+        subscriberCount.decrementAndGet();
+
+        for (int slot = 0; slot < subscriber.size(); slot++) {
+            if (subscriber.pending.getAndSet(slot, null) != null) {
+                disconnected.increment();
+            }
+        }
+
+    }
+
+    private static PriceStreamEventResponse tick(RateMatrix matrix, int fromOrdinal, int toOrdinal) {
+
+        if (matrix.unscaledRate(fromOrdinal, toOrdinal) == 0) {
+            return null;
+        }
+
+        EnumCryptoCurrency[] symbols = EnumCryptoCurrency.values();
+        return PriceStreamEventResponse.builder()
+                .from(symbols[fromOrdinal])
+                .to(symbols[toOrdinal])
+                .rate(matrix.rate(fromOrdinal, toOrdinal))
+                .quotedAt(Instant.ofEpochMilli(matrix.quotedAt(fromOrdinal, toOrdinal)))
+                .build();
+
+    }
+
+    private static Counter dropCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("price.stream.dropped")
+                .description("Rate updates not delivered to price stream subscribers")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final int[] fromOrdinals;
+        private final int[] toOrdinals;
+        private final AtomicReferenceArray<PriceStreamEventResponse> pending;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile boolean heartbeatDue;
+
+        private Subscriber(SseEmitter emitter, List<CryptoPair> pairs) {
+            this.emitter = emitter;
+            this.fromOrdinals = pairs.stream().mapToInt(pair -> pair.from().ordinal()).toArray();
+            this.toOrdinals = pairs.stream().mapToInt(pair -> pair.to().ordinal()).toArray();
+            this.pending = new AtomicReferenceArray<>(pairs.size());
+        }
+
+        private int size() {
+            return fromOrdinals.length;
+        }
+
+        /**
+         * Replaces the pending rate of the slot; a rate that was never sent counts as conflated.
+         */
+        private void offer(int slot, PriceStreamEventResponse tick) {
+            if (pending.getAndSet(slot, tick) != null) {
+                conflated.increment();
+            }
+        }
+
+        private boolean hasWork() {
+
+            if (heartbeatDue) {
+                return true;
+            }
+
+            for (int slot = 0; slot < size(); slot++) {
+                if (pending.get(slot) != null) {
+                    return true;
+                }
+            }
+
+            return false;
+
+        }
+
+    }
+
+}
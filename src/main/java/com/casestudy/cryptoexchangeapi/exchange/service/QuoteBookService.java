@@ -0,0 +1,180 @@
+package com.casestudy.cryptoexchangeapi.exchange.service;
+
+import com.casestudy.cryptoexchangeapi.exchange.config.QuoteBookProperties;
+import com.casestudy.cryptoexchangeapi.exchange.model.CryptoQuote;
+import com.casestudy.cryptoexchangeapi.exchange.model.RateMatrix;
+import com.casestudy.cryptoexchangeapi.exchange.model.entity.QuoteSnapshotEntity;
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCryptoCurrency;
+import com.casestudy.cryptoexchangeapi.exchange.model.event.QuoteBookUpdatedEvent;
+import com.casestudy.cryptoexchangeapi.exchange.model.mapper.CryptoQuoteToQuoteSnapshotQuoteMapper;
+import com.casestudy.cryptoexchangeapi.exchange.model.mapper.QuoteSnapshotQuoteToCryptoQuoteMapper;
+import com.casestudy.cryptoexchangeapi.exchange.provider.QuoteProvider;
+import com.casestudy.cryptoexchangeapi.exchange.repository.QuoteSnapshotRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * Keeps the latest USD price of every {@link EnumCryptoCurrency} and prices any pair locally
+ * as a cross rate, so conversions do not need an upstream round trip while the book is fresh.
+ * <p>
+ * The book is a {@link RateMatrix} published through a single volatile reference: refreshes build a
+ * complete new snapshot and swap it in, readers never lock and never see a half-updated book.
+ * <p>
+ * Every refresh also stores the quote set in Mongo. On startup the stored set is loaded as an
+ * {@link ApplicationRunner}, i.e. before the readiness probe passes, so a freshly rolled pod can price
+ * conversions without going upstream. Restored quotes keep their original timestamps and are subject to the
+ * usual {@code cmc.quote-book.max-age} rule.
+ * <p>
+ * Every swap is announced as a {@link QuoteBookUpdatedEvent} so listeners such as the price stream can push
+ * the rates that changed.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class QuoteBookService implements ApplicationRunner {
+
+    private final QuoteProvider quoteProvider;
+    private final QuoteBookProperties properties;
+    private final QuoteSnapshotRepository quoteSnapshotRepository;
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    private final CryptoQuoteToQuoteSnapshotQuoteMapper cryptoQuoteToQuoteSnapshotQuoteMapper =
+            CryptoQuoteToQuoteSnapshotQuoteMapper.initialize();
+
+    private final QuoteSnapshotQuoteToCryptoQuoteMapper quoteSnapshotQuoteToCryptoQuoteMapper =
+            QuoteSnapshotQuoteToCryptoQuoteMapper.initialize();
+
+    private volatile RateMatrix matrix = RateMatrix.empty();
+
+    /**
+     * Refreshes every supported symbol in the background. A failed refresh keeps the previous
+     * quotes, which then age out according to {@code cmc.quote-book.max-age}.
+     */
+    @Scheduled(fixedRateString = "${cmc.quote-book.refresh-interval:30000}")
+    public void refresh() {
+
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        try {
+            Map<EnumCryptoCurrency, BigDecimal> prices =
+                    quoteProvider.usdPrices(EnumSet.allOf(EnumCryptoCurrency.class));
+
+            long quotedAt = System.currentTimeMillis();
+            RateMatrix published = publish(current -> current.withUsdPrices(prices, quotedAt));
+            log.debug("Quote book refreshed with {} symbols", prices.size());
+
+            persistSnapshot(published);
+        } catch (RuntimeException ex) {
+            log.warn("Quote book refresh failed: {}", ex.getMessage());
+        }
+
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        restoreSnapshot();
+    }
+
+    /**
+     * Loads the last persisted quote set into the book. Quotes already newer in the book are kept, so a
+     * refresh that wins the race against the restore is never rolled back.
+     */
+    public void restoreSnapshot() {
+
+        if (!properties.isEnabled() || !properties.isPersistSnapshot()) {
+            return;
+        }
+
+        try {
+            quoteSnapshotRepository.findById(QuoteSnapshotEntity.LATEST_ID).ifPresent(snapshot -> {
+                List<CryptoQuote> quotes = quoteSnapshotQuoteToCryptoQuoteMapper.map(snapshot.getQuotes());
+                publish(current -> current.withQuotes(quotes));
+                log.info("Quote book restored {} quotes from snapshot", quotes.size());
+            });
+        } catch (RuntimeException ex) {
+            log.warn("Quote book snapshot could not be restored: {}", ex.getMessage());
+        }
+
+    }
+
+    /**
+     * Prices {@code from} in units of {@code to} from the book without hashing or locking.
+     *
+     * @return the cross rate, or {@code null} when either side is missing or older than the configured max age
+     */
+    public BigDecimal rate(EnumCryptoCurrency from, EnumCryptoCurrency to) {
+        return rate(matrix, from, to);
+    }
+
+    /**
+     * Prices {@code from} in units of {@code to} from a snapshot taken earlier with {@link #snapshot()}, so that
+     * several pairs can be priced against one consistent set of quotes.
+     *
+     * @return the cross rate, or {@code null} when either side is missing or older than the configured max age
+     */
+    public BigDecimal rate(RateMatrix snapshot, EnumCryptoCurrency from, EnumCryptoCurrency to) {
+
+        if (!properties.isEnabled()) {
+            return null;
+        }
+
+        int fromOrdinal = from.ordinal();
+        int toOrdinal = to.ordinal();
+
+        if (System.currentTimeMillis() - snapshot.quotedAt(fromOrdinal, toOrdinal) > properties.getMaxAge()) {
+            return null;
+        }
+
+        return snapshot.rate(fromOrdinal, toOrdinal);
+
+    }
+
+    /**
+     * Swaps in the updated snapshot and announces it. The event is published while holding the lock so
+     * listeners see the updates in the order they were applied; listeners must therefore not block.
+     */
+    private synchronized RateMatrix publish(UnaryOperator<RateMatrix> update) {
+        RateMatrix previous = matrix;
+        matrix = update.apply(previous);
+        applicationEventPublisher.publishEvent(new QuoteBookUpdatedEvent(previous, matrix));
+        return matrix;
+    }
+
+    private void persistSnapshot(RateMatrix published) {
+
+        if (!properties.isPersistSnapshot()) {
+            return;
+        }
+
+        try {
+            quoteSnapshotRepository.save(QuoteSnapshotEntity.builder()
+                    .id(QuoteSnapshotEntity.LATEST_ID)
+                    .quotes(cryptoQuoteToQuoteSnapshotQuoteMapper.map(published.quotes()))
+                    .build());
+        } catch (RuntimeException ex) {
+            log.warn("Quote book snapshot could not be persisted: {}", ex.getMessage());
+        }
+
+    }
+
+    /**
+     * @return the snapshot currently published, regardless of the age of its quotes
+     */
+    public RateMatrix snapshot() {
+        return matrix;
+    }
+
+}
@@ -0,0 +1,128 @@
+package com.casestudy.cryptoexchangeapi.exchange.service;
+
+import com.casestudy.cryptoexchangeapi.common.utils.SingleFlight;
+import com.casestudy.cryptoexchangeapi.exchange.config.CmcProperties;
+import com.casestudy.cryptoexchangeapi.exchange.model.CryptoPair;
+import com.casestudy.cryptoexchangeapi.exchange.provider.QuoteProvider;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Caches the upstream unit price of each (from, to) pair independently of the requested amount.
+ * <ul>
+ *     <li>younger than {@code cmc.cache-ttl} (soft TTL): served as-is</li>
+ *     <li>between the soft TTL and {@code cmc.cache-hard-ttl}: served stale while exactly one
+ *     asynchronous refresh runs for the pair</li>
+ *     <li>older than the hard TTL or missing: loaded synchronously</li>
+ * </ul>
+ * All upstream loads go through the price lookup {@link SingleFlight}, so a synchronous miss and a
+ * background refresh of the same pair never run side by side.
+ */
+@Slf4j
+@Service
+public class UnitPriceCache {
+
+    private final QuoteProvider quoteProvider;
+    private final SingleFlight<CryptoPair, BigDecimal> priceLookupFlights;
+    private final CmcProperties cmcProperties;
+    private final Clock clock;
+    private final ExecutorService refreshExecutor;
+
+    private final ConcurrentMap<CryptoPair, CachedPrice> prices = new ConcurrentHashMap<>();
+    private final Set<CryptoPair> refreshing = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public UnitPriceCache(QuoteProvider quoteProvider,
+                          SingleFlight<CryptoPair, BigDecimal> priceLookupFlights,
+                          CmcProperties cmcProperties) {
+        this(quoteProvider, priceLookupFlights, cmcProperties, Clock.systemUTC(),
+                Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    UnitPriceCache(QuoteProvider quoteProvider,
+                   SingleFlight<CryptoPair, BigDecimal> priceLookupFlights,
+                   CmcProperties cmcProperties,
+                   Clock clock,
+                   ExecutorService refreshExecutor) {
+        this.quoteProvider = quoteProvider;
+        this.priceLookupFlights = priceLookupFlights;
+        this.cmcProperties = cmcProperties;
+        this.clock = clock;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    /**
+     * Returns the unit price of {@code pair}, going upstream only when nothing usable is cached.
+     *
+     * @param pair pair to price
+     * @return price of one {@code from} unit in {@code to}
+     */
+    public BigDecimal get(CryptoPair pair) {
+
+        Instant now = clock.instant();
+        CachedPrice cached = prices.get(pair);
+
+        if (cached != null) {
+            long age = now.toEpochMilli() - cached.loadedAt().toEpochMilli();
+            if (age < cmcProperties.getCacheTtl()) {
+                return cached.price();
+            }
+            if (age < cmcProperties.getCacheHardTtl()) {
+                refreshInBackground(pair);
+                return cached.price();
+            }
+        }
+
+        return load(pair);
+
+    }
+
+    private void refreshInBackground(CryptoPair pair) {
+
+        if (!refreshing.add(pair)) {
+            return;
+        }
+
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    load(pair);
+                } catch (RuntimeException ex) {
+                    log.warn("Background refresh of unit price {} failed: {}", pair, ex.getMessage());
+                } finally {
+                    refreshing.remove(pair);
+                }
+            });
+        } catch (RuntimeException ex) {
+            refreshing.remove(pair);
+            log.warn("Could not schedule refresh of unit price {}: {}", pair, ex.getMessage());
+        }
+
+    }
+
+    private BigDecimal load(CryptoPair pair) {
+        BigDecimal price = priceLookupFlights.execute(pair, () -> quoteProvider.unitPrice(pair.from(), pair.to()));
+        prices.put(pair, new CachedPrice(price, clock.instant()));
+        return price;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private record CachedPrice(BigDecimal price, Instant loadedAt) {
+    }
+
+}
@@ -4,4 +4,6 @@ public class Constants {
 
     public static final String EXCHANGE = "exchanges";
 
+    public static final String EXCHANGE_CLOSED = "exchanges-closed";
+
 }
@@ -1,6 +1,7 @@
 package com.casestudy.cryptoexchangeapi.logging.model.entity;
 
 import com.casestudy.cryptoexchangeapi.common.model.entity.BaseEntity;
+import com.casestudy.cryptoexchangeapi.common.model.entity.IdentifiedEntity;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
 import org.springframework.data.annotation.Id;
@@ -17,7 +18,7 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @SuperBuilder
 @Document(collection = "log-collection")
-public class LogEntity extends BaseEntity {
+public class LogEntity extends BaseEntity implements IdentifiedEntity {
 
     @Id
     @Indexed(unique = true)
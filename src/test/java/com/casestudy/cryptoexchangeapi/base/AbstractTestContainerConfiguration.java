@@ -18,7 +18,7 @@ import org.testcontainers.junit.jupiter.Testcontainers;
 public class AbstractTestContainerConfiguration {
 
     // Create a MongoDB container instance
-    static final MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:latest")
+    protected static final MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:latest")
             .withExposedPorts(27017);
 
     static {
@@ -0,0 +1,122 @@
+package com.casestudy.cryptoexchangeapi.benchmark;
+
+import com.casestudy.cryptoexchangeapi.common.utils.TimeOrderedIds;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.InsertManyOptions;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares inserting conversions keyed by random UUIDs with inserting them keyed by {@link TimeOrderedIds}, into a
+ * collection that already holds {@code preloadedDocuments} conversions with the same kind of ids. Both the
+ * {@code _id} index and an index on {@code TRANSACTION_ID} are maintained, as in production. Scores are documents
+ * per second.
+ * <p>
+ * Needs a MongoDB at {@code -Dbenchmark.mongo.uri} (default {@code mongodb://localhost:27017}); the random-id
+ * penalty shows once the indexes outgrow the WiredTiger cache, e.g. with {@code mongod --wiredTigerCacheSizeGB 0.5}.
+ * Preloading 10M documents per id type takes several minutes. Run from the IDE or with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.casestudy.cryptoexchangeapi.benchmark.ConversionInsertBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class ConversionInsertBenchmark {
+
+    private static final int BATCH_SIZE = 1_000;
+    private static final int PRELOAD_BATCH_SIZE = 10_000;
+    private static final String[] SYMBOLS = {"BTC", "ETH", "USDT", "BNB", "SOL", "XRP", "ARB"};
+
+    @Param({"random", "time-ordered"})
+    public String idType;
+
+    @Param({"10000000"})
+    public long preloadedDocuments;
+
+    private MongoClient client;
+    private MongoCollection<Document> collection;
+
+    @Setup
+    public void setUp() {
+
+        client = MongoClients.create(System.getProperty("benchmark.mongo.uri", "mongodb://localhost:27017"));
+        collection = client.getDatabase("insert-benchmark").getCollection("conversions-" + idType);
+        collection.drop();
+        collection.createIndex(Indexes.ascending("TRANSACTION_ID"), new IndexOptions().name("transaction-id"));
+
+        for (long loaded = 0; loaded < preloadedDocuments; loaded += PRELOAD_BATCH_SIZE) {
+            collection.insertMany(batch((int) Math.min(PRELOAD_BATCH_SIZE, preloadedDocuments - loaded)),
+                    new InsertManyOptions().ordered(false));
+        }
+
+    }
+
+    @TearDown
+    public void tearDown() {
+        collection.drop();
+        client.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void insertBatch() {
+        collection.insertMany(batch(BATCH_SIZE), new InsertManyOptions().ordered(false));
+    }
+
+    private List<Document> batch(int size) {
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<Document> documents = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String id = "random".equals(idType) ? UUID.randomUUID().toString() : TimeOrderedIds.next();
+            BigDecimal amount = BigDecimal.valueOf(random.nextLong(1, 1_000_000), 2);
+            documents.add(new Document("_id", id)
+                    .append("TRANSACTION_ID", id)
+                    .append("AMOUNT", new Decimal128(amount))
+                    .append("FROM_CURRENCY", SYMBOLS[random.nextInt(SYMBOLS.length)])
+                    .append("TO_CURRENCY", SYMBOLS[random.nextInt(SYMBOLS.length)])
+                    .append("CONVERTED_AMOUNT", new Decimal128(amount.multiply(BigDecimal.TEN)))
+                    .append("createdAt", new Date()));
+        }
+
+        return documents;
+
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ConversionInsertBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+}
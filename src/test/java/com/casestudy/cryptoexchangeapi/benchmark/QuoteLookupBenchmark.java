@@ -0,0 +1,119 @@
+package com.casestudy.cryptoexchangeapi.benchmark;
+
+import com.casestudy.cryptoexchangeapi.exchange.model.RateMatrix;
+import com.casestudy.cryptoexchangeapi.exchange.model.dto.response.PriceConversionResponse;
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCryptoCurrency;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares pricing a conversion from a CMC-style {@code Map<String, Quote>} with pricing it
+ * from the {@link RateMatrix}.
+ * <p>
+ * Run from the IDE or with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.casestudy.cryptoexchangeapi.benchmark.QuoteLookupBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuoteLookupBenchmark {
+
+    private static final EnumCryptoCurrency[] SYMBOLS = EnumCryptoCurrency.values();
+    private static final BigDecimal AMOUNT = new BigDecimal("100");
+
+    private Map<String, PriceConversionResponse> responses;
+    private RateMatrix matrix;
+    private int[] fromOrdinals;
+    private int[] toOrdinals;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        Map<EnumCryptoCurrency, BigDecimal> usdPrices = new EnumMap<>(EnumCryptoCurrency.class);
+        for (EnumCryptoCurrency symbol : SYMBOLS) {
+            usdPrices.put(symbol, BigDecimal.valueOf(random.nextDouble(0.0001, 100_000)));
+        }
+        matrix = RateMatrix.empty().withUsdPrices(usdPrices, System.currentTimeMillis());
+
+        // One CMC-shaped response per source symbol, each quoting every target symbol
+        responses = new HashMap<>();
+        for (EnumCryptoCurrency from : SYMBOLS) {
+            Map<String, PriceConversionResponse.Quote> quotes = new HashMap<>();
+            for (EnumCryptoCurrency to : SYMBOLS) {
+                PriceConversionResponse.Quote quote = new PriceConversionResponse.Quote();
+                quote.setPrice(matrix.rate(from.ordinal(), to.ordinal()));
+                quotes.put(to.name(), quote);
+            }
+            PriceConversionResponse.ConversionData data = new PriceConversionResponse.ConversionData();
+            data.setQuote(quotes);
+            PriceConversionResponse response = new PriceConversionResponse();
+            response.setData(data);
+            responses.put(from.name(), response);
+        }
+
+        fromOrdinals = new int[1024];
+        toOrdinals = new int[1024];
+        for (int i = 0; i < fromOrdinals.length; i++) {
+            fromOrdinals[i] = random.nextInt(SYMBOLS.length);
+            toOrdinals[i] = random.nextInt(SYMBOLS.length);
+        }
+
+    }
+
+    @Benchmark
+    public void mapLookup(Blackhole blackhole) {
+        int i = next();
+        EnumCryptoCurrency from = SYMBOLS[fromOrdinals[i]];
+        EnumCryptoCurrency to = SYMBOLS[toOrdinals[i]];
+        PriceConversionResponse.Quote quote = responses.get(from.name()).getData().getQuote().get(to.name());
+        blackhole.consume(quote.getPrice().multiply(AMOUNT));
+    }
+
+    @Benchmark
+    public void matrixLookup(Blackhole blackhole) {
+        int i = next();
+        blackhole.consume(matrix.rate(fromOrdinals[i], toOrdinals[i]).multiply(AMOUNT));
+    }
+
+    @Benchmark
+    public void matrixUnscaledRateOnly(Blackhole blackhole) {
+        int i = next();
+        blackhole.consume(matrix.unscaledRate(fromOrdinals[i], toOrdinals[i]));
+    }
+
+    private int next() {
+        return cursor = (cursor + 1) & 1023;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(QuoteLookupBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.casestudy.cryptoexchangeapi.common.audit;
+
+import com.casestudy.cryptoexchangeapi.common.model.entity.BaseEntity;
+import com.casestudy.cryptoexchangeapi.common.utils.TimeOrderedIds;
+import com.casestudy.cryptoexchangeapi.exchange.model.entity.CryptoConvertEntity;
+import com.casestudy.cryptoexchangeapi.logging.model.entity.LogEntity;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertEvent;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BaseEntityListenerTest {
+
+    private final BaseEntityListener listener = new BaseEntityListener();
+
+    @Test
+    void onBeforeConvert_assignsTimeOrderedIdAndCreatedAt() {
+
+        // Given
+        LogEntity entity = LogEntity.builder().message("ok").build();
+
+        // When
+        listener.onBeforeConvert(new BeforeConvertEvent<>(entity, "log-collection"));
+
+        // Then
+        assertThat(TimeOrderedIds.timestampOf(entity.getId())).isNotNull();
+        assertThat(entity.getCreatedAt()).isNotNull();
+
+    }
+
+    @Test
+    void onBeforeConvert_keepsExistingIdAndCreatedAt() {
+
+        // Given
+        LocalDateTime createdAt = LocalDateTime.of(2025, 10, 1, 12, 0);
+        CryptoConvertEntity entity = CryptoConvertEntity.builder().id("tx-1").createdAt(createdAt).build();
+
+        // When
+        listener.onBeforeConvert(new BeforeConvertEvent<>(entity, "crypto-convert-collection"));
+
+        // Then
+        assertThat(entity.getId()).isEqualTo("tx-1");
+        assertThat(entity.getCreatedAt()).isEqualTo(createdAt);
+
+    }
+
+    @Test
+    void onBeforeConvert_setsIdFieldOfEntitiesWithoutAccessors() {
+
+        // Given
+        PlainEntity plain = new PlainEntity();
+        BaseEntity withoutId = new BaseEntity();
+
+        // When
+        listener.onBeforeConvert(new BeforeConvertEvent<>(plain, "plain"));
+        listener.onBeforeConvert(new BeforeConvertEvent<>(withoutId, "plain"));
+
+        // Then
+        assertThat(TimeOrderedIds.timestampOf(plain.id)).isNotNull();
+        assertThat(withoutId.getCreatedAt()).isNotNull();
+
+    }
+
+    static class PlainEntity extends BaseEntity {
+
+        private String id;
+
+    }
+
+}
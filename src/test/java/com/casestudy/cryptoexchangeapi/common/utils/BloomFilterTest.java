@@ -0,0 +1,60 @@
+package com.casestudy.cryptoexchangeapi.common.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BloomFilterTest {
+
+    @Test
+    void mightContain_neverMissesAKeyThatWasPut() {
+
+        // Given
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("key-" + i);
+        }
+
+        // When / Then
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("key-" + i)).isTrue();
+        }
+
+    }
+
+    @Test
+    void mightContain_staysNearTheConfiguredFalsePositiveRate() {
+
+        // Given
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(UUID.randomUUID().toString());
+        }
+
+        // When
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("absent-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // Then
+        assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+        assertThat(filter.hashCount()).isEqualTo(7);
+
+    }
+
+    @Test
+    void constructor_rejectsInvalidSizing() {
+
+        // When / Then
+        assertThatThrownBy(() -> new BloomFilter(0, 0.01)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new BloomFilter(10, 1)).isInstanceOf(IllegalArgumentException.class);
+
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.casestudy.cryptoexchangeapi.common.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CountMinSketchTest {
+
+    @Test
+    void estimate_neverUndercountsAndSeparatesHotFromColdKeys() {
+
+        // Given
+        CountMinSketch sketch = new CountMinSketch(1024);
+        for (int i = 0; i < 1000; i++) {
+            sketch.increment("cold-" + i);
+        }
+        for (int i = 0; i < 50; i++) {
+            sketch.increment("hot");
+        }
+
+        // When
+        int hot = sketch.estimate("hot");
+        int cold = sketch.estimate("cold-7");
+
+        // Then
+        assertThat(hot).isGreaterThanOrEqualTo(50);
+        assertThat(cold).isGreaterThanOrEqualTo(1).isLessThan(10);
+        assertThat(sketch.estimate("never-seen")).isLessThan(10);
+
+    }
+
+    @Test
+    void increment_halvesAllCountersAfterTheSamplePeriod() {
+
+        // Given
+        CountMinSketch sketch = new CountMinSketch(16);
+
+        // When
+        for (int i = 0; i < 10 * 16; i++) {
+            sketch.increment("key");
+        }
+
+        // Then
+        assertThat(sketch.agings()).isEqualTo(1);
+        assertThat(sketch.estimate("key")).isEqualTo(80);
+
+    }
+
+    @Test
+    void constructor_rejectsNonPositiveSizes() {
+
+        // When / Then
+        assertThatThrownBy(() -> new CountMinSketch(0)).isInstanceOf(IllegalArgumentException.class);
+
+    }
+
+}
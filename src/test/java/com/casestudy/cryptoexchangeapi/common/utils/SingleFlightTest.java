@@ -0,0 +1,163 @@
+package com.casestudy.cryptoexchangeapi.common.utils;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private SingleFlight<String, Integer> singleFlight;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        singleFlight = new SingleFlight<>("test.flight", meterRegistry, key -> key);
+    }
+
+    @Test
+    void execute_withoutConcurrency_runsLoaderEveryTime() {
+
+        // When
+        int first = singleFlight.execute("k", () -> 1);
+        int second = singleFlight.execute("k", () -> 2);
+
+        // Then
+        assertThat(first).isEqualTo(1);
+        assertThat(second).isEqualTo(2);
+        assertThat(singleFlight.inFlightCount()).isZero();
+        assertThat(singleFlight.coalescingRatio()).isZero();
+
+    }
+
+    @Test
+    void execute_concurrentCallsForSameKey_shareOneExecution() throws Exception {
+
+        // Given
+        int followers = 20;
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(followers + 1);
+
+        try {
+            Future<Integer> leader = pool.submit(() -> singleFlight.execute("BTC-ETH", () -> {
+                loads.incrementAndGet();
+                leaderStarted.countDown();
+                await(release);
+                return 42;
+            }));
+            assertThat(leaderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+            List<Future<Integer>> joined = new ArrayList<>();
+            for (int i = 0; i < followers; i++) {
+                joined.add(pool.submit(() -> singleFlight.execute("BTC-ETH", () -> {
+                    loads.incrementAndGet();
+                    return -1;
+                })));
+            }
+
+            // wait until every follower is parked on the leader's execution
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (waiters("BTC-ETH") < followers && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+
+            // When
+            release.countDown();
+
+            // Then
+            assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo(42);
+            for (Future<Integer> f : joined) {
+                assertThat(f.get(5, TimeUnit.SECONDS)).isEqualTo(42);
+            }
+            assertThat(loads.get()).isEqualTo(1);
+            assertThat(meterRegistry.get("test.flight.calls").tags("key", "BTC-ETH", "role", "leader").counter().count())
+                    .isEqualTo(1.0);
+            assertThat(meterRegistry.get("test.flight.calls").tags("key", "BTC-ETH", "role", "follower").counter().count())
+                    .isEqualTo(followers);
+            assertThat(meterRegistry.get("test.flight.waiters").tag("key", "BTC-ETH").gauge().value()).isZero();
+            assertThat(meterRegistry.get("test.flight.coalescing.ratio").gauge().value())
+                    .isEqualTo((double) followers / (followers + 1));
+        } finally {
+            pool.shutdownNow();
+        }
+
+    }
+
+    @Test
+    void execute_whenLeaderFails_followersReceiveSameException() throws Exception {
+
+        // Given
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("upstream down");
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+
+        try {
+            Future<Integer> leader = pool.submit(() -> singleFlight.execute("k", () -> {
+                leaderStarted.countDown();
+                await(release);
+                throw failure;
+            }));
+            assertThat(leaderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+            Future<Integer> follower = pool.submit(() -> singleFlight.execute("k", () -> 0));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (meterRegistry.find("test.flight.waiters").gauge() == null && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+
+            // When
+            release.countDown();
+
+            // Then
+            assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCause(failure);
+            assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS)).hasCause(failure);
+            assertThat(singleFlight.inFlightCount()).isZero();
+        } finally {
+            pool.shutdownNow();
+        }
+
+    }
+
+    @Test
+    void execute_differentKeys_doNotCoalesce() {
+
+        // When
+        int a = singleFlight.execute("a", () -> 1);
+        int b = singleFlight.execute("b", () -> 2);
+
+        // Then
+        assertThat(a).isEqualTo(1);
+        assertThat(b).isEqualTo(2);
+        assertThat(meterRegistry.get("test.flight.calls").tags("key", "a", "role", "leader").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("test.flight.calls").tags("key", "b", "role", "leader").counter().count()).isEqualTo(1.0);
+
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private double waiters(String key) {
+        // the gauge only exists once the first follower arrived
+        Gauge gauge = meterRegistry.find("test.flight.waiters").tag("key", key).gauge();
+        return gauge == null ? 0 : gauge.value();
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.casestudy.cryptoexchangeapi.common.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimeOrderedIdsTest {
+
+    @Test
+    void next_isVersion7AndSortsByCreationTime() throws Exception {
+
+        // Given
+        List<String> ids = new ArrayList<>();
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            ids.add(TimeOrderedIds.next());
+            Thread.sleep(2);
+        }
+
+        // Then
+        assertThat(ids).isSorted().doesNotHaveDuplicates();
+        assertThat(UUID.fromString(ids.getFirst()).version()).isEqualTo(7);
+        assertThat(UUID.fromString(ids.getFirst()).variant()).isEqualTo(2);
+
+    }
+
+    @Test
+    void timestampOf_readsTheCreationInstantBack() {
+
+        // Given
+        Instant before = Instant.now().minusMillis(1);
+
+        // When
+        Instant created = TimeOrderedIds.timestampOf(TimeOrderedIds.next());
+
+        // Then
+        assertThat(created).isBetween(before, Instant.now());
+        assertThat(TimeOrderedIds.timestampOf(UUID.randomUUID().toString())).isNull();
+        assertThat(TimeOrderedIds.timestampOf("not-an-id")).isNull();
+
+    }
+
+    @Test
+    void lowerBound_sortsBeforeEveryIdCreatedFromThatInstant() {
+
+        // Given
+        Instant now = Instant.now();
+
+        // When
+        String bound = TimeOrderedIds.lowerBound(now);
+
+        // Then
+        assertThat(bound).isLessThanOrEqualTo(TimeOrderedIds.next());
+        assertThat(TimeOrderedIds.timestampOf(bound)).isEqualTo(Instant.ofEpochMilli(now.toEpochMilli()));
+
+    }
+
+}
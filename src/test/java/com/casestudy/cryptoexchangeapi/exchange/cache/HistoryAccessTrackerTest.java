@@ -0,0 +1,79 @@
+package com.casestudy.cryptoexchangeapi.exchange.cache;
+
+import com.casestudy.cryptoexchangeapi.exchange.config.HistoryCacheProperties;
+import com.casestudy.cryptoexchangeapi.exchange.model.HistoryQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HistoryAccessTrackerTest {
+
+    private HistoryCacheProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new HistoryCacheProperties();
+        properties.getRefreshAhead().setTrackedKeys(2);
+        properties.getRefreshAhead().setMinFrequency(3);
+    }
+
+    @Test
+    void record_tracksQueriesOnceTheyReachTheMinimumFrequency() {
+        // Given
+        HistoryAccessTracker tracker = new HistoryAccessTracker(properties);
+        HistoryQuery page = page(0);
+
+        // When
+        tracker.record(page);
+        tracker.record(page);
+        boolean hotAfterTwo = tracker.isHot(page);
+        tracker.record(page);
+
+        // Then
+        assertThat(hotAfterTwo).isFalse();
+        assertThat(tracker.isHot(page)).isTrue();
+    }
+
+    @Test
+    void record_whenFull_replacesTheColdestQueryWithAHotterOne() {
+        // Given
+        HistoryAccessTracker tracker = new HistoryAccessTracker(properties);
+        record(tracker, page(0), 10);
+        record(tracker, page(1), 3);
+
+        // When
+        record(tracker, page(2), 5);
+
+        // Then
+        assertThat(tracker.hottest()).containsExactly(page(0), page(2));
+        assertThat(tracker.isHot(page(1))).isFalse();
+    }
+
+    @Test
+    void record_ignoresKeysThatAreNotHistoryQueries() {
+        // Given
+        HistoryAccessTracker tracker = new HistoryAccessTracker(properties);
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            tracker.record("legacy-key");
+        }
+
+        // Then
+        assertThat(tracker.isHot("legacy-key")).isFalse();
+        assertThat(tracker.hottest()).isEmpty();
+    }
+
+    private static void record(HistoryAccessTracker tracker, HistoryQuery query, int times) {
+        for (int i = 0; i < times; i++) {
+            tracker.record(query);
+        }
+    }
+
+    private static HistoryQuery page(int number) {
+        return HistoryQuery.of(null, PageRequest.of(number, 20));
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.casestudy.cryptoexchangeapi.exchange.cache;
+
+import com.casestudy.cryptoexchangeapi.exchange.model.HistoryQuery;
+import com.casestudy.cryptoexchangeapi.exchange.model.dto.request.ListCryptoConvertRequest;
+import com.casestudy.cryptoexchangeapi.exchange.model.entity.CryptoConvertEntity;
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCryptoCurrency;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HistoryKeyIndexTest {
+
+    private final Map<Object, Object> cached = new ConcurrentHashMap<>();
+
+    private HistoryKeyIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new HistoryKeyIndex();
+        index.bind(cached);
+    }
+
+    @Test
+    void candidates_onlyListKeysOfPairsTheConversionsCanChange() {
+        // Given
+        HistoryQuery everything = query(null, null);
+        HistoryQuery fromBtc = query(EnumCryptoCurrency.BTC, null);
+        HistoryQuery toEth = query(null, EnumCryptoCurrency.ETH);
+        HistoryQuery btcToEth = query(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH);
+        HistoryQuery btcToSol = query(EnumCryptoCurrency.BTC, EnumCryptoCurrency.SOL);
+        HistoryQuery fromSol = query(EnumCryptoCurrency.SOL, null);
+        List.of(everything, fromBtc, toEth, btcToEth, btcToSol, fromSol, "other").forEach(this::put);
+
+        // When / Then
+        assertThat(index.candidates(List.of(conversion(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH))))
+                .containsExactlyInAnyOrder(everything, fromBtc, toEth, btcToEth, "other");
+        assertThat(index.indexes(cached)).isTrue();
+        assertThat(index.indexes(Map.of())).isFalse();
+    }
+
+    @Test
+    void removed_unindexesKeysNoLongerCached_butKeepsCachedOnes() {
+        // Given
+        HistoryQuery dropped = query(EnumCryptoCurrency.BTC, null);
+        HistoryQuery recached = query(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH);
+        put(dropped);
+        put(recached);
+        cached.remove(dropped);
+
+        // When: the notifications arrive after the second key was cached again
+        index.removed(dropped);
+        index.removed(recached);
+
+        // Then
+        assertThat(index.candidates(List.of(conversion(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH))))
+                .containsExactly(recached);
+    }
+
+    private void put(Object key) {
+        index.put(key, () -> cached.put(key, "page"));
+    }
+
+    private static HistoryQuery query(EnumCryptoCurrency from, EnumCryptoCurrency to) {
+        ListCryptoConvertRequest.Filter filter = new ListCryptoConvertRequest.Filter();
+        filter.setFrom(from);
+        filter.setTo(to);
+        return HistoryQuery.of(filter, PageRequest.of(0, 20));
+    }
+
+    private static CryptoConvertEntity conversion(EnumCryptoCurrency from, EnumCryptoCurrency to) {
+        return CryptoConvertEntity.builder().fromCurrency(from).toCurrency(to).build();
+    }
+
+}
@@ -0,0 +1,62 @@
+package com.casestudy.cryptoexchangeapi.exchange.cache;
+
+import com.casestudy.cryptoexchangeapi.common.model.CustomPage;
+import com.casestudy.cryptoexchangeapi.exchange.config.HistoryCacheProperties;
+import com.casestudy.cryptoexchangeapi.exchange.utils.Constants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemorySharedHistoryTierTest {
+
+    private HistoryCacheProperties properties;
+
+    private InMemorySharedHistoryTier tier;
+
+    @BeforeEach
+    void setUp() {
+        properties = new HistoryCacheProperties();
+        tier = new InMemorySharedHistoryTier(properties);
+    }
+
+    @Test
+    void put_withoutTtl_expiresAfterMaxTtl() throws Exception {
+        // Given
+        properties.getShared().setMaxTtl(50);
+
+        // When
+        tier.put(Constants.EXCHANGE_CLOSED, "page", "closed window", Duration.ZERO);
+        TimeUnit.MILLISECONDS.sleep(150);
+
+        // Then
+        assertThat(tier.get(Constants.EXCHANGE_CLOSED, "page")).isNull();
+    }
+
+    @Test
+    void put_keepsAtMostTheCachesMaxWeightInRows() throws Exception {
+        // Given
+        HistoryCacheProperties.Spec spec = new HistoryCacheProperties.Spec();
+        spec.setMaxWeight(4);
+        properties.getCaches().put(Constants.EXCHANGE, spec);
+
+        // When: ten pages of two rows
+        IntStream.range(0, 10).forEach(i ->
+                tier.put(Constants.EXCHANGE, i, page("row-" + i, "row-" + i), Duration.ofMinutes(1)));
+        TimeUnit.MILLISECONDS.sleep(300);
+
+        // Then
+        long cached = IntStream.range(0, 10).filter(i -> tier.get(Constants.EXCHANGE, i) != null).count();
+        assertThat(cached).isLessThanOrEqualTo(2);
+    }
+
+    private static CustomPage<String> page(String... rows) {
+        return CustomPage.<String>builder().content(List.of(rows)).build();
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.casestudy.cryptoexchangeapi.exchange.cache;
+
+import com.casestudy.cryptoexchangeapi.base.AbstractTestContainerConfiguration;
+import com.casestudy.cryptoexchangeapi.common.model.CustomPage;
+import com.casestudy.cryptoexchangeapi.exchange.config.HistoryCacheProperties;
+import com.casestudy.cryptoexchangeapi.exchange.model.CryptoConvert;
+import com.casestudy.cryptoexchangeapi.exchange.model.HistoryQuery;
+import com.casestudy.cryptoexchangeapi.exchange.model.dto.request.ListCryptoConvertRequest;
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCryptoCurrency;
+import com.casestudy.cryptoexchangeapi.exchange.utils.Constants;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MongoSharedHistoryTierRoundTripTest extends AbstractTestContainerConfiguration {
+
+    private MongoClient mongoClient;
+
+    private MongoTemplate mongoTemplate;
+
+    private MongoSharedHistoryTier tier;
+
+    @BeforeEach
+    void setUp() {
+        mongoClient = MongoClients.create(mongoDBContainer.getReplicaSetUrl());
+        mongoTemplate = new MongoTemplate(mongoClient, "shared-history-tier-test");
+        tier = new MongoSharedHistoryTier(mongoTemplate, new HistoryCacheProperties());
+    }
+
+    @AfterEach
+    void tearDown() {
+        mongoTemplate.getDb().drop();
+        mongoClient.close();
+    }
+
+    @Test
+    void get_readsBackTheStoredHistoryPage() {
+        // Given
+        ListCryptoConvertRequest.Filter filter = new ListCryptoConvertRequest.Filter();
+        filter.setFrom(EnumCryptoCurrency.BTC);
+        HistoryQuery query = HistoryQuery.of(filter, PageRequest.of(0, 20));
+        CryptoConvert conversion = CryptoConvert.builder()
+                .transactionId("6c7de41f-71e5-4d63-984d-8dcb60ba6265")
+                .amount(new BigDecimal("100.50"))
+                .from(EnumCryptoCurrency.BTC)
+                .to(EnumCryptoCurrency.ARB)
+                .convertedAmount(new BigDecimal("2711598539.488985400"))
+                .createdAt(LocalDateTime.of(2025, 10, 1, 18, 4, 33, 282_000_000))
+                .build();
+        CustomPage<CryptoConvert> page = CustomPage.<CryptoConvert>builder()
+                .content(List.of(conversion))
+                .pageNumber(1)
+                .pageSize(20)
+                .totalElementCount(1L)
+                .totalPageCount(1)
+                .build();
+
+        // When
+        tier.put(Constants.EXCHANGE, query, page, Duration.ofMinutes(1));
+        Object cached = tier.get(Constants.EXCHANGE, query);
+
+        // Then
+        assertThat(cached).isInstanceOf(CustomPage.class);
+        CustomPage<?> read = (CustomPage<?>) cached;
+        assertThat(read).usingRecursiveComparison().isEqualTo(page);
+        assertThat(read.getContent().getFirst()).isInstanceOf(CryptoConvert.class);
+    }
+
+}
@@ -0,0 +1,118 @@
+package com.casestudy.cryptoexchangeapi.exchange.cache;
+
+import com.casestudy.cryptoexchangeapi.base.AbstractBaseServiceTest;
+import com.casestudy.cryptoexchangeapi.exchange.config.HistoryCacheProperties;
+import com.casestudy.cryptoexchangeapi.exchange.model.HistoryQuery;
+import com.casestudy.cryptoexchangeapi.exchange.model.dto.request.ListCryptoConvertRequest;
+import com.casestudy.cryptoexchangeapi.exchange.model.entity.CryptoConvertEntity;
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCryptoCurrency;
+import com.casestudy.cryptoexchangeapi.exchange.utils.Constants;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MongoSharedHistoryTierTest extends AbstractBaseServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private HistoryCacheProperties properties;
+
+    private MongoSharedHistoryTier tier;
+
+    @BeforeEach
+    void setUp() {
+        properties = new HistoryCacheProperties();
+        tier = new MongoSharedHistoryTier(mongoTemplate, properties);
+    }
+
+    @Test
+    void put_withoutTtl_expiresAfterMaxTtl_andStoresIndexedQueryFields() {
+        // Given
+        properties.getShared().setMaxTtl(60_000);
+        ListCryptoConvertRequest.Filter filter = new ListCryptoConvertRequest.Filter();
+        filter.setFrom(EnumCryptoCurrency.BTC);
+        filter.setCreatedAtTo(LocalDateTime.of(2025, 10, 1, 12, 0));
+        HistoryQuery query = HistoryQuery.of(filter, PageRequest.of(0, 20));
+
+        // When
+        tier.put(Constants.EXCHANGE_CLOSED, query, "page", Duration.ZERO);
+
+        // Then
+        ArgumentCaptor<MongoSharedHistoryTier.Entry> entry = ArgumentCaptor.forClass(MongoSharedHistoryTier.Entry.class);
+        verify(mongoTemplate).save(entry.capture(), eq("history-cache"));
+        assertThat(entry.getValue().expiresAt()).isBetween(Instant.now().plusSeconds(50), Instant.now().plusSeconds(60));
+        assertThat(entry.getValue().from()).isEqualTo(EnumCryptoCurrency.BTC);
+        assertThat(entry.getValue().to()).isNull();
+        assertThat(entry.getValue().until()).isEqualTo(LocalDateTime.of(2025, 10, 1, 12, 0).toInstant(ZoneOffset.UTC));
+    }
+
+    @Test
+    void evictMatching_onlyLoadsPagesTheConversionsCanMatch_andRemovesMatchingOnes() {
+        // Given
+        ListCryptoConvertRequest.Filter btc = new ListCryptoConvertRequest.Filter();
+        btc.setFrom(EnumCryptoCurrency.BTC);
+        ListCryptoConvertRequest.Filter small = new ListCryptoConvertRequest.Filter();
+        small.setMaxAmount(BigDecimal.ONE);
+        MongoSharedHistoryTier.Entry matching = entry("matching", HistoryQuery.of(btc, PageRequest.of(0, 20)));
+        MongoSharedHistoryTier.Entry other = entry("other", HistoryQuery.of(small, PageRequest.of(0, 20)));
+        when(mongoTemplate.find(any(Query.class), eq(MongoSharedHistoryTier.Entry.class), eq("history-cache")))
+                .thenReturn(List.of(matching, other));
+        CryptoConvertEntity conversion = CryptoConvertEntity.builder()
+                .fromCurrency(EnumCryptoCurrency.BTC)
+                .toCurrency(EnumCryptoCurrency.ETH)
+                .amount(BigDecimal.TEN)
+                .convertedAmount(new BigDecimal("250"))
+                .createdAt(LocalDateTime.now())
+                .build();
+
+        // When
+        int evicted = tier.evictMatching(Constants.EXCHANGE, List.of(conversion));
+
+        // Then
+        assertThat(evicted).isEqualTo(1);
+        ArgumentCaptor<Query> pages = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(pages.capture(), eq(MongoSharedHistoryTier.Entry.class), eq("history-cache"));
+        List<Document> criteria = pages.getValue().getQueryObject().getList("$and", Document.class);
+        assertThat(criteria.get(0)).isEqualTo(new Document("cache", Constants.EXCHANGE));
+        assertThat(in(criteria.get(1), "from")).containsExactlyInAnyOrder(null, "BTC");
+        assertThat(in(criteria.get(2), "to")).containsExactlyInAnyOrder(null, "ETH");
+        assertThat(criteria.get(3).getList("$or", Document.class).get(1).get("until", Document.class).get("$gte"))
+                .isInstanceOf(Date.class);
+
+        ArgumentCaptor<Query> removed = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).remove(removed.capture(), eq("history-cache"));
+        assertThat(in(removed.getValue().getQueryObject(), "_id")).containsExactly("matching");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Collection<Object> in(Document criteria, String field) {
+        return (Collection<Object>) criteria.get(field, Document.class).get("$in");
+    }
+
+    private static MongoSharedHistoryTier.Entry entry(String id, HistoryQuery query) {
+        return new MongoSharedHistoryTier.Entry(id, Constants.EXCHANGE, query, query.from(), query.to(), null, null,
+                Instant.now().plusSeconds(60));
+    }
+
+}
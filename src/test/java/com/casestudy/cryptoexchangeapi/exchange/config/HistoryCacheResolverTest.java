@@ -0,0 +1,150 @@
+package com.casestudy.cryptoexchangeapi.exchange.config;
+
+import com.casestudy.cryptoexchangeapi.common.utils.TimeOrderedIds;
+import com.casestudy.cryptoexchangeapi.exchange.cache.HistoryAccessTracker;
+import com.casestudy.cryptoexchangeapi.exchange.cache.HistoryKeyIndex;
+import com.casestudy.cryptoexchangeapi.exchange.model.HistoryQuery;
+import com.casestudy.cryptoexchangeapi.exchange.model.dto.request.ListCryptoConvertRequest;
+import com.casestudy.cryptoexchangeapi.exchange.model.entity.CryptoConvertEntity;
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCryptoCurrency;
+import com.casestudy.cryptoexchangeapi.exchange.service.HistoryCacheInvalidator;
+import com.casestudy.cryptoexchangeapi.exchange.utils.Constants;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.CacheOperationInvocationContext;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.TimeZone;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class HistoryCacheResolverTest {
+
+    private HistoryCacheProperties properties;
+
+    private CacheManager cacheManager;
+
+    private final HistoryKeyIndex keyIndex = new HistoryKeyIndex();
+
+    private HistoryCacheResolver resolver;
+
+    @BeforeEach
+    void setUp() {
+        properties = new HistoryCacheProperties();
+        cacheManager = new SpringCachingConfig().cacheManager(new SimpleMeterRegistry(), properties, key -> null,
+                Optional.empty(), new HistoryAccessTracker(properties), keyIndex);
+        resolver = new HistoryCacheResolver(cacheManager, properties);
+    }
+
+    @Test
+    void resolveCaches_whenWindowEndsBeforeSafetyLag_usesClosedCache() {
+        // Given
+        ListCryptoConvertRequest request = request(LocalDateTime.now(ZoneOffset.UTC).minusDays(1));
+
+        // When
+        List<String> names = cacheNames(request);
+
+        // Then
+        assertThat(names).containsExactly(Constants.EXCHANGE_CLOSED);
+    }
+
+    @Test
+    void resolveCaches_whenWindowOpenOrWithinSafetyLag_usesWriteInvalidatedCache() {
+        // Given
+        properties.setClosedWindowSafetyLag(60_000);
+
+        // When / Then
+        assertThat(cacheNames(request(null))).containsExactly(Constants.EXCHANGE);
+        assertThat(cacheNames(request(LocalDateTime.now(ZoneOffset.UTC).minusSeconds(10)))).containsExactly(Constants.EXCHANGE);
+        assertThat(cacheNames(new ListCryptoConvertRequest())).containsExactly(Constants.EXCHANGE);
+    }
+
+    @Test
+    void resolveCaches_comparesCreatedAtToWithUtcClock_inNonUtcZone() {
+        // Given: Tokyo is 9 hours ahead of the UTC bounds the repository applies
+        properties.setClosedWindowSafetyLag(60_000);
+        TimeZone zone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Tokyo"));
+        try {
+            // When / Then
+            assertThat(cacheNames(request(LocalDateTime.now(ZoneOffset.UTC).plusHours(1))))
+                    .containsExactly(Constants.EXCHANGE);
+            assertThat(cacheNames(request(LocalDateTime.now(ZoneOffset.UTC).minusSeconds(10))))
+                    .containsExactly(Constants.EXCHANGE);
+            assertThat(cacheNames(request(LocalDateTime.now(ZoneOffset.UTC).minusHours(1))))
+                    .containsExactly(Constants.EXCHANGE_CLOSED);
+        } finally {
+            TimeZone.setDefault(zone);
+        }
+    }
+
+    @Test
+    void resolveCaches_whenTimeOrderedIdBoundIsBeforeSafetyLag_usesClosedCache() {
+        // Given
+        properties.setClosedWindowSafetyLag(60_000);
+        ListCryptoConvertRequest.Filter old = new ListCryptoConvertRequest.Filter();
+        old.setTransactionIdBefore(TimeOrderedIds.lowerBound(Instant.now().minus(Duration.ofHours(1))));
+        ListCryptoConvertRequest.Filter recent = new ListCryptoConvertRequest.Filter();
+        recent.setTransactionIdBefore(TimeOrderedIds.next());
+        ListCryptoConvertRequest.Filter random = new ListCryptoConvertRequest.Filter();
+        random.setTransactionIdBefore(UUID.randomUUID().toString());
+
+        // When / Then
+        assertThat(resolver.isClosed(old)).isTrue();
+        assertThat(resolver.isClosed(recent)).isFalse();
+        assertThat(resolver.isClosed(random)).isFalse();
+    }
+
+    @Test
+    void closedCache_survivesWritesAndScheduledClear() {
+        // Given
+        ListCryptoConvertRequest.Filter filter = new ListCryptoConvertRequest.Filter();
+        filter.setCreatedAtFrom(LocalDateTime.now(ZoneOffset.UTC).minusDays(2));
+        filter.setCreatedAtTo(LocalDateTime.now(ZoneOffset.UTC).minusDays(1));
+        HistoryQuery key = HistoryQuery.of(filter, PageRequest.of(0, 20));
+        Cache closed = cacheManager.getCache(Constants.EXCHANGE_CLOSED);
+        closed.put(key, "page");
+
+        // When
+        new HistoryCacheInvalidator(cacheManager, new SimpleMeterRegistry(), Optional.empty(), keyIndex, event -> { })
+                .evict(List.of(CryptoConvertEntity.builder()
+                        .fromCurrency(EnumCryptoCurrency.BTC)
+                        .toCurrency(EnumCryptoCurrency.ETH)
+                        .amount(BigDecimal.ONE)
+                        .convertedAmount(BigDecimal.TEN)
+                        .createdAt(LocalDateTime.now(ZoneOffset.UTC).minusDays(1).minusHours(1))
+                        .build()));
+        cacheManager.getCache(Constants.EXCHANGE).clear();
+
+        // Then
+        assertThat(closed.get(key)).isNotNull();
+    }
+
+    private List<String> cacheNames(ListCryptoConvertRequest request) {
+        CacheOperationInvocationContext<?> context = mock(CacheOperationInvocationContext.class);
+        when(context.getArgs()).thenReturn(new Object[]{request, null});
+        return resolver.resolveCaches(context).stream().map(Cache::getName).toList();
+    }
+
+    private static ListCryptoConvertRequest request(LocalDateTime createdAtTo) {
+        ListCryptoConvertRequest.Filter filter = new ListCryptoConvertRequest.Filter();
+        filter.setCreatedAtTo(createdAtTo);
+        ListCryptoConvertRequest request = new ListCryptoConvertRequest();
+        request.setFilter(filter);
+        return request;
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.casestudy.cryptoexchangeapi.exchange.config;
+
+import com.casestudy.cryptoexchangeapi.exchange.provider.HedgingQuoteProvider;
+import com.casestudy.cryptoexchangeapi.exchange.provider.QuoteProvider;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class PriceLookupConfigTest {
+
+    private final QuoteProvider cmc = mock(QuoteProvider.class);
+    private final QuoteProvider replay = mock(QuoteProvider.class);
+    private final QuoteProvider synthetic = mock(QuoteProvider.class);
+
+    private QuoteProviderProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new QuoteProviderProperties();
+    }
+
+    @Test
+    void quoteProvider_withHedgingOff_isThePrimary() {
+        // When
+        QuoteProvider provider = quoteProvider();
+
+        // Then
+        assertThat(provider).isSameAs(cmc);
+    }
+
+    @Test
+    void quoteProvider_withHedgingOn_andDefaults_hedgesCmcAgainstItself() {
+        // Given
+        properties.getHedge().setEnabled(true);
+
+        // When
+        QuoteProvider provider = quoteProvider();
+
+        // Then
+        assertThat(provider).isInstanceOf(HedgingQuoteProvider.class);
+        ((HedgingQuoteProvider) provider).shutdown();
+    }
+
+    @Test
+    void quoteProvider_rejectsHedgingCmcAgainstRecordedOrRandomPrices() {
+        // Given
+        properties.getHedge().setEnabled(true);
+        properties.getHedge().setBackup("synthetic");
+
+        // When / Then
+        assertThatThrownBy(this::quoteProvider)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("must be cmc");
+    }
+
+    @Test
+    void quoteProvider_rejectsOtherProvidersHedgedAgainstThemselves() {
+        // Given
+        properties.setType("replay");
+        properties.getHedge().setEnabled(true);
+        properties.getHedge().setBackup("replay");
+
+        // When / Then
+        assertThatThrownBy(this::quoteProvider)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("must differ");
+    }
+
+    private QuoteProvider quoteProvider() {
+        return new PriceLookupConfig().quoteProvider(
+                Map.of("cmcQuoteProvider", cmc, "replayQuoteProvider", replay, "syntheticQuoteProvider", synthetic),
+                properties, new SimpleMeterRegistry(), CircuitBreakerRegistry.ofDefaults());
+    }
+
+}
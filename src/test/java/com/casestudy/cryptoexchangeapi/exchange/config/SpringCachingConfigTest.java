@@ -0,0 +1,131 @@
+package com.casestudy.cryptoexchangeapi.exchange.config;
+
+import com.casestudy.cryptoexchangeapi.common.model.CustomPage;
+import com.casestudy.cryptoexchangeapi.exchange.cache.HistoryAccessTracker;
+import com.casestudy.cryptoexchangeapi.exchange.cache.HistoryKeyIndex;
+import com.casestudy.cryptoexchangeapi.exchange.utils.Constants;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpringCachingConfigTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private HistoryCacheProperties properties;
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new HistoryCacheProperties();
+    }
+
+    @Test
+    void cacheManager_boundsEachCacheByCachedRows() {
+        // Given
+        spec(Constants.EXCHANGE).setMaxWeight(10);
+        Cache cache = newCacheManager().getCache(Constants.EXCHANGE);
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            cache.put("page-" + i, page(4));
+        }
+        nativeCache(cache).cleanUp();
+
+        // Then
+        assertThat(nativeCache(cache).policy().eviction().orElseThrow().weightedSize().orElseThrow())
+                .isLessThanOrEqualTo(10);
+        assertThat(nativeCache(cache).estimatedSize()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void cacheManager_expiresPagesAfterConfiguredTtl() throws Exception {
+        // Given
+        spec(Constants.EXCHANGE).setTtl(20);
+        CacheManager cacheManager = newCacheManager();
+        Cache open = cacheManager.getCache(Constants.EXCHANGE);
+        Cache closed = cacheManager.getCache(Constants.EXCHANGE_CLOSED);
+        open.put("page", page(1));
+        closed.put("page", page(1));
+
+        // When
+        TimeUnit.MILLISECONDS.sleep(50);
+
+        // Then
+        assertThat(open.get("page")).isNull();
+        assertThat(closed.get("page")).isNotNull();
+    }
+
+    @Test
+    void cacheManager_refreshesStalePagesInBackground_butNeverLoadsMisses() throws Exception {
+        // Given
+        spec(Constants.EXCHANGE).setRefreshAfterWrite(10);
+        Cache cache = newCacheManager().getCache(Constants.EXCHANGE);
+        CustomPage<String> original = page(1);
+        cache.put("page", original);
+
+        // When
+        assertThat(cache.get("missing")).isNull();
+        TimeUnit.MILLISECONDS.sleep(30);
+        cache.get("page");
+
+        // Then
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (cache.get("page").get() == original && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertThat(cache.get("page").get()).isNotSameAs(original);
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void cacheManager_exportsCacheStatistics() {
+        // Given
+        Cache cache = newCacheManager().getCache(Constants.EXCHANGE);
+        cache.put("page", page(1));
+
+        // When
+        cache.get("page");
+        cache.get("other");
+
+        // Then
+        assertThat(meterRegistry.get("cache.gets").tag("cache", Constants.EXCHANGE).tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", Constants.EXCHANGE).tag("result", "miss")
+                .functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.find("cache.evictions").tag("cache", Constants.EXCHANGE).functionCounter()).isNotNull();
+    }
+
+    private CacheManager newCacheManager() {
+        return new SpringCachingConfig().cacheManager(meterRegistry, properties, key -> {
+            loads.incrementAndGet();
+            return page(1);
+        }, Optional.empty(), new HistoryAccessTracker(properties), new HistoryKeyIndex());
+    }
+
+    private HistoryCacheProperties.Spec spec(String name) {
+        return properties.getCaches().computeIfAbsent(name, ignored -> new HistoryCacheProperties.Spec());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache(Cache cache) {
+        return (com.github.benmanes.caffeine.cache.Cache<Object, Object>) cache.getNativeCache();
+    }
+
+    private static CustomPage<String> page(int rows) {
+        return CustomPage.<String>builder().content(List.copyOf(Collections.nCopies(rows, "row"))).build();
+    }
+
+}
@@ -0,0 +1,112 @@
+package com.casestudy.cryptoexchangeapi.exchange.config;
+
+import com.casestudy.cryptoexchangeapi.exchange.cache.HistoryAccessTracker;
+import com.casestudy.cryptoexchangeapi.exchange.cache.HistoryKeyIndex;
+import com.casestudy.cryptoexchangeapi.exchange.cache.InMemorySharedHistoryTier;
+import com.casestudy.cryptoexchangeapi.exchange.utils.Constants;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TwoTierHistoryCacheTest {
+
+    private InMemorySharedHistoryTier shared;
+
+    private HistoryCacheProperties properties;
+
+    private SimpleMeterRegistry firstRegistry;
+
+    private SimpleMeterRegistry secondRegistry;
+
+    @BeforeEach
+    void setUp() {
+        properties = new HistoryCacheProperties();
+        shared = new InMemorySharedHistoryTier(properties);
+        firstRegistry = new SimpleMeterRegistry();
+        secondRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void get_afterPutOnAnotherInstance_hitsSharedTierThenNearCache() {
+        // Given
+        Cache first = cacheManager(firstRegistry).getCache(Constants.EXCHANGE);
+        Cache second = cacheManager(secondRegistry).getCache(Constants.EXCHANGE);
+        first.put("page", "rows");
+
+        // When
+        Object fromShared = second.get("page").get();
+        Object fromNear = second.get("page").get();
+
+        // Then
+        assertThat(fromShared).isEqualTo("rows");
+        assertThat(fromNear).isEqualTo("rows");
+        assertThat(requests(secondRegistry, "near", "miss")).isEqualTo(1);
+        assertThat(requests(secondRegistry, "shared", "hit")).isEqualTo(1);
+        assertThat(requests(secondRegistry, "near", "hit")).isEqualTo(1);
+        assertThat(hitRatio(secondRegistry, "near")).isEqualTo(0.5);
+        assertThat(hitRatio(secondRegistry, "shared")).isEqualTo(1.0);
+    }
+
+    @Test
+    void get_whenNearTtlElapsed_rereadsSharedTier() throws Exception {
+        // Given
+        properties.getShared().setNearTtl(200);
+        Cache first = cacheManager(firstRegistry).getCache(Constants.EXCHANGE);
+        Cache second = cacheManager(secondRegistry).getCache(Constants.EXCHANGE);
+        first.put("page", "old");
+        second.get("page");
+
+        // When
+        shared.put(Constants.EXCHANGE, "page", "new", Duration.ZERO);
+        Object beforeTtl = second.get("page").get();
+        TimeUnit.MILLISECONDS.sleep(300);
+        Object afterTtl = second.get("page").get();
+
+        // Then
+        assertThat(beforeTtl).isEqualTo("old");
+        assertThat(afterTtl).isEqualTo("new");
+    }
+
+    @Test
+    void evictAndClear_reachTheSharedTier() {
+        // Given
+        Cache first = cacheManager(firstRegistry).getCache(Constants.EXCHANGE);
+        Cache second = cacheManager(secondRegistry).getCache(Constants.EXCHANGE);
+        first.put("a", "rows");
+        first.put("b", "rows");
+
+        // When
+        first.evict("a");
+        Cache.ValueWrapper evicted = second.get("a");
+        first.clear();
+
+        // Then
+        assertThat(evicted).isNull();
+        assertThat(second.get("b")).isNull();
+        assertThat(shared.get(Constants.EXCHANGE, "b")).isNull();
+    }
+
+    private CacheManager cacheManager(SimpleMeterRegistry meterRegistry) {
+        return new SpringCachingConfig().cacheManager(meterRegistry, properties, key -> null, Optional.of(shared),
+                new HistoryAccessTracker(properties), new HistoryKeyIndex());
+    }
+
+    private static double requests(SimpleMeterRegistry meterRegistry, String tier, String result) {
+        return meterRegistry.get("history.cache.tier.requests").tag("cache", Constants.EXCHANGE)
+                .tag("tier", tier).tag("result", result).counter().count();
+    }
+
+    private static double hitRatio(SimpleMeterRegistry meterRegistry, String tier) {
+        return meterRegistry.get("history.cache.tier.hit.ratio").tag("cache", Constants.EXCHANGE)
+                .tag("tier", tier).gauge().value();
+    }
+
+}
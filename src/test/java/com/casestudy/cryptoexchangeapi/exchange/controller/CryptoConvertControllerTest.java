@@ -28,6 +28,8 @@ import java.util.List;
 
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -70,7 +72,7 @@ class CryptoConvertControllerTest extends AbstractRestControllerTest {
         CryptoConvertResponse expectedResponse = DOMAIN_TO_RESPONSE.map(domain);
 
         // When
-        when(service.convertAndPersist(any())).thenReturn(domain);
+        when(service.convertAndPersist(any(), isNull())).thenReturn(domain);
 
         // Then
         mockMvc.perform(post(BASE_URL)
@@ -86,7 +88,34 @@ class CryptoConvertControllerTest extends AbstractRestControllerTest {
                 .andExpect(jsonPath("$.response.amount").value(expectedResponse.getAmount().intValue()))
                 .andExpect(jsonPath("$.response.convertedAmount").value(expectedResponse.getConvertedAmount().doubleValue()));
 
-        verify(service).convertAndPersist(any());
+        verify(service).convertAndPersist(any(), isNull());
+        verifyNoMoreInteractions(service);
+    }
+
+    @Test
+    @DisplayName("POST /api/convert with Idempotency-Key -> 201 Created; passes the key to the service")
+    void create_WithIdempotencyKey_PassesKeyToService() throws Exception {
+        // Given
+        ConvertRequest request = ConvertRequest.builder()
+                .from(EnumCryptoCurrency.BTC)
+                .to(EnumCryptoCurrency.ARB)
+                .amount(new BigDecimal("100"))
+                .build();
+
+        CryptoConvert domain = sampleDomain();
+
+        // When
+        when(service.convertAndPersist(any(), eq("order-42"))).thenReturn(domain);
+
+        // Then
+        mockMvc.perform(post(BASE_URL)
+                        .header("Idempotency-Key", "order-42")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.response.transactionId").value(domain.getTransactionId()));
+
+        verify(service).convertAndPersist(any(), eq("order-42"));
         verifyNoMoreInteractions(service);
     }
 
@@ -406,6 +435,67 @@ class CryptoConvertControllerTest extends AbstractRestControllerTest {
 
     }
 
+    @Test
+    @DisplayName("GET /api/convert/stream -> 400 when a pair is not FROM-TO of supported symbols")
+    void streamRates_InvalidPair_Returns400() throws Exception {
+
+        mockMvc.perform(get(BASE_URL + "/stream")
+                        .param("pairs", "BTC-ETH,BTC-NOPE"))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.httpStatus").value("BAD_REQUEST"))
+                .andExpect(jsonPath("$.isSuccess").value(false));
+
+        verifyNoInteractions(service);
+
+    }
+
+    @Test
+    @DisplayName("GET /api/convert/search -> 200 OK; returns matching (name,symbol) from the in-memory index")
+    void searchCryptos_HappyPath_Returns200() throws Exception {
+
+        mockMvc.perform(get(BASE_URL + "/search")
+                        .param("q", "bitc")
+                        .param("limit", "5"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.isSuccess").value(true))
+                .andExpect(jsonPath("$.response[0].symbol").value("BTC"))
+                .andExpect(jsonPath("$.response", hasSize(lessThanOrEqualTo(5))));
+
+        verifyNoInteractions(service);
+
+    }
+
+    @Test
+    @DisplayName("GET /api/convert/search -> 400 when q is blank")
+    void searchCryptos_ValidationFailure_BlankQuery_Returns400() throws Exception {
+
+        mockMvc.perform(get(BASE_URL + "/search")
+                        .param("q", " "))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.httpStatus").value("BAD_REQUEST"))
+                .andExpect(jsonPath("$.isSuccess").value(false));
+
+    }
+
+    @Test
+    @DisplayName("POST /api/convert/batch -> 400 when the batch is empty; nothing is converted")
+    void convertBatch_EmptyBatch_Returns400() throws Exception {
+
+        mockMvc.perform(post(BASE_URL + "/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.httpStatus").value("BAD_REQUEST"))
+                .andExpect(jsonPath("$.isSuccess").value(false));
+
+        verifyNoInteractions(service);
+
+    }
+
     // ------------------------------------------------------------
     // Helpers
     // ------------------------------------------------------------
@@ -0,0 +1,65 @@
+package com.casestudy.cryptoexchangeapi.exchange.model;
+
+import com.casestudy.cryptoexchangeapi.exchange.exception.InvalidHistoryCursorException;
+import com.casestudy.cryptoexchangeapi.exchange.model.entity.CryptoConvertEntity;
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCryptoCurrency;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HistoryCursorTest {
+
+    private static final CryptoConvertEntity LAST = CryptoConvertEntity.builder()
+            .id("0199a000-0000-7000-8000-000000000001")
+            .transactionId("0199a000-0000-7000-8000-000000000001")
+            .amount(new BigDecimal("12.50"))
+            .fromCurrency(EnumCryptoCurrency.BTC)
+            .toCurrency(EnumCryptoCurrency.ETH)
+            .convertedAmount(new BigDecimal("300"))
+            .createdAt(LocalDateTime.of(2025, 10, 1, 12, 0, 0, 123_000_000))
+            .build();
+
+    @Test
+    void encodeAndDecode_roundTripTheLastRow() {
+
+        // When
+        HistoryCursor byCreatedAt = HistoryCursor.decode(HistoryCursor.after("createdAt:DESC,", LAST).encode());
+        HistoryCursor byAmount = HistoryCursor.decode(HistoryCursor.after("amount:ASC,", LAST).encode());
+        HistoryCursor byId = HistoryCursor.decode(HistoryCursor.after("id:ASC,", LAST).encode());
+
+        // Then
+        assertThat(byCreatedAt).isEqualTo(new HistoryCursor("createdAt", Sort.Direction.DESC,
+                HistoryQuery.toUtc(LAST.getCreatedAt()), LAST.getId()));
+        assertThat(byCreatedAt.sort()).isEqualTo("createdAt:DESC,");
+        assertThat(byAmount.value()).isEqualTo(new BigDecimal("12.50"));
+        assertThat(byId.value()).isNull();
+        assertThat(byId.id()).isEqualTo(LAST.getId());
+
+    }
+
+    @Test
+    void after_onlyContinuesSortsOnOneProperty() {
+
+        // When / Then
+        assertThat(HistoryCursor.after("createdAt:DESC,amount:ASC,", LAST)).isNull();
+        assertThat(HistoryCursor.after("", LAST)).isNull();
+
+    }
+
+    @Test
+    void decode_rejectsTokensItDidNotEncode() {
+
+        // When / Then
+        assertThatThrownBy(() -> HistoryCursor.decode("not a token"))
+                .isInstanceOf(InvalidHistoryCursorException.class);
+        assertThatThrownBy(() -> HistoryCursor.decode("Y3JlYXRlZEF0"))
+                .isInstanceOf(InvalidHistoryCursorException.class);
+
+    }
+
+}
@@ -0,0 +1,274 @@
+package com.casestudy.cryptoexchangeapi.exchange.model;
+
+import com.casestudy.cryptoexchangeapi.exchange.exception.InvalidHistoryCursorException;
+import com.casestudy.cryptoexchangeapi.exchange.exception.InvalidHistorySortException;
+import com.casestudy.cryptoexchangeapi.exchange.model.dto.request.ListCryptoConvertRequest;
+import com.casestudy.cryptoexchangeapi.exchange.model.entity.CryptoConvertEntity;
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCryptoCurrency;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HistoryQueryTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 10, 1, 12, 0);
+
+    @Test
+    void matches_withoutFilter_matchesEveryConversion() {
+
+        // Given
+        HistoryQuery query = HistoryQuery.of(null, PageRequest.of(0, 20));
+
+        // When / Then
+        assertThat(query.matches(conversion(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH, "1", "25"))).isTrue();
+        assertThat(query.shape()).isEqualTo("none");
+
+    }
+
+    @Test
+    void matches_checksCurrenciesAndRanges() {
+
+        // Given
+        ListCryptoConvertRequest.Filter filter = new ListCryptoConvertRequest.Filter();
+        filter.setFrom(EnumCryptoCurrency.BTC);
+        filter.setMinAmount(new BigDecimal("1"));
+        filter.setMaxAmount(new BigDecimal("10"));
+        filter.setMaxConvertedAmount(new BigDecimal("100"));
+        HistoryQuery query = HistoryQuery.of(filter, PageRequest.of(0, 20));
+
+        // When / Then
+        assertThat(query.matches(conversion(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH, "1.00", "25"))).isTrue();
+        assertThat(query.matches(conversion(EnumCryptoCurrency.ETH, EnumCryptoCurrency.BTC, "2", "0.1"))).isFalse();
+        assertThat(query.matches(conversion(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH, "11", "25"))).isFalse();
+        assertThat(query.matches(conversion(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH, "5", "125"))).isFalse();
+        assertThat(query.shape()).isEqualTo("from+amount+convertedAmount");
+
+    }
+
+    @Test
+    void matches_onlyWhenCreatedAtWindowContainsTheConversion() {
+
+        // Given
+        ListCryptoConvertRequest.Filter closed = new ListCryptoConvertRequest.Filter();
+        closed.setCreatedAtFrom(NOW.minusDays(2));
+        closed.setCreatedAtTo(NOW.minusDays(1));
+        ListCryptoConvertRequest.Filter open = new ListCryptoConvertRequest.Filter();
+        open.setCreatedAtFrom(NOW.minusDays(2));
+        CryptoConvertEntity conversion = conversion(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH, "1", "25");
+
+        // When / Then
+        assertThat(HistoryQuery.of(closed, PageRequest.of(0, 20)).matches(conversion)).isFalse();
+        assertThat(HistoryQuery.of(open, PageRequest.of(0, 20)).matches(conversion)).isTrue();
+
+    }
+
+    @Test
+    void matches_comparesCreatedAtWithUtcBounds_inNonUtcZone() {
+
+        // Given: conversions are stamped in the JVM zone, 12:00 in Tokyo being 03:00 UTC
+        TimeZone zone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Tokyo"));
+        try {
+            ListCryptoConvertRequest.Filter aroundUtc = new ListCryptoConvertRequest.Filter();
+            aroundUtc.setCreatedAtFrom(NOW.minusHours(10));
+            aroundUtc.setCreatedAtTo(NOW.minusHours(8));
+            ListCryptoConvertRequest.Filter aroundLocal = new ListCryptoConvertRequest.Filter();
+            aroundLocal.setCreatedAtFrom(NOW.minusHours(1));
+            aroundLocal.setCreatedAtTo(NOW.plusHours(1));
+            CryptoConvertEntity conversion = conversion(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH, "1", "25");
+
+            // When / Then
+            assertThat(HistoryQuery.of(aroundUtc, PageRequest.of(0, 20)).matches(conversion)).isTrue();
+            assertThat(HistoryQuery.of(aroundLocal, PageRequest.of(0, 20)).matches(conversion)).isFalse();
+        } finally {
+            TimeZone.setDefault(zone);
+        }
+
+    }
+
+    @Test
+    void matches_transactionIdContains_ignoringCase() {
+
+        // Given
+        ListCryptoConvertRequest.Filter filter = new ListCryptoConvertRequest.Filter();
+        filter.setTransactionIdContains(" ABC ");
+        HistoryQuery query = HistoryQuery.of(filter, PageRequest.of(0, 20));
+        CryptoConvertEntity conversion = conversion(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH, "1", "25");
+
+        // When / Then
+        conversion.setTransactionId("x-abc-1");
+        assertThat(query.matches(conversion)).isTrue();
+        conversion.setTransactionId("x-abd-1");
+        assertThat(query.matches(conversion)).isFalse();
+
+    }
+
+    @Test
+    void matches_transactionIdRange_byTimeOrderedId() {
+
+        // Given
+        ListCryptoConvertRequest.Filter filter = new ListCryptoConvertRequest.Filter();
+        filter.setTransactionIdAfter("0199a000-0000-7000-8000-000000000000");
+        HistoryQuery after = HistoryQuery.of(filter, PageRequest.of(0, 20));
+        ListCryptoConvertRequest.Filter upTo = new ListCryptoConvertRequest.Filter();
+        upTo.setTransactionIdBefore(" 0199A000-0000-7000-8000-000000000000 ");
+        HistoryQuery before = HistoryQuery.of(upTo, PageRequest.of(0, 20));
+        CryptoConvertEntity conversion = conversion(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH, "1", "25");
+
+        // When / Then
+        conversion.setId("0199b000-0000-7000-8000-000000000000");
+        assertThat(after.matches(conversion)).isTrue();
+        assertThat(before.matches(conversion)).isFalse();
+        conversion.setId("01999000-0000-7000-8000-000000000000");
+        assertThat(after.matches(conversion)).isFalse();
+        assertThat(before.matches(conversion)).isTrue();
+        conversion.setId(null);
+        assertThat(after.matches(conversion)).isTrue();
+        assertThat(before.matches(conversion)).isFalse();
+        assertThat(before.transactionIdBefore()).isEqualTo("0199a000-0000-7000-8000-000000000000");
+        assertThat(before.shape()).isEqualTo("idRange");
+
+    }
+
+    @Test
+    void equalQueries_areEqualKeys() {
+
+        // Given
+        ListCryptoConvertRequest.Filter filter = new ListCryptoConvertRequest.Filter();
+        filter.setFrom(EnumCryptoCurrency.BTC);
+
+        // When
+        HistoryQuery first = HistoryQuery.of(filter, PageRequest.of(1, 20, Sort.by(Sort.Direction.DESC, "createdAt")));
+        HistoryQuery second = HistoryQuery.of(filter, PageRequest.of(1, 20, Sort.by(Sort.Direction.DESC, "createdAt")));
+
+        // Then
+        assertThat(first).isEqualTo(second).hasSameHashCodeAs(second);
+        assertThat(first).isNotEqualTo(HistoryQuery.of(filter, PageRequest.of(2, 20, Sort.by(Sort.Direction.DESC, "createdAt"))));
+
+    }
+
+    @Test
+    void toFilterAndToPageable_rebuildTheOriginalQuery() {
+
+        // Given
+        ListCryptoConvertRequest.Filter filter = new ListCryptoConvertRequest.Filter();
+        filter.setFrom(EnumCryptoCurrency.BTC);
+        filter.setMinAmount(new BigDecimal("5"));
+        filter.setCreatedAtTo(NOW);
+        HistoryQuery query = HistoryQuery.of(filter, PageRequest.of(2, 25,
+                Sort.by(Sort.Order.desc("createdAt"), Sort.Order.asc("AMOUNT"))));
+
+        // When
+        HistoryQuery rebuilt = HistoryQuery.of(query.toFilter(), query.toPageable());
+
+        // Then
+        assertThat(rebuilt).isEqualTo(query);
+        assertThat(query.toPageable().getSort()).containsExactly(Sort.Order.desc("createdAt"), Sort.Order.asc("amount"));
+        assertThat(HistoryQuery.of(null, PageRequest.of(0, 20)).toFilter()).isNull();
+
+    }
+
+    @Test
+    void of_normalizesEquivalentRequestsToTheSameKey() {
+
+        // Given
+        ListCryptoConvertRequest.Filter plain = new ListCryptoConvertRequest.Filter();
+        plain.setMinAmount(new BigDecimal("100"));
+        plain.setTransactionIdContains("abc");
+        ListCryptoConvertRequest.Filter padded = new ListCryptoConvertRequest.Filter();
+        padded.setMinAmount(new BigDecimal("100.00"));
+        padded.setMaxConvertedAmount(null);
+        padded.setTransactionIdContains("  ABC ");
+
+        // When
+        HistoryQuery first = HistoryQuery.of(plain, PageRequest.of(0, 20, Sort.by(Sort.Order.desc("createdAt"))));
+        HistoryQuery second = HistoryQuery.of(padded, PageRequest.of(0, 20,
+                Sort.by(Sort.Order.desc("CREATEDAT"), Sort.Order.asc("createdAt"))));
+
+        // Then
+        assertThat(first).isEqualTo(second).hasSameHashCodeAs(second);
+        assertThat(first.fingerprint()).isEqualTo(second.fingerprint());
+        assertThat(second.minAmount()).hasToString("100");
+        assertThat(second.transactionIdContains()).isEqualTo("abc");
+        assertThat(second.sort()).isEqualTo("createdAt:DESC,");
+
+    }
+
+    @Test
+    void of_collapsesAFilterWithoutCriteriaToNoFilter() {
+
+        // Given
+        ListCryptoConvertRequest.Filter blank = new ListCryptoConvertRequest.Filter();
+        blank.setTransactionIdContains("   ");
+
+        // When
+        HistoryQuery query = HistoryQuery.of(blank, PageRequest.of(0, 20));
+
+        // Then
+        assertThat(query.filtered()).isFalse();
+        assertThat(query).isEqualTo(HistoryQuery.of(null, PageRequest.of(0, 20)));
+        assertThat(query.toFilter()).isNull();
+
+    }
+
+    @Test
+    void of_mapsSortAliasesAndRejectsUnknownProperties() {
+
+        // When
+        HistoryQuery query = HistoryQuery.of(null, PageRequest.of(0, 20,
+                Sort.by(Sort.Order.asc("CONVERTED_AMOUNT"), Sort.Order.desc("from"))));
+
+        // Then
+        assertThat(query.sort()).isEqualTo("convertedAmount:ASC,fromCurrency:DESC,");
+        assertThatThrownBy(() -> HistoryQuery.of(null, PageRequest.of(0, 20, Sort.by("password"))))
+                .isInstanceOf(InvalidHistorySortException.class)
+                .hasMessageContaining("password");
+
+    }
+
+    @Test
+    void of_withCursor_seeksFromPageZeroAndIssuesTheNextCursor() {
+
+        // Given
+        CryptoConvertEntity last = conversion(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH, "1", "25");
+        last.setId("0199a000-0000-7000-8000-000000000001");
+        String cursor = HistoryCursor.after("createdAt:DESC,", last).encode();
+
+        // When
+        HistoryQuery query = HistoryQuery.of(null, PageRequest.of(3, 20, Sort.unsorted()), cursor);
+        String next = query.nextCursor(new SliceImpl<>(List.of(last), query.toPageable(), true));
+
+        // Then
+        assertThat(query.page()).isZero();
+        assertThat(query.sort()).isEqualTo("createdAt:DESC,");
+        assertThat(query.seekAfter().id()).isEqualTo(last.getId());
+        assertThat(next).isEqualTo(cursor);
+        assertThat(query.nextCursor(new SliceImpl<>(List.of(last), query.toPageable(), false))).isNull();
+        assertThat(query).isNotEqualTo(HistoryQuery.of(null, PageRequest.of(0, 20, Sort.by(Sort.Order.desc("createdAt")))));
+        assertThatThrownBy(() -> HistoryQuery.of(null, PageRequest.of(0, 20, Sort.by("amount")), cursor))
+                .isInstanceOf(InvalidHistoryCursorException.class);
+
+    }
+
+    private static CryptoConvertEntity conversion(EnumCryptoCurrency from, EnumCryptoCurrency to,
+                                                  String amount, String convertedAmount) {
+        return CryptoConvertEntity.builder()
+                .transactionId("tx-1")
+                .fromCurrency(from)
+                .toCurrency(to)
+                .amount(new BigDecimal(amount))
+                .convertedAmount(new BigDecimal(convertedAmount))
+                .createdAt(NOW)
+                .build();
+    }
+
+}
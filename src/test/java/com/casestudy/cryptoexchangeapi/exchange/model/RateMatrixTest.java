@@ -0,0 +1,121 @@
+package com.casestudy.cryptoexchangeapi.exchange.model;
+
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCryptoCurrency;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class RateMatrixTest {
+
+    private static final int BTC = EnumCryptoCurrency.BTC.ordinal();
+    private static final int ETH = EnumCryptoCurrency.ETH.ordinal();
+    private static final int SOL = EnumCryptoCurrency.SOL.ordinal();
+
+    @Test
+    void empty_hasNoRates() {
+        RateMatrix matrix = RateMatrix.empty();
+
+        assertThat(matrix.rate(BTC, ETH)).isNull();
+        assertThat(matrix.quotedAt(BTC, ETH)).isZero();
+        assertThat(matrix.usdPrice(EnumCryptoCurrency.BTC)).isNull();
+    }
+
+    @Test
+    void withUsdPrices_buildsCrossRates_andDiagonal() {
+
+        // When
+        RateMatrix matrix = RateMatrix.empty().withUsdPrices(Map.of(
+                EnumCryptoCurrency.BTC, new BigDecimal("100000"),
+                EnumCryptoCurrency.ETH, new BigDecimal("4000")), 1_000L);
+
+        // Then
+        assertThat(matrix.rate(BTC, ETH)).isEqualByComparingTo("25");
+        assertThat(matrix.rate(ETH, BTC)).isEqualByComparingTo("0.04");
+        assertThat(matrix.rate(BTC, BTC)).isEqualByComparingTo("1");
+        assertThat(matrix.rate(BTC, SOL)).isNull();
+        assertThat(matrix.quotedAt(BTC, ETH)).isEqualTo(1_000L);
+        assertThat(matrix.usdQuotedAt(EnumCryptoCurrency.ETH)).isEqualTo(1_000L);
+
+    }
+
+    @Test
+    void withUsdPrices_keepsPreviousSnapshotUntouched_andCarriesOlderTimestamps() {
+
+        // Given
+        RateMatrix first = RateMatrix.empty().withUsdPrices(Map.of(
+                EnumCryptoCurrency.BTC, new BigDecimal("100000"),
+                EnumCryptoCurrency.ETH, new BigDecimal("4000")), 1_000L);
+
+        // When: only ETH is re-quoted
+        RateMatrix second = first.withUsdPrices(Map.of(EnumCryptoCurrency.ETH, new BigDecimal("5000")), 2_000L);
+
+        // Then
+        assertThat(first.rate(BTC, ETH)).isEqualByComparingTo("25");
+        assertThat(second.rate(BTC, ETH)).isEqualByComparingTo("20");
+        // the pair is only as fresh as its older side
+        assertThat(second.quotedAt(BTC, ETH)).isEqualTo(1_000L);
+        assertThat(second.usdQuotedAt(EnumCryptoCurrency.ETH)).isEqualTo(2_000L);
+
+    }
+
+    @Test
+    void withUsdPrices_holdsRatesAcrossWideMagnitudes() {
+
+        // When
+        RateMatrix matrix = RateMatrix.empty().withUsdPrices(Map.of(
+                EnumCryptoCurrency.BTC, new BigDecimal("100000"),
+                EnumCryptoCurrency.ETH, new BigDecimal("0.00000001")), 1_000L);
+
+        // Then
+        assertThat(matrix.rate(BTC, ETH)).isEqualByComparingTo("10000000000000");
+        assertThat(matrix.rate(ETH, BTC)).isEqualByComparingTo("0.0000000000001");
+        assertThat(matrix.unscaledRate(ETH, BTC)).isEqualTo(1L);
+        assertThat(matrix.rateScale(ETH, BTC)).isEqualTo(13);
+
+    }
+
+    @Test
+    void withUsdPrices_ignoresNonPositivePrices() {
+
+        // When
+        RateMatrix matrix = RateMatrix.empty().withUsdPrices(Map.of(
+                EnumCryptoCurrency.BTC, new BigDecimal("100000"),
+                EnumCryptoCurrency.ETH, BigDecimal.ZERO), 1_000L);
+
+        // Then
+        assertThat(matrix.rate(BTC, ETH)).isNull();
+        assertThat(matrix.usdPrice(EnumCryptoCurrency.ETH)).isNull();
+
+    }
+
+    @Test
+    void withQuotes_keepsEachTimestamp_andOnlyAppliesNewerQuotes() {
+
+        // Given
+        RateMatrix current = RateMatrix.empty().withUsdPrices(Map.of(EnumCryptoCurrency.BTC, new BigDecimal("100000")), 5_000L);
+
+        // When
+        RateMatrix matrix = current.withQuotes(List.of(
+                new CryptoQuote(EnumCryptoCurrency.BTC, new BigDecimal("90000"), Instant.ofEpochMilli(4_000L)),
+                new CryptoQuote(EnumCryptoCurrency.ETH, new BigDecimal("4000"), Instant.ofEpochMilli(3_000L))));
+
+        // Then
+        assertThat(matrix.usdPrice(EnumCryptoCurrency.BTC)).isEqualByComparingTo("100000");
+        assertThat(matrix.usdQuotedAt(EnumCryptoCurrency.ETH)).isEqualTo(3_000L);
+        assertThat(matrix.rate(BTC, ETH)).isEqualByComparingTo("25");
+        assertThat(matrix.quotedAt(BTC, ETH)).isEqualTo(3_000L);
+        assertThat(matrix.quotes())
+                .extracting(CryptoQuote::getSymbol, q -> q.getQuotedAt().toEpochMilli())
+                .containsExactlyInAnyOrder(
+                        tuple(EnumCryptoCurrency.BTC, 5_000L),
+                        tuple(EnumCryptoCurrency.ETH, 3_000L));
+
+    }
+
+}
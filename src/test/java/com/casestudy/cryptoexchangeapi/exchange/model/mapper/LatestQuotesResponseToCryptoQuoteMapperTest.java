@@ -0,0 +1,55 @@
+package com.casestudy.cryptoexchangeapi.exchange.model.mapper;
+
+import com.casestudy.cryptoexchangeapi.exchange.model.CryptoQuote;
+import com.casestudy.cryptoexchangeapi.exchange.model.dto.response.LatestQuotesResponse;
+import com.casestudy.cryptoexchangeapi.exchange.model.dto.response.PriceConversionResponse;
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCryptoCurrency;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatestQuotesResponseToCryptoQuoteMapperTest {
+
+    private final LatestQuotesResponseToCryptoQuoteMapper mapper = LatestQuotesResponseToCryptoQuoteMapper.initialize();
+
+    @Test
+    void testMapNull() {
+        assertNull(mapper.map(null));
+    }
+
+    @Test
+    void testMapItemWithUsdQuote() {
+        PriceConversionResponse.Quote usd = new PriceConversionResponse.Quote();
+        usd.setPrice(new BigDecimal("101234.56"));
+        usd.setLast_updated("2025-01-01T12:00:00.000Z");
+
+        LatestQuotesResponse.Item item = new LatestQuotesResponse.Item();
+        item.setSymbol("BTC");
+        item.setQuote(Map.of("USD", usd));
+
+        CryptoQuote quote = mapper.map(item);
+
+        assertNotNull(quote);
+        assertEquals(EnumCryptoCurrency.BTC, quote.getSymbol());
+        assertEquals(new BigDecimal("101234.56"), quote.getUsdPrice());
+        assertEquals(Instant.parse("2025-01-01T12:00:00Z"), quote.getQuotedAt());
+    }
+
+    @Test
+    void testMapItemWithoutUsdQuote() {
+        LatestQuotesResponse.Item item = new LatestQuotesResponse.Item();
+        item.setSymbol("ETH");
+        item.setQuote(Map.of());
+
+        CryptoQuote quote = mapper.map(item);
+
+        assertEquals(EnumCryptoCurrency.ETH, quote.getSymbol());
+        assertNull(quote.getUsdPrice());
+        assertNull(quote.getQuotedAt());
+    }
+
+}
@@ -0,0 +1,290 @@
+package com.casestudy.cryptoexchangeapi.exchange.provider;
+
+import com.casestudy.cryptoexchangeapi.base.AbstractBaseServiceTest;
+import com.casestudy.cryptoexchangeapi.exchange.exception.CmcBudgetExceededException;
+import com.casestudy.cryptoexchangeapi.exchange.exception.ConversionFailedException;
+import com.casestudy.cryptoexchangeapi.exchange.feign.CmcClient;
+import com.casestudy.cryptoexchangeapi.exchange.model.dto.response.LatestQuotesResponse;
+import com.casestudy.cryptoexchangeapi.exchange.model.dto.response.PriceConversionResponse;
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCmcCallPriority;
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCryptoCurrency;
+import com.casestudy.cryptoexchangeapi.exchange.service.CmcBudgetScheduler;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+
+import java.math.BigDecimal;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CmcQuoteProviderTest extends AbstractBaseServiceTest {
+
+    @Mock
+    private CmcClient cmcClient;
+
+    @Mock
+    private CmcBudgetScheduler cmcBudgetScheduler;
+
+    @InjectMocks
+    private CmcQuoteProvider cmcQuoteProvider;
+
+    private PriceConversionResponse okResponseWithPrices(Map<String, BigDecimal> prices) {
+
+        // status: success
+        PriceConversionResponse.Status status = new PriceConversionResponse.Status();
+        status.setError_code(0);
+        status.setError_message(null);
+
+        // data with quote map
+        PriceConversionResponse.ConversionData data = new PriceConversionResponse.ConversionData();
+        Map<String, PriceConversionResponse.Quote> quotes = new HashMap<>();
+        prices.forEach((symbol, price) -> {
+            PriceConversionResponse.Quote quote = new PriceConversionResponse.Quote();
+            quote.setPrice(price);
+            quotes.put(symbol, quote);
+        });
+        data.setQuote(quotes);
+
+        // assemble response
+        PriceConversionResponse resp = new PriceConversionResponse();
+        resp.setStatus(status);
+        resp.setData(data);
+        return resp;
+
+    }
+
+    private PriceConversionResponse okResponseWithPrice(EnumCryptoCurrency to, BigDecimal unitPrice) {
+        Map<String, BigDecimal> prices = new HashMap<>();
+        prices.put(to.name(), unitPrice);
+        return okResponseWithPrices(prices);
+    }
+
+    private PriceConversionResponse statusOnly(int errorCode, String msg) {
+        PriceConversionResponse.Status status = new PriceConversionResponse.Status();
+        status.setError_code(errorCode);
+        status.setError_message(msg);
+
+        PriceConversionResponse resp = new PriceConversionResponse();
+        resp.setStatus(status);
+        return resp;
+    }
+
+    // ---------- unitPrice tests ----------
+
+    @Test
+    void unitPrice_happyPath_requestsOneUnit_andReturnsQuotedPrice() {
+        // Given
+        when(cmcClient.priceConversion("1", "BTC", null, "ARB", null))
+                .thenReturn(okResponseWithPrice(EnumCryptoCurrency.ARB, new BigDecimal("1000")));
+
+        // When
+        BigDecimal price = cmcQuoteProvider.unitPrice(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ARB);
+
+        // Then
+        assertThat(price).isEqualByComparingTo("1000");
+        verify(cmcBudgetScheduler, times(1)).acquire(EnumCmcCallPriority.CONVERSION);
+        verify(cmcClient, times(1)).priceConversion("1", "BTC", null, "ARB", null);
+        verifyNoMoreInteractions(cmcClient);
+    }
+
+    @Test
+    void unitPrice_whenBudgetExceeded_throws_withoutCallingCmc() {
+        // Given
+        doThrow(new CmcBudgetExceededException(EnumCmcCallPriority.CONVERSION, "queue is full"))
+                .when(cmcBudgetScheduler).acquire(EnumCmcCallPriority.CONVERSION);
+
+        // When / Then
+        assertThatThrownBy(() -> cmcQuoteProvider.unitPrice(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ARB))
+                .isInstanceOf(CmcBudgetExceededException.class);
+        verifyNoInteractions(cmcClient);
+    }
+
+    @Test
+    void hedgedUnitPrice_onlyUsesSparePermit() {
+        // Given
+        when(cmcBudgetScheduler.tryAcquire(EnumCmcCallPriority.HEDGE)).thenReturn(true, false);
+        when(cmcClient.priceConversion("1", "BTC", null, "ARB", null))
+                .thenReturn(okResponseWithPrice(EnumCryptoCurrency.ARB, new BigDecimal("1000")));
+
+        // When / Then
+        assertThat(cmcQuoteProvider.hedgedUnitPrice(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ARB))
+                .isEqualByComparingTo("1000");
+        assertThatThrownBy(() -> cmcQuoteProvider.hedgedUnitPrice(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ARB))
+                .isInstanceOf(CmcBudgetExceededException.class);
+        verify(cmcBudgetScheduler, never()).acquire(any());
+        verify(cmcClient, times(1)).priceConversion("1", "BTC", null, "ARB", null);
+    }
+
+    @Test
+    void unitPrice_whenResponseNull_throws() {
+        // Given
+        when(cmcClient.priceConversion("1", "BTC", null, "ARB", null)).thenReturn(null);
+
+        // When / Then
+        assertThatThrownBy(() -> cmcQuoteProvider.unitPrice(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ARB))
+                .isInstanceOf(ConversionFailedException.class)
+                .hasMessageContaining("Null response or missing status");
+
+        verify(cmcClient, times(1)).priceConversion("1", "BTC", null, "ARB", null);
+    }
+
+    @Test
+    void unitPrice_whenStatusErrorCodeNonZero_throws() {
+        // Given
+        when(cmcClient.priceConversion("1", "BTC", null, "ARB", null))
+                .thenReturn(statusOnly(409, "oops"));
+
+        // When / Then
+        assertThatThrownBy(() -> cmcQuoteProvider.unitPrice(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ARB))
+                .isInstanceOf(ConversionFailedException.class)
+                .hasMessageContaining("CMC error: oops");
+    }
+
+    @Test
+    void unitPrice_whenDataNull_throws() {
+        // Given: status ok, but data null
+        when(cmcClient.priceConversion("1", "BTC", null, "ARB", null)).thenReturn(statusOnly(0, null));
+
+        // When / Then
+        assertThatThrownBy(() -> cmcQuoteProvider.unitPrice(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ARB))
+                .isInstanceOf(ConversionFailedException.class)
+                .hasMessageContaining("response has no data");
+    }
+
+    @Test
+    void unitPrice_whenMissingQuoteForTarget_throws() {
+        // Given: response with a different quote (e.g., ETH)
+        when(cmcClient.priceConversion("1", "BTC", null, "ARB", null))
+                .thenReturn(okResponseWithPrice(EnumCryptoCurrency.ETH, new BigDecimal("123")));
+
+        // When / Then
+        assertThatThrownBy(() -> cmcQuoteProvider.unitPrice(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ARB))
+                .isInstanceOf(ConversionFailedException.class)
+                .hasMessageContaining("No quote for ARB");
+    }
+
+    @Test
+    void unitPrice_whenUnitPriceNull_throws() {
+        // Given
+        when(cmcClient.priceConversion("1", "BTC", null, "ARB", null))
+                .thenReturn(okResponseWithPrice(EnumCryptoCurrency.ARB, null));
+
+        // When / Then
+        assertThatThrownBy(() -> cmcQuoteProvider.unitPrice(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ARB))
+                .isInstanceOf(ConversionFailedException.class)
+                .hasMessageContaining("quote has null price");
+    }
+
+    @Test
+    void fallbackUnitPrice_alwaysThrowsWrapped() {
+        // Given
+        RuntimeException cause = new RuntimeException("io timeout");
+
+        // When / Then
+        assertThatThrownBy(() -> cmcQuoteProvider.fallbackUnitPrice(
+                EnumCryptoCurrency.BTC, EnumCryptoCurrency.ARB, cause))
+                .isInstanceOf(ConversionFailedException.class)
+                .hasMessageContaining("Upstream conversion unavailable")
+                .hasCause(cause);
+    }
+
+    // ---------- usdPrices tests ----------
+
+    private LatestQuotesResponse okLatestQuotes(Map<String, BigDecimal> usdPrices) {
+
+        PriceConversionResponse.Status status = new PriceConversionResponse.Status();
+        status.setError_code(0);
+
+        Map<String, LatestQuotesResponse.Item> items = new HashMap<>();
+        usdPrices.forEach((symbol, price) -> {
+            PriceConversionResponse.Quote usd = new PriceConversionResponse.Quote();
+            usd.setPrice(price);
+            usd.setLast_updated("2025-01-01T00:00:00.000Z");
+
+            LatestQuotesResponse.Item item = new LatestQuotesResponse.Item();
+            item.setSymbol(symbol);
+            item.setQuote(Map.of("USD", usd));
+            items.put(symbol, item);
+        });
+
+        LatestQuotesResponse resp = new LatestQuotesResponse();
+        resp.setStatus(status);
+        resp.setData(items);
+        return resp;
+
+    }
+
+    @Test
+    void usdPrices_fetchesAllSymbolsInOneLatestQuotesCall() {
+        // Given
+        when(cmcClient.latestQuotes("BTC,ETH", "USD", true))
+                .thenReturn(okLatestQuotes(Map.of(
+                        "BTC", new BigDecimal("100000"),
+                        "ETH", new BigDecimal("2000"))));
+
+        // When
+        Map<EnumCryptoCurrency, BigDecimal> prices = cmcQuoteProvider.usdPrices(
+                List.of(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH));
+
+        // Then
+        assertThat(prices).containsOnlyKeys(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH);
+        assertThat(prices.get(EnumCryptoCurrency.BTC)).isEqualByComparingTo("100000");
+        assertThat(prices.get(EnumCryptoCurrency.ETH)).isEqualByComparingTo("2000");
+        verify(cmcBudgetScheduler, times(1)).acquire(EnumCmcCallPriority.REFRESH);
+        verify(cmcClient, times(1)).latestQuotes("BTC,ETH", "USD", true);
+        verify(cmcClient, never()).priceConversion(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void usdPrices_skipsMissingAndNonPositiveQuotes() {
+        // Given
+        Map<String, BigDecimal> prices = new HashMap<>();
+        prices.put("BTC", new BigDecimal("100000"));
+        prices.put("ETH", BigDecimal.ZERO);
+        prices.put("SOL", null);
+        when(cmcClient.latestQuotes(anyString(), eq("USD"), eq(true)))
+                .thenReturn(okLatestQuotes(prices));
+
+        // When
+        Map<EnumCryptoCurrency, BigDecimal> out = cmcQuoteProvider.usdPrices(
+                EnumSet.of(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH, EnumCryptoCurrency.SOL, EnumCryptoCurrency.ARB));
+
+        // Then
+        assertThat(out).containsOnlyKeys(EnumCryptoCurrency.BTC);
+    }
+
+    @Test
+    void usdPrices_whenStatusErrorCodeNonZero_throws() {
+        // Given
+        LatestQuotesResponse resp = new LatestQuotesResponse();
+        PriceConversionResponse.Status status = new PriceConversionResponse.Status();
+        status.setError_code(1008);
+        status.setError_message("rate limited");
+        resp.setStatus(status);
+        when(cmcClient.latestQuotes(anyString(), eq("USD"), eq(true))).thenReturn(resp);
+
+        // When / Then
+        assertThatThrownBy(() -> cmcQuoteProvider.usdPrices(List.of(EnumCryptoCurrency.BTC)))
+                .isInstanceOf(ConversionFailedException.class)
+                .hasMessageContaining("CMC error: rate limited");
+    }
+
+    @Test
+    void usdPrices_whenDataMissing_throws() {
+        // Given
+        LatestQuotesResponse resp = okLatestQuotes(Map.of());
+        resp.setData(null);
+        when(cmcClient.latestQuotes(anyString(), eq("USD"), eq(true))).thenReturn(resp);
+
+        // When / Then
+        assertThatThrownBy(() -> cmcQuoteProvider.usdPrices(List.of(EnumCryptoCurrency.BTC)))
+                .isInstanceOf(ConversionFailedException.class)
+                .hasMessageContaining("CMC response has no data");
+    }
+
+}
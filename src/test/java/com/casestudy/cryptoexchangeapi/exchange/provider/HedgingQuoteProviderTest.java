@@ -0,0 +1,187 @@
+package com.casestudy.cryptoexchangeapi.exchange.provider;
+
+import com.casestudy.cryptoexchangeapi.base.AbstractBaseServiceTest;
+import com.casestudy.cryptoexchangeapi.exchange.config.QuoteProviderProperties;
+import com.casestudy.cryptoexchangeapi.exchange.exception.CmcBudgetExceededException;
+import com.casestudy.cryptoexchangeapi.exchange.exception.ConversionFailedException;
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCmcCallPriority;
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCryptoCurrency;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.stubbing.Answer;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class HedgingQuoteProviderTest extends AbstractBaseServiceTest {
+
+    private static final EnumCryptoCurrency BTC = EnumCryptoCurrency.BTC;
+    private static final EnumCryptoCurrency ETH = EnumCryptoCurrency.ETH;
+
+    @Mock
+    private QuoteProvider primary;
+
+    @Mock
+    private QuoteProvider backup;
+
+    private QuoteProviderProperties.Hedge properties;
+    private SimpleMeterRegistry meterRegistry;
+    private HedgingQuoteProvider hedging;
+
+    @BeforeEach
+    void setUp() {
+        properties = new QuoteProviderProperties.Hedge();
+        properties.setEnabled(true);
+        properties.setInitialDelay(20);
+        properties.setMinDelay(10);
+        properties.setMaxDelay(1000);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (hedging != null) {
+            hedging.shutdown();
+        }
+    }
+
+    private HedgingQuoteProvider hedging(CircuitBreaker circuitBreaker) {
+        hedging = new HedgingQuoteProvider("primary", primary, "backup", backup, properties, meterRegistry,
+                circuitBreaker, Executors.newVirtualThreadPerTaskExecutor());
+        return hedging;
+    }
+
+    private static Answer<BigDecimal> after(long millis, String price) {
+        return invocation -> {
+            Thread.sleep(millis);
+            return new BigDecimal(price);
+        };
+    }
+
+    private double outcome(String outcome) {
+        return meterRegistry.counter("quote.provider.hedge", "outcome", outcome).count();
+    }
+
+    @Test
+    void fastPrimary_isNotHedged() {
+        // Given
+        properties.setInitialDelay(1000);
+        when(primary.unitPrice(BTC, ETH)).thenReturn(new BigDecimal("25"));
+
+        // When
+        BigDecimal price = hedging(null).unitPrice(BTC, ETH);
+
+        // Then
+        assertThat(price).isEqualByComparingTo("25");
+        verifyNoInteractions(backup);
+        assertThat(outcome("primary")).isEqualTo(1.0);
+    }
+
+    @Test
+    void slowPrimary_isHedged_andFirstAnswerWins() {
+        // Given
+        when(primary.unitPrice(BTC, ETH)).thenAnswer(after(1000, "25"));
+        when(backup.hedgedUnitPrice(BTC, ETH)).thenReturn(new BigDecimal("24.9"));
+
+        // When
+        long start = System.nanoTime();
+        BigDecimal price = hedging(null).unitPrice(BTC, ETH);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        // Then
+        assertThat(price).isEqualByComparingTo("24.9");
+        assertThat(elapsedMs).isLessThan(1000);
+        assertThat(outcome("hedged_backup")).isEqualTo(1.0);
+    }
+
+    @Test
+    void hedge_isSuppressed_whenBackupHasNoSpareBudget() {
+        // Given
+        when(primary.unitPrice(BTC, ETH)).thenAnswer(after(100, "25"));
+        when(backup.hedgedUnitPrice(BTC, ETH))
+                .thenThrow(new CmcBudgetExceededException(EnumCmcCallPriority.HEDGE, "no spare permit"));
+
+        // When
+        BigDecimal price = hedging(null).unitPrice(BTC, ETH);
+
+        // Then
+        assertThat(price).isEqualByComparingTo("25");
+        verify(backup, never()).unitPrice(any(), any());
+        assertThat(outcome("suppressed")).isEqualTo(1.0);
+    }
+
+    @Test
+    void hedge_isSuppressed_whileCircuitBreakerIsNotClosed() {
+        // Given
+        CircuitBreaker circuitBreaker = CircuitBreaker.ofDefaults("test");
+        circuitBreaker.transitionToOpenState();
+        when(primary.unitPrice(BTC, ETH)).thenAnswer(after(100, "25"));
+
+        // When
+        BigDecimal price = hedging(circuitBreaker).unitPrice(BTC, ETH);
+
+        // Then
+        assertThat(price).isEqualByComparingTo("25");
+        verifyNoInteractions(backup);
+    }
+
+    @Test
+    void failingPrimary_failsOverToBackup_andReportsPrimaryFailureWhenBothFail() {
+        // Given
+        when(primary.unitPrice(BTC, ETH)).thenThrow(new ConversionFailedException("Upstream conversion unavailable"));
+        when(backup.hedgedUnitPrice(BTC, ETH))
+                .thenReturn(new BigDecimal("25"))
+                .thenThrow(new ConversionFailedException("backup down"));
+        HedgingQuoteProvider provider = hedging(null);
+
+        // When / Then
+        assertThat(provider.unitPrice(BTC, ETH)).isEqualByComparingTo("25");
+        assertThatThrownBy(() -> provider.unitPrice(BTC, ETH))
+                .isInstanceOf(ConversionFailedException.class)
+                .hasMessageContaining("Upstream conversion unavailable");
+        assertThat(outcome("failover")).isEqualTo(2.0);
+    }
+
+    @Test
+    void hedgeDelay_followsObservedPrimaryLatency() {
+        // Given
+        properties.setMinSamples(5);
+        properties.setInitialDelay(500);
+        when(primary.unitPrice(BTC, ETH)).thenAnswer(after(40, "25"));
+        HedgingQuoteProvider provider = hedging(null);
+        assertThat(provider.hedgeDelayMillis()).isEqualTo(500);
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            provider.unitPrice(BTC, ETH);
+        }
+
+        // Then
+        assertThat(provider.hedgeDelayMillis()).isBetween(40L, 200L);
+        verifyNoInteractions(backup);
+    }
+
+    @Test
+    void usdPrices_areNeverHedged() {
+        // Given
+        when(primary.usdPrices(anyCollection())).thenReturn(Map.of(BTC, new BigDecimal("100000")));
+
+        // When
+        hedging(null).usdPrices(List.of(BTC));
+
+        // Then
+        verify(primary).usdPrices(anyCollection());
+        verifyNoInteractions(backup);
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.casestudy.cryptoexchangeapi.exchange.provider;
+
+import com.casestudy.cryptoexchangeapi.exchange.config.QuoteProviderProperties;
+import com.casestudy.cryptoexchangeapi.exchange.exception.ConversionFailedException;
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCryptoCurrency;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReplayQuoteProviderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static String recording(String btcUsd, String ethUsd) {
+        return """
+                {"status":{"error_code":0},"data":{\
+                "BTC":{"symbol":"BTC","quote":{"USD":{"price":%s,"last_updated":"2025-01-01T00:00:00.000Z"}}},\
+                "ETH":{"symbol":"ETH","quote":{"USD":{"price":%s,"last_updated":"2025-01-01T00:00:00.000Z"}}},\
+                "USDT":{"symbol":"USDT","quote":{"USD":{"price":1,"last_updated":"2025-01-01T00:00:00.000Z"}}}}}"""
+                .formatted(btcUsd, ethUsd);
+    }
+
+    private ReplayQuoteProvider provider(boolean loop, String... lines) throws IOException {
+
+        Path file = tempDir.resolve("latest-quotes.ndjson");
+        Files.write(file, List.of(lines));
+
+        QuoteProviderProperties properties = new QuoteProviderProperties();
+        properties.getReplay().setFile("file:" + file);
+        properties.getReplay().setLoop(loop);
+
+        ReplayQuoteProvider provider = new ReplayQuoteProvider(properties, new DefaultResourceLoader(), new ObjectMapper());
+        provider.load();
+        return provider;
+
+    }
+
+    @Test
+    void usdPrices_servesRecordingsInOrder_andLoops() throws IOException {
+        // Given
+        ReplayQuoteProvider provider = provider(true, recording("100000", "4000"), "", recording("90000", "3000"));
+        EnumSet<EnumCryptoCurrency> symbols = EnumSet.of(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH, EnumCryptoCurrency.SOL);
+
+        // When
+        Map<EnumCryptoCurrency, BigDecimal> first = provider.usdPrices(symbols);
+        Map<EnumCryptoCurrency, BigDecimal> second = provider.usdPrices(symbols);
+        Map<EnumCryptoCurrency, BigDecimal> third = provider.usdPrices(symbols);
+
+        // Then
+        assertThat(first).containsOnlyKeys(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH);
+        assertThat(first.get(EnumCryptoCurrency.BTC)).isEqualByComparingTo("100000");
+        assertThat(second.get(EnumCryptoCurrency.BTC)).isEqualByComparingTo("90000");
+        assertThat(third.get(EnumCryptoCurrency.BTC)).isEqualByComparingTo("100000");
+    }
+
+    @Test
+    void unitPrice_derivesCrossRate_andSticksToLastRecordingWithoutLoop() throws IOException {
+        // Given
+        ReplayQuoteProvider provider = provider(false, recording("100000", "4000"), recording("90000", "3000"));
+
+        // When / Then
+        assertThat(provider.unitPrice(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH)).isEqualByComparingTo("25");
+        assertThat(provider.unitPrice(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH)).isEqualByComparingTo("30");
+        assertThat(provider.unitPrice(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH)).isEqualByComparingTo("30");
+    }
+
+    @Test
+    void unitPrice_whenSymbolNotRecorded_throwsConversionFailed() throws IOException {
+        // Given
+        ReplayQuoteProvider provider = provider(true, recording("100000", "4000"));
+
+        // When / Then
+        assertThatThrownBy(() -> provider.unitPrice(EnumCryptoCurrency.BTC, EnumCryptoCurrency.SOL))
+                .isInstanceOf(ConversionFailedException.class)
+                .hasMessageContaining("No quote for SOL");
+    }
+
+    @Test
+    void load_withoutRecordings_failsFast() {
+        assertThatThrownBy(() -> provider(true, ""))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("holds no recordings");
+    }
+
+}
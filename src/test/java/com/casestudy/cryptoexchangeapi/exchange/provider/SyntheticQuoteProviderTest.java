@@ -0,0 +1,84 @@
+package com.casestudy.cryptoexchangeapi.exchange.provider;
+
+import com.casestudy.cryptoexchangeapi.exchange.config.QuoteProviderProperties;
+import com.casestudy.cryptoexchangeapi.exchange.exception.ConversionFailedException;
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCryptoCurrency;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.EnumSet;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.data.Percentage.withPercentage;
+
+class SyntheticQuoteProviderTest {
+
+    private static QuoteProviderProperties properties() {
+        QuoteProviderProperties properties = new QuoteProviderProperties();
+        properties.getSynthetic().setSeed(7);
+        properties.getSynthetic().setVolatility(0.01);
+        return properties;
+    }
+
+    @Test
+    void usdPrices_areSeeded_positive_andWalk() {
+        // Given
+        SyntheticQuoteProvider first = new SyntheticQuoteProvider(properties());
+        SyntheticQuoteProvider second = new SyntheticQuoteProvider(properties());
+        EnumSet<EnumCryptoCurrency> all = EnumSet.allOf(EnumCryptoCurrency.class);
+
+        // When
+        Map<EnumCryptoCurrency, BigDecimal> a = first.usdPrices(all);
+        Map<EnumCryptoCurrency, BigDecimal> b = second.usdPrices(all);
+        Map<EnumCryptoCurrency, BigDecimal> next = first.usdPrices(all);
+
+        // Then
+        assertThat(a).hasSize(all.size());
+        assertThat(a.values()).allMatch(price -> price.signum() > 0);
+        // same seed: both start from the same prices, a 1% step cannot move them far apart
+        assertThat(a.get(EnumCryptoCurrency.BTC).doubleValue())
+                .isCloseTo(b.get(EnumCryptoCurrency.BTC).doubleValue(), withPercentage(10));
+        assertThat(next).isNotEqualTo(a);
+    }
+
+    @Test
+    void unitPrice_ofSameSymbol_isOne() {
+        SyntheticQuoteProvider provider = new SyntheticQuoteProvider(properties());
+
+        assertThat(provider.unitPrice(EnumCryptoCurrency.BTC, EnumCryptoCurrency.BTC)).isEqualByComparingTo("1");
+        assertThat(provider.unitPrice(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH).signum()).isPositive();
+    }
+
+    @Test
+    void errorRate_one_failsEveryCall_likeUnavailableUpstream() {
+        // Given
+        QuoteProviderProperties properties = properties();
+        properties.getSynthetic().setErrorRate(1);
+        SyntheticQuoteProvider provider = new SyntheticQuoteProvider(properties);
+
+        // When / Then
+        assertThatThrownBy(() -> provider.unitPrice(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH))
+                .isInstanceOf(ConversionFailedException.class)
+                .hasMessageContaining("Synthetic upstream failure");
+    }
+
+    @Test
+    void latency_delaysEveryCall() {
+        // Given
+        QuoteProviderProperties properties = properties();
+        properties.getSynthetic().setLatencyMin(20);
+        properties.getSynthetic().setLatencyMax(20);
+        SyntheticQuoteProvider provider = new SyntheticQuoteProvider(properties);
+
+        // When
+        long start = System.nanoTime();
+        provider.unitPrice(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        // Then
+        assertThat(elapsedMs).isGreaterThanOrEqualTo(20);
+    }
+
+}
@@ -1,6 +1,8 @@
 package com.casestudy.cryptoexchangeapi.exchange.repository;
 
 import com.casestudy.cryptoexchangeapi.base.AbstractBaseServiceTest;
+import com.casestudy.cryptoexchangeapi.exchange.model.HistoryCursor;
+import com.casestudy.cryptoexchangeapi.exchange.model.HistoryQuery;
 import com.casestudy.cryptoexchangeapi.exchange.model.dto.request.ListCryptoConvertRequest;
 import com.casestudy.cryptoexchangeapi.exchange.model.entity.CryptoConvertEntity;
 import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCryptoCurrency;
@@ -19,6 +21,8 @@ import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
 import java.util.function.Function;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -244,4 +248,93 @@ class CryptoConvertRepositoryCustomImplTest extends AbstractBaseServiceTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    void searchWithCriteria_withCursor_seeksAfterItWithoutSkipOrCount() {
+
+        // Given
+        CryptoConvertEntity last = CryptoConvertEntity.builder()
+                .id("0199a000-0000-7000-8000-000000000002")
+                .createdAt(LocalDateTime.of(2025, 10, 1, 12, 0))
+                .build();
+        String cursor = HistoryCursor.after("createdAt:DESC,", last).encode();
+        HistoryQuery historyQuery = HistoryQuery.of(null, PageRequest.of(0, 2, Sort.by(Sort.Order.desc("createdAt"))),
+                cursor);
+
+        CryptoConvertEntity e1 = CryptoConvertEntity.builder().id("0199a000-0000-7000-8000-000000000001").build();
+        CryptoConvertEntity e2 = CryptoConvertEntity.builder().id("0199a000-0000-7000-8000-000000000000").build();
+        CryptoConvertEntity e3 = CryptoConvertEntity.builder().id("01999000-0000-7000-8000-000000000000").build();
+
+        // When
+        when(mongoTemplate.find(any(Query.class), eq(CryptoConvertEntity.class)))
+                .thenReturn(List.of(e1, e2, e3));
+
+        // Then
+        Slice<CryptoConvertEntity> slice = cryptoConvertRepositoryCustomImpl.searchWithCriteria(historyQuery);
+
+        assertThat(slice).isNotInstanceOf(Page.class);
+        assertThat(slice.getContent()).containsExactly(e1, e2);
+        assertThat(slice.hasNext()).isTrue();
+
+        // Verify
+        verify(mongoTemplate, times(1)).find(
+                argThat((Query q) -> {
+                    List<Document> or = q.getQueryObject().getList("$and", Document.class).getFirst()
+                            .getList("$or", Document.class);
+                    assertThat(or).hasSize(2);
+                    assertThat(((Document) or.get(0).get("createdAt")).get("$lt")).isInstanceOf(Date.class);
+                    assertThat(((Document) or.get(1).get("_id")).get("$lt")).isEqualTo(last.getId());
+                    assertThat(q.getSortObject()).containsExactly(Map.entry("createdAt", -1), Map.entry("id", -1));
+                    assertThat(q.getLimit()).isEqualTo(3);
+                    assertThat(q.getSkip()).isZero();
+                    return true;
+                }),
+                eq(CryptoConvertEntity.class)
+        );
+        verifyNoMoreInteractions(mongoTemplate);
+
+    }
+
+    @Test
+    void searchWithCriteria_withCursorAndCreatedAtBound_comparesBothInUtc_inNonUtcZone() {
+
+        // Given: the last row was stamped 12:00 in Tokyo, 03:00 UTC, and the filter ends at 03:00 UTC
+        TimeZone zone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Tokyo"));
+        try {
+            CryptoConvertEntity last = CryptoConvertEntity.builder()
+                    .id("0199a000-0000-7000-8000-000000000002")
+                    .createdAt(LocalDateTime.of(2025, 10, 1, 12, 0))
+                    .build();
+            String cursor = HistoryCursor.after("createdAt:DESC,", last).encode();
+            ListCryptoConvertRequest.Filter filter = new ListCryptoConvertRequest.Filter();
+            filter.setCreatedAtTo(LocalDateTime.of(2025, 10, 1, 3, 0));
+            HistoryQuery historyQuery = HistoryQuery.of(filter,
+                    PageRequest.of(0, 2, Sort.by(Sort.Order.desc("createdAt"))), cursor);
+
+            // When
+            when(mongoTemplate.find(any(Query.class), eq(CryptoConvertEntity.class))).thenReturn(List.of());
+
+            // Then
+            cryptoConvertRepositoryCustomImpl.searchWithCriteria(historyQuery);
+
+            // Verify
+            Date utc = Date.from(LocalDateTime.of(2025, 10, 1, 3, 0).toInstant(ZoneOffset.UTC));
+            verify(mongoTemplate, times(1)).find(
+                    argThat((Query q) -> {
+                        List<Document> and = q.getQueryObject().getList("$and", Document.class);
+                        Document bound = and.get(0);
+                        List<Document> or = and.get(1).getList("$or", Document.class);
+                        assertThat(bound.get("createdAt", Document.class).get("$lte")).isEqualTo(utc);
+                        assertThat(or.get(0).get("createdAt", Document.class).get("$lt")).isEqualTo(utc);
+                        assertThat(or.get(1).get("createdAt")).isEqualTo(utc);
+                        return true;
+                    }),
+                    eq(CryptoConvertEntity.class)
+            );
+        } finally {
+            TimeZone.setDefault(zone);
+        }
+
+    }
+
+}
@@ -0,0 +1,165 @@
+package com.casestudy.cryptoexchangeapi.exchange.service;
+
+import com.casestudy.cryptoexchangeapi.base.AbstractBaseServiceTest;
+import com.casestudy.cryptoexchangeapi.exchange.config.CmcBudgetProperties;
+import com.casestudy.cryptoexchangeapi.exchange.exception.CmcBudgetExceededException;
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCmcCallPriority;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CmcBudgetSchedulerTest extends AbstractBaseServiceTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private CmcBudgetProperties properties;
+    private CmcBudgetScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new CmcBudgetProperties();
+        // one permit per second, failing fast like the cmc limiter
+        RateLimiter rateLimiter = RateLimiter.of("cmc-test", RateLimiterConfig.custom()
+                .limitForPeriod(1)
+                .limitRefreshPeriod(Duration.ofSeconds(1))
+                .timeoutDuration(Duration.ZERO)
+                .build());
+        scheduler = new CmcBudgetScheduler(rateLimiter, properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void acquire_whenPermitLeft_grantsImmediately() {
+        // When
+        scheduler.acquire(EnumCmcCallPriority.DIRECTORY);
+
+        // Then
+        assertThat(calls(EnumCmcCallPriority.DIRECTORY, "immediate")).isEqualTo(1);
+        assertThat(scheduler.utilization()).isEqualTo(1.0);
+        assertThat(scheduler.queueDepth()).isZero();
+    }
+
+    @Test
+    void acquire_whenBudgetExhausted_grantsHigherPriorityFirst() throws Exception {
+        // Given: the permit of this period is spent and a directory listing is already waiting
+        scheduler.acquire(EnumCmcCallPriority.DIRECTORY);
+        List<EnumCmcCallPriority> granted = new CopyOnWriteArrayList<>();
+        CompletableFuture<Void> directory = CompletableFuture.runAsync(() -> {
+            scheduler.acquire(EnumCmcCallPriority.DIRECTORY, Duration.ofSeconds(5));
+            granted.add(EnumCmcCallPriority.DIRECTORY);
+        });
+        awaitQueueDepth(1);
+
+        // When
+        CompletableFuture<Void> conversion = CompletableFuture.runAsync(() -> {
+            scheduler.acquire(EnumCmcCallPriority.CONVERSION, Duration.ofSeconds(5));
+            granted.add(EnumCmcCallPriority.CONVERSION);
+        });
+        awaitQueueDepth(2);
+        CompletableFuture.allOf(directory, conversion).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(granted).containsExactly(EnumCmcCallPriority.CONVERSION, EnumCmcCallPriority.DIRECTORY);
+        assertThat(calls(EnumCmcCallPriority.CONVERSION, "queued")).isEqualTo(1);
+    }
+
+    @Test
+    void acquire_whenDeadlineCannotBeMet_rejectsWithoutWaiting() {
+        // Given
+        scheduler.acquire(EnumCmcCallPriority.CONVERSION);
+        long start = System.nanoTime();
+
+        // When / Then
+        assertThatThrownBy(() -> scheduler.acquire(EnumCmcCallPriority.CONVERSION, Duration.ofMillis(50)))
+                .isInstanceOf(CmcBudgetExceededException.class);
+        assertThat(System.nanoTime() - start).isLessThan(TimeUnit.MILLISECONDS.toNanos(50));
+        assertThat(calls(EnumCmcCallPriority.CONVERSION, "rejected")).isEqualTo(1);
+    }
+
+    @Test
+    void tryAcquire_neverTakesReservedPermits() {
+        // Given: the only permit of the period is reserved
+        properties.setReservedPermits(1);
+
+        // When / Then
+        assertThat(scheduler.tryAcquire(EnumCmcCallPriority.HEDGE)).isFalse();
+        assertThat(calls(EnumCmcCallPriority.HEDGE, "rejected")).isEqualTo(1);
+        assertThat(scheduler.utilization()).isZero();
+    }
+
+    @Test
+    void tryAcquire_whenPermitIsSpare_grantsImmediately() {
+        // Given
+        properties.setReservedPermits(0);
+
+        // When / Then
+        assertThat(scheduler.tryAcquire(EnumCmcCallPriority.HEDGE)).isTrue();
+        assertThat(scheduler.tryAcquire(EnumCmcCallPriority.HEDGE)).isFalse();
+        assertThat(calls(EnumCmcCallPriority.HEDGE, "immediate")).isEqualTo(1);
+    }
+
+    @Test
+    void acquire_whenQueueIsFull_rejects() {
+        // Given
+        properties.setMaxQueueSize(0);
+        scheduler.acquire(EnumCmcCallPriority.CONVERSION);
+
+        // When / Then
+        assertThatThrownBy(() -> scheduler.acquire(EnumCmcCallPriority.REFRESH))
+                .isInstanceOf(CmcBudgetExceededException.class)
+                .hasMessageContaining("queue is full");
+    }
+
+    @Test
+    void acquire_whenHigherPriorityArrives_rejectsDisplacedCall() throws Exception {
+        // Given: a refresh that can just make it with the next permit
+        scheduler.acquire(EnumCmcCallPriority.CONVERSION);
+        CompletableFuture<Void> refresh = CompletableFuture.runAsync(
+                () -> scheduler.acquire(EnumCmcCallPriority.REFRESH, Duration.ofMillis(1500)));
+        awaitQueueDepth(1);
+
+        // When: a conversion takes the next permit, the refresh would need the one after
+        CompletableFuture<Void> conversion = CompletableFuture.runAsync(
+                () -> scheduler.acquire(EnumCmcCallPriority.CONVERSION, Duration.ofMillis(1500)));
+
+        // Then
+        assertThatThrownBy(() -> refresh.get(1, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(CmcBudgetExceededException.class);
+        conversion.get(5, TimeUnit.SECONDS);
+        assertThat(calls(EnumCmcCallPriority.REFRESH, "rejected")).isEqualTo(1);
+    }
+
+    private void awaitQueueDepth(int depth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (scheduler.queueDepth() < depth && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(scheduler.queueDepth()).isEqualTo(depth);
+    }
+
+    private double calls(EnumCmcCallPriority priority, String outcome) {
+        Counter counter = meterRegistry.find("cmc.budget.calls")
+                .tag("priority", priority.name())
+                .tag("outcome", outcome)
+                .counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+}
@@ -0,0 +1,227 @@
+package com.casestudy.cryptoexchangeapi.exchange.service;
+
+import com.casestudy.cryptoexchangeapi.base.AbstractBaseServiceTest;
+import com.casestudy.cryptoexchangeapi.exchange.config.ConversionBatchProperties;
+import com.casestudy.cryptoexchangeapi.exchange.exception.CmcBudgetExceededException;
+import com.casestudy.cryptoexchangeapi.exchange.exception.ConversionBatchSizeException;
+import com.casestudy.cryptoexchangeapi.exchange.model.CryptoPair;
+import com.casestudy.cryptoexchangeapi.exchange.model.RateMatrix;
+import com.casestudy.cryptoexchangeapi.exchange.model.dto.response.BatchConvertItemResponse;
+import com.casestudy.cryptoexchangeapi.exchange.model.entity.CryptoConvertEntity;
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCmcCallPriority;
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCryptoCurrency;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.springframework.http.HttpStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class CryptoBatchConvertServiceTest extends AbstractBaseServiceTest {
+
+    @Mock
+    private QuoteBookService quoteBookService;
+
+    @Mock
+    private UnitPriceCache unitPriceCache;
+
+    @Mock
+    private CryptoConvertWriter cryptoConvertWriter;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final RateMatrix book = RateMatrix.empty();
+
+    private ConversionBatchProperties properties;
+
+    private CryptoBatchConvertService service;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ConversionBatchProperties();
+        service = new CryptoBatchConvertService(quoteBookService, unitPriceCache, cryptoConvertWriter, properties,
+                Validation.buildDefaultValidatorFactory().getValidator(), objectMapper);
+
+        when(quoteBookService.snapshot()).thenReturn(book);
+        when(quoteBookService.rate(book, EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH)).thenReturn(new BigDecimal("25"));
+        when(cryptoConvertWriter.writeAll(anyList())).thenReturn(Map.of());
+    }
+
+    @Test
+    void convertAll_pricesEachDistinctPairOnce_andPersistsWithOneBulkWrite() throws Exception {
+        // Given
+        when(unitPriceCache.get(CryptoPair.of(EnumCryptoCurrency.ETH, EnumCryptoCurrency.USDT))).thenReturn(new BigDecimal("4000"));
+        List<JsonNode> items = items("""
+                [
+                  {"from": "BTC", "to": "ETH", "amount": 2},
+                  {"from": "ETH", "to": "USDT", "amount": 1},
+                  {"from": "BTC", "to": "ETH", "amount": 4}
+                ]
+                """);
+
+        // When
+        List<BatchConvertItemResponse> results = convertAll(items);
+
+        // Then
+        assertThat(results).extracting(BatchConvertItemResponse::getIndex).containsExactly(0, 1, 2);
+        assertThat(results).allMatch(BatchConvertItemResponse::getIsSuccess);
+        assertThat(results).extracting(result -> result.getResponse().getConvertedAmount())
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("50"), new BigDecimal("4000"), new BigDecimal("100"));
+
+        verify(quoteBookService, times(1)).snapshot();
+        verify(quoteBookService, times(1)).rate(book, EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH);
+        verify(unitPriceCache, times(1)).get(any(CryptoPair.class));
+        verify(cryptoConvertWriter, times(1)).writeAll(anyList());
+    }
+
+    @Test
+    void convertAll_whenItemsInvalid_failsOnlyThoseItems() throws Exception {
+        // Given
+        List<JsonNode> items = items("""
+                [
+                  {"from": "BTC", "to": "BTC", "amount": 1},
+                  {"from": "NOPE", "to": "ETH", "amount": 1},
+                  {"from": "BTC", "to": "ETH", "amount": -1},
+                  {"from": "BTC", "to": "ETH", "amount": 1}
+                ]
+                """);
+
+        // When
+        List<BatchConvertItemResponse> results = convertAll(items);
+
+        // Then
+        assertThat(results).extracting(BatchConvertItemResponse::getHttpStatus).containsExactly(
+                HttpStatus.BAD_REQUEST, HttpStatus.BAD_REQUEST, HttpStatus.BAD_REQUEST, HttpStatus.CREATED);
+        assertThat(results.get(0).getMessage()).contains("'from' and 'to' must be different");
+        assertThat(results.get(1).getMessage()).isEqualTo("Invalid value for 'from'");
+        assertThat(results.get(2).getMessage()).contains("'amount' must be > 0");
+
+        ArgumentCaptor<List<CryptoConvertEntity>> written = ArgumentCaptor.forClass(List.class);
+        verify(cryptoConvertWriter).writeAll(written.capture());
+        assertThat(written.getValue()).hasSize(1);
+    }
+
+    @Test
+    void convertAll_whenPairCannotBePriced_failsOnlyThatPair() throws Exception {
+        // Given
+        when(unitPriceCache.get(CryptoPair.of(EnumCryptoCurrency.ETH, EnumCryptoCurrency.USDT)))
+                .thenThrow(new CmcBudgetExceededException(EnumCmcCallPriority.CONVERSION, "queue is full"));
+        List<JsonNode> items = items("""
+                [
+                  {"from": "ETH", "to": "USDT", "amount": 1},
+                  {"from": "BTC", "to": "ETH", "amount": 1},
+                  {"from": "ETH", "to": "USDT", "amount": 2}
+                ]
+                """);
+
+        // When
+        List<BatchConvertItemResponse> results = convertAll(items);
+
+        // Then
+        assertThat(results).extracting(BatchConvertItemResponse::getHttpStatus).containsExactly(
+                HttpStatus.SERVICE_UNAVAILABLE, HttpStatus.CREATED, HttpStatus.SERVICE_UNAVAILABLE);
+        verify(unitPriceCache, times(1)).get(any(CryptoPair.class));
+    }
+
+    @Test
+    void convertAll_whenDocumentRejected_failsOnlyThatItem() throws Exception {
+        // Given
+        when(cryptoConvertWriter.writeAll(anyList())).thenReturn(Map.of(1, "duplicate key"));
+        List<JsonNode> items = items("""
+                [
+                  {"from": "BTC", "to": "ETH", "amount": 1},
+                  {"from": "BTC", "to": "ETH", "amount": 2}
+                ]
+                """);
+
+        // When
+        List<BatchConvertItemResponse> results = convertAll(items);
+
+        // Then
+        assertThat(results.get(0).getIsSuccess()).isTrue();
+        assertThat(results.get(1).getIsSuccess()).isFalse();
+        assertThat(results.get(1).getMessage()).isEqualTo("duplicate key");
+    }
+
+    @Test
+    void convertAll_streamsEachChunkAfterItsBulkWrite() throws Exception {
+        // Given
+        properties.setChunkSize(2);
+        List<BatchConvertItemResponse> results = new ArrayList<>();
+        List<Integer> emittedBeforeWrite = new ArrayList<>();
+        when(cryptoConvertWriter.writeAll(anyList())).thenAnswer(invocation -> {
+            emittedBeforeWrite.add(results.size());
+            return Map.of();
+        });
+        List<JsonNode> items = items("""
+                [
+                  {"from": "BTC", "to": "ETH", "amount": 1},
+                  {"from": "BTC", "to": "ETH", "amount": 2},
+                  {"from": "BTC", "to": "ETH", "amount": 3}
+                ]
+                """);
+
+        // When
+        service.convertAll(items, results::add);
+
+        // Then
+        assertThat(emittedBeforeWrite).containsExactly(0, 2);
+        assertThat(results).hasSize(3);
+    }
+
+    @Test
+    void readBatch_readsEveryItem_andRejectsEmptyBatches() throws Exception {
+        // Given
+        properties.setMaxItems(2);
+
+        // When / Then
+        assertThat(service.readBatch(body("[{\"from\": \"BTC\"}, null]"))).hasSize(2);
+        assertThatThrownBy(() -> service.readBatch(body("[]"))).isInstanceOf(ConversionBatchSizeException.class);
+        assertThatThrownBy(() -> service.readBatch(body("{\"from\": \"BTC\"}"))).isInstanceOf(JsonParseException.class);
+    }
+
+    @Test
+    void readBatch_stopsAtTheFirstItemPastMaxItems_withoutReadingTheRest() {
+        // Given: everything after the third item is unreadable
+        properties.setMaxItems(2);
+
+        // When / Then
+        assertThatThrownBy(() -> service.readBatch(body("[{\"amount\": 1}, {\"amount\": 2}, {\"amount\": 3}, @@@")))
+                .isInstanceOf(ConversionBatchSizeException.class);
+    }
+
+    private List<BatchConvertItemResponse> convertAll(List<JsonNode> items) {
+        List<BatchConvertItemResponse> results = new ArrayList<>();
+        service.convertAll(items, results::add);
+        return results;
+    }
+
+    private static InputStream body(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<JsonNode> items(String json) throws Exception {
+        List<JsonNode> items = new ArrayList<>();
+        objectMapper.readTree(json).forEach(items::add);
+        return items;
+    }
+
+}
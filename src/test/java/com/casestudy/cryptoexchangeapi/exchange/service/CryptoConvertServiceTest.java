@@ -6,26 +6,32 @@ import com.casestudy.cryptoexchangeapi.common.model.CustomPaging;
 import com.casestudy.cryptoexchangeapi.common.model.dto.request.CustomPagingRequest;
 import com.casestudy.cryptoexchangeapi.common.model.CustomSorting;
 import com.casestudy.cryptoexchangeapi.exchange.exception.ConversionFailedException;
+import com.casestudy.cryptoexchangeapi.exchange.exception.ConversionWriteBacklogException;
 import com.casestudy.cryptoexchangeapi.exchange.feign.CmcClient;
 import com.casestudy.cryptoexchangeapi.exchange.model.CryptoConvert;
+import com.casestudy.cryptoexchangeapi.exchange.model.CryptoPair;
+import com.casestudy.cryptoexchangeapi.exchange.model.HistoryQuery;
 import com.casestudy.cryptoexchangeapi.exchange.model.dto.request.ConvertRequest;
 import com.casestudy.cryptoexchangeapi.exchange.model.dto.request.ListCryptoConvertRequest;
 import com.casestudy.cryptoexchangeapi.exchange.model.dto.response.CryptoMapResponse;
 import com.casestudy.cryptoexchangeapi.exchange.model.dto.response.CryptoNameSymbol;
-import com.casestudy.cryptoexchangeapi.exchange.model.dto.response.PriceConversionResponse;
 import com.casestudy.cryptoexchangeapi.exchange.model.entity.CryptoConvertEntity;
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCmcCallPriority;
 import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCryptoCurrency;
 import com.casestudy.cryptoexchangeapi.exchange.repository.CryptoConvertRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.data.domain.*;
 
 import java.math.BigDecimal;
 import java.util.List;
-import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -35,9 +41,27 @@ class CryptoConvertServiceTest extends AbstractBaseServiceTest {
     @Mock
     private CmcClient cmcClient;
 
+    @Mock
+    private CmcBudgetScheduler cmcBudgetScheduler;
+
+    @Mock
+    private CryptoDirectoryService cryptoDirectoryService;
+
+    @Mock
+    private QuoteBookService quoteBookService;
+
+    @Mock
+    private UnitPriceCache unitPriceCache;
+
     @Mock
     private CryptoConvertRepository cryptoConvertRepository;
 
+    @Mock
+    private CryptoConvertWriter cryptoConvertWriter;
+
+    @Mock
+    private IdempotencyService idempotencyService;
+
     @InjectMocks
     private CryptoConvertService service;
 
@@ -49,50 +73,19 @@ class CryptoConvertServiceTest extends AbstractBaseServiceTest {
         return req;
     }
 
-    private PriceConversionResponse okResponseWithPrice(EnumCryptoCurrency to, BigDecimal unitPrice) {
-
-        // status: success
-        PriceConversionResponse.Status status = new PriceConversionResponse.Status();
-        status.setError_code(0);
-        status.setError_message(null);
-
-        // data with quote map
-        PriceConversionResponse.ConversionData data = new PriceConversionResponse.ConversionData();
-        PriceConversionResponse.Quote quote = new PriceConversionResponse.Quote();
-        quote.setPrice(unitPrice);
-        data.setQuote(Map.of(to.name(), quote));
-
-        // assemble response
-        PriceConversionResponse resp = new PriceConversionResponse();
-        resp.setStatus(status);
-        resp.setData(data);
-        return resp;
-
-    }
-
-    private PriceConversionResponse statusOnly(int errorCode, String msg) {
-        PriceConversionResponse.Status status = new PriceConversionResponse.Status();
-        status.setError_code(errorCode);
-        status.setError_message(msg);
-
-        PriceConversionResponse resp = new PriceConversionResponse();
-        resp.setStatus(status);
-        return resp;
-    }
-
     // ---------- convertAndPersist tests ----------
 
     @Test
-    void convertAndPersist_happyPath_savesEntity_andMaps() {
+    void convertAndPersist_whenQuoteBookStale_usesCachedUnitPrice_savesEntity_andMaps() {
         // Given
         ConvertRequest req = makeConvertReq(new BigDecimal("2.5"), EnumCryptoCurrency.BTC, EnumCryptoCurrency.ARB);
 
-        // CMC returns OK with a unitPrice
+        // Quote book has nothing fresh, the unit price cache returns a price
         BigDecimal unitPrice = new BigDecimal("1000");
-        when(cmcClient.priceConversion("2.5", "BTC", null, "ARB", null))
-                .thenReturn(okResponseWithPrice(EnumCryptoCurrency.ARB, unitPrice));
+        when(quoteBookService.rate(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ARB)).thenReturn(null);
+        when(unitPriceCache.get(CryptoPair.of(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ARB))).thenReturn(unitPrice);
 
-        // Repo saves and returns entity
+        // Writer persists and returns entity
         CryptoConvertEntity saved = CryptoConvertEntity.builder()
                 .transactionId(UUID.randomUUID().toString())
                 .amount(req.getAmount())
@@ -100,7 +93,7 @@ class CryptoConvertServiceTest extends AbstractBaseServiceTest {
                 .toCurrency(req.getTo())
                 .convertedAmount(unitPrice.multiply(req.getAmount()))
                 .build();
-        when(cryptoConvertRepository.save(any(CryptoConvertEntity.class))).thenReturn(saved);
+        when(cryptoConvertWriter.write(any(CryptoConvertEntity.class))).thenReturn(saved);
 
         // When
         CryptoConvert out = service.convertAndPersist(req);
@@ -112,89 +105,150 @@ class CryptoConvertServiceTest extends AbstractBaseServiceTest {
         assertThat(out.getAmount()).isEqualByComparingTo(req.getAmount());
         assertThat(out.getConvertedAmount()).isEqualByComparingTo(unitPrice.multiply(req.getAmount()));
 
-        verify(cmcClient, times(1)).priceConversion("2.5", "BTC", null, "ARB", null);
-        verify(cryptoConvertRepository, times(1)).save(any(CryptoConvertEntity.class));
-        verifyNoMoreInteractions(cmcClient, cryptoConvertRepository);
+        verify(unitPriceCache, times(1)).get(CryptoPair.of(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ARB));
+        verify(cryptoConvertWriter, times(1)).write(any(CryptoConvertEntity.class));
+        verifyNoMoreInteractions(unitPriceCache, cryptoConvertWriter);
+        verifyNoInteractions(cmcClient);
     }
 
     @Test
-    void convertAndPersist_whenResponseNull_throws() {
+    void convertAndPersist_whenQuoteBookFresh_pricesLocally_withoutUpstreamCall() {
         // Given
-        ConvertRequest req = makeConvertReq(new BigDecimal("1"), EnumCryptoCurrency.BTC, EnumCryptoCurrency.ARB);
-        when(cmcClient.priceConversion("1", "BTC", null, "ARB", null)).thenReturn(null);
+        ConvertRequest req = makeConvertReq(new BigDecimal("2"), EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH);
+        when(quoteBookService.rate(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH)).thenReturn(new BigDecimal("25"));
+        when(cryptoConvertWriter.write(any(CryptoConvertEntity.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
 
-        // When / Then
-        assertThatThrownBy(() -> service.convertAndPersist(req))
-                .isInstanceOf(ConversionFailedException.class)
-                .hasMessageContaining("Null response or missing status");
+        // When
+        CryptoConvert out = service.convertAndPersist(req);
 
-        verify(cmcClient, times(1)).priceConversion("1", "BTC", null, "ARB", null);
-        verify(cryptoConvertRepository, never()).save(any());
+        // Then
+        assertThat(out.getConvertedAmount()).isEqualByComparingTo("50");
+        assertThat(out.getTransactionId()).isNotBlank();
+
+        verify(cryptoConvertWriter, times(1)).write(any(CryptoConvertEntity.class));
+        verifyNoInteractions(unitPriceCache, cmcClient);
     }
 
     @Test
-    void convertAndPersist_whenStatusErrorCodeNonZero_throws() {
+    void convertAndPersist_whenUpstreamFails_propagates_andDoesNotSave() {
         // Given
         ConvertRequest req = makeConvertReq(new BigDecimal("1"), EnumCryptoCurrency.BTC, EnumCryptoCurrency.ARB);
-        when(cmcClient.priceConversion("1", "BTC", null, "ARB", null))
-                .thenReturn(statusOnly(409, "oops"));
+        when(quoteBookService.rate(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ARB)).thenReturn(null);
+        when(unitPriceCache.get(CryptoPair.of(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ARB)))
+                .thenThrow(new ConversionFailedException("Upstream conversion unavailable"));
 
         // When / Then
         assertThatThrownBy(() -> service.convertAndPersist(req))
                 .isInstanceOf(ConversionFailedException.class)
-                .hasMessageContaining("CMC error: oops");
+                .hasMessageContaining("Upstream conversion unavailable");
 
-        verify(cryptoConvertRepository, never()).save(any());
+        verify(cryptoConvertWriter, never()).write(any());
     }
 
     @Test
-    void convertAndPersist_whenDataNull_throws() {
+    void convertAndPersist_withIdempotencyKey_claimsKeyBeforePricing_andCompletesItOnceWritten() {
         // Given
-        ConvertRequest req = makeConvertReq(new BigDecimal("1"), EnumCryptoCurrency.BTC, EnumCryptoCurrency.ARB);
+        ConvertRequest req = makeConvertReq(new BigDecimal("2"), EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH);
+        when(quoteBookService.rate(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH)).thenReturn(new BigDecimal("25"));
+        when(idempotencyService.execute(eq("key-1"), eq(req), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<CryptoConvert>>getArgument(2).get());
+        when(idempotencyService.claim("key-1", req)).thenReturn(Optional.empty());
+        when(cryptoConvertWriter.write(any(CryptoConvertEntity.class), any())).thenAnswer(invocation -> {
+            invocation.<Consumer<Throwable>>getArgument(1).accept(null);
+            return invocation.getArgument(0);
+        });
 
-        PriceConversionResponse r = statusOnly(0, null);
-        // status ok, but data null
-        when(cmcClient.priceConversion("1", "BTC", null, "ARB", null)).thenReturn(r);
+        // When
+        CryptoConvert out = service.convertAndPersist(req, "key-1");
 
-        // When / Then
-        assertThatThrownBy(() -> service.convertAndPersist(req))
-                .isInstanceOf(ConversionFailedException.class)
-                .hasMessageContaining("response has no data");
+        // Then
+        assertThat(out.getConvertedAmount()).isEqualByComparingTo("50");
+        assertThat(out.getCreatedAt()).isNotNull();
+
+        InOrder order = inOrder(idempotencyService, quoteBookService, cryptoConvertWriter);
+        order.verify(idempotencyService).claim("key-1", req);
+        order.verify(quoteBookService).rate(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH);
+        order.verify(cryptoConvertWriter).write(any(CryptoConvertEntity.class), any());
+        order.verify(idempotencyService).complete(eq("key-1"), eq(req), any(CryptoConvert.class));
+        verify(idempotencyService, never()).release(any());
+    }
+
+    @Test
+    void convertAndPersist_whenKeyClaimedConcurrently_returnsFirstConversion_andDoesNotWrite() {
+        // Given
+        ConvertRequest req = makeConvertReq(new BigDecimal("2"), EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH);
+        CryptoConvert first = CryptoConvert.builder().transactionId("first").build();
+        when(idempotencyService.execute(eq("key-1"), eq(req), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<CryptoConvert>>getArgument(2).get());
+        when(idempotencyService.claim("key-1", req)).thenReturn(Optional.of(first));
 
-        verify(cryptoConvertRepository, never()).save(any());
+        // When
+        CryptoConvert out = service.convertAndPersist(req, "key-1");
+
+        // Then
+        assertThat(out).isSameAs(first);
+        verifyNoInteractions(quoteBookService, unitPriceCache, cryptoConvertWriter);
     }
 
     @Test
-    void convertAndPersist_whenMissingQuoteForTarget_throws() {
+    void convertAndPersist_whenWriteFails_releasesKey() {
         // Given
-        ConvertRequest req = makeConvertReq(new BigDecimal("1"), EnumCryptoCurrency.BTC, EnumCryptoCurrency.ARB);
+        ConvertRequest req = makeConvertReq(new BigDecimal("2"), EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH);
+        when(quoteBookService.rate(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH)).thenReturn(new BigDecimal("25"));
+        when(idempotencyService.execute(eq("key-1"), eq(req), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<CryptoConvert>>getArgument(2).get());
+        when(idempotencyService.claim("key-1", req)).thenReturn(Optional.empty());
+        ConversionWriteBacklogException full = new ConversionWriteBacklogException("write queue is full");
+        when(cryptoConvertWriter.write(any(CryptoConvertEntity.class), any())).thenAnswer(invocation -> {
+            invocation.<Consumer<Throwable>>getArgument(1).accept(full);
+            throw full;
+        });
+
+        // When / Then
+        assertThatThrownBy(() -> service.convertAndPersist(req, "key-1"))
+                .isInstanceOf(ConversionWriteBacklogException.class);
 
-        // Prepare response with a different quote (e.g., ETH)
-        PriceConversionResponse ok = okResponseWithPrice(EnumCryptoCurrency.ETH, new BigDecimal("123"));
-        when(cmcClient.priceConversion("1", "BTC", null, "ARB", null)).thenReturn(ok);
+        verify(idempotencyService).release("key-1");
+        verify(idempotencyService, never()).complete(any(), any(), any());
+    }
+
+    @Test
+    void convertAndPersist_whenWriteOutcomeUnknown_keepsKeyClaimed() {
+        // Given: the durable ack timed out while the conversion was being inserted, so the writer settles it later
+        ConvertRequest req = makeConvertReq(new BigDecimal("2"), EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH);
+        when(quoteBookService.rate(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH)).thenReturn(new BigDecimal("25"));
+        when(idempotencyService.execute(eq("key-1"), eq(req), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<CryptoConvert>>getArgument(2).get());
+        when(idempotencyService.claim("key-1", req)).thenReturn(Optional.empty());
+        when(cryptoConvertWriter.write(any(CryptoConvertEntity.class), any()))
+                .thenThrow(new ConversionWriteBacklogException("not flushed within 2000 ms"));
 
         // When / Then
-        assertThatThrownBy(() -> service.convertAndPersist(req))
-                .isInstanceOf(ConversionFailedException.class)
-                .hasMessageContaining("No quote for ARB");
+        assertThatThrownBy(() -> service.convertAndPersist(req, "key-1"))
+                .isInstanceOf(ConversionWriteBacklogException.class);
 
-        verify(cryptoConvertRepository, never()).save(any());
+        verify(idempotencyService, never()).release(any());
+        verify(idempotencyService, never()).complete(any(), any(), any());
     }
 
     @Test
-    void convertAndPersist_whenUnitPriceNull_throws() {
+    void convertAndPersist_whenPricingFailsAfterClaim_releasesKey() {
         // Given
-        ConvertRequest req = makeConvertReq(new BigDecimal("1"), EnumCryptoCurrency.BTC, EnumCryptoCurrency.ARB);
-
-        PriceConversionResponse ok = okResponseWithPrice(EnumCryptoCurrency.ARB, null);
-        when(cmcClient.priceConversion("1", "BTC", null, "ARB", null)).thenReturn(ok);
+        ConvertRequest req = makeConvertReq(new BigDecimal("2"), EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH);
+        when(idempotencyService.execute(eq("key-1"), eq(req), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<CryptoConvert>>getArgument(2).get());
+        when(idempotencyService.claim("key-1", req)).thenReturn(Optional.empty());
+        when(unitPriceCache.get(CryptoPair.of(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH)))
+                .thenThrow(new ConversionFailedException("Upstream conversion unavailable"));
 
         // When / Then
-        assertThatThrownBy(() -> service.convertAndPersist(req))
-                .isInstanceOf(ConversionFailedException.class)
-                .hasMessageContaining("quote has null price");
+        assertThatThrownBy(() -> service.convertAndPersist(req, "key-1"))
+                .isInstanceOf(ConversionFailedException.class);
 
-        verify(cryptoConvertRepository, never()).save(any());
+        verify(idempotencyService).release("key-1");
+        verify(idempotencyService, never()).complete(any(), any(), any());
+        verifyNoInteractions(cryptoConvertWriter);
     }
 
     @Test
@@ -233,7 +287,8 @@ class CryptoConvertServiceTest extends AbstractBaseServiceTest {
         Page<CryptoConvertEntity> repoPage = new PageImpl<>(List.of(e),
                 PageRequest.of(0, 10, Sort.by(Sort.Order.desc("createdAt"))), 1);
 
-        when(cryptoConvertRepository.searchWithCriteria(eq(filter), any(Pageable.class)))
+        HistoryQuery expectedQuery = HistoryQuery.of(filter, PageRequest.of(0, 10, Sort.by(Sort.Order.desc("createdAt"))));
+        when(cryptoConvertRepository.searchWithCriteria(expectedQuery))
                 .thenReturn(repoPage);
 
         // When
@@ -253,7 +308,7 @@ class CryptoConvertServiceTest extends AbstractBaseServiceTest {
         assertThat(out.getTotalElementCount()).isEqualTo(1);
         assertThat(out.getTotalPageCount()).isEqualTo(1);
 
-        verify(cryptoConvertRepository, times(1)).searchWithCriteria(eq(filter), any(Pageable.class));
+        verify(cryptoConvertRepository, times(1)).searchWithCriteria(expectedQuery);
         verifyNoMoreInteractions(cryptoConvertRepository);
     }
 
@@ -274,7 +329,7 @@ class CryptoConvertServiceTest extends AbstractBaseServiceTest {
         Page<CryptoConvertEntity> repoPage = new PageImpl<>(List.of(e),
                 PageRequest.of(1, 20, Sort.by(Sort.Order.desc("createdAt"))), 1);
 
-        when(cryptoConvertRepository.searchWithCriteria(isNull(), any(Pageable.class)))
+        when(cryptoConvertRepository.searchWithCriteria(HistoryQuery.of(null, HistoryQuery.DEFAULT_PAGEABLE)))
                 .thenReturn(repoPage);
 
         // When
@@ -284,20 +339,7 @@ class CryptoConvertServiceTest extends AbstractBaseServiceTest {
         assertThat(out.getContent()).hasSize(1);
         assertThat(out.getContent().get(0).getTransactionId()).isEqualTo("tx-2");
 
-        verify(cryptoConvertRepository, times(1)).searchWithCriteria(isNull(), any(Pageable.class));
-    }
-
-    @Test
-    void fallbackConvertAndPersist_alwaysThrowsWrapped() {
-        // Given
-        ConvertRequest req = makeConvertReq(new BigDecimal("1"), EnumCryptoCurrency.BTC, EnumCryptoCurrency.ARB);
-        RuntimeException cause = new RuntimeException("io timeout");
-
-        // When / Then
-        assertThatThrownBy(() -> service.fallbackConvertAndPersist(req, cause))
-                .isInstanceOf(ConversionFailedException.class)
-                .hasMessageContaining("Upstream conversion unavailable")
-                .hasCause(cause);
+        verify(cryptoConvertRepository, times(1)).searchWithCriteria(HistoryQuery.of(null, HistoryQuery.DEFAULT_PAGEABLE));
     }
 
     @Test
@@ -335,6 +377,7 @@ class CryptoConvertServiceTest extends AbstractBaseServiceTest {
         assertThat(page.getTotalElementCount()).isEqualTo(2);
         assertThat(page.getTotalPageCount()).isEqualTo(2); // full page => page(0)+2
 
+        verify(cmcBudgetScheduler, times(1)).acquire(EnumCmcCallPriority.DIRECTORY);
         verify(cmcClient, times(1)).cryptoMap(1, 2, "cmc_rank");
         verifyNoInteractions(cryptoConvertRepository);
         verifyNoMoreInteractions(cmcClient);
@@ -377,6 +420,33 @@ class CryptoConvertServiceTest extends AbstractBaseServiceTest {
 
     }
 
+    @Test
+    void listCryptoNamesSymbols_whenDirectoryLoaded_servesLocalPage_withoutUpstreamCall() {
+
+        // Given
+        CustomPagingRequest paging = CustomPagingRequest.builder()
+                .pagination(CustomPaging.builder().pageNumber(2).pageSize(1).build())
+                .build();
+        CustomPage<CryptoNameSymbol> localPage = CustomPage.<CryptoNameSymbol>builder()
+                .content(List.of(new CryptoNameSymbol("Ethereum", "ETH")))
+                .pageNumber(2)
+                .pageSize(1)
+                .totalElementCount(2L)
+                .totalPageCount(2)
+                .build();
+        when(cryptoDirectoryService.page(any(Pageable.class))).thenReturn(Optional.of(localPage));
+
+        // When
+        CustomPage<CryptoNameSymbol> page = service.listCryptoNamesSymbols(paging);
+
+        // Then
+        assertThat(page).isSameAs(localPage);
+
+        // Verify
+        verifyNoInteractions(cmcClient, cmcBudgetScheduler);
+
+    }
+
     @Test
     void listCryptoNamesSymbols_withNullPaging_usesDefaultPageable_andHandlesNullResponse() {
 
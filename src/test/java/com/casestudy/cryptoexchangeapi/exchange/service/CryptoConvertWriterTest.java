@@ -0,0 +1,311 @@
+package com.casestudy.cryptoexchangeapi.exchange.service;
+
+import com.casestudy.cryptoexchangeapi.base.AbstractBaseServiceTest;
+import com.casestudy.cryptoexchangeapi.exchange.cache.HistoryKeyIndex;
+import com.casestudy.cryptoexchangeapi.exchange.config.ConversionWriteProperties;
+import com.casestudy.cryptoexchangeapi.exchange.exception.ConversionWriteBacklogException;
+import com.casestudy.cryptoexchangeapi.exchange.model.entity.CryptoConvertEntity;
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumConversionWriteAck;
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCryptoCurrency;
+import com.casestudy.cryptoexchangeapi.exchange.repository.CryptoConvertRepository;
+import com.casestudy.cryptoexchangeapi.exchange.utils.Constants;
+import com.mongodb.bulk.BulkWriteError;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class CryptoConvertWriterTest extends AbstractBaseServiceTest {
+
+    @Mock
+    private CryptoConvertRepository cryptoConvertRepository;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    private ConversionWriteProperties properties;
+    private ConcurrentMapCacheManager cacheManager;
+    private SimpleMeterRegistry meterRegistry;
+
+    private final List<Integer> insertedBatches = new CopyOnWriteArrayList<>();
+
+    private final ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor();
+
+    private CryptoConvertWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ConversionWriteProperties();
+        properties.setEnabled(true);
+        cacheManager = new ConcurrentMapCacheManager(Constants.EXCHANGE);
+        meterRegistry = new SimpleMeterRegistry();
+
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CryptoConvertEntity.class)).thenReturn(bulkOperations);
+        when(bulkOperations.insert(anyList())).thenAnswer(invocation -> {
+            insertedBatches.add(invocation.<List<?>>getArgument(0).size());
+            return bulkOperations;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (writer != null) {
+            writer.shutdown();
+        }
+        callers.shutdownNow();
+    }
+
+    @Test
+    void write_whenDisabled_savesEachConversion() {
+        // Given
+        properties.setEnabled(false);
+        writer = newWriter();
+        CryptoConvertEntity entity = entity();
+        when(cryptoConvertRepository.save(entity)).thenReturn(entity);
+
+        // When
+        CryptoConvertEntity saved = writer.write(entity);
+
+        // Then
+        assertThat(saved).isSameAs(entity);
+        verify(cryptoConvertRepository, times(1)).save(entity);
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void write_durable_batchesConcurrentConversionsIntoOneBulkInsert() throws Exception {
+        // Given
+        properties.setBatchSize(3);
+        properties.setFlushInterval(5000);
+        writer = newWriter();
+
+        // When
+        CompletableFuture<?> all = CompletableFuture.allOf(
+                CompletableFuture.supplyAsync(() -> writer.write(entity()), callers),
+                CompletableFuture.supplyAsync(() -> writer.write(entity()), callers),
+                CompletableFuture.supplyAsync(() -> writer.write(entity()), callers));
+        all.get(2, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(insertedBatches).containsExactly(3);
+        verify(bulkOperations, times(1)).execute();
+        verify(cryptoConvertRepository, never()).save(any());
+        DistributionSummary flushSize = meterRegistry.find("conversion.write.flush.size").summary();
+        assertThat(flushSize.count()).isEqualTo(1);
+        assertThat(flushSize.totalAmount()).isEqualTo(3);
+        assertThat(meterRegistry.find("conversion.write.flush.latency").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void write_durable_flushesPartialBatchAfterInterval() {
+        // Given
+        properties.setFlushInterval(20);
+        writer = newWriter();
+        cacheManager.getCache(Constants.EXCHANGE).put("page", "stale");
+
+        // When
+        writer.write(entity());
+        writer.shutdown();
+
+        // Then
+        assertThat(insertedBatches).containsExactly(1);
+        assertThat(cacheManager.getCache(Constants.EXCHANGE).get("page")).isNull();
+    }
+
+    @Test
+    void write_durable_returnsBeforeTheHistoryCacheIsInvalidated() throws Exception {
+        // Given
+        properties.setFlushInterval(20);
+        HistoryCacheInvalidator invalidator = mock(HistoryCacheInvalidator.class);
+        CountDownLatch release = new CountDownLatch(1);
+        when(invalidator.evict(anyList())).thenAnswer(invocation -> {
+            release.await(2, TimeUnit.SECONDS);
+            return 0;
+        });
+        writer = new CryptoConvertWriter(cryptoConvertRepository, mongoTemplate, properties, invalidator, meterRegistry);
+
+        // When
+        CompletableFuture<CryptoConvertEntity> written =
+                CompletableFuture.supplyAsync(() -> writer.write(entity()), callers);
+
+        // Then
+        assertThat(written.get(1, TimeUnit.SECONDS)).isNotNull();
+        release.countDown();
+        writer.shutdown();
+        verify(invalidator, times(1)).evict(anyList());
+    }
+
+    @Test
+    void write_durable_whenDocumentRejected_failsOnlyThatConversion() {
+        // Given
+        properties.setBatchSize(2);
+        properties.setFlushInterval(5000);
+        writer = newWriter();
+        BulkOperationException rejected = mock(BulkOperationException.class);
+        when(rejected.getErrors()).thenReturn(List.of(new BulkWriteError(11000, "duplicate key", new BsonDocument(), 1)));
+        when(bulkOperations.execute()).thenThrow(rejected);
+
+        // When
+        List<CompletableFuture<CryptoConvertEntity>> writes = List.of(
+                CompletableFuture.supplyAsync(() -> writer.write(entity()), callers),
+                CompletableFuture.supplyAsync(() -> writer.write(entity()), callers));
+        CompletableFuture.allOf(writes.toArray(CompletableFuture[]::new)).handle((ignored, ex) -> null).join();
+
+        // Then
+        assertThat(writes).filteredOn(CompletableFuture::isCompletedExceptionally).hasSize(1);
+        assertThat(insertedBatches).containsExactly(2);
+        assertThat(documents("written")).isEqualTo(1);
+        assertThat(documents("failed")).isEqualTo(1);
+    }
+
+    @Test
+    void write_enqueued_returnsBeforeFlush_andRejectsWhenQueueIsFull() throws Exception {
+        // Given: the flusher is stuck inserting the first conversion
+        properties.setAck(EnumConversionWriteAck.ENQUEUED);
+        properties.setQueueCapacity(1);
+        properties.setBatchSize(1);
+        CountDownLatch inserting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(bulkOperations.execute()).thenAnswer(invocation -> {
+            inserting.countDown();
+            release.await(2, TimeUnit.SECONDS);
+            return null;
+        });
+        writer = newWriter();
+        writer.write(entity());
+        assertThat(inserting.await(2, TimeUnit.SECONDS)).isTrue();
+
+        // When
+        writer.write(entity());
+
+        // Then
+        assertThatThrownBy(() -> writer.write(entity()))
+                .isInstanceOf(ConversionWriteBacklogException.class)
+                .hasMessageContaining("write queue is full");
+        assertThat(documents("rejected")).isEqualTo(1);
+        release.countDown();
+    }
+
+    @Test
+    void write_durable_whenAckTimesOutWhileQueued_withdrawsIt_andSettlesAsFailed() throws Exception {
+        // Given: the flusher is stuck inserting the first conversion, so the second one stays queued
+        properties.setBatchSize(1);
+        properties.setAckTimeout(50);
+        CountDownLatch inserting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(bulkOperations.execute()).thenAnswer(invocation -> {
+            inserting.countDown();
+            release.await(2, TimeUnit.SECONDS);
+            return null;
+        });
+        writer = newWriter();
+        CompletableFuture.runAsync(() -> writer.write(entity()), callers).handle((ignored, ex) -> null);
+        assertThat(inserting.await(2, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Throwable> settled = new CompletableFuture<>();
+
+        // When
+        assertThatThrownBy(() -> writer.write(entity(), settled::complete))
+                .isInstanceOf(ConversionWriteBacklogException.class)
+                .hasMessageContaining("not flushed within 50 ms");
+        release.countDown();
+        writer.shutdown();
+
+        // Then
+        assertThat(settled.getNow(null)).isInstanceOf(ConversionWriteBacklogException.class);
+        assertThat(insertedBatches).containsExactly(1);
+        assertThat(writer.queueDepth()).isZero();
+    }
+
+    @Test
+    void write_durable_whenAckTimesOutWhileInserting_settlesOnceTheFlushEnds() throws Exception {
+        // Given
+        properties.setBatchSize(1);
+        properties.setAckTimeout(50);
+        CountDownLatch release = new CountDownLatch(1);
+        when(bulkOperations.execute()).thenAnswer(invocation -> {
+            release.await(2, TimeUnit.SECONDS);
+            return null;
+        });
+        writer = newWriter();
+        CompletableFuture<Throwable> settled = new CompletableFuture<>();
+
+        // When
+        assertThatThrownBy(() -> writer.write(entity(), settled::complete))
+                .isInstanceOf(ConversionWriteBacklogException.class);
+        boolean settledBeforeFlush = settled.isDone();
+        release.countDown();
+
+        // Then
+        assertThat(settledBeforeFlush).isFalse();
+        assertThat(settled.get(2, TimeUnit.SECONDS)).isNull();
+        assertThat(insertedBatches).containsExactly(1);
+    }
+
+    @Test
+    void shutdown_drainsQueuedConversions() {
+        // Given
+        properties.setAck(EnumConversionWriteAck.ENQUEUED);
+        properties.setFlushInterval(60000);
+        writer = newWriter();
+        writer.write(entity());
+        writer.write(entity());
+
+        // When
+        writer.shutdown();
+
+        // Then
+        assertThat(insertedBatches).containsExactly(2);
+        assertThat(writer.queueDepth()).isZero();
+        assertThatThrownBy(() -> writer.write(entity()))
+                .isInstanceOf(ConversionWriteBacklogException.class)
+                .hasMessageContaining("writer stopped");
+    }
+
+    private CryptoConvertWriter newWriter() {
+        return new CryptoConvertWriter(cryptoConvertRepository, mongoTemplate, properties,
+                new HistoryCacheInvalidator(cacheManager, meterRegistry, Optional.empty(), new HistoryKeyIndex(),
+                        event -> { }), meterRegistry);
+    }
+
+    private double documents(String outcome) {
+        return meterRegistry.find("conversion.write.documents").tag("outcome", outcome).counter().count();
+    }
+
+    private static CryptoConvertEntity entity() {
+        return CryptoConvertEntity.builder()
+                .transactionId(UUID.randomUUID().toString())
+                .amount(BigDecimal.ONE)
+                .fromCurrency(EnumCryptoCurrency.BTC)
+                .toCurrency(EnumCryptoCurrency.ETH)
+                .convertedAmount(new BigDecimal("25"))
+                .build();
+    }
+
+}
@@ -0,0 +1,192 @@
+package com.casestudy.cryptoexchangeapi.exchange.service;
+
+import com.casestudy.cryptoexchangeapi.base.AbstractBaseServiceTest;
+import com.casestudy.cryptoexchangeapi.common.model.CustomPage;
+import com.casestudy.cryptoexchangeapi.exchange.config.CryptoDirectoryProperties;
+import com.casestudy.cryptoexchangeapi.exchange.feign.CmcClient;
+import com.casestudy.cryptoexchangeapi.exchange.model.dto.response.CryptoMapResponse;
+import com.casestudy.cryptoexchangeapi.exchange.model.dto.response.CryptoNameSymbol;
+import com.casestudy.cryptoexchangeapi.exchange.model.entity.CryptoDirectorySnapshotEntity;
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCmcCallPriority;
+import com.casestudy.cryptoexchangeapi.exchange.model.event.CryptoDirectoryRefreshedEvent;
+import com.casestudy.cryptoexchangeapi.exchange.repository.CryptoDirectorySnapshotRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class CryptoDirectoryServiceTest extends AbstractBaseServiceTest {
+
+    @Mock
+    private CmcClient cmcClient;
+
+    @Mock
+    private CmcBudgetScheduler cmcBudgetScheduler;
+
+    @Mock
+    private CryptoDirectorySnapshotRepository cryptoDirectorySnapshotRepository;
+
+    @Mock
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    private CryptoDirectoryProperties properties;
+
+    private CryptoDirectoryService cryptoDirectoryService;
+
+    @BeforeEach
+    void setUp() {
+        properties = new CryptoDirectoryProperties();
+        properties.setPageLimit(2);
+        cryptoDirectoryService = new CryptoDirectoryService(cmcClient, cmcBudgetScheduler, properties,
+                cryptoDirectorySnapshotRepository, applicationEventPublisher);
+    }
+
+    @Test
+    void page_beforeFirstLoad_isEmpty() {
+        assertThat(cryptoDirectoryService.page(PageRequest.of(0, 20))).isEmpty();
+    }
+
+    @Test
+    void refresh_fetchesEveryUpstreamPage_andServesExactTotals() {
+        // Given
+        when(cmcClient.cryptoMap(1, 2, "cmc_rank")).thenReturn(map("BTC", "ETH"));
+        when(cmcClient.cryptoMap(3, 2, "cmc_rank")).thenReturn(map("USDT"));
+
+        // When
+        cryptoDirectoryService.refresh();
+        Optional<CustomPage<CryptoNameSymbol>> page = cryptoDirectoryService.page(PageRequest.of(1, 2));
+
+        // Then
+        assertThat(page).isPresent();
+        assertThat(page.get().getContent()).extracting(CryptoNameSymbol::getSymbol).containsExactly("USDT");
+        assertThat(page.get().getPageNumber()).isEqualTo(2);
+        assertThat(page.get().getTotalElementCount()).isEqualTo(3);
+        assertThat(page.get().getTotalPageCount()).isEqualTo(2);
+        verify(cmcBudgetScheduler, times(2)).acquire(EnumCmcCallPriority.DIRECTORY);
+        verify(cryptoDirectorySnapshotRepository, times(1)).save(any(CryptoDirectorySnapshotEntity.class));
+    }
+
+    @Test
+    void page_beyondLastListing_isEmptyPageWithTotals() {
+        // Given
+        when(cmcClient.cryptoMap(1, 2, "cmc_rank")).thenReturn(map("BTC"));
+        cryptoDirectoryService.refresh();
+
+        // When
+        CustomPage<CryptoNameSymbol> page = cryptoDirectoryService.page(PageRequest.of(5, 20)).orElseThrow();
+
+        // Then
+        assertThat(page.getContent()).isEmpty();
+        assertThat(page.getTotalElementCount()).isEqualTo(1);
+        assertThat(page.getTotalPageCount()).isEqualTo(1);
+    }
+
+    @Test
+    void refresh_whenMapUnchanged_keepsDirectory_andDoesNotPersist() {
+        // Given
+        when(cmcClient.cryptoMap(1, 2, "cmc_rank")).thenReturn(map("BTC"));
+        cryptoDirectoryService.refresh();
+        Instant firstRefresh = cryptoDirectoryService.snapshot().refreshedAt();
+
+        // When
+        cryptoDirectoryService.refresh();
+
+        // Then
+        assertThat(cryptoDirectoryService.snapshot().refreshedAt()).isEqualTo(firstRefresh);
+        verify(cryptoDirectorySnapshotRepository, times(1)).save(any(CryptoDirectorySnapshotEntity.class));
+        verify(applicationEventPublisher, times(1)).publishEvent(any(CryptoDirectoryRefreshedEvent.class));
+    }
+
+    @Test
+    void refresh_whenUpstreamFails_keepsDirectory() {
+        // Given
+        when(cmcClient.cryptoMap(1, 2, "cmc_rank")).thenReturn(map("BTC"));
+        cryptoDirectoryService.refresh();
+        when(cmcClient.cryptoMap(1, 2, "cmc_rank")).thenThrow(new RuntimeException("boom"));
+
+        // When
+        cryptoDirectoryService.refresh();
+
+        // Then
+        assertThat(cryptoDirectoryService.snapshot().size()).isEqualTo(1);
+    }
+
+    @Test
+    void restoreSnapshot_loadsPersistedListings() {
+        // Given
+        when(cryptoDirectorySnapshotRepository.findById(CryptoDirectorySnapshotEntity.LATEST_ID)).thenReturn(Optional.of(
+                CryptoDirectorySnapshotEntity.builder()
+                        .id(CryptoDirectorySnapshotEntity.LATEST_ID)
+                        .refreshedAt(Instant.parse("2025-10-01T00:00:00Z"))
+                        .listings(List.of(CryptoDirectorySnapshotEntity.Listing.builder()
+                                .id(1L).name("Bitcoin").symbol("BTC").build()))
+                        .build()));
+
+        // When
+        cryptoDirectoryService.restoreSnapshot();
+
+        // Then
+        assertThat(cryptoDirectoryService.snapshot().symbol(0)).isEqualTo("BTC");
+        verifyNoInteractions(cmcClient);
+    }
+
+    @Test
+    void restoreSnapshot_afterRefresh_keepsFetchedDirectory() {
+        // Given
+        when(cmcClient.cryptoMap(1, 2, "cmc_rank")).thenReturn(map("ETH"));
+        cryptoDirectoryService.refresh();
+        when(cryptoDirectorySnapshotRepository.findById(CryptoDirectorySnapshotEntity.LATEST_ID)).thenReturn(Optional.of(
+                CryptoDirectorySnapshotEntity.builder()
+                        .listings(List.of(CryptoDirectorySnapshotEntity.Listing.builder()
+                                .id(1L).name("Bitcoin").symbol("BTC").build()))
+                        .build()));
+
+        // When
+        cryptoDirectoryService.restoreSnapshot();
+
+        // Then
+        assertThat(cryptoDirectoryService.snapshot().symbol(0)).isEqualTo("ETH");
+    }
+
+    @Test
+    void refresh_persistsListingsInRankOrder() {
+        // Given
+        when(cmcClient.cryptoMap(1, 2, "cmc_rank")).thenReturn(map("BTC", "ETH"));
+        when(cmcClient.cryptoMap(3, 2, "cmc_rank")).thenReturn(map());
+
+        // When
+        cryptoDirectoryService.refresh();
+
+        // Then
+        ArgumentCaptor<CryptoDirectorySnapshotEntity> saved = ArgumentCaptor.forClass(CryptoDirectorySnapshotEntity.class);
+        verify(cryptoDirectorySnapshotRepository).save(saved.capture());
+        assertThat(saved.getValue().getId()).isEqualTo(CryptoDirectorySnapshotEntity.LATEST_ID);
+        assertThat(saved.getValue().getListings())
+                .extracting(CryptoDirectorySnapshotEntity.Listing::getSymbol)
+                .containsExactly("BTC", "ETH");
+    }
+
+    private static CryptoMapResponse map(String... symbols) {
+        CryptoMapResponse response = new CryptoMapResponse();
+        response.setData(Arrays.stream(symbols).map(symbol -> {
+            CryptoMapResponse.Item item = new CryptoMapResponse.Item();
+            item.setId((long) symbol.hashCode());
+            item.setName(symbol + " name");
+            item.setSymbol(symbol);
+            return item;
+        }).toList());
+        return response;
+    }
+
+}
@@ -0,0 +1,131 @@
+package com.casestudy.cryptoexchangeapi.exchange.service;
+
+import com.casestudy.cryptoexchangeapi.base.AbstractBaseServiceTest;
+import com.casestudy.cryptoexchangeapi.exchange.config.CryptoSearchProperties;
+import com.casestudy.cryptoexchangeapi.exchange.model.CryptoDirectory;
+import com.casestudy.cryptoexchangeapi.exchange.model.CryptoListing;
+import com.casestudy.cryptoexchangeapi.exchange.model.dto.response.CryptoNameSymbol;
+import com.casestudy.cryptoexchangeapi.exchange.model.event.CryptoDirectoryRefreshedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CryptoSearchServiceTest extends AbstractBaseServiceTest {
+
+    private CryptoSearchProperties properties;
+
+    private final List<Runnable> rebuilds = new ArrayList<>();
+
+    private CryptoSearchService cryptoSearchService;
+
+    @BeforeEach
+    void setUp() {
+        properties = new CryptoSearchProperties();
+        cryptoSearchService = new CryptoSearchService(properties, rebuilds::add);
+        cryptoSearchService.onDirectoryRefreshed(new CryptoDirectoryRefreshedEvent(directory(
+                listing("Bitcoin", "BTC"),
+                listing("Ethereum", "ETH"),
+                listing("Bitcoin Cash", "BCH"),
+                listing("BitTorrent", "BTT"),
+                listing("Wrapped Bitcoin", "WBTC"),
+                listing("Pokémon Coin", "POKE"))));
+        runRebuilds();
+    }
+
+    @Test
+    void search_byNamePrefix_ranksByDirectoryOrder() {
+        // When
+        List<CryptoNameSymbol> results = cryptoSearchService.search("bit", 3);
+
+        // Then
+        assertThat(results).extracting(CryptoNameSymbol::getName)
+                .containsExactly("Bitcoin", "Bitcoin Cash", "BitTorrent");
+    }
+
+    @Test
+    void search_exactSymbol_comesFirst() {
+        // When
+        List<CryptoNameSymbol> results = cryptoSearchService.search("BTC", 10);
+
+        // Then
+        assertThat(results).extracting(CryptoNameSymbol::getSymbol).startsWith("BTC");
+    }
+
+    @Test
+    void search_foldsCaseAndDiacritics_andMatchesLaterWords() {
+        // When
+        List<CryptoNameSymbol> pokemon = cryptoSearchService.search("POKEMON", 10);
+        List<CryptoNameSymbol> wrapped = cryptoSearchService.search("bitcoin", 10);
+
+        // Then
+        assertThat(pokemon).extracting(CryptoNameSymbol::getSymbol).containsExactly("POKE");
+        assertThat(wrapped).extracting(CryptoNameSymbol::getSymbol).contains("WBTC");
+        assertThat(wrapped.getFirst().getSymbol()).isEqualTo("BTC");
+    }
+
+    @Test
+    void search_withTypo_fallsBackToEditDistance() {
+        // When
+        List<CryptoNameSymbol> results = cryptoSearchService.search("etherum", 1);
+
+        // Then
+        assertThat(results).extracting(CryptoNameSymbol::getSymbol).containsExactly("ETH");
+    }
+
+    @Test
+    void search_withTypo_whenFuzzyDisabled_findsNothing() {
+        // Given
+        properties.setFuzzy(false);
+
+        // When / Then
+        assertThat(cryptoSearchService.search("etherum", 10)).isEmpty();
+    }
+
+    @Test
+    void search_beforeDirectoryLoaded_usesSupportedCurrencies() {
+        // Given
+        CryptoSearchService fresh = new CryptoSearchService(properties, Runnable::run);
+
+        // When
+        List<CryptoNameSymbol> results = fresh.search("bitc", 10);
+
+        // Then
+        assertThat(results).extracting(CryptoNameSymbol::getSymbol).contains("BTC", "BCH");
+    }
+
+    @Test
+    void onDirectoryRefreshed_coalescesPendingRefreshes_andSwapsIndex() {
+        // Given
+        cryptoSearchService.onDirectoryRefreshed(new CryptoDirectoryRefreshedEvent(directory(listing("Solana", "SOL"))));
+        cryptoSearchService.onDirectoryRefreshed(new CryptoDirectoryRefreshedEvent(directory(listing("Cardano", "ADA"))));
+
+        // When
+        int scheduled = rebuilds.size();
+        runRebuilds();
+
+        // Then
+        assertThat(scheduled).isEqualTo(1);
+        assertThat(cryptoSearchService.search("carda", 10)).extracting(CryptoNameSymbol::getSymbol).containsExactly("ADA");
+        assertThat(cryptoSearchService.search("bitcoin c", 10)).extracting(CryptoNameSymbol::getSymbol).startsWith("BCH");
+    }
+
+    private void runRebuilds() {
+        List<Runnable> scheduled = new ArrayList<>(rebuilds);
+        rebuilds.clear();
+        scheduled.forEach(Runnable::run);
+    }
+
+    private static CryptoDirectory directory(CryptoListing... listings) {
+        return CryptoDirectory.of(List.of(listings), Instant.now());
+    }
+
+    private static CryptoListing listing(String name, String symbol) {
+        return new CryptoListing((long) symbol.hashCode(), name, symbol);
+    }
+
+}
@@ -0,0 +1,175 @@
+package com.casestudy.cryptoexchangeapi.exchange.service;
+
+import com.casestudy.cryptoexchangeapi.exchange.cache.HistoryAccessTracker;
+import com.casestudy.cryptoexchangeapi.exchange.cache.HistoryKeyIndex;
+import com.casestudy.cryptoexchangeapi.exchange.cache.InMemorySharedHistoryTier;
+import com.casestudy.cryptoexchangeapi.exchange.config.HistoryCacheProperties;
+import com.casestudy.cryptoexchangeapi.exchange.config.SpringCachingConfig;
+import com.casestudy.cryptoexchangeapi.exchange.model.HistoryQuery;
+import com.casestudy.cryptoexchangeapi.exchange.model.dto.request.ListCryptoConvertRequest;
+import com.casestudy.cryptoexchangeapi.exchange.model.entity.CryptoConvertEntity;
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCryptoCurrency;
+import com.casestudy.cryptoexchangeapi.exchange.utils.Constants;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HistoryCacheInvalidatorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private Cache cache;
+
+    private HistoryKeyIndex keyIndex;
+
+    private HistoryCacheInvalidator invalidator;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        HistoryCacheProperties properties = new HistoryCacheProperties();
+        keyIndex = new HistoryKeyIndex();
+        CacheManager cacheManager = new SpringCachingConfig().cacheManager(meterRegistry, properties, key -> null,
+                Optional.empty(), new HistoryAccessTracker(properties), keyIndex);
+        cache = cacheManager.getCache(Constants.EXCHANGE);
+        invalidator = new HistoryCacheInvalidator(cacheManager, meterRegistry, Optional.empty(), keyIndex, event -> { });
+    }
+
+    @Test
+    void evict_removesOnlyPagesTheConversionCanChange() {
+        // Given
+        HistoryQuery everything = query(null, null, null);
+        HistoryQuery btcPage1 = query(EnumCryptoCurrency.BTC, null, null);
+        HistoryQuery btcPage2 = HistoryQuery.of(filter(EnumCryptoCurrency.BTC, null, null), PageRequest.of(1, 20));
+        HistoryQuery sol = query(EnumCryptoCurrency.SOL, null, null);
+        HistoryQuery yesterday = query(null, LocalDateTime.now().minusDays(2), LocalDateTime.now().minusDays(1));
+        List.of(everything, btcPage1, btcPage2, sol, yesterday).forEach(key -> cache.put(key, "page"));
+
+        // When
+        int evicted = invalidator.evict(List.of(conversion(EnumCryptoCurrency.BTC)));
+
+        // Then
+        assertThat(evicted).isEqualTo(3);
+        assertThat(cache.get(everything)).isNull();
+        assertThat(cache.get(btcPage1)).isNull();
+        assertThat(cache.get(btcPage2)).isNull();
+        assertThat(cache.get(sol)).isNotNull();
+        assertThat(cache.get(yesterday)).isNotNull();
+        assertThat(invalidations("evicted")).isEqualTo(3);
+        assertThat(invalidations("retained")).isEqualTo(2);
+        assertThat(keyIndex.indexes(((com.github.benmanes.caffeine.cache.Cache<?, ?>) cache.getNativeCache()).asMap()))
+                .isTrue();
+    }
+
+    @Test
+    void evict_withoutConversions_keepsEverything() {
+        // Given
+        cache.put(query(null, null, null), "page");
+
+        // When
+        int evicted = invalidator.evict(List.of());
+
+        // Then
+        assertThat(evicted).isZero();
+        assertThat(cache.get(query(null, null, null))).isNotNull();
+    }
+
+    @Test
+    void cacheLookups_areCountedPerFilterShape() {
+        // Given
+        HistoryQuery btc = query(EnumCryptoCurrency.BTC, null, null);
+        cache.put(btc, "page");
+
+        // When
+        cache.get(btc);
+        cache.get(btc);
+        cache.get(query(null, LocalDateTime.now().minusDays(1), null));
+
+        // Then
+        assertThat(requests("from", "hit")).isEqualTo(2);
+        assertThat(requests("createdAt", "miss")).isEqualTo(1);
+    }
+
+    @Test
+    void evict_withSharedTier_evictsMatchingPagesOnEveryInstance() {
+        // Given
+        InMemorySharedHistoryTier shared = new InMemorySharedHistoryTier(new HistoryCacheProperties());
+        HistoryCacheProperties properties = new HistoryCacheProperties();
+        HistoryKeyIndex firstKeys = new HistoryKeyIndex();
+        HistoryKeyIndex secondKeys = new HistoryKeyIndex();
+        CacheManager first = new SpringCachingConfig().cacheManager(new SimpleMeterRegistry(), properties,
+                key -> null, Optional.of(shared), new HistoryAccessTracker(properties), firstKeys);
+        CacheManager second = new SpringCachingConfig().cacheManager(new SimpleMeterRegistry(), properties,
+                key -> null, Optional.of(shared), new HistoryAccessTracker(properties), secondKeys);
+        HistoryCacheInvalidator firstInvalidator = new HistoryCacheInvalidator(first, new SimpleMeterRegistry(),
+                Optional.of(shared), firstKeys, event -> { });
+        new HistoryCacheInvalidator(second, new SimpleMeterRegistry(), Optional.of(shared), secondKeys, event -> { });
+
+        HistoryQuery btc = query(EnumCryptoCurrency.BTC, null, null);
+        HistoryQuery sol = query(EnumCryptoCurrency.SOL, null, null);
+        first.getCache(Constants.EXCHANGE).put(btc, "page");
+        first.getCache(Constants.EXCHANGE).put(sol, "page");
+        second.getCache(Constants.EXCHANGE).get(btc);
+        second.getCache(Constants.EXCHANGE).get(sol);
+
+        // When
+        firstInvalidator.evict(List.of(conversion(EnumCryptoCurrency.BTC)));
+
+        // Then
+        assertThat(nearKeys(first)).containsExactly(sol);
+        assertThat(nearKeys(second)).containsExactly(sol);
+        assertThat(shared.get(Constants.EXCHANGE, btc)).isNull();
+        assertThat(shared.get(Constants.EXCHANGE, sol)).isNotNull();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<Object> nearKeys(CacheManager cacheManager) {
+        return ((com.github.benmanes.caffeine.cache.Cache<Object, Object>) cacheManager.getCache(Constants.EXCHANGE)
+                .getNativeCache()).asMap().keySet();
+    }
+
+    private double invalidations(String outcome) {
+        return meterRegistry.get("history.cache.invalidations").tag("outcome", outcome).counter().count();
+    }
+
+    private double requests(String shape, String result) {
+        return meterRegistry.get("history.cache.requests").tag("shape", shape).tag("result", result).counter().count();
+    }
+
+    private static HistoryQuery query(EnumCryptoCurrency from, LocalDateTime createdAtFrom, LocalDateTime createdAtTo) {
+        return HistoryQuery.of(filter(from, createdAtFrom, createdAtTo), PageRequest.of(0, 20));
+    }
+
+    private static ListCryptoConvertRequest.Filter filter(EnumCryptoCurrency from,
+                                                          LocalDateTime createdAtFrom,
+                                                          LocalDateTime createdAtTo) {
+        ListCryptoConvertRequest.Filter filter = new ListCryptoConvertRequest.Filter();
+        filter.setFrom(from);
+        filter.setCreatedAtFrom(createdAtFrom);
+        filter.setCreatedAtTo(createdAtTo);
+        return filter;
+    }
+
+    private static CryptoConvertEntity conversion(EnumCryptoCurrency from) {
+        return CryptoConvertEntity.builder()
+                .transactionId("tx-1")
+                .fromCurrency(from)
+                .toCurrency(EnumCryptoCurrency.USDT)
+                .amount(BigDecimal.ONE)
+                .convertedAmount(new BigDecimal("100000"))
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+}
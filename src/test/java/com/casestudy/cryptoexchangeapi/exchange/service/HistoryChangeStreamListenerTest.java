@@ -0,0 +1,148 @@
+package com.casestudy.cryptoexchangeapi.exchange.service;
+
+import com.casestudy.cryptoexchangeapi.base.AbstractBaseServiceTest;
+import com.casestudy.cryptoexchangeapi.exchange.cache.HistoryAccessTracker;
+import com.casestudy.cryptoexchangeapi.exchange.cache.HistoryKeyIndex;
+import com.casestudy.cryptoexchangeapi.exchange.config.HistoryCacheProperties;
+import com.casestudy.cryptoexchangeapi.exchange.config.SpringCachingConfig;
+import com.casestudy.cryptoexchangeapi.exchange.model.HistoryQuery;
+import com.casestudy.cryptoexchangeapi.exchange.model.dto.request.ListCryptoConvertRequest;
+import com.casestudy.cryptoexchangeapi.exchange.model.entity.CryptoConvertEntity;
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCryptoCurrency;
+import com.casestudy.cryptoexchangeapi.exchange.utils.Constants;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+class HistoryChangeStreamListenerTest extends AbstractBaseServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private MappingMongoConverter converter;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private Cache cache;
+
+    private HistoryCacheInvalidator historyCacheInvalidator;
+
+    private HistoryChangeStreamListener listener;
+
+    @BeforeEach
+    void setUp() {
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        when(mongoTemplate.getConverter()).thenReturn(converter);
+
+        meterRegistry = new SimpleMeterRegistry();
+        HistoryCacheProperties properties = new HistoryCacheProperties();
+        HistoryKeyIndex keyIndex = new HistoryKeyIndex();
+        CacheManager cacheManager = new SpringCachingConfig().cacheManager(meterRegistry, properties, key -> null,
+                Optional.empty(), new HistoryAccessTracker(properties), keyIndex);
+        cache = cacheManager.getCache(Constants.EXCHANGE);
+        historyCacheInvalidator = new HistoryCacheInvalidator(cacheManager, meterRegistry, Optional.empty(), keyIndex,
+                event -> { });
+        listener = new HistoryChangeStreamListener(mongoTemplate, historyCacheInvalidator, properties, meterRegistry);
+    }
+
+    @Test
+    void apply_evictsPagesTheInsertedConversionsChange() {
+        // Given
+        HistoryQuery btc = query(EnumCryptoCurrency.BTC);
+        HistoryQuery sol = query(EnumCryptoCurrency.SOL);
+        cache.put(btc, "page");
+        cache.put(sol, "page");
+
+        // When
+        listener.apply(List.of(inserted(EnumCryptoCurrency.BTC)));
+
+        // Then
+        assertThat(cache.get(btc)).isNull();
+        assertThat(cache.get(sol)).isNotNull();
+        assertThat(meterRegistry.get("history.cache.change.events").tag("outcome", "applied").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void apply_withoutInserts_keepsEveryPage() {
+        // Given
+        HistoryQuery btc = query(EnumCryptoCurrency.BTC);
+        cache.put(btc, "page");
+
+        // When
+        listener.apply(List.of());
+
+        // Then
+        assertThat(cache.get(btc)).isNotNull();
+    }
+
+    @Test
+    void clearLocal_dropsEveryPage() {
+        // Given
+        HistoryQuery sol = query(EnumCryptoCurrency.SOL);
+        cache.put(sol, "page");
+
+        // When
+        historyCacheInvalidator.clearLocal();
+
+        // Then
+        assertThat(cache.get(sol)).isNull();
+    }
+
+    @Test
+    void changeStreamsSupported_onlyOnReplicaSetsAndMongos() {
+        // When / Then
+        when(mongoTemplate.executeCommand(new Document("hello", 1))).thenReturn(new Document("isWritablePrimary", true));
+        assertThat(listener.changeStreamsSupported()).isFalse();
+
+        when(mongoTemplate.executeCommand(new Document("hello", 1))).thenReturn(new Document("setName", "rs0"));
+        assertThat(listener.changeStreamsSupported()).isTrue();
+
+        when(mongoTemplate.executeCommand(new Document("hello", 1))).thenReturn(new Document("msg", "isdbgrid"));
+        assertThat(listener.changeStreamsSupported()).isTrue();
+    }
+
+    private Document inserted(EnumCryptoCurrency from) {
+        Document document = new Document();
+        converter.write(CryptoConvertEntity.builder()
+                .id("id-1")
+                .transactionId("tx-1")
+                .fromCurrency(from)
+                .toCurrency(EnumCryptoCurrency.USDT)
+                .amount(BigDecimal.ONE)
+                .convertedAmount(new BigDecimal("100000"))
+                .createdAt(LocalDateTime.now())
+                .build(), document);
+        return document;
+    }
+
+    private static HistoryQuery query(EnumCryptoCurrency from) {
+        ListCryptoConvertRequest.Filter filter = new ListCryptoConvertRequest.Filter();
+        filter.setFrom(from);
+        return HistoryQuery.of(filter, PageRequest.of(0, 20));
+    }
+
+}
@@ -0,0 +1,123 @@
+package com.casestudy.cryptoexchangeapi.exchange.service;
+
+import com.casestudy.cryptoexchangeapi.exchange.cache.HistoryAccessTracker;
+import com.casestudy.cryptoexchangeapi.exchange.cache.HistoryKeyIndex;
+import com.casestudy.cryptoexchangeapi.exchange.config.HistoryCacheProperties;
+import com.casestudy.cryptoexchangeapi.exchange.config.SpringCachingConfig;
+import com.casestudy.cryptoexchangeapi.exchange.model.HistoryQuery;
+import com.casestudy.cryptoexchangeapi.exchange.model.dto.request.ListCryptoConvertRequest;
+import com.casestudy.cryptoexchangeapi.exchange.model.entity.CryptoConvertEntity;
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCryptoCurrency;
+import com.casestudy.cryptoexchangeapi.exchange.model.event.HistoryPagesEvictedEvent;
+import com.casestudy.cryptoexchangeapi.exchange.utils.Constants;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HistoryRefreshAheadTest {
+
+    private final Set<Object> loaded = ConcurrentHashMap.newKeySet();
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private Cache cache;
+
+    private HistoryCacheInvalidator invalidator;
+
+    private HistoryRefreshAhead refreshAhead;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        HistoryCacheProperties properties = new HistoryCacheProperties();
+        HistoryAccessTracker tracker = new HistoryAccessTracker(properties);
+        CacheLoader<Object, Object> loader = key -> {
+            loaded.add(key);
+            return "fresh";
+        };
+
+        HistoryKeyIndex keyIndex = new HistoryKeyIndex();
+        CacheManager cacheManager = new SpringCachingConfig().cacheManager(meterRegistry, properties, loader,
+                Optional.empty(), tracker, keyIndex);
+        cache = cacheManager.getCache(Constants.EXCHANGE);
+        refreshAhead = new HistoryRefreshAhead(cacheManager, tracker, loader, properties, meterRegistry);
+        invalidator = new HistoryCacheInvalidator(cacheManager, meterRegistry, Optional.empty(), keyIndex,
+                event -> refreshAhead.onPagesEvicted((HistoryPagesEvictedEvent) event));
+    }
+
+    @AfterEach
+    void tearDown() {
+        refreshAhead.shutdown();
+    }
+
+    @Test
+    void evict_reloadsHotPagesInTheBackground() throws Exception {
+        // Given
+        HistoryQuery hot = query(EnumCryptoCurrency.BTC);
+        cache.put(hot, "stale");
+        for (int i = 0; i < 3; i++) {
+            cache.get(hot);
+        }
+
+        // When
+        invalidator.evict(List.of(conversion(EnumCryptoCurrency.BTC)));
+
+        // Then
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (cache.get(hot) == null && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+        assertThat(cache.get(hot).get()).isEqualTo("fresh");
+        assertThat(meterRegistry.get("history.cache.refresh.ahead").tag("outcome", "refreshed").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void evict_leavesColdPagesEvicted() throws Exception {
+        // Given
+        HistoryQuery cold = query(EnumCryptoCurrency.ETH);
+        cache.put(cold, "stale");
+        cache.get(cold);
+
+        // When
+        invalidator.evict(List.of(conversion(EnumCryptoCurrency.ETH)));
+        TimeUnit.MILLISECONDS.sleep(50);
+
+        // Then
+        assertThat(loaded).isEmpty();
+        assertThat(cache.get(cold)).isNull();
+    }
+
+    private static HistoryQuery query(EnumCryptoCurrency from) {
+        ListCryptoConvertRequest.Filter filter = new ListCryptoConvertRequest.Filter();
+        filter.setFrom(from);
+        return HistoryQuery.of(filter, PageRequest.of(0, 20));
+    }
+
+    private static CryptoConvertEntity conversion(EnumCryptoCurrency from) {
+        return CryptoConvertEntity.builder()
+                .transactionId("tx-1")
+                .fromCurrency(from)
+                .toCurrency(EnumCryptoCurrency.USDT)
+                .amount(BigDecimal.ONE)
+                .convertedAmount(BigDecimal.TEN)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+}
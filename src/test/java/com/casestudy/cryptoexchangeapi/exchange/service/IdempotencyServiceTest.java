@@ -0,0 +1,290 @@
+package com.casestudy.cryptoexchangeapi.exchange.service;
+
+import com.casestudy.cryptoexchangeapi.base.AbstractBaseServiceTest;
+import com.casestudy.cryptoexchangeapi.exchange.config.IdempotencyProperties;
+import com.casestudy.cryptoexchangeapi.exchange.exception.IdempotencyKeyInProgressException;
+import com.casestudy.cryptoexchangeapi.exchange.exception.IdempotencyKeyReuseException;
+import com.casestudy.cryptoexchangeapi.exchange.model.CryptoConvert;
+import com.casestudy.cryptoexchangeapi.exchange.model.dto.request.ConvertRequest;
+import com.casestudy.cryptoexchangeapi.exchange.model.entity.IdempotencyRecordEntity;
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCryptoCurrency;
+import com.casestudy.cryptoexchangeapi.exchange.repository.IdempotencyRecordRepository;
+import com.mongodb.client.result.UpdateResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class IdempotencyServiceTest extends AbstractBaseServiceTest {
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private IdempotencyProperties properties;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private IdempotencyService service;
+
+    @BeforeEach
+    void setUp() {
+        properties = new IdempotencyProperties();
+        properties.setExpectedKeys(1000);
+        meterRegistry = new SimpleMeterRegistry();
+        service = new IdempotencyService(idempotencyRecordRepository, mongoTemplate, properties, meterRegistry);
+    }
+
+    @Test
+    void execute_whenKeyIsNew_runsConversionOnce_withoutMongoLookup() {
+        // Given
+        ConvertRequest request = request("2");
+
+        // When
+        CryptoConvert out = service.execute("key-1", request, () -> conversion("tx-1"));
+
+        // Then
+        assertThat(out.getTransactionId()).isEqualTo("tx-1");
+        assertThat(count("miss")).isEqualTo(1);
+        verify(idempotencyRecordRepository, never()).findById(any());
+    }
+
+    @Test
+    void execute_whenKeyRepeated_returnsRememberedConversion_fromMemory() {
+        // Given
+        ConvertRequest request = request("2");
+        AtomicInteger conversions = new AtomicInteger();
+        service.execute("key-1", request, () -> conversion("tx-" + conversions.incrementAndGet()));
+
+        // When
+        CryptoConvert repeat = service.execute("key-1", request("2.00"), () -> conversion("tx-" + conversions.incrementAndGet()));
+
+        // Then
+        assertThat(repeat.getTransactionId()).isEqualTo("tx-1");
+        assertThat(conversions).hasValue(1);
+        assertThat(count("hit")).isEqualTo(1);
+        verify(idempotencyRecordRepository, never()).findById(any());
+    }
+
+    @Test
+    void execute_whenKeyReusedForDifferentRequest_throws422() {
+        // Given
+        service.execute("key-1", request("2"), () -> conversion("tx-1"));
+
+        // When / Then
+        assertThatThrownBy(() -> service.execute("key-1", request("3"), () -> conversion("tx-2")))
+                .isInstanceOf(IdempotencyKeyReuseException.class);
+    }
+
+    @Test
+    void execute_whenKeyInFlight_joinsTheOriginalConversion() throws Exception {
+        // Given
+        ConvertRequest request = request("2");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger conversions = new AtomicInteger();
+        ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor();
+
+        try {
+            CompletableFuture<CryptoConvert> original = CompletableFuture.supplyAsync(() ->
+                    service.execute("key-1", request, () -> {
+                        conversions.incrementAndGet();
+                        started.countDown();
+                        await(release);
+                        return conversion("tx-1");
+                    }), callers);
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // When
+            CompletableFuture<CryptoConvert> repeat = CompletableFuture.supplyAsync(() ->
+                    service.execute("key-1", request, () -> conversion("tx-" + conversions.incrementAndGet())), callers);
+            while (count("join") == 0) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            // Then
+            assertThat(original.get(5, TimeUnit.SECONDS).getTransactionId()).isEqualTo("tx-1");
+            assertThat(repeat.get(5, TimeUnit.SECONDS).getTransactionId()).isEqualTo("tx-1");
+            assertThat(conversions).hasValue(1);
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void execute_whenKeyEvictedFromMemory_readsItFromMongo() {
+        // Given
+        properties.setRecentKeys(1);
+        service = new IdempotencyService(idempotencyRecordRepository, mongoTemplate, properties, meterRegistry);
+        service.execute("key-1", request("2"), () -> conversion("tx-1"));
+        service.execute("key-2", request("2"), () -> conversion("tx-2"));
+        when(idempotencyRecordRepository.findById("key-1")).thenReturn(Optional.of(IdempotencyRecordEntity.builder()
+                .key("key-1")
+                .requestFingerprint("BTC>ETH:2")
+                .createdAt(Instant.now())
+                .conversion(IdempotencyRecordEntity.Conversion.builder().transactionId("tx-1").build())
+                .build()));
+
+        // When
+        CryptoConvert repeat = service.execute("key-1", request("2"), () -> conversion("tx-3"));
+
+        // Then
+        assertThat(repeat.getTransactionId()).isEqualTo("tx-1");
+        assertThat(count("hit")).isEqualTo(1);
+        verify(idempotencyRecordRepository, times(1)).findById("key-1");
+    }
+
+    @Test
+    void claim_insertsPendingRecord_andReturnsEmpty() {
+        // When
+        Optional<CryptoConvert> claimedBefore = service.claim("key-1", request("2"));
+
+        // Then
+        assertThat(claimedBefore).isEmpty();
+        ArgumentCaptor<IdempotencyRecordEntity> record = ArgumentCaptor.forClass(IdempotencyRecordEntity.class);
+        verify(idempotencyRecordRepository).insert(record.capture());
+        assertThat(record.getValue().getKey()).isEqualTo("key-1");
+        assertThat(record.getValue().getRequestFingerprint()).isEqualTo("BTC>ETH:2");
+        assertThat(record.getValue().getConversion()).isNull();
+    }
+
+    @Test
+    void complete_storesConversionOfClaimedKey() {
+        // When
+        service.complete("key-1", request("2"), conversion("tx-1"));
+
+        // Then
+        ArgumentCaptor<IdempotencyRecordEntity> record = ArgumentCaptor.forClass(IdempotencyRecordEntity.class);
+        verify(idempotencyRecordRepository).save(record.capture());
+        assertThat(record.getValue().getKey()).isEqualTo("key-1");
+        assertThat(record.getValue().getRequestFingerprint()).isEqualTo("BTC>ETH:2");
+        assertThat(record.getValue().getConversion().getTransactionId()).isEqualTo("tx-1");
+    }
+
+    @Test
+    void claim_whenKeyClaimedAndStillConverting_throws409() {
+        // Given
+        when(idempotencyRecordRepository.insert(any(IdempotencyRecordEntity.class)))
+                .thenThrow(new DuplicateKeyException("E11000 duplicate key"));
+        when(idempotencyRecordRepository.findById("key-1")).thenReturn(Optional.of(IdempotencyRecordEntity.builder()
+                .key("key-1")
+                .requestFingerprint("BTC>ETH:2")
+                .createdAt(Instant.now())
+                .build()));
+
+        // When / Then
+        assertThatThrownBy(() -> service.claim("key-1", request("2")))
+                .isInstanceOf(IdempotencyKeyInProgressException.class);
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void claim_whenPendingClaimTimedOut_takesItOver() {
+        // Given
+        properties.setPendingTimeout(1000);
+        when(idempotencyRecordRepository.insert(any(IdempotencyRecordEntity.class)))
+                .thenThrow(new DuplicateKeyException("E11000 duplicate key"));
+        when(idempotencyRecordRepository.findById("key-1")).thenReturn(Optional.of(IdempotencyRecordEntity.builder()
+                .key("key-1")
+                .requestFingerprint("BTC>ETH:2")
+                .createdAt(Instant.now().minusSeconds(5))
+                .build()));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(IdempotencyRecordEntity.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        // When
+        Optional<CryptoConvert> claimedBefore = service.claim("key-1", request("2"));
+
+        // Then
+        assertThat(claimedBefore).isEmpty();
+    }
+
+    @Test
+    void claim_whenKeyAlreadyClaimed_returnsStoredConversion() {
+        // Given
+        when(idempotencyRecordRepository.insert(any(IdempotencyRecordEntity.class)))
+                .thenThrow(new DuplicateKeyException("E11000 duplicate key"));
+        when(idempotencyRecordRepository.findById("key-1")).thenReturn(Optional.of(IdempotencyRecordEntity.builder()
+                .key("key-1")
+                .requestFingerprint("BTC>ETH:2")
+                .conversion(IdempotencyRecordEntity.Conversion.builder().transactionId("winner").build())
+                .build()));
+
+        // When
+        Optional<CryptoConvert> claimedBefore = service.claim("key-1", request("2"));
+
+        // Then
+        assertThat(claimedBefore).map(CryptoConvert::getTransactionId).hasValue("winner");
+    }
+
+    @Test
+    void execute_whenDisabled_alwaysConverts() {
+        // Given
+        properties.setEnabled(false);
+        AtomicInteger conversions = new AtomicInteger();
+
+        // When
+        service.execute("key-1", request("2"), () -> conversion("tx-" + conversions.incrementAndGet()));
+        CryptoConvert repeat = service.execute("key-1", request("2"), () -> conversion("tx-" + conversions.incrementAndGet()));
+
+        // Then
+        assertThat(repeat.getTransactionId()).isEqualTo("tx-2");
+        assertThat(service.claim("key-1", request("2"))).isEmpty();
+        verifyNoInteractions(idempotencyRecordRepository);
+    }
+
+    private double count(String outcome) {
+        return meterRegistry.get("idempotency.requests").tag("outcome", outcome).counter().count();
+    }
+
+    private static ConvertRequest request(String amount) {
+        ConvertRequest request = new ConvertRequest();
+        request.setFrom(EnumCryptoCurrency.BTC);
+        request.setTo(EnumCryptoCurrency.ETH);
+        request.setAmount(new BigDecimal(amount));
+        return request;
+    }
+
+    private static CryptoConvert conversion(String transactionId) {
+        return CryptoConvert.builder()
+                .transactionId(transactionId)
+                .from(EnumCryptoCurrency.BTC)
+                .to(EnumCryptoCurrency.ETH)
+                .amount(new BigDecimal("2"))
+                .convertedAmount(new BigDecimal("50"))
+                .build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
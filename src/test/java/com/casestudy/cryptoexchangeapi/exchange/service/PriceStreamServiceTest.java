@@ -0,0 +1,190 @@
+package com.casestudy.cryptoexchangeapi.exchange.service;
+
+import com.casestudy.cryptoexchangeapi.base.AbstractBaseServiceTest;
+import com.casestudy.cryptoexchangeapi.exchange.config.PriceStreamProperties;
+import com.casestudy.cryptoexchangeapi.exchange.exception.InvalidCryptoPairException;
+import com.casestudy.cryptoexchangeapi.exchange.exception.PriceStreamCapacityException;
+import com.casestudy.cryptoexchangeapi.exchange.model.CryptoPair;
+import com.casestudy.cryptoexchangeapi.exchange.model.RateMatrix;
+import com.casestudy.cryptoexchangeapi.exchange.model.dto.response.PriceStreamEventResponse;
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCryptoCurrency;
+import com.casestudy.cryptoexchangeapi.exchange.model.event.QuoteBookUpdatedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+class PriceStreamServiceTest extends AbstractBaseServiceTest {
+
+    private static final CryptoPair BTC_ETH = CryptoPair.of(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH);
+    private static final CryptoPair BTC_SOL = CryptoPair.of(EnumCryptoCurrency.BTC, EnumCryptoCurrency.SOL);
+
+    @Mock
+    private QuoteBookService quoteBookService;
+
+    private PriceStreamProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private List<Runnable> drains;
+    private List<RecordingEmitter> emitters;
+    private PriceStreamService priceStreamService;
+
+    @BeforeEach
+    void setUp() {
+        properties = new PriceStreamProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        drains = new ArrayList<>();
+        emitters = new ArrayList<>();
+        priceStreamService = new PriceStreamService(quoteBookService, properties, meterRegistry, drains::add,
+                timeout -> {
+                    RecordingEmitter emitter = new RecordingEmitter(timeout);
+                    emitters.add(emitter);
+                    return emitter;
+                });
+        when(quoteBookService.snapshot()).thenReturn(RateMatrix.empty());
+    }
+
+    @Test
+    void subscribe_sendsCurrentRates() {
+        // Given
+        when(quoteBookService.snapshot()).thenReturn(matrix("100000", "4000"));
+
+        // When
+        priceStreamService.subscribe(List.of(BTC_ETH, BTC_SOL));
+        runDrains();
+
+        // Then: SOL has no quote yet, so only BTC-ETH is sent
+        assertThat(emitters.getFirst().ticks).singleElement()
+                .satisfies(tick -> assertThat(tick.getRate()).isEqualByComparingTo("25"));
+        assertThat(priceStreamService.subscriberCount()).isEqualTo(1);
+        assertThat(meterRegistry.get("price.stream.subscribers").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void onQuoteBookUpdated_sendsOnlyChangedPairs() {
+        // Given
+        RateMatrix before = matrix("100000", "4000");
+        when(quoteBookService.snapshot()).thenReturn(before);
+        priceStreamService.subscribe(List.of(BTC_ETH, CryptoPair.of(EnumCryptoCurrency.ETH, EnumCryptoCurrency.ETH)));
+        runDrains();
+        emitters.getFirst().ticks.clear();
+
+        // When
+        priceStreamService.onQuoteBookUpdated(new QuoteBookUpdatedEvent(before, matrix("110000", "4000")));
+        runDrains();
+
+        // Then
+        assertThat(emitters.getFirst().ticks).singleElement()
+                .satisfies(tick -> {
+                    assertThat(tick.getFrom()).isEqualTo(EnumCryptoCurrency.BTC);
+                    assertThat(tick.getRate()).isEqualByComparingTo("27.5");
+                });
+    }
+
+    @Test
+    void onQuoteBookUpdated_whenSubscriberIsBehind_conflatesToNewestRate() {
+        // Given: the drain of the first update has not run yet
+        RateMatrix first = matrix("100000", "4000");
+        RateMatrix second = matrix("110000", "4000");
+        RateMatrix third = matrix("120000", "4000");
+        priceStreamService.subscribe(List.of(BTC_ETH));
+
+        // When
+        priceStreamService.onQuoteBookUpdated(new QuoteBookUpdatedEvent(RateMatrix.empty(), first));
+        priceStreamService.onQuoteBookUpdated(new QuoteBookUpdatedEvent(first, second));
+        priceStreamService.onQuoteBookUpdated(new QuoteBookUpdatedEvent(second, third));
+        runDrains();
+
+        // Then
+        assertThat(emitters.getFirst().ticks).singleElement()
+                .satisfies(tick -> assertThat(tick.getRate()).isEqualByComparingTo("30"));
+        assertThat(meterRegistry.get("price.stream.dropped").tag("reason", "conflated").counter().count())
+                .isEqualTo(2);
+        assertThat(meterRegistry.get("price.stream.sent").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void drain_whenSendFails_removesSubscriber() {
+        // Given
+        priceStreamService.subscribe(List.of(BTC_ETH));
+        runDrains();
+        emitters.getFirst().failing = true;
+
+        // When
+        priceStreamService.onQuoteBookUpdated(new QuoteBookUpdatedEvent(RateMatrix.empty(), matrix("100000", "4000")));
+        runDrains();
+
+        // Then
+        assertThat(priceStreamService.subscriberCount()).isZero();
+        assertThat(meterRegistry.get("price.stream.subscribers").gauge().value()).isZero();
+    }
+
+    @Test
+    void subscribe_withTooManyPairs_throwsInvalidCryptoPairException() {
+        // Given
+        properties.setMaxPairs(1);
+
+        // When / Then
+        assertThatThrownBy(() -> priceStreamService.subscribe(List.of(BTC_ETH, BTC_SOL)))
+                .isInstanceOf(InvalidCryptoPairException.class);
+        assertThat(priceStreamService.subscriberCount()).isZero();
+    }
+
+    @Test
+    void subscribe_whenFull_throwsPriceStreamCapacityException() {
+        // Given
+        properties.setMaxSubscribers(1);
+        priceStreamService.subscribe(List.of(BTC_ETH));
+
+        // When / Then
+        assertThatThrownBy(() -> priceStreamService.subscribe(List.of(BTC_ETH)))
+                .isInstanceOf(PriceStreamCapacityException.class);
+        assertThat(priceStreamService.subscriberCount()).isEqualTo(1);
+    }
+
+    private void runDrains() {
+        while (!drains.isEmpty()) {
+            drains.removeFirst().run();
+        }
+    }
+
+    private static RateMatrix matrix(String btcUsd, String ethUsd) {
+        return RateMatrix.empty().withUsdPrices(Map.of(
+                EnumCryptoCurrency.BTC, new BigDecimal(btcUsd),
+                EnumCryptoCurrency.ETH, new BigDecimal(ethUsd)), 1_000L);
+    }
+
+    private static final class RecordingEmitter extends SseEmitter {
+
+        private final List<PriceStreamEventResponse> ticks = new ArrayList<>();
+        private boolean failing;
+
+        private RecordingEmitter(Long timeout) {
+            super(timeout);
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (failing) {
+                throw new IOException("Broken pipe");
+            }
+            builder.build().stream()
+                    .map(DataWithMediaType::getData)
+                    .filter(PriceStreamEventResponse.class::isInstance)
+                    .map(PriceStreamEventResponse.class::cast)
+                    .forEach(ticks::add);
+        }
+
+    }
+
+}
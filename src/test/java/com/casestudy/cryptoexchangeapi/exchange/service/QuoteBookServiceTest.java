@@ -0,0 +1,228 @@
+package com.casestudy.cryptoexchangeapi.exchange.service;
+
+import com.casestudy.cryptoexchangeapi.base.AbstractBaseServiceTest;
+import com.casestudy.cryptoexchangeapi.exchange.config.QuoteBookProperties;
+import com.casestudy.cryptoexchangeapi.exchange.exception.ConversionFailedException;
+import com.casestudy.cryptoexchangeapi.exchange.model.RateMatrix;
+import com.casestudy.cryptoexchangeapi.exchange.model.entity.QuoteSnapshotEntity;
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCryptoCurrency;
+import com.casestudy.cryptoexchangeapi.exchange.model.event.QuoteBookUpdatedEvent;
+import com.casestudy.cryptoexchangeapi.exchange.provider.QuoteProvider;
+import com.casestudy.cryptoexchangeapi.exchange.repository.QuoteSnapshotRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class QuoteBookServiceTest extends AbstractBaseServiceTest {
+
+    @Mock
+    private QuoteProvider quoteProvider;
+
+    @Mock
+    private QuoteSnapshotRepository quoteSnapshotRepository;
+
+    @Mock
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    private QuoteBookProperties properties;
+
+    private QuoteBookService quoteBookService;
+
+    @BeforeEach
+    void setUp() {
+        properties = new QuoteBookProperties();
+        quoteBookService = new QuoteBookService(quoteProvider, properties, quoteSnapshotRepository,
+                applicationEventPublisher);
+    }
+
+    @Test
+    void rate_beforeFirstRefresh_isNull() {
+        assertThat(quoteBookService.rate(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH)).isNull();
+    }
+
+    @Test
+    void refresh_thenRate_dividesUsdPrices() {
+        // Given
+        when(quoteProvider.usdPrices(anyCollection())).thenReturn(Map.of(
+                EnumCryptoCurrency.BTC, new BigDecimal("100000"),
+                EnumCryptoCurrency.ETH, new BigDecimal("4000")));
+
+        // When
+        quoteBookService.refresh();
+
+        // Then
+        assertThat(quoteBookService.rate(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH)).isEqualByComparingTo("25");
+        assertThat(quoteBookService.rate(EnumCryptoCurrency.ETH, EnumCryptoCurrency.BTC)).isEqualByComparingTo("0.04");
+        assertThat(quoteBookService.rate(EnumCryptoCurrency.BTC, EnumCryptoCurrency.SOL)).isNull();
+        verify(quoteProvider, times(1)).usdPrices(anyCollection());
+    }
+
+    @Test
+    void rate_whenQuotesOlderThanMaxAge_isNull() throws InterruptedException {
+        // Given
+        properties.setMaxAge(1);
+        when(quoteProvider.usdPrices(anyCollection())).thenReturn(Map.of(
+                EnumCryptoCurrency.BTC, new BigDecimal("100000"),
+                EnumCryptoCurrency.ETH, new BigDecimal("4000")));
+        quoteBookService.refresh();
+
+        // When
+        Thread.sleep(10);
+
+        // Then
+        assertThat(quoteBookService.rate(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH)).isNull();
+        assertThat(quoteBookService.snapshot().usdPrice(EnumCryptoCurrency.BTC)).isEqualByComparingTo("100000");
+    }
+
+    @Test
+    void refresh_whenUpstreamFails_keepsPreviousQuotes() {
+        // Given
+        when(quoteProvider.usdPrices(anyCollection()))
+                .thenReturn(Map.of(EnumCryptoCurrency.BTC, new BigDecimal("100000"),
+                        EnumCryptoCurrency.ETH, new BigDecimal("4000")))
+                .thenThrow(new ConversionFailedException("Upstream quotes unavailable"));
+
+        // When
+        quoteBookService.refresh();
+        quoteBookService.refresh();
+
+        // Then
+        assertThat(quoteBookService.rate(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH)).isEqualByComparingTo("25");
+        verify(quoteProvider, times(2)).usdPrices(anyCollection());
+    }
+
+    @Test
+    void disabledBook_neverRefreshes_andNeverPrices() {
+        // Given
+        properties.setEnabled(false);
+
+        // When
+        quoteBookService.refresh();
+
+        // Then
+        assertThat(quoteBookService.rate(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH)).isNull();
+        verifyNoInteractions(quoteProvider);
+        verifyNoInteractions(quoteSnapshotRepository);
+    }
+
+    @Test
+    void refresh_persistsQuoteSnapshot_andSurvivesPersistenceFailure() {
+        // Given
+        when(quoteProvider.usdPrices(anyCollection())).thenReturn(Map.of(
+                EnumCryptoCurrency.BTC, new BigDecimal("100000"),
+                EnumCryptoCurrency.ETH, new BigDecimal("4000")));
+        when(quoteSnapshotRepository.save(any(QuoteSnapshotEntity.class)))
+                .thenThrow(new IllegalStateException("mongo down"));
+
+        // When
+        quoteBookService.refresh();
+
+        // Then
+        ArgumentCaptor<QuoteSnapshotEntity> captor = ArgumentCaptor.forClass(QuoteSnapshotEntity.class);
+        verify(quoteSnapshotRepository).save(captor.capture());
+        QuoteSnapshotEntity saved = captor.getValue();
+        assertThat(saved.getId()).isEqualTo(QuoteSnapshotEntity.LATEST_ID);
+        assertThat(saved.getQuotes())
+                .extracting(QuoteSnapshotEntity.Quote::getSymbol)
+                .containsExactlyInAnyOrder(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH);
+        assertThat(saved.getQuotes().get(0).getQuotedAt().toEpochMilli())
+                .isEqualTo(quoteBookService.snapshot().usdQuotedAt(EnumCryptoCurrency.BTC));
+        assertThat(quoteBookService.rate(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH)).isEqualByComparingTo("25");
+    }
+
+    @Test
+    void restoreSnapshot_keepsOriginalTimestamps_soStaleQuotesDoNotPrice() {
+        // Given: SOL was quoted just now, ETH and BTC long ago
+        Instant now = Instant.now();
+        Instant old = now.minusSeconds(3600);
+        when(quoteSnapshotRepository.findById(QuoteSnapshotEntity.LATEST_ID)).thenReturn(Optional.of(
+                QuoteSnapshotEntity.builder()
+                        .id(QuoteSnapshotEntity.LATEST_ID)
+                        .quotes(List.of(
+                                snapshotQuote(EnumCryptoCurrency.BTC, "100000", now),
+                                snapshotQuote(EnumCryptoCurrency.ETH, "4000", now),
+                                snapshotQuote(EnumCryptoCurrency.SOL, "200", old)))
+                        .build()));
+
+        // When
+        quoteBookService.run(null);
+
+        // Then
+        assertThat(quoteBookService.rate(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH)).isEqualByComparingTo("25");
+        assertThat(quoteBookService.rate(EnumCryptoCurrency.BTC, EnumCryptoCurrency.SOL)).isNull();
+        assertThat(quoteBookService.snapshot().usdQuotedAt(EnumCryptoCurrency.SOL)).isEqualTo(old.toEpochMilli());
+        verifyNoInteractions(quoteProvider);
+    }
+
+    @Test
+    void restoreSnapshot_neverOverwritesNewerQuotes() {
+        // Given: a refresh already published a fresh BTC price
+        when(quoteProvider.usdPrices(anyCollection())).thenReturn(Map.of(
+                EnumCryptoCurrency.BTC, new BigDecimal("100000"),
+                EnumCryptoCurrency.ETH, new BigDecimal("4000")));
+        quoteBookService.refresh();
+        when(quoteSnapshotRepository.findById(QuoteSnapshotEntity.LATEST_ID)).thenReturn(Optional.of(
+                QuoteSnapshotEntity.builder()
+                        .id(QuoteSnapshotEntity.LATEST_ID)
+                        .quotes(List.of(snapshotQuote(EnumCryptoCurrency.BTC, "50000", Instant.now().minusSeconds(5))))
+                        .build()));
+
+        // When
+        quoteBookService.restoreSnapshot();
+
+        // Then
+        assertThat(quoteBookService.snapshot().usdPrice(EnumCryptoCurrency.BTC)).isEqualByComparingTo("100000");
+    }
+
+    @Test
+    void restoreSnapshot_whenPersistenceDisabled_doesNotRead() {
+        // Given
+        properties.setPersistSnapshot(false);
+
+        // When
+        quoteBookService.restoreSnapshot();
+
+        // Then
+        verifyNoInteractions(quoteSnapshotRepository);
+    }
+
+    @Test
+    void refresh_publishesUpdatedEvent() {
+        // Given
+        when(quoteProvider.usdPrices(anyCollection())).thenReturn(Map.of(
+                EnumCryptoCurrency.BTC, new BigDecimal("100000"),
+                EnumCryptoCurrency.ETH, new BigDecimal("4000")));
+        RateMatrix before = quoteBookService.snapshot();
+
+        // When
+        quoteBookService.refresh();
+
+        // Then
+        ArgumentCaptor<QuoteBookUpdatedEvent> event = ArgumentCaptor.forClass(QuoteBookUpdatedEvent.class);
+        verify(applicationEventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().previous()).isSameAs(before);
+        assertThat(event.getValue().current()).isSameAs(quoteBookService.snapshot());
+    }
+
+    private static QuoteSnapshotEntity.Quote snapshotQuote(EnumCryptoCurrency symbol, String usdPrice, Instant quotedAt) {
+        return QuoteSnapshotEntity.Quote.builder()
+                .symbol(symbol)
+                .usdPrice(new BigDecimal(usdPrice))
+                .quotedAt(quotedAt)
+                .build();
+    }
+
+}
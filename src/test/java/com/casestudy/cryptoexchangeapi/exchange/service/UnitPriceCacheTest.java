@@ -0,0 +1,215 @@
+package com.casestudy.cryptoexchangeapi.exchange.service;
+
+import com.casestudy.cryptoexchangeapi.base.AbstractBaseServiceTest;
+import com.casestudy.cryptoexchangeapi.common.utils.SingleFlight;
+import com.casestudy.cryptoexchangeapi.exchange.config.CmcProperties;
+import com.casestudy.cryptoexchangeapi.exchange.exception.ConversionFailedException;
+import com.casestudy.cryptoexchangeapi.exchange.model.CryptoPair;
+import com.casestudy.cryptoexchangeapi.exchange.model.enums.EnumCryptoCurrency;
+import com.casestudy.cryptoexchangeapi.exchange.provider.QuoteProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class UnitPriceCacheTest extends AbstractBaseServiceTest {
+
+    private static final CryptoPair BTC_ETH = CryptoPair.of(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH);
+
+    @Mock
+    private QuoteProvider quoteProvider;
+
+    private MutableClock clock;
+    private QueuedExecutor executor;
+    private UnitPriceCache unitPriceCache;
+
+    @BeforeEach
+    void setUp() {
+        CmcProperties properties = new CmcProperties();
+        properties.setCacheTtl(10_000);
+        properties.setCacheHardTtl(60_000);
+
+        clock = new MutableClock(Instant.parse("2025-10-01T00:00:00Z"));
+        executor = new QueuedExecutor();
+        SingleFlight<CryptoPair, BigDecimal> flights =
+                new SingleFlight<>("test.price.lookup", new SimpleMeterRegistry(), CryptoPair::toString);
+
+        unitPriceCache = new UnitPriceCache(quoteProvider, flights, properties, clock, executor);
+    }
+
+    @Test
+    void get_onMiss_loadsSynchronously_thenServesFromCacheWithinSoftTtl() {
+        // Given
+        when(quoteProvider.unitPrice(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH)).thenReturn(new BigDecimal("25"));
+
+        // When
+        BigDecimal first = unitPriceCache.get(BTC_ETH);
+        clock.advance(9_999);
+        BigDecimal second = unitPriceCache.get(BTC_ETH);
+
+        // Then
+        assertThat(first).isEqualByComparingTo("25");
+        assertThat(second).isEqualByComparingTo("25");
+        assertThat(executor.pending).isEmpty();
+        verify(quoteProvider, times(1)).unitPrice(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH);
+    }
+
+    @Test
+    void get_betweenSoftAndHardTtl_servesStale_andSchedulesExactlyOneRefresh() {
+        // Given
+        when(quoteProvider.unitPrice(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH))
+                .thenReturn(new BigDecimal("25"), new BigDecimal("26"));
+        unitPriceCache.get(BTC_ETH);
+        clock.advance(15_000);
+
+        // When: several stale reads before the refresh runs
+        BigDecimal a = unitPriceCache.get(BTC_ETH);
+        BigDecimal b = unitPriceCache.get(BTC_ETH);
+        BigDecimal c = unitPriceCache.get(BTC_ETH);
+
+        // Then: stale value served, one refresh queued
+        assertThat(a).isEqualByComparingTo("25");
+        assertThat(b).isEqualByComparingTo("25");
+        assertThat(c).isEqualByComparingTo("25");
+        assertThat(executor.pending).hasSize(1);
+
+        // When: the refresh runs
+        executor.runAll();
+
+        // Then: fresh value served without another upstream call
+        assertThat(unitPriceCache.get(BTC_ETH)).isEqualByComparingTo("26");
+        verify(quoteProvider, times(2)).unitPrice(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH);
+    }
+
+    @Test
+    void get_whenBackgroundRefreshFails_keepsServingStaleUntilHardTtl() {
+        // Given
+        when(quoteProvider.unitPrice(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH))
+                .thenReturn(new BigDecimal("25"))
+                .thenThrow(new ConversionFailedException("Upstream conversion unavailable"));
+        unitPriceCache.get(BTC_ETH);
+        clock.advance(20_000);
+
+        // When
+        unitPriceCache.get(BTC_ETH);
+        executor.runAll();
+
+        // Then: still stale-served, and a new refresh may be scheduled again
+        assertThat(unitPriceCache.get(BTC_ETH)).isEqualByComparingTo("25");
+        assertThat(executor.pending).hasSize(1);
+    }
+
+    @Test
+    void get_pastHardTtl_loadsSynchronously() {
+        // Given
+        when(quoteProvider.unitPrice(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH))
+                .thenReturn(new BigDecimal("25"), new BigDecimal("30"));
+        unitPriceCache.get(BTC_ETH);
+        clock.advance(60_000);
+
+        // When
+        BigDecimal price = unitPriceCache.get(BTC_ETH);
+
+        // Then
+        assertThat(price).isEqualByComparingTo("30");
+        assertThat(executor.pending).isEmpty();
+        verify(quoteProvider, times(2)).unitPrice(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH);
+    }
+
+    @Test
+    void get_onMiss_whenUpstreamFails_propagates() {
+        // Given
+        when(quoteProvider.unitPrice(EnumCryptoCurrency.BTC, EnumCryptoCurrency.ETH))
+                .thenThrow(new ConversionFailedException("Upstream conversion unavailable"));
+
+        // When / Then
+        assertThatThrownBy(() -> unitPriceCache.get(BTC_ETH))
+                .isInstanceOf(ConversionFailedException.class)
+                .hasMessageContaining("Upstream conversion unavailable");
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(long millis) {
+            now = now.plusMillis(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+
+    }
+
+    private static final class QueuedExecutor extends AbstractExecutorService {
+
+        private final List<Runnable> pending = new ArrayList<>();
+
+        void runAll() {
+            List<Runnable> tasks = new ArrayList<>(pending);
+            pending.clear();
+            tasks.forEach(Runnable::run);
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            pending.add(command);
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return List.of();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+
+    }
+
+}